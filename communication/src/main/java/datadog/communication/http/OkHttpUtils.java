@@ -350,8 +350,10 @@ public final class OkHttpUtils {
     @Override
     public void writeTo(BufferedSink sink) throws IOException {
       for (ByteBuffer buffer : buffers) {
-        while (buffer.hasRemaining()) {
-          sink.write(buffer);
+        // write a view, so the buffers can still be written again after a failed request
+        ByteBuffer view = buffer.duplicate();
+        while (view.hasRemaining()) {
+          sink.write(view);
         }
       }
     }
@@ -0,0 +1,19 @@
+package datadog.context.propagation;
+
+/**
+ * A {@link CarrierSetter} for carriers that natively store values as bytes, such as messaging
+ * headers. Propagators that already hold a value as bytes can use it to avoid a round-trip through
+ * {@link String}.
+ *
+ * @param <C> the type of carrier.
+ */
+public interface BinaryCarrierSetter<C> extends CarrierSetter<C> {
+  /**
+   * Sets a carrier key/value pair, the value being the bytes to store as is.
+   *
+   * @param carrier the carrier to store key/value into.
+   * @param key the key to set.
+   * @param value the value to set, the carrier takes ownership of the array.
+   */
+  void set(C carrier, String key, byte[] value);
+}
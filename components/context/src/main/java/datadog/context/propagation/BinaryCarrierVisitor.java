@@ -0,0 +1,21 @@
+package datadog.context.propagation;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link CarrierVisitor} for carriers that natively store values as bytes, such as messaging
+ * headers. Propagators that decode values from bytes can use it to avoid a round-trip through
+ * {@link String}.
+ *
+ * @param <C> the type of carrier.
+ */
+public interface BinaryCarrierVisitor<C> extends CarrierVisitor<C> {
+  /**
+   * Iterates over the carrier content and calls the visitor callback for every key/value found,
+   * with the value as stored by the carrier.
+   *
+   * @param carrier the carrier to iterate over.
+   * @param visitor the callback to call for each carrier key/value pair found.
+   */
+  void forEachKeyBinaryValue(C carrier, BiConsumer<String, byte[]> visitor);
+}
@@ -119,6 +119,17 @@ public class JsonReader implements AutoCloseable {
    * @throws IOException If an I/O error occurs.
    */
   public String nextName() throws IOException {
+    return nextName(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Reads the next property name in an object, truncated to a maximum length.
+   *
+   * @param maxLength The maximum number of characters to keep, the others are read and discarded.
+   * @return The property name or null if the object is empty or ended.
+   * @throws IOException If an I/O error occurs.
+   */
+  public String nextName(int maxLength) throws IOException {
     char c = advanceUpToNextValueChar();
     if (c == '}') {
       return null;
@@ -126,7 +137,7 @@ public class JsonReader implements AutoCloseable {
     if (c != '"') {
       throw unexpectedSyntaxError("'\"'", c);
     }
-    String name = readString();
+    String name = readString(maxLength);
     consumeWhitespace();
     c = peek();
     if (c != ':') {
@@ -179,11 +190,38 @@ public class JsonReader implements AutoCloseable {
    * @throws IOException If an I/O error occurs.
    */
   public String nextString() throws IOException {
+    return nextString(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Reads a string value, truncated to a maximum length.
+   *
+   * @param maxLength The maximum number of characters to keep, the others are read and discarded.
+   * @return The string value.
+   * @throws IOException If an I/O error occurs.
+   */
+  public String nextString(int maxLength) throws IOException {
     char c = advanceUpToNextValueChar();
     if (c != '"') {
       throw unexpectedSyntaxError("'\"'", c);
     }
-    return readString();
+    return readString(maxLength);
+  }
+
+  /**
+   * Reads a null value.
+   *
+   * @throws IOException If the value is not null, or a reader error occurs.
+   */
+  public void nextNull() throws IOException {
+    char c = advanceUpToNextValueChar();
+    if (c != 'n') {
+      throw unexpectedSyntaxError("'null'", c);
+    }
+    String value = readLiteral(4);
+    if (!"null".equals(value)) {
+      throw unexpectedSyntaxError("'null'", value);
+    }
   }
 
   /**
@@ -243,6 +281,94 @@ public class JsonReader implements AutoCloseable {
     return c != ']' && c != '}';
   }
 
+  /**
+   * Peeks the type of the next value without consuming it.
+   *
+   * @return The type of the next value.
+   * @throws IOException If there is no value at this position, or a reader error occurs.
+   */
+  public ValueType peekValueType() throws IOException {
+    char c = advanceUpToNextValueChar();
+    switch (c) {
+      case '"':
+        return ValueType.STRING;
+      case '{':
+        return ValueType.OBJECT;
+      case '[':
+        return ValueType.ARRAY;
+      case 't':
+      case 'f':
+        return ValueType.BOOLEAN;
+      case 'n':
+        return ValueType.NULL;
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9':
+        return ValueType.NUMBER;
+      default:
+        throw syntaxError("Unexpected character: " + c);
+    }
+  }
+
+  /**
+   * Skips the next value, with all the values it contains, without keeping them.
+   *
+   * @throws IOException If the JSON is invalid, or a reader error occurs.
+   */
+  public void skipValue() throws IOException {
+    // iterative so that deeply nested values cannot exhaust the stack
+    int depth = 0;
+    do {
+      if (depth > 0 && !hasNext()) {
+        if (peek() == '}') {
+          endObject();
+        } else {
+          endArray();
+        }
+        depth--;
+        continue;
+      }
+      switch (peekValueType()) {
+        case OBJECT:
+          beginObject();
+          depth++;
+          break;
+        case ARRAY:
+          beginArray();
+          depth++;
+          break;
+        case STRING:
+          readString(0);
+          if (this.structure.objectStarted()) {
+            consumeWhitespace();
+            if (peek() == ':') {
+              // a name, its value follows
+              advance();
+              this.structure.addName();
+            }
+          }
+          break;
+        case NUMBER:
+          readNumber();
+          break;
+        case BOOLEAN:
+          nextBoolean();
+          break;
+        case NULL:
+          nextNull();
+          break;
+      }
+    } while (depth > 0);
+  }
+
   /**
    * Reads the next value and automatically detects its type.
    *
@@ -369,8 +495,8 @@ public class JsonReader implements AutoCloseable {
     }
   }
 
-  private String readString() throws IOException {
-    StringBuilder sb = new StringBuilder();
+  private String readString(int maxLength) throws IOException {
+    StringBuilder sb = new StringBuilder(Math.min(maxLength, 16));
     advance(); // Skip opening quote
     while (true) {
       char c = peek();
@@ -385,32 +511,35 @@ public class JsonReader implements AutoCloseable {
           case '"':
           case '\\':
           case '/':
-            sb.append(c);
             break;
           case 'b':
-            sb.append('\b');
+            c = '\b';
             break;
           case 'f':
-            sb.append('\f');
+            c = '\f';
             break;
           case 'n':
-            sb.append('\n');
+            c = '\n';
             break;
           case 'r':
-            sb.append('\r');
+            c = '\r';
             break;
           case 't':
-            sb.append('\t');
+            c = '\t';
             break;
           case 'u':
-            sb.append(readUnicodeEscape());
+            c = readUnicodeEscape();
+            if (sb.length() < maxLength) {
+              sb.append(c);
+            }
             continue;
           default:
             throw syntaxError("Invalid escape sequence: \\" + c);
         }
       } else if (c < ' ') {
         throw syntaxError("Unterminated string");
-      } else {
+      }
+      if (sb.length() < maxLength) {
         sb.append(c);
       }
       advance();
@@ -512,4 +641,14 @@ public class JsonReader implements AutoCloseable {
   public void close() throws IOException {
     this.reader.close();
   }
+
+  /** The types of JSON values. */
+  public enum ValueType {
+    OBJECT,
+    ARRAY,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL
+  }
 }
@@ -247,6 +247,92 @@ class JsonReaderTest {
         "Failed to detect invalid string value");
   }
 
+  @Test
+  void testReadTruncatedString() {
+    String json = "{\"abcdef\":\"ab\\u00C9\\ncdef\",\"next\":\"value\"}";
+    try (JsonReader reader = new JsonReader(json)) {
+      reader.beginObject();
+      assertEquals("abc", reader.nextName(3));
+      assertEquals("abÉ\n", reader.nextString(4));
+      assertEquals("", reader.nextName(0));
+      assertEquals("value", reader.nextString(100));
+      reader.endObject();
+    } catch (IOException e) {
+      fail("Failed to read truncated JSON strings", e);
+    }
+  }
+
+  @Test
+  void testPeekValueType() {
+    String json = "[{},[],\"bar\",-3.14,true,null]";
+    try (JsonReader reader = new JsonReader(json)) {
+      reader.beginArray();
+      assertEquals(JsonReader.ValueType.OBJECT, reader.peekValueType());
+      reader.skipValue();
+      assertEquals(JsonReader.ValueType.ARRAY, reader.peekValueType());
+      reader.skipValue();
+      assertEquals(JsonReader.ValueType.STRING, reader.peekValueType());
+      assertEquals("bar", reader.nextString());
+      assertEquals(JsonReader.ValueType.NUMBER, reader.peekValueType());
+      assertEquals(-3.14, reader.nextDouble(), 0.01);
+      assertEquals(JsonReader.ValueType.BOOLEAN, reader.peekValueType());
+      assertTrue(reader.nextBoolean());
+      assertEquals(JsonReader.ValueType.NULL, reader.peekValueType());
+      reader.nextNull();
+      assertFalse(reader.hasNext());
+      reader.endArray();
+    } catch (IOException e) {
+      fail("Failed to peek JSON value types", e);
+    }
+  }
+
+  @Test
+  void testSkipValue() {
+    String json =
+        "{\"skipped\":{\"a\":[1,{\"b\":\"}\"},[]],\"c\":{\"d\":null,\"e\":false}},\"kept\":42}";
+    try (JsonReader reader = new JsonReader(json)) {
+      reader.beginObject();
+      assertEquals("skipped", reader.nextName());
+      reader.skipValue();
+      assertEquals("kept", reader.nextName());
+      assertEquals(42, reader.nextInt());
+      assertFalse(reader.hasNext());
+      reader.endObject();
+    } catch (IOException e) {
+      fail("Failed to skip JSON value", e);
+    }
+  }
+
+  @Test
+  void testSkipDeeplyNestedValue() {
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      json.append("[{\"a\":");
+    }
+    json.append("1");
+    for (int i = 0; i < 100_000; i++) {
+      json.append("}]");
+    }
+    try (JsonReader reader = new JsonReader(json.toString())) {
+      reader.skipValue();
+    } catch (IOException e) {
+      fail("Failed to skip deeply nested JSON value", e);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "}", "]", "[1,2", "{\"a\":1", "bar"})
+  void testInvalidSkipValue(String json) {
+    assertThrows(
+        IOException.class,
+        () -> {
+          try (JsonReader reader = new JsonReader(json)) {
+            reader.skipValue();
+          }
+        },
+        "Failed to detect invalid value");
+  }
+
   @Test
   void testReadInt() {
     assertDoesNotThrow(
@@ -0,0 +1,94 @@
+package datadog.trace.bootstrap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark comparing context store access for keys with an injected field against keys that fall
+ * back to the weak store, such as bootstrap classes.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(8)
+public class ContextStoreBenchmark {
+  private static final Factory FACTORY = new Factory();
+
+  @Param({"1024"})
+  int keyCount;
+
+  private FieldBackedContextStore store;
+  private FieldBackedKey[] fieldBackedKeys;
+  private Object[] weakKeys;
+
+  @Setup
+  public void setup() {
+    store = FieldBackedContextStores.getContextStore(0);
+    fieldBackedKeys = new FieldBackedKey[keyCount];
+    weakKeys = new Object[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      fieldBackedKeys[i] = new FieldBackedKey();
+      weakKeys[i] = new Object();
+      store.put(fieldBackedKeys[i], i);
+      store.put(weakKeys[i], i);
+    }
+  }
+
+  @Benchmark
+  public Object getFieldBacked() {
+    return store.get(fieldBackedKeys[ThreadLocalRandom.current().nextInt(keyCount)]);
+  }
+
+  @Benchmark
+  public Object getWeak() {
+    return store.get(weakKeys[ThreadLocalRandom.current().nextInt(keyCount)]);
+  }
+
+  @Benchmark
+  public Object computeIfAbsentFieldBacked() {
+    return store.computeIfAbsent(
+        fieldBackedKeys[ThreadLocalRandom.current().nextInt(keyCount)], FACTORY);
+  }
+
+  @Benchmark
+  public Object computeIfAbsentWeak() {
+    return store.computeIfAbsent(weakKeys[ThreadLocalRandom.current().nextInt(keyCount)], FACTORY);
+  }
+
+  @Benchmark
+  public Object putAndRemoveWeak() {
+    Object key = weakKeys[ThreadLocalRandom.current().nextInt(keyCount)];
+    store.put(key, key);
+    return store.remove(key);
+  }
+
+  static final class FieldBackedKey implements FieldBackedContextAccessor {
+    private volatile Object context;
+
+    @Override
+    public Object $get$__datadogContext$(int storeId) {
+      return context;
+    }
+
+    @Override
+    public void $put$__datadogContext$(int storeId, Object context) {
+      this.context = context;
+    }
+  }
+
+  static final class Factory implements ContextStore.Factory<Object> {
+    @Override
+    public Object create() {
+      return new Object();
+    }
+  }
+}
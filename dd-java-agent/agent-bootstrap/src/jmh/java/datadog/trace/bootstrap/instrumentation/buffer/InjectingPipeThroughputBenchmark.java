@@ -0,0 +1,124 @@
+package datadog.trace.bootstrap.instrumentation.buffer;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the injecting pipes on a large HTML response written in chunks, as a
+ * servlet container would. The markers are only found at the end of the response, so that the
+ * whole response is scanned while filtering.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class InjectingPipeThroughputBenchmark {
+  private static final byte[] CONTENT_BYTES = "<script/>".getBytes(StandardCharsets.UTF_8);
+  private static final char[] CONTENT_CHARS = "<script/>".toCharArray();
+
+  @Param({"1048576"})
+  int responseSize;
+
+  @Param({"8192"})
+  int chunkSize;
+
+  @Param({"</head>", "</head>,</body>"})
+  String markers;
+
+  private byte[] responseBytes;
+  private char[] responseChars;
+  private byte[][] markerBytes;
+  private char[][] markerChars;
+  private ByteArrayOutputStream bytesDownstream;
+  private CharArrayWriter charsDownstream;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    StringBuilder html = new StringBuilder(responseSize).append("<html><head>");
+    int line = 0;
+    while (html.length() < responseSize) {
+      html.append("<div class=\"row\"><a href=\"/items/")
+          .append(line++)
+          .append("\">item</a><span>some <b>text</b> &lt;/head&gt;</span></div>\n");
+    }
+    html.append("</head><body></body></html>");
+    String response = html.toString();
+    responseBytes = response.getBytes(StandardCharsets.UTF_8);
+    responseChars = response.toCharArray();
+
+    String[] split = markers.split(",");
+    markerBytes = new byte[split.length][];
+    markerChars = new char[split.length][];
+    for (int i = 0; i < split.length; i++) {
+      markerBytes[i] = split[i].getBytes(StandardCharsets.UTF_8);
+      markerChars[i] = split[i].toCharArray();
+    }
+    bytesDownstream = new ByteArrayOutputStream(responseBytes.length + CONTENT_BYTES.length);
+    charsDownstream = new CharArrayWriter(responseChars.length + CONTENT_CHARS.length);
+  }
+
+  @Benchmark
+  public Object outputStreamWithPipe() throws Exception {
+    bytesDownstream.reset();
+    writeBytes(
+        new InjectingPipeOutputStream(
+            bytesDownstream, markerBytes, CONTENT_BYTES, null, null, null));
+    return bytesDownstream;
+  }
+
+  @Benchmark
+  public Object outputStreamWithoutPipe() throws Exception {
+    bytesDownstream.reset();
+    writeBytes(bytesDownstream);
+    return bytesDownstream;
+  }
+
+  @Benchmark
+  public Object writerWithPipe() throws Exception {
+    charsDownstream.reset();
+    writeChars(
+        new InjectingPipeWriter(charsDownstream, markerChars, CONTENT_CHARS, null, null, null));
+    return charsDownstream;
+  }
+
+  @Benchmark
+  public Object writerWithoutPipe() throws Exception {
+    charsDownstream.reset();
+    writeChars(charsDownstream);
+    return charsDownstream;
+  }
+
+  private void writeBytes(OutputStream out) throws Exception {
+    for (int i = 0; i < responseBytes.length; i += chunkSize) {
+      out.write(responseBytes, i, Math.min(chunkSize, responseBytes.length - i));
+    }
+    out.close();
+  }
+
+  private void writeChars(Writer out) throws Exception {
+    for (int i = 0; i < responseChars.length; i += chunkSize) {
+      out.write(responseChars, i, Math.min(chunkSize, responseChars.length - i));
+    }
+    out.close();
+  }
+}
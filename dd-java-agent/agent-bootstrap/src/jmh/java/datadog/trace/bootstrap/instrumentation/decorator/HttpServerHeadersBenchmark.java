@@ -0,0 +1,277 @@
+package datadog.trace.bootstrap.instrumentation.decorator;
+
+import static datadog.trace.api.gateway.Events.EVENTS;
+import static datadog.trace.bootstrap.instrumentation.api.AgentSpan.fromContext;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.context.Context;
+import datadog.trace.api.GlobalTracer;
+import datadog.trace.api.gateway.Flow;
+import datadog.trace.api.gateway.RequestContextSlot;
+import datadog.trace.api.gateway.SubscriptionService;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.URIDataAdapter;
+import datadog.trace.bootstrap.instrumentation.api.URIDefaultDataAdapter;
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.common.writer.Writer;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the header walks of a server request, from the context extraction to the response,
+ * through servlet-style carriers which enumerate their header names and look each value up.
+ *
+ * <p>With the AppSec callbacks registered, the request headers are visited once for both the
+ * security testing markers and the header callbacks, and the response headers once for both the
+ * header tags and the header callbacks.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 4, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 4, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(
+    value = 1,
+    jvmArgsAppend = "-Ddd.trace.header.tags=content-type,x-request-id,user-agent:http.useragent")
+public class HttpServerHeadersBenchmark {
+
+  @Param({"false", "true"})
+  boolean appSecCallbacks;
+
+  Request request;
+  Response response;
+  BenchmarkHttpServerDecorator decorator;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Map<String, String> requestHeaders = new LinkedHashMap<>();
+    requestHeaders.put("Host", "foo.bar:4711");
+    requestHeaders.put("User-Agent", "Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Firefox/128.0");
+    requestHeaders.put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9");
+    requestHeaders.put("Accept-Language", "en-US,en;q=0.5");
+    requestHeaders.put("Accept-Encoding", "gzip, deflate, br");
+    requestHeaders.put("Connection", "keep-alive");
+    requestHeaders.put("Cookie", "JSESSIONID=0123456789ABCDEF");
+    requestHeaders.put("X-Request-Id", "5f0c1a2b-3c4d-4e5f-8a9b-0c1d2e3f4a5b");
+    request = new Request("GET", URI.create("https://foo.bar:4711/users/42"), requestHeaders);
+
+    Map<String, String> responseHeaders = new LinkedHashMap<>();
+    responseHeaders.put("Content-Type", "application/json");
+    responseHeaders.put("Content-Length", "1024");
+    responseHeaders.put("Date", "Mon, 19 Oct 2026 12:00:00 GMT");
+    responseHeaders.put("Cache-Control", "no-cache");
+    responseHeaders.put("Vary", "Accept-Encoding");
+    responseHeaders.put("X-Request-Id", "5f0c1a2b-3c4d-4e5f-8a9b-0c1d2e3f4a5b");
+    response = new Response(200, responseHeaders);
+
+    CoreTracer tracer =
+        CoreTracer.builder().strictTraceWrites(true).writer(new NoOpWriter()).build();
+    if (appSecCallbacks) {
+      SubscriptionService ss = tracer.getSubscriptionService(RequestContextSlot.APPSEC);
+      Object requestData = new Object();
+      ss.registerCallback(EVENTS.requestStarted(), () -> new Flow.ResultFlow<>(requestData));
+      ss.registerCallback(EVENTS.requestHeader(), (ctx, name, value) -> {});
+      ss.registerCallback(EVENTS.requestHeaderDone(), ctx -> Flow.ResultFlow.empty());
+      ss.registerCallback(EVENTS.responseStarted(), (ctx, status) -> Flow.ResultFlow.empty());
+      ss.registerCallback(EVENTS.responseHeader(), (ctx, name, value) -> {});
+      ss.registerCallback(EVENTS.responseHeaderDone(), ctx -> Flow.ResultFlow.empty());
+    }
+    GlobalTracer.forceRegister(tracer);
+    decorator = new BenchmarkHttpServerDecorator();
+  }
+
+  @Benchmark
+  public AgentSpan requestAndResponse() {
+    Context context = decorator.startSpan(request, decorator.extract(request));
+    AgentSpan span = fromContext(context);
+    decorator.onRequest(span, null, request, context);
+    decorator.onResponse(span, response);
+    span.finish();
+    return span;
+  }
+
+  public static class Request {
+    private final String method;
+    private final URIDataAdapter uriDataAdapter;
+    private final Map<String, String> headers;
+
+    public Request(String method, URI uri, Map<String, String> headers) {
+      this.method = method;
+      this.uriDataAdapter = new URIDefaultDataAdapter(uri);
+      this.headers = headers;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public URIDataAdapter uriDataAdapter() {
+      return uriDataAdapter;
+    }
+
+    public Enumeration<String> getHeaderNames() {
+      return Collections.enumeration(headers.keySet());
+    }
+
+    public String getHeader(String name) {
+      return headers.get(name);
+    }
+  }
+
+  public static class Response {
+    private final int status;
+    private final Map<String, String> headers;
+
+    public Response(int status, Map<String, String> headers) {
+      this.status = status;
+      this.headers = headers;
+    }
+
+    public int getStatus() {
+      return status;
+    }
+
+    public Collection<String> getHeaderNames() {
+      return headers.keySet();
+    }
+
+    public String getHeader(String name) {
+      return headers.get(name);
+    }
+  }
+
+  static final class RequestGetter implements AgentPropagation.ContextVisitor<Request> {
+    static final RequestGetter GETTER = new RequestGetter();
+
+    @Override
+    public void forEachKey(Request carrier, AgentPropagation.KeyClassifier classifier) {
+      Enumeration<String> headerNames = carrier.getHeaderNames();
+      while (headerNames.hasMoreElements()) {
+        String header = headerNames.nextElement();
+        if (!classifier.accept(header, carrier.getHeader(header))) {
+          return;
+        }
+      }
+    }
+  }
+
+  static final class ResponseGetter implements AgentPropagation.ContextVisitor<Response> {
+    static final ResponseGetter GETTER = new ResponseGetter();
+
+    @Override
+    public void forEachKey(Response carrier, AgentPropagation.KeyClassifier classifier) {
+      for (String header : carrier.getHeaderNames()) {
+        if (!classifier.accept(header, carrier.getHeader(header))) {
+          return;
+        }
+      }
+    }
+  }
+
+  public static class BenchmarkHttpServerDecorator
+      extends HttpServerDecorator<Request, Void, Response, Request> {
+
+    private static final CharSequence COMPONENT = UTF8BytesString.create("benchmark");
+
+    private final CharSequence SPAN_NAME;
+
+    public BenchmarkHttpServerDecorator() {
+      this.SPAN_NAME = UTF8BytesString.create(this.operationName());
+    }
+
+    @Override
+    protected String[] instrumentationNames() {
+      return new String[] {"benchmark"};
+    }
+
+    @Override
+    protected CharSequence component() {
+      return COMPONENT;
+    }
+
+    @Override
+    protected AgentPropagation.ContextVisitor<Request> getter() {
+      return RequestGetter.GETTER;
+    }
+
+    @Override
+    protected AgentPropagation.ContextVisitor<Response> responseGetter() {
+      return ResponseGetter.GETTER;
+    }
+
+    @Override
+    public CharSequence spanName() {
+      return SPAN_NAME;
+    }
+
+    @Override
+    protected String method(Request request) {
+      return request.getMethod();
+    }
+
+    @Override
+    protected URIDataAdapter url(Request request) {
+      return request.uriDataAdapter();
+    }
+
+    @Override
+    protected String peerHostIP(Void connection) {
+      return null;
+    }
+
+    @Override
+    protected int peerPort(Void connection) {
+      return 0;
+    }
+
+    @Override
+    protected int status(Response response) {
+      return response.getStatus();
+    }
+
+    @Override
+    protected String getRequestHeader(Request request, String key) {
+      return request.getHeader(key);
+    }
+  }
+
+  private static class NoOpWriter implements Writer {
+    @Override
+    public void write(final List<DDSpan> trace) {}
+
+    @Override
+    public void start() {}
+
+    @Override
+    public boolean flush() {
+      return false;
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void incrementDropCounts(final int spanCount) {}
+  }
+}
@@ -2,7 +2,8 @@ package datadog.trace.bootstrap;
 
 /**
  * {@link ContextStore} that attempts to store context in its keys by using bytecode-injected
- * fields. Delegates to a lazy {@link WeakMap} for keys that don't have a field for this store.
+ * fields. Delegates to a lazy {@link WeakMapContextStore} for keys that don't have a field for this
+ * store.
  */
 public final class FieldBackedContextStore implements ContextStore<Object, Object> {
   final int storeId;
@@ -94,7 +95,7 @@ public final class FieldBackedContextStore implements ContextStore<Object, Objec
     }
   }
 
-  // only create WeakMap-based fall-back when we need it
+  // only create weak fall-back when we need it
   private volatile WeakMapContextStore<Object, Object> weakStore;
   private final Object synchronizationInstance = new Object();
 
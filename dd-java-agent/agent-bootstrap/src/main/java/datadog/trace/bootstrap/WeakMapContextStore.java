@@ -1,17 +1,26 @@
 package datadog.trace.bootstrap;
 
 import datadog.trace.api.internal.VisibleForTesting;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Weak {@link ContextStore} that acts as a fall-back when field-injection isn't possible.
  *
- * <p>This class should be created lazily because it uses weak maps with background cleanup.
+ * <p>Keys are compared by identity and weakly referenced from a {@link ConcurrentHashMap}, so
+ * lookups never take a lock. Entries whose keys have been collected are expunged by whichever
+ * thread next accesses the store, instead of by a background task. Once the store is full, new
+ * entries evict an arbitrary existing entry rather than taking a global lock to decide which.
  */
 final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   private static final int DEFAULT_MAX_SIZE = 50_000;
 
   private final int maxSize;
-  private final WeakMap<Object, Object> map = WeakMap.Supplier.newWeakMap();
+  private final ConcurrentHashMap<Object, V> map = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> staleKeys = new ReferenceQueue<>();
 
   public WeakMapContextStore(int maxSize) {
     this.maxSize = maxSize;
@@ -22,34 +31,30 @@ final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public V get(final K key) {
-    return (V) map.get(key);
+    expungeStaleKeys();
+    return map.get(new LookupKey(key));
   }
 
   @Override
   public void put(final K key, final V context) {
-    if (map.size() < maxSize) {
-      map.put(key, context);
+    expungeStaleKeys();
+    if (null == context) {
+      map.remove(new LookupKey(key));
+    } else if (null == map.replace(new LookupKey(key), context)) {
+      evictIfFull();
+      map.put(new WeakKey(key, staleKeys), context);
     }
   }
 
   @Override
   public V putIfAbsent(final K key, final V context) {
     V existingContext = get(key);
-    if (null == existingContext) {
-      // This whole part with using synchronized is only because
-      // we want to avoid prematurely calling the factory if
-      // someone else is doing a putIfAbsent at the same time.
-      // There is still the possibility that there is a concurrent
-      // call to put that will win, but that is indistinguishable
-      // from the put happening right after the putIfAbsent.
-      synchronized (map) {
-        existingContext = get(key);
-        if (null == existingContext) {
-          existingContext = context;
-          put(key, existingContext);
-        }
+    if (null == existingContext && null != context) {
+      evictIfFull();
+      existingContext = map.putIfAbsent(new WeakKey(key, staleKeys), context);
+      if (null == existingContext) {
+        existingContext = context;
       }
     }
     return existingContext;
@@ -64,17 +69,14 @@ final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   public V computeIfAbsent(K key, KeyAwareFactory<? super K, V> contextFactory) {
     V existingContext = get(key);
     if (null == existingContext) {
-      // This whole part with using synchronized is only because
-      // we want to avoid prematurely calling the factory if
-      // someone else is doing a putIfAbsent at the same time.
-      // There is still the possibility that there is a concurrent
-      // call to put that will win, but that is indistinguishable
-      // from the put happening right after the putIfAbsent.
-      synchronized (map) {
-        existingContext = get(key);
+      // the factory is called outside of the map, as it may use this store or another one,
+      // racing threads may each create a context but they all get the one that was stored first
+      V context = contextFactory.create(key);
+      if (null != context) {
+        evictIfFull();
+        existingContext = map.putIfAbsent(new WeakKey(key, staleKeys), context);
         if (null == existingContext) {
-          existingContext = contextFactory.create(key);
-          put(key, existingContext);
+          existingContext = context;
         }
       }
     }
@@ -82,13 +84,85 @@ final class WeakMapContextStore<K, V> implements ContextStore<K, V> {
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public V remove(final K key) {
-    return (V) map.remove(key);
+    expungeStaleKeys();
+    return map.remove(new LookupKey(key));
   }
 
   @VisibleForTesting
   int size() {
+    expungeStaleKeys();
     return map.size();
   }
+
+  private void evictIfFull() {
+    if (map.size() >= maxSize) {
+      // concurrent evictions may remove a few more entries than needed, which is fine
+      Iterator<Object> keys = map.keySet().iterator();
+      if (keys.hasNext()) {
+        keys.next();
+        keys.remove();
+      }
+    }
+  }
+
+  private void expungeStaleKeys() {
+    Reference<?> staleKey;
+    while (null != (staleKey = staleKeys.poll())) {
+      map.remove(staleKey);
+    }
+  }
+
+  /** Weak identity key stored in the map. */
+  static final class WeakKey extends WeakReference<Object> {
+    private final int hashCode;
+
+    WeakKey(final Object key, final ReferenceQueue<Object> queue) {
+      super(key, queue);
+      this.hashCode = System.identityHashCode(key);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) {
+        return true;
+      }
+      Object key = get();
+      if (null == key) {
+        // cleared keys only match themselves, so they can only be removed by the expunging
+        return false;
+      }
+      if (other instanceof WeakKey) {
+        return key == ((WeakKey) other).get();
+      }
+      return other instanceof LookupKey && key == ((LookupKey) other).key;
+    }
+  }
+
+  /** Short-lived identity key used to query the map without registering a weak reference. */
+  static final class LookupKey {
+    final Object key;
+
+    LookupKey(final Object key) {
+      this.key = key;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(key);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (other instanceof WeakKey) {
+        return null != key && key == ((WeakKey) other).get();
+      }
+      return other instanceof LookupKey && key == ((LookupKey) other).key;
+    }
+  }
 }
@@ -2,27 +2,36 @@ package datadog.trace.bootstrap.instrumentation.buffer;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.function.LongConsumer;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
- * An OutputStream containing a circular buffer with a lookbehind buffer of n bytes. The first time
- * that the latest n bytes matches the marker, a content is injected before. In case of IOException
- * thrown by the downstream, the buffer will be lost unless the error occurred when draining it. In
- * this case the draining will be resumed.
+ * An OutputStream injecting a content before the first marker found in the stream. When several
+ * candidate markers are given, the content is injected before the first one that occurs.
+ *
+ * <p>Written arrays are scanned in bulk for the first bytes of the markers, and the bytes that
+ * cannot start a marker are written downstream as they are. Only the bytes that may start a marker
+ * at the end of a write are held back, until the next writes tell whether they match. In case of
+ * IOException thrown by the downstream, the held back bytes will be lost unless the error occurred
+ * when draining them. In this case the draining will be resumed.
  */
 @NotThreadSafe
 public class InjectingPipeOutputStream extends OutputStream {
-  private final byte[] lookbehind;
+  private static final int NO_MATCH = -1;
+  private static final int PARTIAL_MATCH = 0;
+  private static final int FULL_MATCH = 1;
+
+  // the bytes held back at the end of the previous writes, which start a marker
+  private final byte[] partialMatch;
   private int pos;
   private int count;
-  private final byte[] marker;
+  private final byte[][] markers;
+  private final byte[] markerStarts;
   private final byte[] contentToInject;
   private boolean filter;
   private boolean wasDraining;
-  private int matchingPos;
   private final Runnable onContentInjected;
-  private final int bulkWriteThreshold;
   private final OutputStream downstream;
   private final LongConsumer onBytesWritten;
   private final LongConsumer onInjectionTime;
@@ -59,12 +68,49 @@ public class InjectingPipeOutputStream extends OutputStream {
       final Runnable onContentInjected,
       final LongConsumer onBytesWritten,
       final LongConsumer onInjectionTime) {
+    this(
+        downstream,
+        new byte[][] {marker},
+        contentToInject,
+        onContentInjected,
+        onBytesWritten,
+        onInjectionTime);
+  }
+
+  /**
+   * This constructor takes several candidate markers.
+   *
+   * @param downstream the delegate output stream
+   * @param markers the candidate markers to find in the stream. Each must at least be one byte, and
+   *     none may contain another.
+   * @param contentToInject the content to inject once before the first marker found.
+   * @param onContentInjected callback called when and if the content is injected.
+   * @param onBytesWritten callback called when stream is closed to report total bytes written.
+   * @param onInjectionTime callback called with the time in milliseconds taken to write the
+   *     injection content.
+   */
+  public InjectingPipeOutputStream(
+      final OutputStream downstream,
+      final byte[][] markers,
+      final byte[] contentToInject,
+      final Runnable onContentInjected,
+      final LongConsumer onBytesWritten,
+      final LongConsumer onInjectionTime) {
     this.downstream = downstream;
-    this.marker = marker;
-    this.lookbehind = new byte[marker.length];
+    this.markers = markers;
+    int maxLength = 0;
+    byte[] starts = new byte[markers.length];
+    int startCount = 0;
+    for (byte[] marker : markers) {
+      maxLength = Math.max(maxLength, marker.length);
+      if (indexOf(starts, startCount, marker[0]) < 0) {
+        starts[startCount++] = marker[0];
+      }
+    }
+    this.markerStarts = Arrays.copyOf(starts, startCount);
+    this.partialMatch = new byte[maxLength];
     this.pos = 0;
     this.count = 0;
-    this.matchingPos = 0;
     this.wasDraining = false;
     // should filter the stream to potentially inject into it.
     this.filter = true;
@@ -72,7 +118,6 @@ public class InjectingPipeOutputStream extends OutputStream {
     this.onContentInjected = onContentInjected;
     this.onBytesWritten = onBytesWritten;
     this.onInjectionTime = onInjectionTime;
-    this.bulkWriteThreshold = marker.length * 2 - 2;
   }
 
   @Override
@@ -87,33 +132,12 @@ public class InjectingPipeOutputStream extends OutputStream {
       return;
     }
 
-    if (count == lookbehind.length) {
-      downstream.write(lookbehind[pos]);
+    if (count == 0 && indexOf(markerStarts, markerStarts.length, (byte) b) < 0) {
+      downstream.write(b);
       bytesWritten++;
-    } else {
-      count++;
-    }
-
-    lookbehind[pos] = (byte) b;
-    pos = (pos + 1) % lookbehind.length;
-
-    if (marker[matchingPos++] == b) {
-      if (matchingPos == marker.length) {
-        filter = false;
-        long injectionStart = System.nanoTime();
-        downstream.write(contentToInject);
-        long injectionEnd = System.nanoTime();
-        if (onInjectionTime != null) {
-          onInjectionTime.accept((injectionEnd - injectionStart) / 1_000_000L);
-        }
-        if (onContentInjected != null) {
-          onContentInjected.run();
-        }
-        drain();
-      }
-    } else {
-      matchingPos = 0;
+      return;
     }
+    continuePartialMatch((byte) b);
   }
 
   @Override
@@ -129,112 +153,136 @@ public class InjectingPipeOutputStream extends OutputStream {
       return;
     }
 
-    if (len > bulkWriteThreshold) {
-      // A match that started in the previous write precedes every match wholly in this array.
-      if (matchingPos > 0 && arrayCompletesPendingMatch(array, off, end)) {
-        int pendingMatchLength = marker.length - matchingPos;
-        for (int i = off; i < off + pendingMatchLength; i++) {
-          write(array[i]);
-        }
-        write(array, off + pendingMatchLength, len - pendingMatchLength);
+    // a match that started in the previous writes precedes every match in this array
+    int i = off;
+    while (count > 0 && i < end) {
+      continuePartialMatch(array[i++]);
+      if (!filter) {
+        writeThrough(array, i, end - i);
         return;
       }
+    }
 
-      // if the content is large enough, we can bulk write everything but the N trail and tail.
-      // This because the buffer can already contain some byte from a previous single write.
-      // Also we need to fill the buffer with the tail since we don't know about the next write.
-      int idx = arrayContains(array, off, end, marker);
-      if (idx >= 0) {
-        // we have a full match. just write everything
-        filter = false;
-        drain();
-        int bytesToWrite = idx - off;
-        downstream.write(array, off, bytesToWrite);
-        bytesWritten += bytesToWrite;
-        long injectionStart = System.nanoTime();
-        downstream.write(contentToInject);
-        long injectionEnd = System.nanoTime();
-        if (onInjectionTime != null) {
-          onInjectionTime.accept((injectionEnd - injectionStart) / 1_000_000L);
-        }
-        if (onContentInjected != null) {
-          onContentInjected.run();
-        }
-        bytesToWrite = end - idx;
-        downstream.write(array, idx, bytesToWrite);
-        bytesWritten += bytesToWrite;
-      } else {
-        // we don't have a full match. write everything in a bulk except the lookbehind buffer
-        // sequentially
-        for (int i = off; i < off + marker.length - 1; i++) {
-          write(array[i]);
-        }
-        drain();
-        boolean wasFiltering = filter;
-
-        // will be reset if no errors after the following write
-        filter = false;
-        int bytesToWrite = len - bulkWriteThreshold;
-        downstream.write(array, off + marker.length - 1, bytesToWrite);
-        bytesWritten += bytesToWrite;
-        filter = wasFiltering;
-        for (int i = end - marker.length + 1; i < end; i++) {
-          write(array[i]);
-        }
-      }
-    } else {
-      // use slow path because the length to write is small and within the lookbehind buffer size
-      for (int i = off; i < end; i++) {
-        write(array[i]);
+    int unwritten = i;
+    while ((i = indexOfMarkerStart(array, i, end)) >= 0) {
+      int match = matchAt(array, i, end);
+      if (match == FULL_MATCH) {
+        writeThrough(array, unwritten, i - unwritten);
+        injectContent();
+        writeThrough(array, i, end - i);
+        return;
+      } else if (match == PARTIAL_MATCH) {
+        // the array ends with the start of a marker, hold it back until the next writes
+        writeThrough(array, unwritten, i - unwritten);
+        count = end - i;
+        System.arraycopy(array, i, partialMatch, 0, count);
+        return;
       }
+      i++;
     }
+    writeThrough(array, unwritten, end - unwritten);
   }
 
-  private boolean arrayCompletesPendingMatch(byte[] array, int off, int end) {
-    int pendingMatchLength = marker.length - matchingPos;
-    if (off + pendingMatchLength > end) {
-      return false;
+  /** Adds a byte to the held back ones, and writes out the ones which no longer start a marker. */
+  private void continuePartialMatch(byte b) throws IOException {
+    partialMatch[count++] = b;
+    int match = matchAt(partialMatch, 0, count);
+    if (match == NO_MATCH) {
+      int start = 1;
+      while (start < count && (match = matchAt(partialMatch, start, count)) == NO_MATCH) {
+        start++;
+      }
+      count -= start;
+      downstream.write(partialMatch, 0, start);
+      bytesWritten += start;
+      System.arraycopy(partialMatch, start, partialMatch, 0, count);
     }
-    for (int i = 0; i < pendingMatchLength; i++) {
-      if (array[off + i] != marker[matchingPos + i]) {
-        return false;
+    if (match == FULL_MATCH) {
+      injectContent();
+      drain();
+    }
+  }
+
+  /**
+   * Returns whether the array has a marker at the given position: {@link #FULL_MATCH} if it does,
+   * {@link #PARTIAL_MATCH} if it ends with the start of a marker, and {@link #NO_MATCH} otherwise.
+   */
+  private int matchAt(byte[] array, int position, int end) {
+    int result = NO_MATCH;
+    for (byte[] marker : markers) {
+      int length = Math.min(marker.length, end - position);
+      int i = 0;
+      while (i < length && array[position + i] == marker[i]) {
+        i++;
+      }
+      if (i == marker.length) {
+        return FULL_MATCH;
+      } else if (i == length) {
+        result = PARTIAL_MATCH;
       }
     }
-    return true;
+    return result;
   }
 
-  private int arrayContains(byte[] array, int off, int end, byte[] search) {
-    for (int i = off; i <= end - search.length; i++) {
-      if (array[i] == search[0]) {
-        boolean found = true;
-        int k = i;
-        for (int j = 1; j < search.length; j++) {
-          k++;
-          if (array[k] != search[j]) {
-            found = false;
-            break;
-          }
-        }
-        if (found) {
+  private int indexOfMarkerStart(byte[] array, int from, int end) {
+    if (markerStarts.length == 1) {
+      byte start = markerStarts[0];
+      for (int i = from; i < end; i++) {
+        if (array[i] == start) {
           return i;
         }
       }
+      return -1;
+    }
+    for (int i = from; i < end; i++) {
+      if (indexOf(markerStarts, markerStarts.length, array[i]) >= 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int indexOf(byte[] array, int length, byte b) {
+    for (int i = 0; i < length; i++) {
+      if (array[i] == b) {
+        return i;
+      }
     }
     return -1;
   }
 
+  private void writeThrough(byte[] array, int off, int len) throws IOException {
+    if (len > 0) {
+      downstream.write(array, off, len);
+      bytesWritten += len;
+    }
+  }
+
+  private void injectContent() throws IOException {
+    filter = false;
+    long injectionStart = System.nanoTime();
+    downstream.write(contentToInject);
+    long injectionEnd = System.nanoTime();
+    if (onInjectionTime != null) {
+      onInjectionTime.accept((injectionEnd - injectionStart) / 1_000_000L);
+    }
+    if (onContentInjected != null) {
+      onContentInjected.run();
+    }
+  }
+
   private void drain() throws IOException {
     if (count > 0) {
       boolean wasFiltering = filter;
       filter = false;
       wasDraining = true;
-      int start = (pos - count + lookbehind.length) % lookbehind.length;
-      int cnt = count;
-      for (int i = 0; i < cnt; i++) {
-        downstream.write(lookbehind[(start + i) % lookbehind.length]);
+      while (count > 0) {
+        downstream.write(partialMatch[pos]);
         bytesWritten++;
+        pos++;
         count--;
       }
+      pos = 0;
       filter = wasFiltering;
       wasDraining = false;
     }
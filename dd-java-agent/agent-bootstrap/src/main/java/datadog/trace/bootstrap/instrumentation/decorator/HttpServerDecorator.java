@@ -26,6 +26,7 @@ import datadog.trace.api.gateway.IGSpanInfo;
 import datadog.trace.api.gateway.InferredProxySpan;
 import datadog.trace.api.gateway.RequestContext;
 import datadog.trace.api.gateway.RequestContextSlot;
+import datadog.trace.api.http.HeaderTagMatcher;
 import datadog.trace.api.naming.SpanNaming;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
@@ -77,6 +78,7 @@ public abstract class HttpServerDecorator<REQUEST, CONNECTION, RESPONSE, REQUEST
       Config.get().isRuleEnabled("URLAsResourceNameRule");
 
   private static final BitSet SERVER_ERROR_STATUSES = Config.get().getHttpServerErrorStatuses();
+  private static final HeaderTagMatcher.Cache RESPONSE_HEADER_TAGS = new HeaderTagMatcher.Cache();
   private static final String DEFAULT_INSTRUMENTATION_NAME = "http-server";
 
   private final boolean traceClientIpResolverEnabled =
@@ -185,24 +187,35 @@ public abstract class HttpServerDecorator<REQUEST, CONNECTION, RESPONSE, REQUEST
     // the application (configured DD_SERVICE), not the upstream gateway.
     resetServiceNameIfUnderInferredProxy(parentContext, span);
     // Apply RequestBlockingAction if any
-    Flow<Void> flow = callIGCallbackRequestHeaders(span, carrier);
+    Flow<Void> flow = visitRequestHeaders(span, carrier);
     if (flow.getAction() instanceof RequestBlockingAction) {
       span.setRequestBlockingAction((RequestBlockingAction) flow.getAction());
     }
-    // Tag Datadog scan/test markers unconditionally so the API endpoint reducer
-    // can distinguish scan/test traffic from real user traffic.
-    tagSecurityTestingHeaders(span, carrier);
     // DSM Checkpoint
     tracer().getDataStreamsMonitoring().setCheckpoint(span, forHttpServer());
     return parentContext.with(span);
   }
 
-  private void tagSecurityTestingHeaders(AgentSpan span, REQUEST_CARRIER carrier) {
+  /**
+   * Visits the request headers once, for both the security testing markers and the
+   * InstrumentationGateway request header callbacks.
+   */
+  private Flow<Void> visitRequestHeaders(AgentSpan span, REQUEST_CARRIER carrier) {
     AgentPropagation.ContextVisitor<REQUEST_CARRIER> getter = getter();
-    if (carrier == null || getter == null) {
-      return;
+    if (getter == null) {
+      return Flow.ResultFlow.empty();
     }
-    getter.forEachKey(carrier, new SecurityTestingHeaderTagClassifier(span));
+    IGKeyClassifier igKeyClassifier = createIGRequestHeaderClassifier(span);
+    if (carrier != null) {
+      // Tag Datadog scan/test markers unconditionally so the API endpoint reducer
+      // can distinguish scan/test traffic from real user traffic.
+      AgentPropagation.KeyClassifier classifier = new SecurityTestingHeaderTagClassifier(span);
+      if (null != igKeyClassifier) {
+        classifier = new CoalescedKeyClassifier(classifier, igKeyClassifier);
+      }
+      getter.forEachKey(carrier, classifier);
+    }
+    return null != igKeyClassifier ? igKeyClassifier.done() : Flow.ResultFlow.empty();
   }
 
   protected AgentSpanContext startInferredProxySpan(Context context, AgentSpanContext extracted) {
@@ -522,16 +535,18 @@ public abstract class HttpServerDecorator<REQUEST, CONNECTION, RESPONSE, REQUEST
       doOnResponseStatus(span, status);
 
       AgentPropagation.ContextVisitor<RESPONSE> getter = responseGetter();
+      ResponseHeaderTagClassifier tagger = null;
       if (getter != null) {
-        ResponseHeaderTagClassifier tagger =
-            ResponseHeaderTagClassifier.create(span, traceConfig(span).getResponseHeaderTags());
-        if (tagger != null) {
-          getter.forEachKey(response, tagger);
-        }
+        tagger =
+            ResponseHeaderTagClassifier.create(
+                span, RESPONSE_HEADER_TAGS.get(traceConfig(span).getResponseHeaderTags()));
       }
 
       if (!isAppSecOnResponseSeparate()) {
-        callIGCallbackResponseAndHeaders(span, response, status);
+        // the response headers are visited once, for both the header tags and AppSec
+        callIGCallbackResponseAndHeaders(span, response, status, getter, tagger);
+      } else if (tagger != null) {
+        getter.forEachKey(response, tagger);
       }
     }
   }
@@ -577,25 +592,16 @@ public abstract class HttpServerDecorator<REQUEST, CONNECTION, RESPONSE, REQUEST
     }
   }
 
-  private Flow<Void> callIGCallbackRequestHeaders(AgentSpan span, REQUEST_CARRIER carrier) {
+  private IGKeyClassifier createIGRequestHeaderClassifier(AgentSpan span) {
     CallbackProvider cbp = tracer().getUniversalCallbackProvider();
     RequestContext requestContext = span.getRequestContext();
-    AgentPropagation.ContextVisitor<REQUEST_CARRIER> getter = getter();
-    if (requestContext == null || getter == null) {
-      return Flow.ResultFlow.empty();
-    }
-    if (cbp != null) {
-      IGKeyClassifier igKeyClassifier =
-          IGKeyClassifier.create(
-              requestContext,
-              cbp.getCallback(EVENTS.requestHeader()),
-              cbp.getCallback(EVENTS.requestHeaderDone()));
-      if (null != igKeyClassifier) {
-        getter.forEachKey(carrier, igKeyClassifier);
-        return igKeyClassifier.done();
-      }
+    if (requestContext == null || cbp == null) {
+      return null;
     }
-    return Flow.ResultFlow.empty();
+    return IGKeyClassifier.create(
+        requestContext,
+        cbp.getCallback(EVENTS.requestHeader()),
+        cbp.getCallback(EVENTS.requestHeaderDone()));
   }
 
   @SuppressWarnings("UnusedReturnValue")
@@ -617,40 +623,54 @@ public abstract class HttpServerDecorator<REQUEST, CONNECTION, RESPONSE, REQUEST
     return addrCallback.apply(requestContext, sessionId);
   }
 
-  private Flow<Void> callIGCallbackResponseAndHeaders(
-      AgentSpan span, RESPONSE carrier, int status) {
-    return callIGCallbackResponseAndHeaders(span, carrier, status, responseGetter());
-  }
-
   public <RESP> Flow<Void> callIGCallbackResponseAndHeaders(
       AgentSpan span,
       RESP carrier,
       int status,
       AgentPropagation.ContextVisitor<RESP> contextVisitor) {
+    return callIGCallbackResponseAndHeaders(span, carrier, status, contextVisitor, null);
+  }
+
+  /**
+   * Calls the InstrumentationGateway response callbacks, visiting the response headers once for
+   * both the callbacks and the given header tagger, if any.
+   */
+  private <RESP> Flow<Void> callIGCallbackResponseAndHeaders(
+      AgentSpan span,
+      RESP carrier,
+      int status,
+      AgentPropagation.ContextVisitor<RESP> contextVisitor,
+      @Nullable ResponseHeaderTagClassifier tagger) {
     CallbackProvider cbp = tracer().getCallbackProvider(RequestContextSlot.APPSEC);
     RequestContext requestContext = span.getRequestContext();
-    if (cbp == null || requestContext == null) {
-      return Flow.ResultFlow.empty();
-    }
-
-    BiFunction<RequestContext, Integer, Flow<Void>> addrCallback =
-        cbp.getCallback(EVENTS.responseStarted());
-    if (null != addrCallback) {
-      addrCallback.apply(requestContext, status);
+    IGKeyClassifier igKeyClassifier = null;
+    if (cbp != null && requestContext != null) {
+      BiFunction<RequestContext, Integer, Flow<Void>> addrCallback =
+          cbp.getCallback(EVENTS.responseStarted());
+      if (null != addrCallback) {
+        addrCallback.apply(requestContext, status);
+      }
+      if (contextVisitor != null) {
+        igKeyClassifier =
+            IGKeyClassifier.create(
+                requestContext,
+                cbp.getCallback(EVENTS.responseHeader()),
+                cbp.getCallback(EVENTS.responseHeaderDone()));
+      }
     }
     if (contextVisitor == null) {
       return Flow.ResultFlow.empty();
     }
-    IGKeyClassifier igKeyClassifier =
-        IGKeyClassifier.create(
-            requestContext,
-            cbp.getCallback(EVENTS.responseHeader()),
-            cbp.getCallback(EVENTS.responseHeaderDone()));
-    if (null != igKeyClassifier) {
-      contextVisitor.forEachKey(carrier, igKeyClassifier);
-      return igKeyClassifier.done();
+    if (null == igKeyClassifier) {
+      if (null != tagger) {
+        contextVisitor.forEachKey(carrier, tagger);
+      }
+      return Flow.ResultFlow.empty();
     }
-    return Flow.ResultFlow.empty();
+    contextVisitor.forEachKey(
+        carrier,
+        null == tagger ? igKeyClassifier : new CoalescedKeyClassifier(tagger, igKeyClassifier));
+    return igKeyClassifier.done();
   }
 
   private Flow<Void> callIGCallbackURI(
@@ -815,22 +835,47 @@ public abstract class HttpServerDecorator<REQUEST, CONNECTION, RESPONSE, REQUEST
     }
   }
 
+  /** Lets several classifiers share a single walk over the headers. */
+  private static final class CoalescedKeyClassifier implements AgentPropagation.KeyClassifier {
+    private final AgentPropagation.KeyClassifier first;
+    private final AgentPropagation.KeyClassifier second;
+    private boolean firstDone;
+    private boolean secondDone;
+
+    CoalescedKeyClassifier(
+        AgentPropagation.KeyClassifier first, AgentPropagation.KeyClassifier second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public boolean accept(String key, String value) {
+      if (!firstDone && !first.accept(key, value)) {
+        firstDone = true;
+      }
+      if (!secondDone && !second.accept(key, value)) {
+        secondDone = true;
+      }
+      return !(firstDone && secondDone);
+    }
+  }
+
   private static final class ResponseHeaderTagClassifier implements AgentPropagation.KeyClassifier {
-    static ResponseHeaderTagClassifier create(AgentSpan span, Map<String, String> headerTags) {
-      if (span == null || headerTags == null || headerTags.isEmpty()) {
+    static ResponseHeaderTagClassifier create(AgentSpan span, HeaderTagMatcher headerTags) {
+      if (span == null || headerTags.isEmpty()) {
         return null;
       }
       return new ResponseHeaderTagClassifier(span, headerTags);
     }
 
     private final AgentSpan span;
-    private final Map<String, String> headerTags;
+    private final HeaderTagMatcher headerTags;
     private final String wildcardHeaderPrefix;
 
-    public ResponseHeaderTagClassifier(AgentSpan span, Map<String, String> headerTags) {
+    public ResponseHeaderTagClassifier(AgentSpan span, HeaderTagMatcher headerTags) {
       this.span = span;
       this.headerTags = headerTags;
-      this.wildcardHeaderPrefix = this.headerTags.get("*");
+      this.wildcardHeaderPrefix = headerTags.wildcardPrefix();
     }
 
     @Override
@@ -838,7 +883,7 @@ public abstract class HttpServerDecorator<REQUEST, CONNECTION, RESPONSE, REQUEST
       if (wildcardHeaderPrefix != null) {
         span.setTag((wildcardHeaderPrefix + key).toLowerCase(Locale.ROOT), value);
       }
-      String mappedKey = headerTags.get(key.toLowerCase(Locale.ROOT));
+      String mappedKey = headerTags.tagFor(key);
       if (mappedKey != null) {
         span.setTag(mappedKey, value);
       }
@@ -10,4 +10,22 @@ public final class VirtualThreadHelper {
    */
   public static final String VIRTUAL_THREAD_STATE_CLASS_NAME =
       "datadog.trace.bootstrap.instrumentation.java.lang.VirtualThreadState";
+
+  private static boolean contextCapturedAtCreation;
+
+  /** Called by {@code VirtualThreadInstrumentation} when a virtual thread is created. */
+  public static void onVirtualThreadCreated() {
+    if (!contextCapturedAtCreation) {
+      contextCapturedAtCreation = true;
+    }
+  }
+
+  /**
+   * Whether virtual threads capture the context when created, and restore it when mounted. This
+   * is only known once a virtual thread was created with the instrumentation applied, which is
+   * always the case by the time a task is started on it.
+   */
+  public static boolean isContextCapturedAtCreation() {
+    return contextCapturedAtCreation;
+  }
 }
@@ -0,0 +1,135 @@
+package datadog.trace.bootstrap
+
+import datadog.trace.test.util.DDSpecification
+import datadog.trace.test.util.GCUtils
+import datadog.trace.test.util.ThreadUtils
+import spock.util.concurrent.PollingConditions
+
+import java.lang.ref.WeakReference
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+class WeakMapContextStoreTest extends DDSpecification {
+
+  def "keys are compared by identity"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new String("key")
+    def equalKey = new String("key")
+
+    when:
+    store.put(key, "context")
+
+    then:
+    store.get(key) == "context"
+    store.get(equalKey) == null
+    store.putIfAbsent(equalKey, "other") == "other"
+    store.size() == 2
+  }
+
+  def "putting a null context removes the key"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new Object()
+    store.put(key, "context")
+
+    when:
+    store.put(key, null)
+
+    then:
+    store.get(key) == null
+    store.size() == 0
+  }
+
+  def "existing contexts are replaced and removed"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new Object()
+
+    when:
+    store.put(key, "first")
+    store.put(key, "second")
+
+    then:
+    store.get(key) == "second"
+    store.putIfAbsent(key, "third") == "second"
+    store.size() == 1
+    store.remove(key) == "second"
+    store.get(key) == null
+  }
+
+  def "concurrent computations of a key all get the stored context"() {
+    setup:
+    def store = new WeakMapContextStore<Object, Object>()
+    def keys = (0..<10).collect { new Object() }
+    def calls = new AtomicInteger()
+    def factory = { key ->
+      calls.incrementAndGet()
+      return new Object()
+    } as ContextStore.KeyAwareFactory<Object, Object>
+    def results = new ConcurrentLinkedQueue<List<Object>>()
+
+    when:
+    ThreadUtils.runConcurrently(8, 1000, {
+      results.add(keys.collect { key -> store.computeIfAbsent(key, factory) })
+    })
+
+    then:
+    calls.get() >= keys.size()
+    store.size() == keys.size()
+    results.every { contexts ->
+      (0..<keys.size()).every { i -> contexts[i].is(store.get(keys[i])) }
+    }
+  }
+
+  def "factory can use the store it computes a context for"() {
+    setup:
+    def store = new WeakMapContextStore<Object, Object>()
+    def outer = new Object()
+    def inner = new Object()
+    def innerFactory = { key -> "inner" } as ContextStore.KeyAwareFactory<Object, Object>
+    def outerFactory = { key ->
+      return "outer of " + store.computeIfAbsent(inner, innerFactory)
+    } as ContextStore.KeyAwareFactory<Object, Object>
+
+    when:
+    def context = store.computeIfAbsent(outer, outerFactory)
+
+    then:
+    context == "outer of inner"
+    store.get(outer) == "outer of inner"
+    store.get(inner) == "inner"
+    store.size() == 2
+  }
+
+  def "full store evicts an existing entry"() {
+    setup:
+    def store = new WeakMapContextStore<Object, Integer>(5)
+    def keys = (0..<10).collect { new Object() }
+
+    when:
+    keys.eachWithIndex { key, i -> store.put(key, i) }
+
+    then:
+    store.size() == 5
+    store.get(keys.last()) == 9
+  }
+
+  def "entries of collected keys are expunged"() {
+    setup:
+    def store = new WeakMapContextStore<Object, String>()
+    def key = new Object()
+    store.put(key, "context")
+    def keyRef = new WeakReference(key)
+
+    when:
+    key = null
+    GCUtils.awaitGC(keyRef)
+
+    then:
+    // collected keys are enqueued asynchronously
+    new PollingConditions().within(5) {
+      assert store.size() == 0
+    }
+  }
+}
@@ -95,10 +95,11 @@ class InjectingPipeOutputStreamTest extends DDSpecification {
     ["<html>", "<head>", "<foo/>", "</head>", "<body/>", "</html>"] | "</head>"         | "<script>true</script>" | 60        | "<html><head><foo/><script>true</script></head><body/></html>"
     // write fails before the content has been injected
     ["<html>", "<head>", "<foo/>", "</head>", "<body/>", "</html>"] | "</head>"         | "<script>true</script>" | 20        | "<html><head><foo/></head><body/></html>"
-    // write fails after having filled the buffer. The last line is written twice
-    ["<html>", "<body/>", "</html>"]                                | "</head>"         | "<something/>"          | 10        | "<html><body/></h</html>"
-    // expected broken since the real write happens at close (drain) being the content smaller than the buffer. And retry on close is not a common practice. Hence, we suppose loosing content
-    ["<foo/>"]                                                      | "<longerThanFoo>" | "<nothing>"             | 3         | "<f"
+    // write fails on a line not starting a marker. Nothing is held back, so the retry writes it again
+    ["<html>", "<body/>", "</html>"]                                | "</head>"         | "<something/>"          | 10        | "<html><body/></html>"
+    ["<foo/>"]                                                      | "<longerThanFoo>" | "<nothing>"             | 3         | "<foo/>"
+    // expected broken since the start of the marker is held back and only written at close (drain). And retry on close is not a common practice. Hence, we suppose loosing content
+    ["<foo/></he"]                                                  | "</head>"         | "<nothing>"             | 8         | "<foo/><"
   }
 
   def 'should count bytes correctly when writing byte arrays'() {
@@ -196,6 +197,41 @@ class InjectingPipeOutputStreamTest extends DDSpecification {
     downstream.toByteArray() == "abc<script></script></head>0123456789</head>".getBytes("UTF-8")
   }
 
+  def 'should inject before the first of several markers when writing in chunks of #chunkSize'() {
+    setup:
+    def markers = ["</head>".getBytes("UTF-8"), "</body>".getBytes("UTF-8")] as byte[][]
+    def bytes = body.getBytes("UTF-8")
+    def downstream = new ByteArrayOutputStream()
+    def counter = new Counter()
+    def injections = new AtomicInteger()
+    def piped = new InjectingPipeOutputStream(downstream, markers, CONTEXT_BYTES, injections.&incrementAndGet, { long count -> counter.incr(count) }, null)
+
+    when:
+    for (int i = 0; i < bytes.length; i += chunkSize) {
+      if (chunkSize == 1) {
+        piped.write((int) bytes[i])
+      } else {
+        piped.write(bytes, i, Math.min(chunkSize, bytes.length - i))
+      }
+    }
+    piped.close()
+
+    then:
+    downstream.toByteArray() == expected.getBytes("UTF-8")
+    injections.get() == (body == expected ? 0 : 1)
+    counter.value == bytes.length
+
+    where:
+    body                                           | chunkSize | expected
+    "<html><head></head><body></body></html>"      | 1         | "<html><head><script></script></head><body></body></html>"
+    "<html><head></head><body></body></html>"      | 3         | "<html><head><script></script></head><body></body></html>"
+    "<html><head></head><body></body></html>"      | 64        | "<html><head><script></script></head><body></body></html>"
+    "<html></he<body></hx></body></html>"          | 1         | "<html></he<body></hx><script></script></body></html>"
+    "<html></he<body></hx></body></html>"          | 4         | "<html></he<body></hx><script></script></body></html>"
+    "<html></he<body></hx></body></html>"          | 64        | "<html></he<body></hx><script></script></body></html>"
+    "<html><<//</b</bod<//body></html"             | 2         | "<html><<//</b</bod<//body></html"
+  }
+
   def 'should be resilient to exceptions when onBytesWritten callback is null'() {
     setup:
     def testBytes = "test content".getBytes("UTF-8")
@@ -111,10 +111,11 @@ class InjectingPipeWriterTest extends DDSpecification {
     ["<html>", "<head>", "<foo/>", "</head>", "<body/>", "</html>"] | "</head>"         | "<script>true</script>" | 60        | "<html><head><foo/><script>true</script></head><body/></html>"
     // write fails before the content has been injected
     ["<html>", "<head>", "<foo/>", "</head>", "<body/>", "</html>"] | "</head>"         | "<script>true</script>" | 20        | "<html><head><foo/></head><body/></html>"
-    // write fails after having filled the buffer. The last line is written twice
-    ["<html>", "<body/>", "</html>"]                                | "</head>"         | "<something/>"          | 10        | "<html><body/></h</html>"
-    // expected broken since the real write happens at close (drain) being the content smaller than the buffer. And retry on close is not a common practice. Hence, we suppose loosing content
-    ["<foo/>"]                                                      | "<longerThanFoo>" | "<nothing>"             | 3         | "<f"
+    // write fails on a line not starting a marker. Nothing is held back, so the retry writes it again
+    ["<html>", "<body/>", "</html>"]                                | "</head>"         | "<something/>"          | 10        | "<html><body/></html>"
+    ["<foo/>"]                                                      | "<longerThanFoo>" | "<nothing>"             | 3         | "<foo/>"
+    // expected broken since the start of the marker is held back and only written at close (drain). And retry on close is not a common practice. Hence, we suppose loosing content
+    ["<foo/></he"]                                                  | "</head>"         | "<nothing>"             | 8         | "<foo/><"
   }
 
   def 'should count bytes correctly when writing characters'() {
@@ -211,6 +212,41 @@ class InjectingPipeWriterTest extends DDSpecification {
     downstream.toString() == "abc<script></script></head>0123456789</head>"
   }
 
+  def 'should inject before the first of several markers when writing in chunks of #chunkSize'() {
+    setup:
+    def markers = ["</head>".toCharArray(), "</body>".toCharArray()] as char[][]
+    def chars = body.toCharArray()
+    def downstream = new StringWriter()
+    def counter = new Counter()
+    def injections = new AtomicInteger()
+    def piped = new InjectingPipeWriter(downstream, markers, CONTEXT_CHARS, injections.&incrementAndGet, { long count -> counter.incr(count) }, null)
+
+    when:
+    for (int i = 0; i < chars.length; i += chunkSize) {
+      if (chunkSize == 1) {
+        piped.write((int) chars[i])
+      } else {
+        piped.write(chars, i, Math.min(chunkSize, chars.length - i))
+      }
+    }
+    piped.close()
+
+    then:
+    downstream.toString() == expected
+    injections.get() == (body == expected ? 0 : 1)
+    counter.value == chars.length
+
+    where:
+    body                                           | chunkSize | expected
+    "<html><head></head><body></body></html>"      | 1         | "<html><head><script></script></head><body></body></html>"
+    "<html><head></head><body></body></html>"      | 3         | "<html><head><script></script></head><body></body></html>"
+    "<html><head></head><body></body></html>"      | 64        | "<html><head><script></script></head><body></body></html>"
+    "<html></he<body></hx></body></html>"          | 1         | "<html></he<body></hx><script></script></body></html>"
+    "<html></he<body></hx></body></html>"          | 4         | "<html></he<body></hx><script></script></body></html>"
+    "<html></he<body></hx></body></html>"          | 64        | "<html></he<body></hx><script></script></body></html>"
+    "<html><<//</b</bod<//body></html"             | 2         | "<html><<//</b</bod<//body></html"
+  }
+
   def 'should be resilient to exceptions when onBytesWritten callback is null'() {
     setup:
     def downstream = new StringWriter()
@@ -594,6 +594,105 @@ class HttpServerDecoratorTest extends ServerDecoratorTest {
     // spotless:on
   }
 
+  def "security testing tags and request header callbacks see every header of the shared walk"() {
+    setup:
+    def ig = new InstrumentationGateway()
+    def ss = ig.getSubscriptionService(RequestContextSlot.APPSEC)
+    def cbpAppSec = ig.getCallbackProvider(RequestContextSlot.APPSEC)
+    def data = new Object()
+    def callbacks = new IGCallBacks(data)
+    ss.registerCallback(EVENTS.requestStarted(), callbacks)
+    ss.registerCallback(EVENTS.requestHeader(), callbacks)
+    ss.registerCallback(EVENTS.requestHeaderDone(), callbacks)
+    def reqCtxt = Mock(RequestContext) {
+      getData(RequestContextSlot.APPSEC) >> data
+    }
+    def mSpan = Mock(AgentSpan) {
+      getRequestContext() >> reqCtxt
+    }
+    def mTracer = Mock(TracerAPI) {
+      startSpan(_, _, _) >> mSpan
+      getCallbackProvider(RequestContextSlot.APPSEC) >> cbpAppSec
+      getCallbackProvider(RequestContextSlot.IAST) >> CallbackProvider.CallbackProviderNoop.INSTANCE
+      getUniversalCallbackProvider() >> cbpAppSec
+      getDataStreamsMonitoring() >> Mock(DataStreamsMonitoring)
+    }
+    def decorator = newDecorator(mTracer, null)
+
+    when:
+    decorator.startSpan(headers, root())
+
+    then:
+    1 * mSpan.setMeasured(true) >> mSpan
+    1 * mSpan.setTag(Tags.HTTP_REQUEST_HEADERS_X_DATADOG_ENDPOINT_SCAN, "scan-id")
+    1 * mSpan.setTag(Tags.HTTP_REQUEST_HEADERS_X_DATADOG_SECURITY_TEST, "test-id")
+    callbacks.headers == headers
+    callbacks.reqHeaderDoneCount == 1
+
+    where:
+    headers << [
+      // the markers are found first, the callbacks still see the headers after them
+      [
+        "X-Datadog-Endpoint-Scan": "scan-id",
+        "X-Datadog-Security-Test": "test-id",
+        "User-Agent"             : "agent",
+        "Accept"                 : "*/*"
+      ],
+      [
+        "User-Agent"             : "agent",
+        "x-datadog-security-test": "test-id",
+        "Accept"                 : "*/*",
+        "x-datadog-endpoint-scan": "scan-id"
+      ]
+    ]
+  }
+
+  def "response header tags and response header callbacks see every header of the shared walk"() {
+    setup:
+    def ig = new InstrumentationGateway()
+    def ss = ig.getSubscriptionService(RequestContextSlot.APPSEC)
+    def cbpAppSec = ig.getCallbackProvider(RequestContextSlot.APPSEC)
+    def data = new Object()
+    def callbacks = new IGCallBacks(data)
+    ss.registerCallback(EVENTS.responseHeader(), callbacks)
+    ss.registerCallback(EVENTS.responseHeaderDone(), callbacks)
+    def reqCtxt = Mock(RequestContext) {
+      getData(RequestContextSlot.APPSEC) >> data
+    }
+    def traceConfig = Mock(TraceConfig) {
+      getResponseHeaderTags() >> ["x-custom-header": "custom", "content-type": "type"]
+    }
+    def tags = [:]
+    def responseSpan = Mock(AgentSpan) {
+      getRequestContext() >> reqCtxt
+      traceConfig() >> traceConfig
+    }
+    responseSpan.setTag(_, _) >> { String k, String v ->
+      tags[k] = v
+      return responseSpan
+    }
+    def mTracer = Mock(TracerAPI) {
+      getCallbackProvider(RequestContextSlot.APPSEC) >> cbpAppSec
+      getUniversalCallbackProvider() >> cbpAppSec
+    }
+    def decorator = newDecorator(mTracer, new MapCarrierVisitor())
+    def headers = [
+      "Content-Type"   : "application/json",
+      "Content-Length" : "42",
+      "X-Custom-Header": "custom-value",
+      "Cache-Control"  : "no-cache"
+    ]
+
+    when:
+    decorator.onResponse(responseSpan, [status: 200, headers: headers])
+
+    then:
+    tags["custom"] == "custom-value"
+    tags["type"] == "application/json"
+    callbacks.headers == headers
+    callbacks.reqHeaderDoneCount == 1
+  }
+
   private static final class IGCallBacks implements
   Supplier<Flow<Object>>,
   TriConsumer<RequestContext, String, String>,
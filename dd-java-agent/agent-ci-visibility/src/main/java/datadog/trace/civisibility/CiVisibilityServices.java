@@ -23,6 +23,7 @@ import datadog.trace.civisibility.git.CILocalGitInfoBuilder;
 import datadog.trace.civisibility.git.CIProviderGitInfoBuilder;
 import datadog.trace.civisibility.git.GitClientGitInfoBuilder;
 import datadog.trace.civisibility.git.tree.GitClient;
+import datadog.trace.civisibility.git.tree.InProcessGitClient;
 import datadog.trace.civisibility.git.tree.NoOpGitClient;
 import datadog.trace.civisibility.git.tree.ShellGitClient;
 import datadog.trace.civisibility.ipc.SignalClient;
@@ -120,7 +121,8 @@ public class CiVisibilityServices {
           new ConventionBasedResourceResolver(
               fileSystem, config.getCiVisibilityResourceFolderNames());
       this.repoIndexProviderFactory =
-          new CachingRepoIndexBuilderFactory(config, packageResolver, resourceResolver, fileSystem);
+          new CachingRepoIndexBuilderFactory(
+              config, packageResolver, resourceResolver, fileSystem, gitClientFactory);
     }
   }
 
@@ -129,6 +131,15 @@ public class CiVisibilityServices {
     if (!config.isCiVisibilityGitClientEnabled()) {
       return r -> NoOpGitClient.INSTANCE;
     }
+    GitClient.Factory shellGitClientFactory = buildShellGitClientFactory(config, metricCollector);
+    if (config.isCiVisibilityGitClientInProcessEnabled()) {
+      return new InProcessGitClient.Factory(shellGitClientFactory);
+    }
+    return shellGitClientFactory;
+  }
+
+  private static GitClient.Factory buildShellGitClientFactory(
+      Config config, CiVisibilityMetricCollector metricCollector) {
     try {
       ShellCommandExecutor shellCommandExecutor =
           new ShellCommandExecutor(new File("."), config.getCiVisibilityGitCommandTimeoutMillis());
@@ -1,15 +1,35 @@
 package datadog.trace.civisibility.coverage.line;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+
 public class ExecutionDataAdapter {
   private final long classId;
   private final String className;
-  // Unbounded data structure that only exists within a single test span
-  private final boolean[] probeActivations;
+  private final int totalProbeCount;
+  // Unbounded data structure that only exists within a single test span.
+  // Probe activations are packed into 64-bit words: bit (probeId % 64) of word (probeId / 64).
+  // Adapters confined to the test thread use plain words, adapters shared by other threads use
+  // atomic words so that concurrent activations in the same word are not lost.
+  private final long[] probeActivations;
+  private final AtomicLongArray sharedProbeActivations;
 
   public ExecutionDataAdapter(long classId, String className, int totalProbeCount) {
+    this(classId, className, totalProbeCount, false);
+  }
+
+  public ExecutionDataAdapter(
+      long classId, String className, int totalProbeCount, boolean shared) {
     this.classId = classId;
     this.className = className;
-    this.probeActivations = new boolean[totalProbeCount];
+    this.totalProbeCount = totalProbeCount;
+    int words = (totalProbeCount + 63) >>> 6;
+    if (shared) {
+      this.probeActivations = null;
+      this.sharedProbeActivations = new AtomicLongArray(words);
+    } else {
+      this.probeActivations = new long[words];
+      this.sharedProbeActivations = null;
+    }
   }
 
   public String getClassName() {
@@ -20,18 +40,64 @@ public class ExecutionDataAdapter {
     return classId;
   }
 
-  boolean[] getProbeActivations() {
-    return probeActivations;
+  int getTotalProbeCount() {
+    return totalProbeCount;
+  }
+
+  /** Returns the probe activation words, a snapshot of them for shared adapters. */
+  long[] getProbeActivations() {
+    if (sharedProbeActivations == null) {
+      return probeActivations;
+    }
+    long[] words = new long[sharedProbeActivations.length()];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = sharedProbeActivations.get(i);
+    }
+    return words;
   }
 
   void record(int probeId) {
-    probeActivations[probeId] = true;
+    if (probeId >= totalProbeCount) {
+      throw new ArrayIndexOutOfBoundsException(probeId);
+    }
+    // the shift distance of a long shift is implicitly taken modulo 64
+    if (sharedProbeActivations == null) {
+      probeActivations[probeId >>> 6] |= 1L << probeId;
+    } else {
+      or(probeId >>> 6, 1L << probeId);
+    }
   }
 
   ExecutionDataAdapter merge(ExecutionDataAdapter other) {
-    for (int i = 0; i < other.probeActivations.length; i++) {
-      probeActivations[i] |= other.probeActivations[i];
+    long[] otherActivations = other.getProbeActivations();
+    for (int i = 0; i < otherActivations.length; i++) {
+      if (sharedProbeActivations == null) {
+        probeActivations[i] |= otherActivations[i];
+      } else if (otherActivations[i] != 0) {
+        or(i, otherActivations[i]);
+      }
     }
     return this;
   }
+
+  private void or(int index, long bits) {
+    long word;
+    // probes are mostly hit again once activated, so only CAS when a bit is missing
+    while (((word = sharedProbeActivations.get(index)) & bits) != bits
+        && !sharedProbeActivations.compareAndSet(index, word, word | bits)) {}
+  }
+
+  /** Unpacks probe activations into the {@code boolean[]} layout expected by Jacoco. */
+  static boolean[] toBooleans(long[] words, int totalProbeCount) {
+    boolean[] probes = new boolean[totalProbeCount];
+    for (int w = 0; w < words.length; w++) {
+      long word = words[w];
+      while (word != 0) {
+        int probeId = (w << 6) + Long.numberOfTrailingZeros(word);
+        probes[probeId] = true;
+        word &= word - 1; // clear lowest set bit
+      }
+    }
+    return probes;
+  }
 }
@@ -14,6 +14,7 @@ import datadog.trace.civisibility.source.SourcePathResolver;
 import datadog.trace.civisibility.source.Utils;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
@@ -49,14 +50,16 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
 
   /**
    * Approximate fixed cost of one cache entry beyond its variable bit data: the {@link
-   * AnalysisCacheKey} and both {@link BitSet} objects (with their {@code long[]} + array headers)
-   * plus the {@code ConcurrentHashMap} node. Deliberately generous so small entries aren't
-   * undercounted and the byte bound stays a real ceiling.
+   * AnalysisCacheKey} with its packed {@code long[]}, the covered lines {@link BitSet} (with its
+   * {@code long[]} + array headers) plus the {@code ConcurrentHashMap} node. Deliberately generous
+   * so small entries aren't undercounted and the byte bound stays a real ceiling.
    */
   private static final int APPROX_ENTRY_OVERHEAD_BYTES = 160;
 
   private final CiVisibilityMetricCollector metrics;
   private final SourcePathResolver sourcePathResolver;
+  // Module-wide source path of each class, resolved and interned once rather than once per test
+  private final ClassValue<String> sourcePaths;
   // Module-wide cache: (class id + probe set) -> covered lines, shared across tests so a class
   // covered identically by many tests is parsed by Jacoco's Analyzer only once.
   private final Map<AnalysisCacheKey, BitSet> analysisCache;
@@ -67,11 +70,13 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
       Function<Boolean, LineProbes> probesFactory,
       CiVisibilityMetricCollector metrics,
       SourcePathResolver sourcePathResolver,
+      ClassValue<String> sourcePaths,
       Map<AnalysisCacheKey, BitSet> analysisCache,
       AtomicLong analysisCacheBytes) {
     super(probesFactory);
     this.metrics = metrics;
     this.sourcePathResolver = sourcePathResolver;
+    this.sourcePaths = sourcePaths;
     this.analysisCache = analysisCache;
     this.analysisCacheBytes = analysisCacheBytes;
   }
@@ -94,32 +99,39 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
       return null;
     }
 
-    Map<String, BitSet> coveredLinesBySourcePath = new HashMap<>();
+    // Covered lines are the analysis cache's shared (read-only) bitsets where a source file is
+    // covered through a single class, which is the common case; a private copy is only made when
+    // several classes (e.g. top-level classes sharing a file) have to be merged.
+    Map<String, CoveredLines> coveredLinesBySourcePath = new HashMap<>();
     for (Map.Entry<Class<?>, ExecutionDataAdapter> e : combinedExecutionData.entrySet()) {
       ExecutionDataAdapter executionDataAdapter = e.getValue();
       String className = executionDataAdapter.getClassName();
 
       Class<?> clazz = e.getKey();
-      Collection<String> sourcePaths = sourcePathResolver.getSourcePaths(clazz);
-      if (sourcePaths.size() != 1) {
+      String sourcePath = sourcePaths.get(clazz);
+      if (sourcePath == null) {
         log.debug(
             "Skipping coverage reporting for {} because source path could not be determined",
             className);
         metrics.add(CiVisibilityCountMetric.CODE_COVERAGE_ERRORS, 1, CoverageErrorType.PATH);
         continue;
       }
-      String sourcePath = sourcePaths.iterator().next();
 
       BitSet coveredLines = analyzeClass(clazz, executionDataAdapter);
       if (coveredLines != null) {
-        coveredLinesBySourcePath.computeIfAbsent(sourcePath, key -> new BitSet()).or(coveredLines);
+        CoveredLines existing = coveredLinesBySourcePath.get(sourcePath);
+        if (existing == null) {
+          coveredLinesBySourcePath.put(sourcePath, new CoveredLines(coveredLines));
+        } else {
+          existing.or(coveredLines);
+        }
       }
     }
 
     List<TestReportFileEntry> fileEntries = new ArrayList<>(coveredLinesBySourcePath.size());
-    for (Map.Entry<String, BitSet> e : coveredLinesBySourcePath.entrySet()) {
+    for (Map.Entry<String, CoveredLines> e : coveredLinesBySourcePath.entrySet()) {
       String sourcePath = e.getKey();
-      BitSet coveredLines = e.getValue();
+      BitSet coveredLines = e.getValue().lines;
       fileEntries.add(new TestReportFileEntry(sourcePath, coveredLines));
     }
 
@@ -159,8 +171,8 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
     // analysis. The per-test array is mutable and a propagated/background thread may record a late
     // probe while report() runs; sharing one snapshot ensures the cached covered lines always match
     // the key's probe set, so a late activation can't poison the entry for later tests.
-    boolean[] probes = executionDataAdapter.getProbeActivations().clone();
-    AnalysisCacheKey key = new AnalysisCacheKey(classId, probes);
+    AnalysisCacheKey key =
+        AnalysisCacheKey.fromWords(classId, executionDataAdapter.getProbeActivations());
     BitSet cached = analysisCache.get(key);
     if (cached != null) {
       return cached;
@@ -168,6 +180,9 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
 
     try (InputStream is = Utils.getClassStream(clazz)) {
       BitSet coveredLines = new BitSet();
+      // Jacoco expects one boolean per probe, only unpack on a cache miss
+      boolean[] probes =
+          ExecutionDataAdapter.toBooleans(key.probes, executionDataAdapter.getTotalProbeCount());
       ExecutionDataStore store = new ExecutionDataStore();
       store.put(new ExecutionData(classId, executionDataAdapter.getClassName(), probes));
       Analyzer analyzer = new Analyzer(store, new SourceAnalyzer(coveredLines));
@@ -197,32 +212,68 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
     }
   }
 
+  /** Covered lines of one source file, copied on write when several classes are merged. */
+  private static final class CoveredLines {
+    private BitSet lines;
+    private boolean shared = true;
+
+    private CoveredLines(BitSet lines) {
+      this.lines = lines;
+    }
+
+    private void or(BitSet other) {
+      if (shared) {
+        lines = (BitSet) lines.clone();
+        shared = false;
+      }
+      lines.or(other);
+    }
+  }
+
   /**
    * Cache key identifying a class (by Jacoco class id) covered by a specific set of probes. The
-   * probe activations are bit-packed into a {@link BitSet} rather than retaining the test's full
-   * {@code boolean[]} (1 byte/element), so a cached key uses ~8x less memory. Equality is exact:
-   * two keys match iff the same class was covered by the same set of probe ids.
+   * probe activations are kept in the packed {@code long[]} words recorded by {@link
+   * ExecutionDataAdapter}, trimmed of trailing empty words, rather than retaining a full {@code
+   * boolean[]} (1 byte/element), so a cached key uses ~8x less memory. Equality is exact: two keys
+   * match iff the same class was covered by the same set of probe ids.
    */
   static final class AnalysisCacheKey {
     private final long classId;
-    private final BitSet probes;
+    final long[] probes;
     private final int hash;
 
-    AnalysisCacheKey(long classId, boolean[] probeActivations) {
+    private AnalysisCacheKey(long classId, long[] probes) {
       this.classId = classId;
-      BitSet bits = new BitSet(probeActivations.length);
+      this.probes = probes;
+      this.hash = 31 * Long.hashCode(classId) + Arrays.hashCode(probes);
+    }
+
+    AnalysisCacheKey(long classId, boolean[] probeActivations) {
+      this(classId, pack(probeActivations));
+    }
+
+    /** Creates a key from a snapshot of the given packed activations. */
+    static AnalysisCacheKey fromWords(long classId, long[] words) {
+      int length = words.length;
+      while (length > 0 && words[length - 1] == 0) {
+        length--;
+      }
+      return new AnalysisCacheKey(classId, Arrays.copyOf(words, length));
+    }
+
+    private static long[] pack(boolean[] probeActivations) {
+      long[] words = new long[(probeActivations.length + 63) >>> 6];
       for (int i = 0; i < probeActivations.length; i++) {
         if (probeActivations[i]) {
-          bits.set(i);
+          words[i >>> 6] |= 1L << i;
         }
       }
-      this.probes = bits;
-      this.hash = 31 * Long.hashCode(classId) + bits.hashCode();
+      return fromWords(0, words).probes;
     }
 
     /** Bytes of the packed probe bits (the variable part of the retained key). */
     int packedBytes() {
-      return probes.size() >>> 3;
+      return probes.length << 3;
     }
 
     @Override
@@ -234,7 +285,7 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
         return false;
       }
       AnalysisCacheKey other = (AnalysisCacheKey) o;
-      return classId == other.classId && hash == other.hash && probes.equals(other.probes);
+      return classId == other.classId && hash == other.hash && Arrays.equals(probes, other.probes);
     }
 
     @Override
@@ -246,6 +297,21 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
   public static final class Factory implements CoverageStore.Factory {
 
     private final Map<String, Integer> probeCounts = new ConcurrentHashMap<>();
+    // Classes compiled from the same file share a single path instance
+    private final Map<String, String> internedSourcePaths = new ConcurrentHashMap<>();
+    private final ClassValue<String> sourcePaths =
+        new ClassValue<String>() {
+          @Override
+          protected String computeValue(Class<?> clazz) {
+            Collection<String> paths = sourcePathResolver.getSourcePaths(clazz);
+            if (paths.size() != 1) {
+              return null;
+            }
+            String path = paths.iterator().next();
+            String interned = internedSourcePaths.putIfAbsent(path, path);
+            return interned != null ? interned : path;
+          }
+        };
     private final Map<AnalysisCacheKey, BitSet> analysisCache = new ConcurrentHashMap<>();
     private final AtomicLong analysisCacheBytes = new AtomicLong();
 
@@ -260,7 +326,12 @@ public class LineCoverageStore extends ConcurrentCoverageStore<LineProbes> {
     @Override
     public CoverageStore create(@Nullable TestIdentifier testIdentifier) {
       return new LineCoverageStore(
-          this::createProbes, metrics, sourcePathResolver, analysisCache, analysisCacheBytes);
+          this::createProbes,
+          metrics,
+          sourcePathResolver,
+          sourcePaths,
+          analysisCache,
+          analysisCacheBytes);
     }
 
     private LineProbes createProbes(boolean isTestThread) {
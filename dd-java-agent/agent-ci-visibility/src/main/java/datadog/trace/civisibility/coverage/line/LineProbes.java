@@ -20,6 +20,7 @@ public class LineProbes implements CoverageProbes {
 
   private final CiVisibilityMetricCollector metrics;
   private final Map<String, Integer> probeCounts;
+  private final boolean isTestThread;
 
   private final Map<Class<?>, ExecutionDataAdapter> executionData;
   private final Map<String, String> nonCodeResources;
@@ -31,6 +32,7 @@ public class LineProbes implements CoverageProbes {
       CiVisibilityMetricCollector metrics, Map<String, Integer> probeCounts, boolean isTestThread) {
     this.metrics = metrics;
     this.probeCounts = probeCounts;
+    this.isTestThread = isTestThread;
     executionData = isTestThread ? new IdentityHashMap<>() : new ConcurrentHashMap<>();
     nonCodeResources = isTestThread ? new HashMap<>() : new ConcurrentHashMap<>();
   }
@@ -43,12 +45,18 @@ public class LineProbes implements CoverageProbes {
   @Override
   public void record(Class<?> clazz, long classId, int probeId) {
     try {
+      if (!isTestThread) {
+        // probes are shared by several threads, the last covered class cannot be cached
+        executionData
+            .computeIfAbsent(clazz, k -> newExecutionData(classId, k))
+            .record(probeId);
+        return;
+      }
       if (lastCoveredClass != clazz) {
         // optimization to avoid map lookup if activating several probes for same class in a row
         lastCoveredExecutionData =
             executionData.computeIfAbsent(
-                lastCoveredClass = clazz,
-                k -> new ExecutionDataAdapter(classId, k.getName(), probeCounts.get(k.getName())));
+                lastCoveredClass = clazz, k -> newExecutionData(classId, k));
       }
       lastCoveredExecutionData.record(probeId);
 
@@ -58,6 +66,11 @@ public class LineProbes implements CoverageProbes {
     }
   }
 
+  private ExecutionDataAdapter newExecutionData(long classId, Class<?> clazz) {
+    return new ExecutionDataAdapter(
+        classId, clazz.getName(), probeCounts.get(clazz.getName()), !isTestThread);
+  }
+
   @Override
   public void recordNonCodeResource(String absolutePath) {
     nonCodeResources.put(absolutePath, absolutePath);
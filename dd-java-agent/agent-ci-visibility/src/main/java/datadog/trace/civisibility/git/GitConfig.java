@@ -4,6 +4,7 @@ import de.thetaphi.forbiddenapis.SuppressForbidden;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -93,6 +94,11 @@ public class GitConfig {
     return true;
   }
 
+  public Map<String, String> getEntries(final String section) {
+    final Map<String, String> kv = entries.get(section);
+    return kv != null ? Collections.unmodifiableMap(kv) : Collections.emptyMap();
+  }
+
   public String getString(final String section, final String key) {
     final Map<String, String> kv = entries.get(section);
     if (kv == null) {
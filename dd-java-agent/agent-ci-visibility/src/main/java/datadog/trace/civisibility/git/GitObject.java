@@ -8,6 +8,8 @@ public final class GitObject {
 
   // https://git-scm.com/docs/pack-format#_object_types
   public static final byte COMMIT_TYPE = 1;
+  public static final byte TREE_TYPE = 2;
+  public static final byte BLOB_TYPE = 3;
   public static final byte TAG_TYPE = 4;
 
   public static final GitObject NOOP = new GitObject();
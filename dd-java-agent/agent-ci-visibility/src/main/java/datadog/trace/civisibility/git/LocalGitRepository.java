@@ -0,0 +1,692 @@
+package datadog.trace.civisibility.git;
+
+import datadog.trace.api.git.GitUtils;
+import datadog.trace.api.git.RawParseUtils;
+import datadog.trace.civisibility.git.pack.GitPackFile;
+import datadog.trace.civisibility.git.pack.GitPackUtils;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads refs and objects of a local Git repository directly from the filesystem, without spawning
+ * {@code git} processes.
+ *
+ * <p>Supports loose and packed refs, loose objects and v2 packfiles (which are memory-mapped, see
+ * {@link GitPackFile}). Linked worktrees are supported: per-worktree refs ({@code HEAD}, etc.) are
+ * read from the worktree's git folder, everything else from the common folder.
+ *
+ * <p>Repositories that use features this reader does not understand (SHA-256 object format,
+ * reftable ref storage, alternate object stores, environment overrides) are rejected in {@link
+ * #open(File)}, so that callers can fall back to the {@code git} executable.
+ */
+public final class LocalGitRepository {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LocalGitRepository.class);
+
+  private static final String GIT_FOLDER = ".git";
+  private static final String GITDIR_PREFIX = "gitdir:";
+  private static final String SYMREF_PREFIX = "ref: ";
+  private static final String PEELED_PREFIX = "^";
+  private static final int MAX_SYMREF_DEPTH = 5;
+
+  // https://git-scm.com/docs/gitrevisions#_specifying_revisions (<refname> lookup order)
+  private static final String[] REF_RESOLUTION_RULES = {
+    "refs/%s", "refs/tags/%s", "refs/heads/%s", "refs/remotes/%s", "refs/remotes/%s/HEAD"
+  };
+
+  private final Path workTree;
+  private final Path gitDir;
+  private final Path commonDir;
+  private final GitConfig config;
+
+  private volatile List<GitPackFile> packs;
+  private volatile PackedRefs packedRefs;
+
+  private LocalGitRepository(Path workTree, Path gitDir, Path commonDir, GitConfig config) {
+    this.workTree = workTree;
+    this.gitDir = gitDir;
+    this.commonDir = commonDir;
+    this.config = config;
+  }
+
+  /**
+   * Opens the repository located at (or above) the given directory.
+   *
+   * @return the repository, or {@code null} if there is no repository or if it uses a format that
+   *     cannot be read in-process
+   */
+  @Nullable
+  public static LocalGitRepository open(File directory) {
+    if (System.getenv("GIT_DIR") != null
+        || System.getenv("GIT_COMMON_DIR") != null
+        || System.getenv("GIT_OBJECT_DIRECTORY") != null
+        || System.getenv("GIT_ALTERNATE_OBJECT_DIRECTORIES") != null) {
+      LOGGER.debug("Git environment overrides detected, not reading repository in-process");
+      return null;
+    }
+
+    try {
+      File current = directory.getAbsoluteFile();
+      while (current != null) {
+        Path dotGit = current.toPath().resolve(GIT_FOLDER);
+        if (Files.isDirectory(dotGit)) {
+          return open(current.toPath(), dotGit);
+        } else if (Files.isRegularFile(dotGit)) {
+          Path gitDir = readGitDirLink(current.toPath(), dotGit);
+          return gitDir != null ? open(current.toPath(), gitDir) : null;
+        }
+        current = current.getParentFile();
+      }
+      return null;
+
+    } catch (Exception e) {
+      LOGGER.debug("Could not open git repository at {}", directory, e);
+      return null;
+    }
+  }
+
+  @Nullable
+  private static Path readGitDirLink(Path workTree, Path dotGitFile) throws IOException {
+    String content = readTrimmed(dotGitFile);
+    if (content == null || !content.startsWith(GITDIR_PREFIX)) {
+      return null;
+    }
+    Path gitDir = workTree.resolve(content.substring(GITDIR_PREFIX.length()).trim());
+    return Files.isDirectory(gitDir) ? gitDir : null;
+  }
+
+  @Nullable
+  private static LocalGitRepository open(Path workTree, Path gitDir) throws IOException {
+    Path commonDir = gitDir;
+    String commonDirLink = readTrimmed(gitDir.resolve("commondir"));
+    if (commonDirLink != null) {
+      commonDir = gitDir.resolve(commonDirLink);
+    }
+
+    if (!Files.isRegularFile(gitDir.resolve("HEAD"))
+        || !Files.isDirectory(commonDir.resolve("objects"))) {
+      return null;
+    }
+    if (Files.exists(commonDir.resolve("objects/info/alternates"))) {
+      LOGGER.debug("Repository {} uses alternate object stores", commonDir);
+      return null;
+    }
+
+    Path configFile = commonDir.resolve("config");
+    GitConfig config = new GitConfig(Files.exists(configFile) ? configFile.toString() : null);
+    if (hasExtension(config, "objectformat", "sha1")
+        || hasExtension(config, "refstorage", "files")) {
+      LOGGER.debug("Repository {} uses unsupported extensions", commonDir);
+      return null;
+    }
+
+    return new LocalGitRepository(
+        workTree.toRealPath(), gitDir.toRealPath(), commonDir.toRealPath(), config);
+  }
+
+  /** Checks whether the extension is set to anything other than its default value */
+  private static boolean hasExtension(GitConfig config, String name, String defaultValue) {
+    for (Map.Entry<String, String> e : config.getEntries("extensions").entrySet()) {
+      if (e.getKey().equalsIgnoreCase(name) && !e.getValue().equalsIgnoreCase(defaultValue)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public Path getWorkTree() {
+    return workTree;
+  }
+
+  public Path getGitDir() {
+    return gitDir;
+  }
+
+  public GitConfig getConfig() {
+    return config;
+  }
+
+  public boolean isShallow() throws IOException {
+    Path shallow = commonDir.resolve("shallow");
+    return Files.isRegularFile(shallow) && Files.size(shallow) > 0;
+  }
+
+  /** Returns SHAs of the commits that are the shallow boundary of the repository. */
+  public Set<String> getShallowCommits() throws IOException {
+    Path shallow = commonDir.resolve("shallow");
+    if (!Files.isRegularFile(shallow)) {
+      return Collections.emptySet();
+    }
+    Set<String> commits = new HashSet<>();
+    for (String line : Files.readAllLines(shallow, StandardCharsets.UTF_8)) {
+      String sha = line.trim();
+      if (!sha.isEmpty()) {
+        commits.add(sha);
+      }
+    }
+    return commits;
+  }
+
+  /**
+   * Returns the full name of the ref that {@code HEAD} points to (e.g. {@code refs/heads/master}),
+   * or {@code null} if {@code HEAD} is detached.
+   */
+  @Nullable
+  public String getHeadRef() throws IOException {
+    String head = readTrimmed(gitDir.resolve("HEAD"));
+    if (head == null || !head.startsWith(SYMREF_PREFIX)) {
+      return null;
+    }
+    return head.substring(SYMREF_PREFIX.length()).trim();
+  }
+
+  /**
+   * Resolves a revision to an object SHA the way {@code git rev-parse} does for the simple cases:
+   * full SHAs, {@code HEAD}-like pseudo refs and (short) ref names. Revision expressions such as
+   * {@code HEAD~1} or abbreviated SHAs are not supported.
+   *
+   * @return full SHA, or {@code null} if the revision could not be resolved
+   */
+  @Nullable
+  public String resolve(String revision) throws IOException {
+    if (GitUtils.isValidCommitShaFull(revision) && revision.length() == 40) {
+      return revision.toLowerCase();
+    }
+    if (!isSimpleRefName(revision)) {
+      return null;
+    }
+    if (revision.startsWith("refs/") || isPseudoRef(revision)) {
+      String sha = resolveRef(revision);
+      if (sha != null) {
+        return sha;
+      }
+    }
+    for (String rule : REF_RESOLUTION_RULES) {
+      String sha = resolveRef(String.format(rule, revision));
+      if (sha != null) {
+        return sha;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isSimpleRefName(String name) {
+    if (name.isEmpty() || name.startsWith("/") || name.endsWith("/") || name.contains("..")) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c <= ' '
+          || c == '~'
+          || c == '^'
+          || c == ':'
+          || c == '?'
+          || c == '*'
+          || c == '['
+          || c == '\\'
+          || c == '@'
+          || c == 127) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isPseudoRef(String name) {
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if ((c < 'A' || c > 'Z') && c != '_') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Resolves a fully qualified ref name (e.g. {@code refs/heads/master} or {@code HEAD}), following
+   * symbolic refs.
+   *
+   * @return full SHA, or {@code null} if the ref does not exist
+   */
+  @Nullable
+  public String resolveRef(String refName) throws IOException {
+    String name = refName;
+    for (int depth = 0; depth < MAX_SYMREF_DEPTH; depth++) {
+      String value = readLooseRef(name);
+      if (value == null) {
+        return getPackedRefs().refs.get(name);
+      }
+      if (value.startsWith(SYMREF_PREFIX)) {
+        name = value.substring(SYMREF_PREFIX.length()).trim();
+        continue;
+      }
+      return GitUtils.isValidCommitShaFull(value) ? value : null;
+    }
+    return null;
+  }
+
+  @Nullable
+  private String readLooseRef(String refName) throws IOException {
+    // per-worktree refs live in the worktree git folder, the rest in the common folder
+    boolean perWorktree =
+        !refName.startsWith("refs/")
+            || refName.startsWith("refs/worktree/")
+            || refName.startsWith("refs/bisect/")
+            || refName.startsWith("refs/rewritten/");
+    Path refFile = (perWorktree ? gitDir : commonDir).resolve(refName);
+    if (!Files.isRegularFile(refFile)) {
+      return null;
+    }
+    return readTrimmed(refFile);
+  }
+
+  /**
+   * Returns tag names (without the {@code refs/tags/} prefix) mapped to the SHA of the commit they
+   * point to, with annotated tags peeled.
+   */
+  public Map<String, String> getTags() throws IOException {
+    Map<String, String> tags = new HashMap<>();
+    PackedRefs packed = getPackedRefs();
+    for (Map.Entry<String, String> e : packed.refs.entrySet()) {
+      String name = e.getKey();
+      if (name.startsWith("refs/tags/")) {
+        String peeled = packed.peeled.get(name);
+        tags.put(name.substring("refs/tags/".length()), peeled != null ? peeled : e.getValue());
+      }
+    }
+
+    Path tagsFolder = commonDir.resolve("refs/tags");
+    if (Files.isDirectory(tagsFolder)) {
+      List<Path> looseTags = new ArrayList<>();
+      try (Stream<Path> files = Files.walk(tagsFolder)) {
+        files.filter(Files::isRegularFile).forEach(looseTags::add);
+      }
+      for (Path looseTag : looseTags) {
+        String sha = readTrimmed(looseTag);
+        if (sha != null && GitUtils.isValidCommitShaFull(sha)) {
+          String name = tagsFolder.relativize(looseTag).toString().replace(File.separatorChar, '/');
+          tags.put(name, sha);
+        }
+      }
+    }
+
+    for (Map.Entry<String, String> e : tags.entrySet()) {
+      e.setValue(peel(e.getValue()));
+    }
+    return tags;
+  }
+
+  /** Follows annotated tags until a non-tag object is reached. */
+  public String peel(String sha) throws IOException {
+    String current = sha;
+    for (int depth = 0; depth < MAX_SYMREF_DEPTH; depth++) {
+      GitObject object = readObject(current);
+      if (object == null || object.getType() != GitObject.TAG_TYPE) {
+        return current;
+      }
+      // "object <sha>\n" is the first line of a tag
+      byte[] content = object.getContent();
+      if (content.length < 47) {
+        return current;
+      }
+      current = new String(content, 7, 40, StandardCharsets.US_ASCII);
+    }
+    return current;
+  }
+
+  private PackedRefs getPackedRefs() throws IOException {
+    Path file = commonDir.resolve("packed-refs");
+    long lastModified = Files.isRegularFile(file) ? Files.getLastModifiedTime(file).toMillis() : -1;
+    long size = lastModified != -1 ? Files.size(file) : -1;
+
+    PackedRefs current = packedRefs;
+    if (current != null && current.lastModified == lastModified && current.size == size) {
+      return current;
+    }
+
+    Map<String, String> refs = new HashMap<>();
+    Map<String, String> peeled = new HashMap<>();
+    if (lastModified != -1) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        String line;
+        String lastRef = null;
+        while ((line = reader.readLine()) != null) {
+          if (line.isEmpty() || line.startsWith("#")) {
+            continue;
+          }
+          if (line.startsWith(PEELED_PREFIX)) {
+            if (lastRef != null) {
+              peeled.put(lastRef, line.substring(PEELED_PREFIX.length()).trim());
+            }
+            continue;
+          }
+          int space = line.indexOf(' ');
+          if (space == 40) {
+            lastRef = line.substring(space + 1).trim();
+            refs.put(lastRef, line.substring(0, space));
+          }
+        }
+      }
+    }
+    current = new PackedRefs(lastModified, size, refs, peeled);
+    packedRefs = current;
+    return current;
+  }
+
+  /**
+   * Reads the object with the given SHA from the loose objects folder or from one of the packs.
+   *
+   * @return the object, or {@code null} if it is not present in the repository
+   */
+  @Nullable
+  public GitObject readObject(String sha) throws IOException {
+    if (!GitUtils.isValidCommitShaFull(sha) || sha.length() != 40) {
+      return null;
+    }
+
+    Path looseObject =
+        commonDir.resolve("objects").resolve(sha.substring(0, 2)).resolve(sha.substring(2));
+    if (Files.isRegularFile(looseObject)) {
+      return readLooseObject(looseObject);
+    }
+
+    byte[] rawSha = GitPackUtils.hexToByteArray(sha);
+    GitObject object = readPackedObject(getPacks(false), rawSha);
+    if (object == null) {
+      // the object could have been added by a fetch/repack since packs were listed
+      object = readPackedObject(getPacks(true), rawSha);
+    }
+    return object;
+  }
+
+  @Nullable
+  private static GitObject readPackedObject(List<GitPackFile> packs, byte[] rawSha)
+      throws IOException {
+    for (GitPackFile pack : packs) {
+      GitObject object = pack.read(rawSha);
+      if (object != null) {
+        return object;
+      }
+    }
+    return null;
+  }
+
+  private static GitObject readLooseObject(Path file) throws IOException {
+    byte[] decompressed;
+    try {
+      decompressed = GitUtils.inflate(Files.readAllBytes(file));
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupted loose object " + file, e);
+    }
+    if (decompressed == null) {
+      throw new IOException("Could not inflate loose object " + file);
+    }
+
+    // "<type> <size>\0<content>"
+    int separator = RawParseUtils.findByte(decompressed, (byte) 0);
+    int space = RawParseUtils.findByte(decompressed, (byte) ' ');
+    if (separator == -1 || space == -1 || space > separator) {
+      throw new IOException("Malformed loose object " + file);
+    }
+    String type = new String(decompressed, 0, space, StandardCharsets.US_ASCII);
+    byte[] content = new byte[decompressed.length - separator - 1];
+    System.arraycopy(decompressed, separator + 1, content, 0, content.length);
+    return new GitObject(typeToByte(type), content.length, content);
+  }
+
+  private static byte typeToByte(String type) {
+    switch (type) {
+      case "commit":
+        return GitObject.COMMIT_TYPE;
+      case "tree":
+        return GitObject.TREE_TYPE;
+      case "blob":
+        return GitObject.BLOB_TYPE;
+      case "tag":
+        return GitObject.TAG_TYPE;
+      default:
+        return GitObject.UNKNOWN_TYPE;
+    }
+  }
+
+  private List<GitPackFile> getPacks(boolean rescan) throws IOException {
+    List<GitPackFile> current = packs;
+    if (current != null && !rescan) {
+      return current;
+    }
+    synchronized (this) {
+      if (packs != null && packs != current) {
+        // another thread rescanned concurrently
+        return packs;
+      }
+
+      Map<String, GitPackFile> previouslyOpened = new HashMap<>();
+      if (current != null) {
+        for (GitPackFile pack : current) {
+          previouslyOpened.put(pack.getPackFile().getName(), pack);
+        }
+      }
+
+      List<GitPackFile> opened = new ArrayList<>();
+      File[] idxFiles =
+          commonDir.resolve("objects/pack").toFile().listFiles((d, n) -> n.endsWith(".idx"));
+      if (idxFiles != null) {
+        for (File idxFile : idxFiles) {
+          File packFile = GitPackUtils.getPackFile(idxFile);
+          if (!packFile.isFile()) {
+            continue;
+          }
+          GitPackFile pack = previouslyOpened.get(packFile.getName());
+          opened.add(pack != null ? pack : GitPackFile.open(idxFile));
+        }
+      }
+      packs = opened;
+      return opened;
+    }
+  }
+
+  /**
+   * Reads and parses the commit with the given SHA, peeling annotated tags.
+   *
+   * @return the commit, or {@code null} if it is not present in the repository
+   */
+  @Nullable
+  public Commit readCommit(String sha) throws IOException {
+    String commitSha = peel(sha);
+    GitObject object = readObject(commitSha);
+    if (object == null) {
+      return null;
+    }
+    if (object.getType() != GitObject.COMMIT_TYPE) {
+      throw new IOException("Object " + commitSha + " is not a commit");
+    }
+    return Commit.parse(commitSha, object.getContent());
+  }
+
+  @Nullable
+  private static String readTrimmed(Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+  }
+
+  @Override
+  public String toString() {
+    return "LocalGitRepository{" + gitDir + "}";
+  }
+
+  private static final class PackedRefs {
+    private final long lastModified;
+    private final long size;
+    private final Map<String, String> refs;
+    private final Map<String, String> peeled;
+
+    private PackedRefs(
+        long lastModified, long size, Map<String, String> refs, Map<String, String> peeled) {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.refs = refs;
+      this.peeled = peeled;
+    }
+  }
+
+  /** Parsed commit object. */
+  public static final class Commit {
+    private final String sha;
+    private final String tree;
+    private final List<String> parents;
+    private final Signature author;
+    private final Signature committer;
+    private final String message;
+
+    private Commit(
+        String sha,
+        String tree,
+        List<String> parents,
+        Signature author,
+        Signature committer,
+        String message) {
+      this.sha = sha;
+      this.tree = tree;
+      this.parents = parents;
+      this.author = author;
+      this.committer = committer;
+      this.message = message;
+    }
+
+    static Commit parse(String sha, byte[] content) throws IOException {
+      String tree = null;
+      List<String> parents = new ArrayList<>(1);
+      Signature author = Signature.EMPTY;
+      Signature committer = Signature.EMPTY;
+
+      int position = 0;
+      while (position < content.length && content[position] != '\n') {
+        int lineEnd = RawParseUtils.nextLF(content, position);
+        int end = content[lineEnd - 1] == '\n' ? lineEnd - 1 : lineEnd;
+        String line = RawParseUtils.decode(content, position, end);
+        if (line.startsWith("tree ")) {
+          tree = line.substring(5);
+        } else if (line.startsWith("parent ")) {
+          parents.add(line.substring(7));
+        } else if (line.startsWith("author ")) {
+          author = Signature.parse(line.substring(7));
+        } else if (line.startsWith("committer ")) {
+          committer = Signature.parse(line.substring(10));
+        }
+        // other headers (including multi-line ones such as gpgsig) are ignored
+        position = lineEnd;
+      }
+      if (tree == null) {
+        throw new IOException("Malformed commit " + sha);
+      }
+
+      String message =
+          position < content.length
+              ? RawParseUtils.decode(content, position + 1, content.length)
+              : "";
+      return new Commit(sha, tree, parents, author, committer, message);
+    }
+
+    public String getSha() {
+      return sha;
+    }
+
+    public String getTree() {
+      return tree;
+    }
+
+    public List<String> getParents() {
+      return parents;
+    }
+
+    public Signature getAuthor() {
+      return author;
+    }
+
+    public Signature getCommitter() {
+      return committer;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+  }
+
+  /** Author or committer of a commit: {@code Name <email> <epoch seconds> <timezone>}. */
+  public static final class Signature {
+    static final Signature EMPTY = new Signature("", "", 0, 0);
+
+    private final String name;
+    private final String email;
+    private final long epochSeconds;
+    private final int timezoneOffsetMinutes;
+
+    private Signature(String name, String email, long epochSeconds, int timezoneOffsetMinutes) {
+      this.name = name;
+      this.email = email;
+      this.epochSeconds = epochSeconds;
+      this.timezoneOffsetMinutes = timezoneOffsetMinutes;
+    }
+
+    static Signature parse(String value) {
+      int emailStart = value.indexOf('<');
+      int emailEnd = value.indexOf('>', emailStart + 1);
+      if (emailStart == -1 || emailEnd == -1) {
+        return new Signature(value.trim(), "", 0, 0);
+      }
+      String name = value.substring(0, emailStart).trim();
+      String email = value.substring(emailStart + 1, emailEnd);
+
+      long epochSeconds = 0;
+      int timezoneOffsetMinutes = 0;
+      String dateAndZone = value.substring(emailEnd + 1).trim();
+      int space = dateAndZone.indexOf(' ');
+      try {
+        if (space != -1) {
+          epochSeconds = Long.parseLong(dateAndZone.substring(0, space));
+          int zone = Integer.parseInt(dateAndZone.substring(space + 1).trim());
+          timezoneOffsetMinutes = (zone / 100) * 60 + (zone % 100);
+        } else if (!dateAndZone.isEmpty()) {
+          epochSeconds = Long.parseLong(dateAndZone);
+        }
+      } catch (NumberFormatException e) {
+        // malformed date, keep what could be parsed
+      }
+      return new Signature(name, email, epochSeconds, timezoneOffsetMinutes);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+
+    public long getEpochSeconds() {
+      return epochSeconds;
+    }
+
+    public int getTimezoneOffsetMinutes() {
+      return timezoneOffsetMinutes;
+    }
+  }
+}
@@ -0,0 +1,318 @@
+package datadog.trace.civisibility.git.pack;
+
+import static datadog.trace.civisibility.git.pack.GitPackUtils.HEADER;
+
+import datadog.trace.civisibility.git.GitObject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+/**
+ * Memory-mapped view of a v2 packfile and its index.
+ *
+ * <p>Unlike {@link V2PackGitInfoExtractor}, which seeks through the index for a single commit, this
+ * class keeps both files mapped so that repeated lookups (e.g. walking the commit history) only pay
+ * for a binary search in the SHA listing and the inflation of the object itself. Deltified objects
+ * ({@code OFS_DELTA} and {@code REF_DELTA}) are resolved against their bases from the same pack.
+ *
+ * <p>See https://git-scm.com/docs/pack-format for the format description.
+ */
+public final class GitPackFile {
+
+  private static final int OBJ_OFS_DELTA = 6;
+  private static final int OBJ_REF_DELTA = 7;
+
+  private static final int SHA_LENGTH = 20;
+  private static final int FANOUT_OFFSET = 8;
+  private static final int SHA_LISTING_OFFSET = FANOUT_OFFSET + 256 * 4;
+
+  private static final int MAX_DELTA_CHAIN_LENGTH = 10_000;
+  private static final int INFLATER_INPUT_CHUNK = 8 * 1024;
+
+  private final File packFile;
+  private final MappedByteBuffer idx;
+  private final MappedByteBuffer pack;
+  private final int totalObjects;
+  private final int offsetsTableOffset;
+  private final int largeOffsetsTableOffset;
+
+  private GitPackFile(File packFile, MappedByteBuffer idx, MappedByteBuffer pack) {
+    this.packFile = packFile;
+    this.idx = idx;
+    this.pack = pack;
+    this.totalObjects = idx.getInt(FANOUT_OFFSET + 255 * 4);
+    this.offsetsTableOffset = SHA_LISTING_OFFSET + totalObjects * (SHA_LENGTH + 4);
+    this.largeOffsetsTableOffset = offsetsTableOffset + totalObjects * 4;
+  }
+
+  /**
+   * Maps the given index file and its companion pack file.
+   *
+   * @throws IOException if the files cannot be mapped, the index is not in v2 format or the pack is
+   *     too large to be mapped in one piece
+   */
+  public static GitPackFile open(File idxFile) throws IOException {
+    File packFile = GitPackUtils.getPackFile(idxFile);
+    MappedByteBuffer idx = map(idxFile);
+    if (idx.capacity() < SHA_LISTING_OFFSET
+        || idx.get(0) != HEADER[0]
+        || idx.get(1) != HEADER[1]
+        || idx.get(2) != HEADER[2]
+        || idx.get(3) != HEADER[3]
+        || idx.getInt(4) != V2PackGitInfoExtractor.VERSION) {
+      throw new IOException("Unsupported pack index format: " + idxFile);
+    }
+    return new GitPackFile(packFile, idx, map(packFile));
+  }
+
+  private static MappedByteBuffer map(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File is too large to be mapped: " + file);
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  public File getPackFile() {
+    return packFile;
+  }
+
+  public int getObjectCount() {
+    return totalObjects;
+  }
+
+  /**
+   * Reads the object with the given SHA.
+   *
+   * @param sha raw (20 bytes) object SHA
+   * @return the inflated object with deltas applied, or {@code null} if the pack does not contain
+   *     it
+   */
+  @Nullable
+  public GitObject read(byte[] sha) throws IOException {
+    long offset = findOffset(sha);
+    if (offset < 0) {
+      return null;
+    }
+    return readAt(offset);
+  }
+
+  /** Returns the position of the object in the pack file, or {@code -1} if it is not present. */
+  long findOffset(byte[] sha) {
+    int firstByte = sha[0] & 0xFF;
+    int low = firstByte == 0 ? 0 : idx.getInt(FANOUT_OFFSET + (firstByte - 1) * 4);
+    int high = idx.getInt(FANOUT_OFFSET + firstByte * 4) - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareSha(SHA_LISTING_OFFSET + mid * SHA_LENGTH, sha);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return objectOffset(mid);
+      }
+    }
+    return -1;
+  }
+
+  private int compareSha(int position, byte[] sha) {
+    for (int i = 0; i < SHA_LENGTH; i++) {
+      int diff = (idx.get(position + i) & 0xFF) - (sha[i] & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return 0;
+  }
+
+  private long objectOffset(int shaIndex) {
+    int offset = idx.getInt(offsetsTableOffset + shaIndex * 4);
+    if (offset >= 0) {
+      return offset;
+    }
+    // the high bit is set: the offset is an index into the large offsets table
+    return idx.getLong(largeOffsetsTableOffset + (offset & 0x7FFFFFFF) * 8);
+  }
+
+  private GitObject readAt(long objectOffset) throws IOException {
+    Deque<byte[]> deltas = new ArrayDeque<>();
+    long offset = objectOffset;
+    while (true) {
+      if (deltas.size() > MAX_DELTA_CHAIN_LENGTH) {
+        throw new IOException("Delta chain is too long in " + packFile);
+      }
+
+      int position = checkedPosition(offset);
+      int c = pack.get(position++) & 0xFF;
+      int type = (c >> 4) & 0x07;
+      long size = c & 0x0F;
+      int shift = 4;
+      while ((c & 0x80) != 0) {
+        c = pack.get(position++) & 0xFF;
+        size |= (long) (c & 0x7F) << shift;
+        shift += 7;
+      }
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Object is too large at offset " + offset + " in " + packFile);
+      }
+
+      long baseOffset;
+      if (type == OBJ_OFS_DELTA) {
+        c = pack.get(position++) & 0xFF;
+        long relative = c & 0x7F;
+        while ((c & 0x80) != 0) {
+          c = pack.get(position++) & 0xFF;
+          relative = ((relative + 1) << 7) | (c & 0x7F);
+        }
+        baseOffset = offset - relative;
+      } else if (type == OBJ_REF_DELTA) {
+        byte[] baseSha = new byte[SHA_LENGTH];
+        for (int i = 0; i < SHA_LENGTH; i++) {
+          baseSha[i] = pack.get(position++);
+        }
+        baseOffset = findOffset(baseSha);
+        if (baseOffset < 0) {
+          throw new IOException("Delta base is not present in " + packFile);
+        }
+      } else {
+        byte[] content = inflate(position, (int) size);
+        while (!deltas.isEmpty()) {
+          content = applyDelta(content, deltas.pop());
+        }
+        return new GitObject((byte) type, content.length, content);
+      }
+
+      deltas.push(inflate(position, (int) size));
+      offset = baseOffset;
+    }
+  }
+
+  private int checkedPosition(long offset) throws IOException {
+    if (offset < 0 || offset >= pack.capacity()) {
+      throw new IOException("Invalid object offset " + offset + " in " + packFile);
+    }
+    return (int) offset;
+  }
+
+  private byte[] inflate(int position, int size) throws IOException {
+    byte[] result = new byte[size];
+    if (size == 0) {
+      return result;
+    }
+
+    ByteBuffer input = pack.duplicate();
+    input.position(position);
+
+    byte[] chunk = new byte[Math.min(INFLATER_INPUT_CHUNK, Math.max(size, 64))];
+    Inflater inflater = new Inflater();
+    try {
+      int inflated = 0;
+      while (inflated < size) {
+        if (inflater.needsInput()) {
+          int length = Math.min(chunk.length, input.remaining());
+          if (length == 0) {
+            throw new IOException("Truncated object in " + packFile);
+          }
+          input.get(chunk, 0, length);
+          inflater.setInput(chunk, 0, length);
+        }
+        int n = inflater.inflate(result, inflated, size - inflated);
+        if (n == 0 && (inflater.finished() || inflater.needsDictionary())) {
+          throw new IOException("Object is smaller than declared in " + packFile);
+        }
+        inflated += n;
+      }
+      return result;
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupted object in " + packFile, e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /** Applies a git delta (https://git-scm.com/docs/pack-format#_deltified_representation). */
+  static byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+    int position = 0;
+
+    long baseSize = 0;
+    int shift = 0;
+    int c;
+    do {
+      c = delta[position++] & 0xFF;
+      baseSize |= (long) (c & 0x7F) << shift;
+      shift += 7;
+    } while ((c & 0x80) != 0);
+    if (baseSize != base.length) {
+      throw new IOException("Delta base size mismatch");
+    }
+
+    long resultSize = 0;
+    shift = 0;
+    do {
+      c = delta[position++] & 0xFF;
+      resultSize |= (long) (c & 0x7F) << shift;
+      shift += 7;
+    } while ((c & 0x80) != 0);
+    if (resultSize > Integer.MAX_VALUE) {
+      throw new IOException("Delta result is too large");
+    }
+
+    byte[] result = new byte[(int) resultSize];
+    int resultPosition = 0;
+    while (position < delta.length) {
+      int op = delta[position++] & 0xFF;
+      if ((op & 0x80) != 0) {
+        // copy a range of the base object
+        int copyOffset = 0;
+        for (int i = 0; i < 4; i++) {
+          if ((op & (1 << i)) != 0) {
+            copyOffset |= (delta[position++] & 0xFF) << (i * 8);
+          }
+        }
+        int copySize = 0;
+        for (int i = 0; i < 3; i++) {
+          if ((op & (0x10 << i)) != 0) {
+            copySize |= (delta[position++] & 0xFF) << (i * 8);
+          }
+        }
+        if (copySize == 0) {
+          copySize = 0x10000;
+        }
+        if (copyOffset < 0
+            || copyOffset + copySize > base.length
+            || resultPosition + copySize > result.length) {
+          throw new IOException("Invalid delta copy instruction");
+        }
+        System.arraycopy(base, copyOffset, result, resultPosition, copySize);
+        resultPosition += copySize;
+
+      } else if (op != 0) {
+        // insert the next op bytes of the delta
+        if (position + op > delta.length || resultPosition + op > result.length) {
+          throw new IOException("Invalid delta insert instruction");
+        }
+        System.arraycopy(delta, position, result, resultPosition, op);
+        position += op;
+        resultPosition += op;
+
+      } else {
+        throw new IOException("Reserved delta instruction");
+      }
+    }
+    if (resultPosition != result.length) {
+      throw new IOException("Delta result size mismatch");
+    }
+    return result;
+  }
+}
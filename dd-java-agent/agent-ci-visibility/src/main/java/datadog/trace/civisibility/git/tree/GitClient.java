@@ -41,6 +41,11 @@ public interface GitClient {
   @Nullable
   String getSha(String reference) throws IOException, TimeoutException, InterruptedException;
 
+  @Nullable
+  String getTreeSha(String reference) throws IOException, TimeoutException, InterruptedException;
+
+  boolean hasUncommittedChanges() throws IOException, TimeoutException, InterruptedException;
+
   @Nonnull
   CommitInfo getCommitInfo(String commit, boolean fetchIfNotPresent)
       throws IOException, TimeoutException, InterruptedException;
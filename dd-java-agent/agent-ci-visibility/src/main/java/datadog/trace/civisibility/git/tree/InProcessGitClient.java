@@ -0,0 +1,423 @@
+package datadog.trace.civisibility.git.tree;
+
+import datadog.trace.api.git.CommitInfo;
+import datadog.trace.api.git.GitUtils;
+import datadog.trace.api.git.PersonInfo;
+import datadog.trace.civisibility.diff.LineDiff;
+import datadog.trace.civisibility.git.LocalGitRepository;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Git client that answers queries by reading the repository directly (see {@link
+ * LocalGitRepository}) instead of forking {@code git} processes.
+ *
+ * <p>Operations that need the full power of {@code git} (fetching, computing object lists and
+ * packs, diffs, merge bases) are delegated to the fallback client. Read-only queries are delegated
+ * too whenever they cannot be answered in-process: an unsupported revision expression, an object
+ * that is missing locally or a read error.
+ */
+public class InProcessGitClient implements GitClient {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InProcessGitClient.class);
+
+  private static final String REFS_HEADS = "refs/heads/";
+  private static final String REFS_REMOTES = "refs/remotes/";
+
+  /** Same format as {@code git show --format=%aI} */
+  private static final DateTimeFormatter ISO_8601_STRICT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx");
+
+  private final LocalGitRepository repository;
+  private final GitClient fallback;
+  private final Period latestCommitsSince;
+  private final int latestCommitsLimit;
+
+  /**
+   * Creates a new git client
+   *
+   * @param repository Repository to read data from
+   * @param fallback Client that is used for the queries that cannot be answered in-process
+   * @param latestCommitsSince How far into the past the client should be looking when fetching Git
+   *     data
+   * @param latestCommitsLimit Maximum number of commits that the client should be considering when
+   *     fetching commit data
+   */
+  InProcessGitClient(
+      LocalGitRepository repository,
+      GitClient fallback,
+      Period latestCommitsSince,
+      int latestCommitsLimit) {
+    this.repository = repository;
+    this.fallback = fallback;
+    this.latestCommitsSince = latestCommitsSince;
+    this.latestCommitsLimit = latestCommitsLimit;
+  }
+
+  @Override
+  public boolean isShallow() throws IOException, TimeoutException, InterruptedException {
+    return query(repository::isShallow, fallback::isShallow);
+  }
+
+  @Override
+  public void unshallow(@Nullable String remoteCommitReference)
+      throws IOException, TimeoutException, InterruptedException {
+    fallback.unshallow(remoteCommitReference);
+  }
+
+  @Nullable
+  @Override
+  public String getGitFolder() {
+    return repository.getGitDir().toString();
+  }
+
+  @Nullable
+  @Override
+  public String getRepoRoot() {
+    return repository.getWorkTree().toString();
+  }
+
+  @Nullable
+  @Override
+  public String getRemoteUrl(String remoteName)
+      throws IOException, TimeoutException, InterruptedException {
+    if (!GitUtils.isValidRef(remoteName)) {
+      return null;
+    }
+    return query(
+        () -> repository.getConfig().getString("remote \"" + remoteName + "\"", "url"),
+        () -> fallback.getRemoteUrl(remoteName));
+  }
+
+  @Nullable
+  @Override
+  public String getUpstreamBranchSha() throws IOException, TimeoutException, InterruptedException {
+    return query(this::readUpstreamBranchSha, fallback::getUpstreamBranchSha);
+  }
+
+  @Nullable
+  private String readUpstreamBranchSha() throws IOException {
+    String headRef = repository.getHeadRef();
+    if (headRef == null || !headRef.startsWith(REFS_HEADS)) {
+      return null;
+    }
+    String branchSection = "branch \"" + headRef.substring(REFS_HEADS.length()) + "\"";
+    String remote = repository.getConfig().getString(branchSection, "remote");
+    String merge = repository.getConfig().getString(branchSection, "merge");
+    if (remote == null || merge == null) {
+      return null;
+    }
+    if (".".equals(remote)) {
+      // upstream is a local branch
+      return repository.resolveRef(merge);
+    }
+    if (!merge.startsWith(REFS_HEADS)) {
+      return null;
+    }
+    // assumes the default fetch refspec: +refs/heads/*:refs/remotes/<remote>/*
+    return repository.resolveRef(
+        REFS_REMOTES + remote + "/" + merge.substring(REFS_HEADS.length()));
+  }
+
+  @Nullable
+  @Override
+  public String getCurrentBranch() throws IOException, TimeoutException, InterruptedException {
+    return query(
+        () -> {
+          String headRef = repository.getHeadRef();
+          if (headRef == null) {
+            // detached HEAD
+            return "";
+          }
+          return headRef.startsWith(REFS_HEADS) ? headRef.substring(REFS_HEADS.length()) : null;
+        },
+        fallback::getCurrentBranch);
+  }
+
+  @Nonnull
+  @Override
+  public List<String> getTags(String commit)
+      throws IOException, TimeoutException, InterruptedException {
+    if (GitUtils.isNotValidCommit(commit)) {
+      return Collections.emptyList();
+    }
+    return query(
+        () -> {
+          String sha = repository.resolve(commit);
+          if (sha == null) {
+            return null;
+          }
+          String commitSha = repository.peel(sha);
+          List<String> tags = new ArrayList<>(1);
+          for (Map.Entry<String, String> e : repository.getTags().entrySet()) {
+            if (commitSha.equals(e.getValue())) {
+              tags.add(e.getKey());
+            }
+          }
+          // "git describe --exact-match" picks one of several tags by its own rules,
+          // let git itself decide in that case
+          return tags.size() <= 1 ? tags : null;
+        },
+        () -> fallback.getTags(commit));
+  }
+
+  @Nullable
+  @Override
+  public String getSha(String reference)
+      throws IOException, TimeoutException, InterruptedException {
+    if (GitUtils.isNotValidCommit(reference)) {
+      return null;
+    }
+    return query(() -> repository.resolve(reference), () -> fallback.getSha(reference));
+  }
+
+  @Nullable
+  @Override
+  public String getTreeSha(String reference)
+      throws IOException, TimeoutException, InterruptedException {
+    if (GitUtils.isNotValidCommit(reference)) {
+      return null;
+    }
+    return query(
+        () -> {
+          LocalGitRepository.Commit commit = readCommit(reference);
+          return commit != null ? commit.getTree() : null;
+        },
+        () -> fallback.getTreeSha(reference));
+  }
+
+  @Override
+  public boolean hasUncommittedChanges()
+      throws IOException, TimeoutException, InterruptedException {
+    // comparing the working tree with the index is left to git
+    return fallback.hasUncommittedChanges();
+  }
+
+  @Nonnull
+  @Override
+  public CommitInfo getCommitInfo(String commit, boolean fetchIfNotPresent)
+      throws IOException, TimeoutException, InterruptedException {
+    if (GitUtils.isNotValidCommit(commit)) {
+      return CommitInfo.NOOP;
+    }
+    return query(
+        () -> {
+          LocalGitRepository.Commit c = readCommit(commit);
+          if (c == null) {
+            return null;
+          }
+          return new CommitInfo(
+              c.getSha(),
+              toPersonInfo(c.getAuthor()),
+              toPersonInfo(c.getCommitter()),
+              trimTrailingWhitespace(c.getMessage()));
+        },
+        () -> fallback.getCommitInfo(commit, fetchIfNotPresent));
+  }
+
+  @Nullable
+  private LocalGitRepository.Commit readCommit(String reference) throws IOException {
+    String sha = repository.resolve(reference);
+    return sha != null ? repository.readCommit(sha) : null;
+  }
+
+  private static PersonInfo toPersonInfo(LocalGitRepository.Signature signature) {
+    ZoneOffset offset = ZoneOffset.ofTotalSeconds(signature.getTimezoneOffsetMinutes() * 60);
+    String date =
+        OffsetDateTime.ofInstant(Instant.ofEpochSecond(signature.getEpochSeconds()), offset)
+            .format(ISO_8601_STRICT);
+    return new PersonInfo(signature.getName(), signature.getEmail(), date);
+  }
+
+  private static String trimTrailingWhitespace(String s) {
+    int end = s.length();
+    while (end > 0 && Character.isWhitespace(s.charAt(end - 1))) {
+      end--;
+    }
+    return s.substring(0, end);
+  }
+
+  /**
+   * Returns SHAs of the latest commits in the current branch, newest first, in the same order as
+   * {@code git log}: commits are visited by committer date, and commits older than the configured
+   * period are skipped together with their ancestors.
+   */
+  @Nonnull
+  @Override
+  public List<String> getLatestCommits()
+      throws IOException, TimeoutException, InterruptedException {
+    return query(this::readLatestCommits, fallback::getLatestCommits);
+  }
+
+  @Nullable
+  private List<String> readLatestCommits() throws IOException {
+    String head = repository.resolveRef(HEAD);
+    if (head == null) {
+      return null;
+    }
+    LocalGitRepository.Commit headCommit = repository.readCommit(head);
+    if (headCommit == null) {
+      return null;
+    }
+
+    long since = ZonedDateTime.now().minus(latestCommitsSince).toEpochSecond();
+    Set<String> shallowCommits = repository.getShallowCommits();
+
+    List<String> commits = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    PriorityQueue<QueuedCommit> queue = new PriorityQueue<>();
+    long sequence = 0;
+
+    seen.add(headCommit.getSha());
+    queue.add(new QueuedCommit(headCommit, sequence++));
+    while (!queue.isEmpty() && commits.size() < latestCommitsLimit) {
+      LocalGitRepository.Commit commit = queue.poll().commit;
+      if (commit.getCommitter().getEpochSeconds() < since) {
+        continue;
+      }
+      commits.add(commit.getSha());
+
+      if (shallowCommits.contains(commit.getSha())) {
+        // parents are not available in a shallow clone
+        continue;
+      }
+      for (String parentSha : commit.getParents()) {
+        if (seen.add(parentSha)) {
+          LocalGitRepository.Commit parent = repository.readCommit(parentSha);
+          if (parent == null) {
+            throw new IOException("Commit " + parentSha + " is missing");
+          }
+          queue.add(new QueuedCommit(parent, sequence++));
+        }
+      }
+    }
+    return commits;
+  }
+
+  private static final class QueuedCommit implements Comparable<QueuedCommit> {
+    private final LocalGitRepository.Commit commit;
+    private final long sequence;
+
+    private QueuedCommit(LocalGitRepository.Commit commit, long sequence) {
+      this.commit = commit;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(QueuedCommit o) {
+      // newest first, ties are broken by insertion order
+      int byDate =
+          Long.compare(
+              o.commit.getCommitter().getEpochSeconds(), commit.getCommitter().getEpochSeconds());
+      return byDate != 0 ? byDate : Long.compare(sequence, o.sequence);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public List<String> getObjects(
+      Collection<String> commitsToSkip, Collection<String> commitsToInclude)
+      throws IOException, TimeoutException, InterruptedException {
+    return fallback.getObjects(commitsToSkip, commitsToInclude);
+  }
+
+  @Override
+  public Path createPackFiles(List<String> objectHashes)
+      throws IOException, TimeoutException, InterruptedException {
+    return fallback.createPackFiles(objectHashes);
+  }
+
+  @Nullable
+  @Override
+  public String getBaseCommitSha(@Nullable String baseBranch, @Nullable String defaultBranch)
+      throws IOException, TimeoutException, InterruptedException {
+    return fallback.getBaseCommitSha(baseBranch, defaultBranch);
+  }
+
+  @Nullable
+  @Override
+  public String getMergeBase(@Nullable String base, @Nullable String source)
+      throws IOException, TimeoutException, InterruptedException {
+    return fallback.getMergeBase(base, source);
+  }
+
+  @Nullable
+  @Override
+  public LineDiff getGitDiff(String baseCommit, String targetCommit)
+      throws IOException, TimeoutException, InterruptedException {
+    return fallback.getGitDiff(baseCommit, targetCommit);
+  }
+
+  @Override
+  public String toString() {
+    return "InProcessGitClient{" + repository.getWorkTree() + "}";
+  }
+
+  private interface LocalQuery<T> {
+    @Nullable
+    T execute() throws IOException;
+  }
+
+  private interface FallbackQuery<T> {
+    T execute() throws IOException, TimeoutException, InterruptedException;
+  }
+
+  private <T> T query(LocalQuery<T> localQuery, FallbackQuery<T> fallbackQuery)
+      throws IOException, TimeoutException, InterruptedException {
+    try {
+      T result = localQuery.execute();
+      if (result != null) {
+        return result;
+      }
+    } catch (Exception e) {
+      LOGGER.debug("Could not read git data from {}, falling back to {}", repository, fallback, e);
+    }
+    return fallbackQuery.execute();
+  }
+
+  public static class Factory implements GitClient.Factory {
+    private final GitClient.Factory fallbackFactory;
+
+    public Factory(GitClient.Factory fallbackFactory) {
+      this.fallbackFactory = fallbackFactory;
+    }
+
+    @Override
+    public GitClient create(@Nullable String repoRoot) {
+      GitClient fallback = fallbackFactory.create(repoRoot);
+      if (repoRoot == null) {
+        return fallback;
+      }
+      LocalGitRepository repository = LocalGitRepository.open(new File(repoRoot));
+      if (repository == null) {
+        LOGGER.debug("Could not read repository at {} in-process, using {}", repoRoot, fallback);
+        return fallback;
+      }
+      return new InProcessGitClient(
+          repository,
+          fallback,
+          ShellGitClient.LATEST_COMMITS_PERIOD,
+          ShellGitClient.LATEST_COMMITS_LIMIT);
+    }
+  }
+}
@@ -67,6 +67,17 @@ public class NoOpGitClient implements GitClient {
     return null;
   }
 
+  @Nullable
+  @Override
+  public String getTreeSha(String reference) {
+    return null;
+  }
+
+  @Override
+  public boolean hasUncommittedChanges() {
+    return false;
+  }
+
   @Nonnull
   @Override
   public CommitInfo getCommitInfo(String commit, boolean fetchIfNotPresent) {
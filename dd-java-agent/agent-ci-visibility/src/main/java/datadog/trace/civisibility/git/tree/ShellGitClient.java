@@ -19,6 +19,7 @@ import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Period;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -47,6 +48,10 @@ public class ShellGitClient implements GitClient {
   private static final String ORIGIN = "origin";
   private static final Pattern COMMIT_INFO_SPLIT = Pattern.compile("\",\"");
 
+  static final String LATEST_COMMITS_SINCE = "1 month ago";
+  static final Period LATEST_COMMITS_PERIOD = Period.ofMonths(1);
+  static final int LATEST_COMMITS_LIMIT = 1000;
+
   private final CiVisibilityMetricCollector metricCollector;
   private final String repoRoot;
   private final String latestCommitsSince;
@@ -357,6 +362,53 @@ public class ShellGitClient implements GitClient {
                 .trim());
   }
 
+  /**
+   * Returns SHA of the tree object of the provided reference
+   *
+   * @param reference Reference (HEAD, branch name, etc) to check
+   * @return full SHA of the tree that the provided reference points to
+   * @throws IOException If an error was encountered while writing command input or reading output
+   * @throws TimeoutException If timeout was reached while waiting for Git command to finish
+   * @throws InterruptedException If current thread was interrupted while waiting for Git command to
+   *     finish
+   */
+  @Nullable
+  @Override
+  public String getTreeSha(String reference)
+      throws IOException, TimeoutException, InterruptedException {
+    if (GitUtils.isNotValidCommit(reference)) {
+      return null;
+    }
+    return executeCommand(
+        Command.OTHER,
+        () ->
+            commandExecutor
+                .executeCommand(
+                    IOUtils::readFully, buildGitCommand("rev-parse", reference + "^{tree}"))
+                .trim());
+  }
+
+  /**
+   * Checks whether the working tree differs from the HEAD commit
+   *
+   * @return {@code true} if there are modified, staged, deleted or untracked (not ignored) files
+   * @throws IOException If an error was encountered while writing command input or reading output
+   * @throws TimeoutException If timeout was reached while waiting for Git command to finish
+   * @throws InterruptedException If current thread was interrupted while waiting for Git command to
+   *     finish
+   */
+  @Override
+  public boolean hasUncommittedChanges()
+      throws IOException, TimeoutException, InterruptedException {
+    return executeCommand(
+        Command.OTHER,
+        () ->
+            !commandExecutor
+                .executeCommand(IOUtils::readFully, buildGitCommand("status", "--porcelain"))
+                .trim()
+                .isEmpty());
+  }
+
   /** Checks whether the provided reference object is present or not. */
   private boolean isCommitPresent(String commitReference)
       throws IOException, TimeoutException, InterruptedException {
@@ -1008,7 +1060,11 @@ public class ShellGitClient implements GitClient {
       long commandTimeoutMillis = config.getCiVisibilityGitCommandTimeoutMillis();
       if (repoRoot != null && GitUtils.isValidPath(repoRoot)) {
         return new ShellGitClient(
-            metricCollector, repoRoot, "1 month ago", 1000, commandTimeoutMillis);
+            metricCollector,
+            repoRoot,
+            LATEST_COMMITS_SINCE,
+            LATEST_COMMITS_LIMIT,
+            commandTimeoutMillis);
       } else {
         LOGGER.debug("Could not determine repository root, using no-op git client");
         return NoOpGitClient.INSTANCE;
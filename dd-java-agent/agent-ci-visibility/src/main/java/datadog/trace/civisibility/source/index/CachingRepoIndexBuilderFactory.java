@@ -3,26 +3,36 @@ package datadog.trace.civisibility.source.index;
 import datadog.trace.api.Config;
 import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
+import datadog.trace.civisibility.git.tree.GitClient;
 import java.nio.file.FileSystem;
+import java.nio.file.Paths;
+import java.util.Objects;
 import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CachingRepoIndexBuilderFactory implements RepoIndexProvider.Factory {
 
+  private static final Logger log = LoggerFactory.getLogger(CachingRepoIndexBuilderFactory.class);
+
   private final DDCache<String, RepoIndexProvider> cache = DDCaches.newFixedSizeCache(8);
   private final Config config;
   private final PackageResolver packageResolver;
   private final ResourceResolver resourceResolver;
   private final FileSystem fileSystem;
+  private final GitClient.Factory gitClientFactory;
 
   public CachingRepoIndexBuilderFactory(
       Config config,
       PackageResolver packageResolver,
       ResourceResolver resourceResolver,
-      FileSystem fileSystem) {
+      FileSystem fileSystem,
+      GitClient.Factory gitClientFactory) {
     this.config = config;
     this.packageResolver = packageResolver;
     this.resourceResolver = resourceResolver;
     this.fileSystem = fileSystem;
+    this.gitClientFactory = gitClientFactory;
   }
 
   @Override
@@ -34,6 +44,52 @@ public class CachingRepoIndexBuilderFactory implements RepoIndexProvider.Factory
   }
 
   private RepoIndexProvider doCreate(String repoRoot) {
-    return new RepoIndexBuilder(config, repoRoot, packageResolver, resourceResolver, fileSystem);
+    return new RepoIndexBuilder(
+        config,
+        repoRoot,
+        packageResolver,
+        resourceResolver,
+        fileSystem,
+        createIndexCache(repoRoot));
+  }
+
+  /**
+   * Returns the persistent cache of the repository index, keyed on the tree of the HEAD commit.
+   *
+   * <p>The index is built from the working tree, so it only matches the HEAD tree when there are no
+   * uncommitted changes: with modified, deleted or untracked files, the index is neither loaded
+   * from nor stored to the cache.
+   */
+  @Nullable
+  private RepoIndexCache createIndexCache(String repoRoot) {
+    String cacheDir = config.getCiVisibilityRepoIndexCacheDir();
+    if (cacheDir == null) {
+      return null;
+    }
+    try {
+      GitClient gitClient = gitClientFactory.create(repoRoot);
+      String treeSha = gitClient.getTreeSha(GitClient.HEAD);
+      if (treeSha == null || treeSha.isEmpty()) {
+        return null;
+      }
+      if (gitClient.hasUncommittedChanges()) {
+        log.debug("{} has uncommitted changes, repo index will not be persisted", repoRoot);
+        return null;
+      }
+      int settingsHash =
+          Objects.hash(
+              repoRoot,
+              config.getCiVisibilityResourceFolderNames(),
+              config.getCiVisibilityCoverageRootPackagesLimit(),
+              config.isCiVisibilityRepoIndexFollowSymlinks());
+      return RepoIndexCache.create(Paths.get(cacheDir), treeSha, settingsHash);
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (Exception e) {
+      log.debug("Could not get Git state of {}, repo index will not be persisted", repoRoot, e);
+      return null;
+    }
   }
 }
@@ -1,37 +1,62 @@
 package datadog.trace.civisibility.source.index;
 
+import static datadog.trace.util.AgentThreadFactory.AgentThread.CI_REPO_INDEXER;
+
 import datadog.instrument.utils.ClassNameTrie;
 import datadog.trace.api.Config;
 import datadog.trace.api.civisibility.domain.Language;
 import datadog.trace.civisibility.source.Utils;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Builds the index of source files in a repository.
+ *
+ * <p>The repository is walked with a fork-join task per directory, so that idle workers steal
+ * subdirectories from busy ones. Source files are classified (package and source root resolution,
+ * which requires reading file headers) concurrently by the directory tasks; the results are then
+ * merged into the index sequentially, in the same order as a depth-first walk of the file tree, so
+ * that the resulting index does not depend on scheduling.
+ */
 public class RepoIndexBuilder implements RepoIndexProvider {
 
   private static final Logger log = LoggerFactory.getLogger(RepoIndexBuilder.class);
 
+  private static final ForkJoinPool.ForkJoinWorkerThreadFactory WORKER_THREAD_FACTORY =
+      pool -> {
+        ForkJoinWorkerThread thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName(CI_REPO_INDEXER.threadName + "-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        thread.setContextClassLoader(null);
+        return thread;
+      };
+
   private final Config config;
   private final String repoRoot;
   private final PackageResolver packageResolver;
   private final ResourceResolver resourceResolver;
   private final FileSystem fileSystem;
+  @Nullable private final RepoIndexCache indexCache;
 
   private final Object indexInitializationLock = new Object();
   private volatile RepoIndex index;
@@ -42,11 +67,22 @@ public class RepoIndexBuilder implements RepoIndexProvider {
       PackageResolver packageResolver,
       ResourceResolver resourceResolver,
       FileSystem fileSystem) {
+    this(config, repoRoot, packageResolver, resourceResolver, fileSystem, null);
+  }
+
+  public RepoIndexBuilder(
+      Config config,
+      @Nonnull String repoRoot,
+      PackageResolver packageResolver,
+      ResourceResolver resourceResolver,
+      FileSystem fileSystem,
+      @Nullable RepoIndexCache indexCache) {
     this.config = config;
     this.repoRoot = repoRoot;
     this.packageResolver = packageResolver;
     this.resourceResolver = resourceResolver;
     this.fileSystem = fileSystem;
+    this.indexCache = indexCache;
   }
 
   @Override
@@ -62,85 +98,164 @@ public class RepoIndexBuilder implements RepoIndexProvider {
   }
 
   private RepoIndex doGetIndex() {
+    if (indexCache != null) {
+      RepoIndex cachedIndex = indexCache.load();
+      if (cachedIndex != null) {
+        log.debug("Reusing persisted index of source files in {}", repoRoot);
+        return cachedIndex;
+      }
+    }
+
     log.debug("Building index of source files in {}", repoRoot);
 
     Path repoRootPath = fileSystem.getPath(repoRoot);
-    RepoIndexingFileVisitor fileVisitor =
-        new RepoIndexingFileVisitor(config, packageResolver, resourceResolver, repoRootPath);
+    SourceFileClassifier classifier =
+        new SourceFileClassifier(packageResolver, resourceResolver, repoRootPath);
+    RepoIndexAccumulator accumulator = new RepoIndexAccumulator(config, repoRootPath);
 
     long startTime = System.currentTimeMillis();
+    ForkJoinPool pool =
+        new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(), WORKER_THREAD_FACTORY, null, false);
     try {
-      Files.walkFileTree(
-          repoRootPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, fileVisitor);
+      boolean followSymlinks = config.isCiVisibilityRepoIndexFollowSymlinks();
+      List<IndexedFile> files =
+          pool.invoke(
+              new DirectoryIndexingTask(
+                  classifier, repoRootPath, followSymlinks, Collections.emptyList()));
+      for (IndexedFile file : files) {
+        accumulator.add(file);
+      }
     } catch (Exception e) {
       log.debug("Failed to build index of {}", repoRootPath, e);
+    } finally {
+      pool.shutdown();
     }
 
     long duration = System.currentTimeMillis() - startTime;
-    RepoIndexingStats stats = fileVisitor.indexingStats;
-    RepoIndex index = fileVisitor.getIndex();
+    RepoIndexingStats stats = accumulator.indexingStats;
+    RepoIndex index = accumulator.getIndex();
     log.debug(
         "Indexing took {} ms. Files visited: {}, source files visited: {}, resource files visited: {}, source roots found: {}, root packages found: {}",
         duration,
         stats.filesVisited,
         stats.sourceFilesVisited,
         stats.resourceFilesVisited,
-        fileVisitor.sourceRoots.size(),
+        accumulator.sourceRoots.size(),
         index.getRootPackages());
+
+    if (indexCache != null) {
+      indexCache.store(index);
+    }
     return index;
   }
 
-  private static final class RepoIndexingFileVisitor implements FileVisitor<Path> {
+  /** Result of classifying a single file of the repository. */
+  private static final class IndexedFile {
+    private final Path file;
+    @Nullable private final Language language;
+    @Nullable private final Path sourceRoot;
+    @Nullable private final Path packagePath;
+
+    private IndexedFile(
+        Path file,
+        @Nullable Language language,
+        @Nullable Path sourceRoot,
+        @Nullable Path packagePath) {
+      this.file = file;
+      this.language = language;
+      this.sourceRoot = sourceRoot;
+      this.packagePath = packagePath;
+    }
+  }
 
-    private static final Logger log = LoggerFactory.getLogger(RepoIndexingFileVisitor.class);
+  /**
+   * Visits a directory: lists its entries, classifies the files it contains and forks a subtask
+   * for every subdirectory. Returns the classified files of the whole subtree in depth-first order.
+   */
+  private static final class DirectoryIndexingTask extends RecursiveTask<List<IndexedFile>> {
 
-    private final PackageResolver packageResolver;
-    private final ResourceResolver resourceResolver;
-    private final ClassNameTrie.Builder trieBuilder;
-    private final Map<String, Integer> trieKeyToSourceRootIdx;
-    private final Map<String, List<Integer>> duplicateSourceRootIndices;
-    private final Map<RepoIndex.SourceRoot, Integer> sourceRoots;
-    private final PackageTree packageTree;
-    private final RepoIndexingStats indexingStats;
-    private final Path repoRoot;
-    private final AtomicInteger sourceRootCounter;
+    private final SourceFileClassifier classifier;
+    private final Path dir;
     private final boolean followSymlinks;
-
-    private RepoIndexingFileVisitor(
-        Config config,
-        PackageResolver packageResolver,
-        ResourceResolver resourceResolver,
-        Path repoRoot) {
-      this.packageResolver = packageResolver;
-      this.resourceResolver = resourceResolver;
-      this.repoRoot = repoRoot;
-      trieBuilder = new ClassNameTrie.Builder();
-      trieKeyToSourceRootIdx = new HashMap<>();
-      duplicateSourceRootIndices = new HashMap<>();
-      sourceRoots = new HashMap<>();
-      packageTree = new PackageTree(config);
-      indexingStats = new RepoIndexingStats();
-      sourceRootCounter = new AtomicInteger();
-      followSymlinks = config.isCiVisibilityRepoIndexFollowSymlinks();
+    private final List<Object> ancestorKeys;
+
+    private DirectoryIndexingTask(
+        SourceFileClassifier classifier,
+        Path dir,
+        boolean followSymlinks,
+        List<Object> ancestorKeys) {
+      this.classifier = classifier;
+      this.dir = dir;
+      this.followSymlinks = followSymlinks;
+      this.ancestorKeys = ancestorKeys;
     }
 
-    @Nonnull
     @Override
-    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+    protected List<IndexedFile> compute() {
+      if (!shouldVisit()) {
+        return Collections.emptyList();
+      }
+
+      List<Object> childAncestorKeys = ancestorKeys;
+      Object dirKey = fileKey(dir);
+      if (dirKey != null) {
+        if (ancestorKeys.contains(dirKey)) {
+          log.debug("Failed to visit directory: {}, file system loop detected", dir);
+          return Collections.emptyList();
+        }
+        childAncestorKeys = new ArrayList<>(ancestorKeys.size() + 1);
+        childAncestorKeys.addAll(ancestorKeys);
+        childAncestorKeys.add(dirKey);
+      }
+
+      // entries are either classified files or forked subdirectory tasks, in listing order
+      List<Object> entries = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+        for (Path entry : stream) {
+          BasicFileAttributes attrs = readAttributes(entry);
+          if (attrs == null) {
+            continue;
+          }
+          if (attrs.isDirectory()) {
+            DirectoryIndexingTask subtask =
+                new DirectoryIndexingTask(classifier, entry, followSymlinks, childAncestorKeys);
+            subtask.fork();
+            entries.add(subtask);
+          } else {
+            entries.add(classifier.classify(entry));
+          }
+        }
+      } catch (Exception e) {
+        log.debug("Failed to visit directory: {}", dir, e);
+      }
+
+      List<IndexedFile> files = new ArrayList<>(entries.size());
+      for (Object entry : entries) {
+        if (entry instanceof DirectoryIndexingTask) {
+          files.addAll(((DirectoryIndexingTask) entry).join());
+        } else {
+          files.add((IndexedFile) entry);
+        }
+      }
+      return files;
+    }
+
+    private boolean shouldVisit() {
       if (Files.isSymbolicLink(dir)) {
         if (!followSymlinks) {
           // Configured to skip symlinks
-          return FileVisitResult.SKIP_SUBTREE;
+          return false;
         }
-        if (readSymbolicLink(dir).startsWith(repoRoot)) {
+        if (readSymbolicLink(dir).startsWith(classifier.repoRoot)) {
           // The path is a symlink that points inside the repo.
           // We'll visit the folder that it points to anyway,
           // moreover, we don't want two different results for one file
           // (one containing the symlink, the other - the actual folder).
-          return FileVisitResult.SKIP_SUBTREE;
+          return false;
         }
       }
-      return FileVisitResult.CONTINUE;
+      return true;
     }
 
     private static Path readSymbolicLink(Path path) {
@@ -152,60 +267,70 @@ public class RepoIndexBuilder implements RepoIndexProvider {
       }
     }
 
-    @Nonnull
-    @Override
-    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-      indexingStats.filesVisited++;
+    @Nullable
+    private static BasicFileAttributes readAttributes(Path path) {
+      try {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+      } catch (IOException e) {
+        // broken symlink, visit the link itself
+        try {
+          return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException ex) {
+          log.debug("Failed to visit file: {}", path, ex);
+          return null;
+        }
+      }
+    }
 
+    @Nullable
+    private static Object fileKey(Path path) {
+      try {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+      } catch (IOException e) {
+        return null;
+      }
+    }
+  }
+
+  /** Resolves the language, package and source root of files. Safe for concurrent use. */
+  private static final class SourceFileClassifier {
+
+    private final PackageResolver packageResolver;
+    private final ResourceResolver resourceResolver;
+    private final Path repoRoot;
+
+    private SourceFileClassifier(
+        PackageResolver packageResolver, ResourceResolver resourceResolver, Path repoRoot) {
+      this.packageResolver = packageResolver;
+      this.resourceResolver = resourceResolver;
+      this.repoRoot = repoRoot;
+    }
+
+    private IndexedFile classify(Path file) {
+      Language language = null;
+      Path packagePath = null;
       try {
         String fileName = file.getFileName().toString();
-        Language language = Language.getByFileName(fileName);
+        language = Language.getByFileName(fileName);
         if (language == null) {
           // unknown language/filetype, skip indexing
-          return FileVisitResult.CONTINUE;
+          return new IndexedFile(file, null, null, null);
         }
-
-        Path sourceRoot =
-            language.isNonCode() ? getNonCodeSourceRoot(file) : getCodeSourceRoot(language, file);
-        if (sourceRoot != null) {
-          String relativeSourceRoot = repoRoot.relativize(sourceRoot).toString();
-          int sourceRootIdx =
-              sourceRoots.computeIfAbsent(
-                  new RepoIndex.SourceRoot(relativeSourceRoot, language),
-                  sr -> sourceRootCounter.getAndIncrement());
-
-          String relativePath = sourceRoot.relativize(file).toString();
-          if (!relativePath.isEmpty()) {
-            String key = Utils.toTrieKey(relativePath);
-            trieBuilder.put(key, sourceRootIdx);
-
-            Integer existingSourceRootIdx = trieKeyToSourceRootIdx.put(key, sourceRootIdx);
-            if (existingSourceRootIdx != null) {
-              log.debug("Duplicate repo index key: {}", key);
-              duplicateSourceRootIndices
-                  .computeIfAbsent(
-                      key,
-                      k -> {
-                        List<Integer> indices = new ArrayList<>();
-                        indices.add(existingSourceRootIdx); // Initialize with original source root
-                        return indices;
-                      })
-                  .add(sourceRootIdx);
-            }
-          }
+        if (language.isNonCode()) {
+          return new IndexedFile(file, language, resourceResolver.getResourceRoot(file), null);
         }
+        packagePath = packageResolver.getPackage(file);
+        return new IndexedFile(
+            file, language, getCodeSourceRoot(language, file, packagePath), packagePath);
+
       } catch (Exception e) {
         log.debug("Failed to index file {}", file, e);
+        return new IndexedFile(file, language, null, packagePath);
       }
-      return FileVisitResult.CONTINUE;
     }
 
-    private Path getCodeSourceRoot(Language language, Path file) throws IOException {
-      indexingStats.sourceFilesVisited++;
-      Path packagePath = packageResolver.getPackage(file);
+    private Path getCodeSourceRoot(Language language, Path file, @Nullable Path packagePath) {
       if (packagePath != null) {
-        packageTree.add(packagePath);
-
         Path folder = file.getParent();
         if (folder.endsWith(packagePath)) {
           // In non-JVM languages package names do not have to correspond to folder structure,
@@ -224,28 +349,80 @@ public class RepoIndexBuilder implements RepoIndexProvider {
         return file.getParent();
       }
     }
+  }
+
+  /** Merges classified files into the index. Not thread-safe. */
+  private static final class RepoIndexAccumulator {
+
+    private final ClassNameTrie.Builder trieBuilder;
+    private final Map<String, Integer> trieKeyToSourceRootIdx;
+    private final Map<String, List<Integer>> duplicateSourceRootIndices;
+    private final Map<RepoIndex.SourceRoot, Integer> sourceRoots;
+    private final PackageTree packageTree;
+    private final RepoIndexingStats indexingStats;
+    private final Path repoRoot;
+    private final AtomicInteger sourceRootCounter;
 
-    private Path getNonCodeSourceRoot(Path file) throws IOException {
-      indexingStats.resourceFilesVisited++;
-      return resourceResolver.getResourceRoot(file);
+    private RepoIndexAccumulator(Config config, Path repoRoot) {
+      this.repoRoot = repoRoot;
+      trieBuilder = new ClassNameTrie.Builder();
+      trieKeyToSourceRootIdx = new HashMap<>();
+      duplicateSourceRootIndices = new HashMap<>();
+      sourceRoots = new HashMap<>();
+      packageTree = new PackageTree(config);
+      indexingStats = new RepoIndexingStats();
+      sourceRootCounter = new AtomicInteger();
     }
 
-    @Nonnull
-    @Override
-    public FileVisitResult visitFileFailed(Path file, IOException exc) {
-      if (exc != null) {
-        log.debug("Failed to visit file: {}", file, exc);
+    private void add(IndexedFile indexedFile) {
+      indexingStats.filesVisited++;
+
+      Language language = indexedFile.language;
+      if (language == null) {
+        return;
+      }
+      if (language.isNonCode()) {
+        indexingStats.resourceFilesVisited++;
+      } else {
+        indexingStats.sourceFilesVisited++;
       }
-      return FileVisitResult.CONTINUE;
-    }
 
-    @Nonnull
-    @Override
-    public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
-      if (exc != null) {
-        log.debug("Failed to visit directory: {}", dir, exc);
+      try {
+        if (indexedFile.packagePath != null) {
+          packageTree.add(indexedFile.packagePath);
+        }
+
+        Path sourceRoot = indexedFile.sourceRoot;
+        if (sourceRoot != null) {
+          String relativeSourceRoot = repoRoot.relativize(sourceRoot).toString();
+          int sourceRootIdx =
+              sourceRoots.computeIfAbsent(
+                  new RepoIndex.SourceRoot(relativeSourceRoot, language),
+                  sr -> sourceRootCounter.getAndIncrement());
+
+          String relativePath = sourceRoot.relativize(indexedFile.file).toString();
+          if (!relativePath.isEmpty()) {
+            String key = Utils.toTrieKey(relativePath);
+            trieBuilder.put(key, sourceRootIdx);
+
+            Integer existingSourceRootIdx = trieKeyToSourceRootIdx.put(key, sourceRootIdx);
+            if (existingSourceRootIdx != null) {
+              log.debug("Duplicate repo index key: {}", key);
+              duplicateSourceRootIndices
+                  .computeIfAbsent(
+                      key,
+                      k -> {
+                        List<Integer> indices = new ArrayList<>();
+                        indices.add(existingSourceRootIdx); // Initialize with original source root
+                        return indices;
+                      })
+                  .add(sourceRootIdx);
+            }
+          }
+        }
+      } catch (Exception e) {
+        log.debug("Failed to index file {}", indexedFile.file, e);
       }
-      return FileVisitResult.CONTINUE;
     }
 
     public RepoIndex getIndex() {
@@ -0,0 +1,91 @@
+package datadog.trace.civisibility.source.index;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists a built {@link RepoIndex} so that other JVMs of the same build can reuse it instead of
+ * walking the repository again.
+ *
+ * <p>The cache file name contains the hash of the Git tree that the index was built from, so a
+ * checkout of a different tree never picks up a stale index. As the index is built from the working
+ * tree, it is only persisted when the working tree has no uncommitted changes (see {@link
+ * CachingRepoIndexBuilderFactory}). Files are written to a temporary location first and then
+ * atomically moved in place, so concurrent readers never see a partial index.
+ */
+public class RepoIndexCache {
+
+  private static final Logger log = LoggerFactory.getLogger(RepoIndexCache.class);
+
+  private static final String FILE_PREFIX = "repo-index-";
+  private static final String FILE_SUFFIX = ".bin";
+
+  private final Path cacheFile;
+
+  RepoIndexCache(Path cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
+  /**
+   * @param cacheDir folder where indices are persisted
+   * @param treeSha hash of the Git tree the index is built from
+   * @param settingsHash hash of the repository root and of the settings affecting index contents
+   */
+  static RepoIndexCache create(Path cacheDir, String treeSha, int settingsHash) {
+    return new RepoIndexCache(
+        cacheDir.resolve(
+            FILE_PREFIX + treeSha + "-" + Integer.toHexString(settingsHash) + FILE_SUFFIX));
+  }
+
+  @Nullable
+  RepoIndex load() {
+    try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return RepoIndex.deserialize(buffer);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (Exception e) {
+      log.debug("Could not load persisted repo index from {}", cacheFile, e);
+      return null;
+    }
+  }
+
+  void store(RepoIndex index) {
+    Path tempFile = null;
+    try {
+      Path cacheDir = cacheFile.getParent();
+      Files.createDirectories(cacheDir);
+      tempFile = Files.createTempFile(cacheDir, FILE_PREFIX, ".tmp");
+      ByteBuffer serialized = index.serialize();
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        while (serialized.hasRemaining()) {
+          channel.write(serialized);
+        }
+      }
+      Files.move(
+          tempFile,
+          cacheFile,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      tempFile = null;
+    } catch (Exception e) {
+      log.debug("Could not persist repo index to {}", cacheFile, e);
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (Exception e) {
+          log.debug("Could not delete temporary file {}", tempFile, e);
+        }
+      }
+    }
+  }
+}
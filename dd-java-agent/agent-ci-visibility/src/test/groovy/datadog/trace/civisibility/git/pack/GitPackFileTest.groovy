@@ -0,0 +1,126 @@
+package datadog.trace.civisibility.git.pack
+
+import datadog.trace.test.util.DDSpecification
+
+import java.nio.file.Paths
+
+import static datadog.trace.civisibility.git.GitObject.BLOB_TYPE
+import static datadog.trace.civisibility.git.GitObject.COMMIT_TYPE
+
+class GitPackFileTest extends DDSpecification {
+
+  // the fixture packs hold 4 versions of a file, each one a delta of the previous one:
+  // ofs-delta uses OFS_DELTA objects and ref-delta uses REF_DELTA objects
+  static final String BLOB_V0 = "65528541e7b2b595f34e0d9f2b0379c44c7e3636"
+  static final String BLOB_V1 = "c1f1168da1fadacd0089e32bd882727160a9f094"
+  static final String BLOB_V2 = "b81f8f278993bc81506cca10616b43559c2e87f2"
+  static final String BLOB_V3 = "104c7e0cae40b7ef6f3f3729a58f47848f451a82"
+
+  def "test read deltified objects from #idxFile"() {
+    setup:
+    def packFile = GitPackFile.open(file(idxFile))
+
+    when:
+    def object = packFile.read(GitPackUtils.hexToByteArray(sha))
+
+    then:
+    packFile.objectCount == 12
+    object.type == BLOB_TYPE
+    object.size == object.content.length
+    new String(object.content, "UTF-8") == fileVersion(version)
+
+    where:
+    idxFile                          | sha     | version
+    "ci/git/pack/file/ofs-delta.idx" | BLOB_V0 | 0
+    "ci/git/pack/file/ofs-delta.idx" | BLOB_V1 | 1
+    "ci/git/pack/file/ofs-delta.idx" | BLOB_V2 | 2
+    "ci/git/pack/file/ofs-delta.idx" | BLOB_V3 | 3
+    "ci/git/pack/file/ref-delta.idx" | BLOB_V0 | 0
+    "ci/git/pack/file/ref-delta.idx" | BLOB_V1 | 1
+    "ci/git/pack/file/ref-delta.idx" | BLOB_V2 | 2
+    "ci/git/pack/file/ref-delta.idx" | BLOB_V3 | 3
+  }
+
+  def "test read non deltified objects and missing objects"() {
+    setup:
+    def packFile = GitPackFile.open(file("ci/git/pack/file/ofs-delta.idx"))
+
+    expect:
+    packFile.read(GitPackUtils.hexToByteArray("a8593d910e982d2aa00cb56c50a7d66d4eb20d0a")).type == COMMIT_TYPE
+    packFile.read(GitPackUtils.hexToByteArray("0000000000000000000000000000000000000000")) == null
+    packFile.read(GitPackUtils.hexToByteArray("ffffffffffffffffffffffffffffffffffffffff")) == null
+  }
+
+  def "test apply delta with copy and insert instructions"() {
+    setup:
+    def base = "hello world".getBytes("UTF-8")
+
+    when:
+    def result = GitPackFile.applyDelta(base, delta(
+      11, 13,
+      // copy 5 bytes from offset 6: "world"
+      0x91, 6, 5,
+      // insert ", "
+      0x02, 0x2C, 0x20,
+      // copy 5 bytes from offset 0: "hello"
+      0x90, 5,
+      // insert "!"
+      0x01, 0x21))
+
+    then:
+    new String(result, "UTF-8") == "world, hello!"
+  }
+
+  def "test apply delta with a copy instruction without size"() {
+    setup:
+    def base = new byte[0x10000]
+    base[0] = 1
+    base[0xFFFF] = 2
+
+    when:
+    // no offset nor size bytes: copy 0x10000 bytes from offset 0
+    def result = GitPackFile.applyDelta(base, delta(0x80, 0x80, 0x04, 0x80, 0x80, 0x04, 0x80))
+
+    then:
+    result == base
+  }
+
+  def "test apply malformed delta: #description"() {
+    when:
+    GitPackFile.applyDelta("hello world".getBytes("UTF-8"), delta(instructions as int[]))
+
+    then:
+    def e = thrown(IOException)
+    e.message == message
+
+    where:
+    description                        | instructions           | message
+    "base size mismatch"               | [10, 5, 0x90, 5]       | "Delta base size mismatch"
+    "result larger than declared"      | [11, 4, 0x90, 5]       | "Invalid delta copy instruction"
+    "result smaller than declared"     | [11, 6, 0x90, 5]       | "Delta result size mismatch"
+    "copy past the end of the base"    | [11, 5, 0x91, 8, 5]    | "Invalid delta copy instruction"
+    "copy offset out of range"         | [11, 1, 0x98, 0x80, 1] | "Invalid delta copy instruction"
+    "insert past the end of the delta" | [11, 3, 0x03, 1, 2]    | "Invalid delta insert instruction"
+    "reserved instruction"             | [11, 0, 0x00]          | "Reserved delta instruction"
+  }
+
+  private static byte[] delta(int... bytes) {
+    def delta = new byte[bytes.length]
+    for (int i = 0; i < bytes.length; i++) {
+      delta[i] = (byte) bytes[i]
+    }
+    return delta
+  }
+
+  private static String fileVersion(int version) {
+    def lines = (0..<200).collect { "line $it of the delta fixture, padded so that deltas are worth it\n" }
+    for (int v = 0; v <= version; v++) {
+      lines[v * 40] = "version $v changed line ${v * 40}\n"
+    }
+    return lines.join("")
+  }
+
+  def "file"(filepath) {
+    return Paths.get(getClass().getClassLoader().getResource(filepath).toURI()).toFile()
+  }
+}
@@ -207,6 +207,31 @@ class GitClientTest extends Specification {
     sha == "5b6f3a6dab5972d73a56dff737bd08d995255c08"
   }
 
+  def "test has uncommitted changes"() {
+    given:
+    givenGitRepos(["ci/git/impacted/source_repo"])
+
+    when:
+    def gitClient = givenGitClient("source_repo")
+
+    then:
+    // the fixture has no index and no checked out files
+    gitClient.hasUncommittedChanges()
+
+    when:
+    def reset = new ProcessBuilder("git", "reset", "--hard").directory(tempDir.resolve("source_repo").toFile()).start()
+
+    then:
+    reset.waitFor() == 0
+    !gitClient.hasUncommittedChanges()
+
+    when:
+    Files.write(tempDir.resolve("source_repo/untracked.txt"), "untracked".bytes)
+
+    then:
+    gitClient.hasUncommittedChanges()
+  }
+
   def "test get commit info with fetching"() {
     given:
     givenGitRepos(["ci/git/shallow_with_origin/origin", "ci/git/shallow_with_origin/repo"])
@@ -0,0 +1,122 @@
+package datadog.trace.civisibility.git.tree
+
+import datadog.communication.util.IOUtils
+import datadog.trace.api.git.CommitInfo
+import datadog.trace.civisibility.git.LocalGitRepository
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.time.Period
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class InProcessGitClientTest extends Specification {
+
+  private static final String GIT_FOLDER = ".git"
+
+  @TempDir
+  private Path tempDir
+
+  def "test read-only queries are answered without the fallback client"() {
+    given:
+    givenGitRepo("ci/git/with_pack/git")
+    def fallback = Mock(GitClient)
+    def gitClient = givenGitClient(fallback)
+
+    expect:
+    gitClient.getGitFolder() == tempDir.resolve(GIT_FOLDER).toRealPath().toString()
+    gitClient.getRepoRoot() == tempDir.toRealPath().toString()
+    !gitClient.isShallow()
+    gitClient.getCurrentBranch() == "master"
+    gitClient.getRemoteUrl("origin") == "git@github.com:DataDog/dd-trace-dotnet.git"
+    gitClient.getSha(GitClient.HEAD) == "5b6f3a6dab5972d73a56dff737bd08d995255c08"
+    gitClient.getSha("master") == "5b6f3a6dab5972d73a56dff737bd08d995255c08"
+    gitClient.getTags(GitClient.HEAD).empty
+    gitClient.getLatestCommits() == [
+      "5b6f3a6dab5972d73a56dff737bd08d995255c08",
+      "98cd7c8e9cf71e02dc28bd9b13928bee0f85b74c",
+      "31ca182c0474f6265e660498c4fbcf775e23bba0",
+      "1bd740dd476c38d4b4d706d3ad7cb59cd0b84f7d",
+      "2b788c66fc4b58ce6ca7b94fbaf1b94a3ea3a93e",
+      "15d5d8e09cbf369f2fa6929c0b0c74b2b0a22193",
+      "6aaa4085c10d16b63a910043e35dbd35d2ef7f1c",
+      "10599ae3c17d66d642f9f143b1ff3dd236111e2a",
+      "5128e6f336cce5a431df68fa0ec42f8c8d0776b1",
+      "0c623e9dab4349960930337c936bf9975456e82f"
+    ]
+    0 * fallback._
+  }
+
+  def "test shallow repository"() {
+    given:
+    givenGitRepo("ci/git/shallow_with_origin/repo/git")
+    def fallback = Mock(GitClient)
+    def gitClient = givenGitClient(fallback)
+
+    when:
+    def shallow = gitClient.isShallow()
+    def upstreamBranchSha = gitClient.getUpstreamBranchSha()
+    def treeSha = gitClient.getTreeSha(GitClient.HEAD)
+    def commitInfo = gitClient.getCommitInfo(GitClient.HEAD, false)
+    def latestCommits = gitClient.getLatestCommits()
+
+    then:
+    shallow
+    upstreamBranchSha == "c76ef954d23f8fdb42dcf2fe956d6af5a31fe7bd"
+    treeSha == "23e08071b1db93bf70e59f586d3241036d7676fc"
+    commitInfo.sha == "c76ef954d23f8fdb42dcf2fe956d6af5a31fe7bd"
+    commitInfo.author.name == "Test Author"
+    commitInfo.author.email == "test-author@example.com"
+    commitInfo.author.iso8601Date == "2026-03-12T17:02:49+01:00"
+    commitInfo.committer.name == "Test Author"
+    commitInfo.committer.email == "test-author@example.com"
+    commitInfo.committer.iso8601Date == "2026-03-12T17:02:49+01:00"
+    commitInfo.fullMessage == "Commit message 9"
+    latestCommits == ["c76ef954d23f8fdb42dcf2fe956d6af5a31fe7bd"]
+    0 * fallback._
+  }
+
+  def "test queries that cannot be answered in-process are delegated"() {
+    given:
+    givenGitRepo("ci/git/shallow_with_origin/repo/git")
+    def fallback = Mock(GitClient)
+    def gitClient = givenGitClient(fallback)
+    def missingCommit = "6e55a15a35ad46f74e4203dd42f7797173a6edcb"
+    def fetchedCommitInfo = new CommitInfo(missingCommit)
+
+    when:
+    def shortSha = gitClient.getSha("c76ef95")
+    def commitInfo = gitClient.getCommitInfo(missingCommit, true)
+    def objects = gitClient.getObjects([], [missingCommit])
+
+    then:
+    1 * fallback.getSha("c76ef95") >> "c76ef954d23f8fdb42dcf2fe956d6af5a31fe7bd"
+    1 * fallback.getCommitInfo(missingCommit, true) >> fetchedCommitInfo
+    1 * fallback.getObjects([], [missingCommit]) >> [missingCommit]
+    shortSha == "c76ef954d23f8fdb42dcf2fe956d6af5a31fe7bd"
+    commitInfo == fetchedCommitInfo
+    objects == [missingCommit]
+  }
+
+  def "test factory falls back when there is no repository"() {
+    given:
+    def fallback = Stub(GitClient)
+    def factory = new InProcessGitClient.Factory({ repoRoot -> fallback })
+
+    expect:
+    factory.create(tempDir.toString()) == fallback
+    factory.create(null) == fallback
+  }
+
+  private void givenGitRepo(String resourceName) {
+    def gitFolder = Paths.get(getClass().getClassLoader().getResource(resourceName).toURI())
+    def tempGitFolder = tempDir.resolve(GIT_FOLDER)
+    Files.createDirectories(tempGitFolder)
+    IOUtils.copyFolder(gitFolder, tempGitFolder)
+  }
+
+  private InProcessGitClient givenGitClient(GitClient fallback) {
+    def repository = LocalGitRepository.open(tempDir.toFile())
+    new InProcessGitClient(repository, fallback, Period.ofYears(25), 10)
+  }
+}
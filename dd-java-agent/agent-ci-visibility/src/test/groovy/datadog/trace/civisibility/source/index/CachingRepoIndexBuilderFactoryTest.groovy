@@ -0,0 +1,49 @@
+package datadog.trace.civisibility.source.index
+
+import com.google.common.jimfs.Configuration
+import com.google.common.jimfs.Jimfs
+import datadog.trace.api.Config
+import datadog.trace.civisibility.git.tree.GitClient
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+
+class CachingRepoIndexBuilderFactoryTest extends Specification {
+
+  def packageResolver = Stub(PackageResolver)
+  def resourceResolver = Stub(ResourceResolver)
+  def fileSystem = Jimfs.newFileSystem(Configuration.unix())
+  def repoRoot = "/repo"
+
+  @TempDir
+  File cacheDir
+
+  def "test repo index is persisted only for a clean working tree: uncommitted changes #uncommittedChanges"() {
+    setup:
+    def sourceFile = fileSystem.getPath(repoRoot, "src/foo/Bar.java")
+    Files.createDirectories(sourceFile.getParent())
+    Files.write(sourceFile, "STUB FILE BODY".getBytes())
+    packageResolver.getPackage(sourceFile) >> fileSystem.getPath("foo")
+
+    def config = Stub(Config)
+    config.getCiVisibilityRepoIndexCacheDir() >> cacheDir.toString()
+
+    def gitClient = Stub(GitClient)
+    gitClient.getTreeSha(GitClient.HEAD) >> "2b9b2ba7e3bdd0e53fcd3d3ca0b0d16e5a1f8b3e"
+    gitClient.hasUncommittedChanges() >> uncommittedChanges
+    def gitClientFactory = Stub(GitClient.Factory)
+    gitClientFactory.create(repoRoot) >> gitClient
+
+    when:
+    def factory = new CachingRepoIndexBuilderFactory(config, packageResolver, resourceResolver, fileSystem, gitClientFactory)
+    def index = factory.create(repoRoot).getIndex()
+
+    then:
+    index.getSourcePaths("foo/Bar.java") == ["src/foo/Bar.java"]
+    cacheDir.list().length == (uncommittedChanges ? 0 : 1)
+
+    where:
+    uncommittedChanges << [false, true]
+  }
+}
@@ -6,6 +6,7 @@ import datadog.trace.api.Config
 import datadog.trace.api.civisibility.domain.Language
 import groovy.transform.PackageScope
 import spock.lang.Specification
+import spock.lang.TempDir
 
 import java.nio.file.Files
 import java.nio.file.Path
@@ -18,6 +19,9 @@ class RepoIndexSourcePathResolverTest extends Specification {
   def fileSystem = Jimfs.newFileSystem(Configuration.unix())
   def repoRoot = getRepoRoot()
 
+  @TempDir
+  File cacheDir
+
   def "test source path resolution"() {
     setup:
     def expectedSourcePath = givenSourceFile(RepoIndexSourcePathResolverTest, repoRoot + "/src")
@@ -184,6 +188,22 @@ class RepoIndexSourcePathResolverTest extends Specification {
     sourcePaths.containsAll([expectedJavaPath, expectedScalaPath])
   }
 
+  def "test persisted index is reused"() {
+    setup:
+    def expectedSourcePath = givenSourceFile(RepoIndexSourcePathResolverTest, repoRoot + "/src")
+    def indexCache = new RepoIndexCache(cacheDir.toPath().resolve("repo-index.bin"))
+    new RepoIndexBuilder(config, repoRoot, packageResolver, resourceResolver, fileSystem, indexCache).getIndex()
+    Files.delete(fileSystem.getPath(repoRoot, expectedSourcePath))
+
+    when:
+    def sourcePathResolver = new RepoIndexSourcePathResolver(new RepoIndexBuilder(config, repoRoot, packageResolver, resourceResolver, fileSystem, indexCache))
+    def sourcePaths = sourcePathResolver.getSourcePaths(RepoIndexSourcePathResolverTest)
+
+    then:
+    sourcePaths.size() == 1
+    sourcePaths.contains(expectedSourcePath)
+  }
+
   private String givenSourceFile(Class c, String sourceRoot, Language language = Language.GROOVY) {
     def classPath = fileSystem.getPath(generateSourceFileName(c, sourceRoot, language))
     packageResolver.getPackage(classPath) >> fileSystem.getPath(sourceRoot).relativize(classPath).getParent()
@@ -1,9 +1,20 @@
 package datadog.trace.civisibility.coverage.line;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
 
+import datadog.trace.api.civisibility.telemetry.CiVisibilityMetricCollector;
 import datadog.trace.civisibility.coverage.line.LineCoverageStore.AnalysisCacheKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 class LineCoverageStoreTest {
@@ -35,4 +46,74 @@ class LineCoverageStoreTest {
     assertEquals(shortKey, padded);
     assertEquals(shortKey.hashCode(), padded.hashCode());
   }
+
+  @Test
+  void cacheKeyFromRecordedWordsMatchesBooleanProbes() {
+    ExecutionDataAdapter executionData = new ExecutionDataAdapter(1L, "Foo", 130);
+    executionData.record(0);
+    executionData.record(64);
+    executionData.record(129);
+
+    boolean[] probes = new boolean[130];
+    probes[0] = probes[64] = probes[129] = true;
+    AnalysisCacheKey key = AnalysisCacheKey.fromWords(1L, executionData.getProbeActivations());
+    assertEquals(new AnalysisCacheKey(1L, probes), key);
+    assertArrayEquals(probes, ExecutionDataAdapter.toBooleans(key.probes, 130));
+  }
+
+  @Test
+  void concurrentHitsInTheSameWordAreAllRecorded() throws Exception {
+    int threads = 8;
+    int probeCount = 256;
+    LineProbes probes =
+        new LineProbes(
+            mock(CiVisibilityMetricCollector.class),
+            Collections.singletonMap(Foo.class.getName(), probeCount),
+            false);
+
+    CyclicBarrier start = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int offset = t;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  // interleave the threads so that they all hit every word
+                  for (int probeId = offset; probeId < probeCount; probeId += threads) {
+                    probes.record(Foo.class, 1L, probeId);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    long[] words = probes.getExecutionData().get(Foo.class).getProbeActivations();
+    for (long word : words) {
+      assertEquals(-1L, word);
+    }
+  }
+
+  @Test
+  void mergeIntoSharedExecutionDataKeepsBothActivations() {
+    ExecutionDataAdapter shared = new ExecutionDataAdapter(1L, "Foo", 130, true);
+    shared.record(1);
+    ExecutionDataAdapter confined = new ExecutionDataAdapter(1L, "Foo", 130);
+    confined.record(2);
+    confined.record(129);
+
+    boolean[] expected = new boolean[130];
+    expected[1] = expected[2] = expected[129] = true;
+    long[] merged = shared.merge(confined).getProbeActivations();
+    assertArrayEquals(expected, ExecutionDataAdapter.toBooleans(merged, 130));
+  }
+
+  private static final class Foo {}
 }
@@ -8,6 +8,7 @@ import datadog.metrics.api.Monitoring;
 import datadog.metrics.api.statsd.StatsDClient;
 import datadog.metrics.impl.DDSketchHistograms;
 import datadog.metrics.impl.MonitoringImpl;
+import datadog.metrics.impl.statsd.CoalescingStatsDClient;
 import datadog.trace.api.Config;
 import datadog.trace.api.config.GeneralConfig;
 import datadog.trace.core.DDTraceCoreInfo;
@@ -45,14 +46,17 @@ public class MeterInstaller {
       port = config.getJmxFetchStatsdPort();
     }
 
-    return statsDClientManager()
-        .statsDClient(
-            host,
-            port,
-            config.getDogStatsDNamedPipe(),
-            // use replace to stop string being changed to 'ddtrot.dd.tracer' in dd-trace-ot
-            "datadog:tracer".replace(':', '.'),
-            generateConstantTags(config));
+    StatsDClient statsDClient =
+        statsDClientManager()
+            .statsDClient(
+                host,
+                port,
+                config.getDogStatsDNamedPipe(),
+                // use replace to stop string being changed to 'ddtrot.dd.tracer' in dd-trace-ot
+                "datadog:tracer".replace(':', '.'),
+                generateConstantTags(config));
+    // counters and gauges can be updated for every span, send them at most once per second
+    return new CoalescingStatsDClient(statsDClient, 1, SECONDS);
   }
 
   private static String[] generateConstantTags(final Config config) {
@@ -0,0 +1,74 @@
+package datadog.trace.logging.intake;
+
+import java.io.IOException;
+import java.util.Arrays;
+import okio.BufferedSink;
+
+/**
+ * Growable byte array reused by the logs polling thread for every batch, so that encoding a batch
+ * does not allocate once the buffer has grown to the usual payload size. Not thread-safe.
+ */
+final class GrowableBuffer {
+
+  private final int initialCapacity;
+  private final int maxRetainedCapacity;
+  private byte[] bytes;
+  private int size;
+
+  /**
+   * @param initialCapacity initial size of the backing array
+   * @param maxRetainedCapacity if the array grows past this size, {@link #reset()} swaps it for a
+   *     new array of the initial size, so an occasional huge batch is not retained forever
+   */
+  GrowableBuffer(int initialCapacity, int maxRetainedCapacity) {
+    this.initialCapacity = initialCapacity;
+    this.maxRetainedCapacity = maxRetainedCapacity;
+    this.bytes = new byte[initialCapacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  void reset() {
+    if (bytes.length > maxRetainedCapacity) {
+      bytes = new byte[initialCapacity];
+    }
+    size = 0;
+  }
+
+  void write(int b) {
+    if (size == bytes.length) {
+      grow(size + 1);
+    }
+    bytes[size++] = (byte) b;
+  }
+
+  void write(byte[] b) {
+    write(b, 0, b.length);
+  }
+
+  void write(byte[] b, int offset, int length) {
+    if (size + length > bytes.length) {
+      grow(size + length);
+    }
+    System.arraycopy(b, offset, bytes, size, length);
+    size += length;
+  }
+
+  void write(GrowableBuffer other) {
+    write(other.bytes, 0, other.size);
+  }
+
+  void writeTo(BufferedSink sink) throws IOException {
+    sink.write(bytes, 0, size);
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, size);
+  }
+
+  private void grow(int minCapacity) {
+    bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, minCapacity));
+  }
+}
@@ -0,0 +1,234 @@
+package datadog.trace.logging.intake;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import datadog.trace.api.logging.intake.LogRecord;
+import java.util.Map;
+
+/**
+ * Encodes {@link LogRecord}s as UTF-8 JSON objects directly into a {@link GrowableBuffer}.
+ *
+ * <p>A log record only has a handful of value shapes (strings, a boolean, an int and a few nested
+ * objects), so this encoder writes them field by field instead of going through a generic {@code
+ * Map} adapter and an intermediate {@code String}. Property names are encoded once, and so are the
+ * tags shared by every record (service, host, ...). {@code null} values are omitted, like Moshi
+ * does by default. Not thread-safe.
+ */
+final class LogRecordJsonEncoder {
+
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(US_ASCII);
+
+  private static final byte[] THREAD = name("thread");
+  private static final byte[] LEVEL = name("level");
+  private static final byte[] LOGGER_NAME = name("loggerName");
+  private static final byte[] MESSAGE = name("message");
+  private static final byte[] THROWN = name("thrown");
+  private static final byte[] NAME = name("name");
+  private static final byte[] EXTENDED_STACK_TRACE = name("extendedStackTrace");
+  private static final byte[] END_OF_BATCH = name("endOfBatch");
+  private static final byte[] LOGGER_FQCN = name("loggerFqcn");
+  private static final byte[] CONTEXT_MAP = name("contextMap");
+  private static final byte[] SOURCE = name("source");
+  private static final byte[] CLASS = name("class");
+  private static final byte[] METHOD = name("method");
+  private static final byte[] FILE = name("file");
+  private static final byte[] LINE = name("line");
+  private static final byte[] TRACE_ID = name("dd.trace_id");
+  private static final byte[] SPAN_ID = name("dd.span_id");
+
+  private static final byte[] TRUE = "true".getBytes(US_ASCII);
+  private static final byte[] FALSE = "false".getBytes(US_ASCII);
+
+  /** The encoded common tags, without the enclosing braces. */
+  private final byte[] commonFields;
+
+  private boolean requireComma;
+
+  LogRecordJsonEncoder(Map<String, String> commonTags) {
+    GrowableBuffer out = new GrowableBuffer(256, Integer.MAX_VALUE);
+    requireComma = false;
+    for (Map.Entry<String, String> tag : commonTags.entrySet()) {
+      stringField(out, name(tag.getKey()), tag.getValue());
+    }
+    commonFields = out.toByteArray();
+  }
+
+  /** Appends the JSON encoding of the record to the buffer. */
+  void encode(LogRecord record, GrowableBuffer out) {
+    beginObject(out);
+    stringField(out, THREAD, record.getThread());
+    stringField(out, LEVEL, record.getLevel());
+    stringField(out, LOGGER_NAME, record.getLoggerName());
+    stringField(out, MESSAGE, record.getMessage());
+
+    if (record.hasThrown()) {
+      name(out, THROWN);
+      beginObject(out);
+      stringField(out, MESSAGE, record.getThrownMessage());
+      stringField(out, NAME, record.getThrownName());
+      stringField(out, EXTENDED_STACK_TRACE, record.getThrownStackTrace());
+      endObject(out);
+    }
+
+    Boolean endOfBatch = record.getEndOfBatch();
+    if (endOfBatch != null) {
+      name(out, END_OF_BATCH);
+      out.write(endOfBatch ? TRUE : FALSE);
+    }
+    stringField(out, LOGGER_FQCN, record.getLoggerFqcn());
+
+    Map<String, String> contextMap = record.getContextMap();
+    if (contextMap != null) {
+      name(out, CONTEXT_MAP);
+      beginObject(out);
+      for (Map.Entry<String, String> entry : contextMap.entrySet()) {
+        if (entry.getKey() != null && entry.getValue() != null) {
+          comma(out);
+          string(out, entry.getKey());
+          out.write(':');
+          string(out, entry.getValue());
+        }
+      }
+      endObject(out);
+    }
+
+    if (record.hasSource()) {
+      name(out, SOURCE);
+      beginObject(out);
+      stringField(out, CLASS, record.getSourceClass());
+      stringField(out, METHOD, record.getSourceMethod());
+      stringField(out, FILE, record.getSourceFile());
+      name(out, LINE);
+      integer(out, record.getSourceLine());
+      endObject(out);
+    }
+
+    stringField(out, TRACE_ID, record.getTraceId());
+    stringField(out, SPAN_ID, record.getSpanId());
+
+    if (commonFields.length != 0) {
+      comma(out);
+      out.write(commonFields);
+    }
+    out.write('}');
+  }
+
+  private void beginObject(GrowableBuffer out) {
+    out.write('{');
+    requireComma = false;
+  }
+
+  private void endObject(GrowableBuffer out) {
+    out.write('}');
+    requireComma = true;
+  }
+
+  private void comma(GrowableBuffer out) {
+    if (requireComma) {
+      out.write(',');
+    }
+    requireComma = true;
+  }
+
+  private void name(GrowableBuffer out, byte[] name) {
+    comma(out);
+    out.write(name);
+  }
+
+  private void stringField(GrowableBuffer out, byte[] name, String value) {
+    if (value != null) {
+      name(out, name);
+      string(out, value);
+    }
+  }
+
+  /** Encodes a property name, including the quotes and the colon. */
+  private static byte[] name(String name) {
+    GrowableBuffer out = new GrowableBuffer(name.length() + 3, Integer.MAX_VALUE);
+    string(out, name);
+    out.write(':');
+    return out.toByteArray();
+  }
+
+  private static void integer(GrowableBuffer out, int value) {
+    if (value >= 0 && value < 10) {
+      out.write('0' + value);
+    } else {
+      out.write(Integer.toString(value).getBytes(US_ASCII));
+    }
+  }
+
+  /** Writes a quoted and escaped JSON string, encoded in UTF-8. */
+  private static void string(GrowableBuffer out, String value) {
+    out.write('"');
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        if (c >= 0x20 && c != '"' && c != '\\') {
+          out.write(c);
+        } else {
+          escape(out, c);
+        }
+      } else if (c < 0x800) {
+        out.write(0xC0 | (c >> 6));
+        out.write(0x80 | (c & 0x3F));
+      } else if (c == 0x2028 || c == 0x2029) {
+        // valid in JSON but not in JavaScript, escaped for parity with Moshi
+        escape(out, c);
+      } else if (Character.isSurrogate(c)) {
+        char low;
+        if (Character.isHighSurrogate(c)
+            && i + 1 < length
+            && Character.isLowSurrogate(low = value.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, low);
+          out.write(0xF0 | (codePoint >> 18));
+          out.write(0x80 | ((codePoint >> 12) & 0x3F));
+          out.write(0x80 | ((codePoint >> 6) & 0x3F));
+          out.write(0x80 | (codePoint & 0x3F));
+          i++;
+        } else {
+          // unpaired surrogate, replaced the same way String.getBytes(UTF_8) does
+          out.write('?');
+        }
+      } else {
+        out.write(0xE0 | (c >> 12));
+        out.write(0x80 | ((c >> 6) & 0x3F));
+        out.write(0x80 | (c & 0x3F));
+      }
+    }
+    out.write('"');
+  }
+
+  private static void escape(GrowableBuffer out, char c) {
+    out.write('\\');
+    switch (c) {
+      case '"':
+      case '\\':
+        out.write(c);
+        break;
+      case '\n':
+        out.write('n');
+        break;
+      case '\r':
+        out.write('r');
+        break;
+      case '\t':
+        out.write('t');
+        break;
+      case '\b':
+        out.write('b');
+        break;
+      case '\f':
+        out.write('f');
+        break;
+      default:
+        out.write('u');
+        out.write(HEX_DIGITS[(c >> 12) & 0xF]);
+        out.write(HEX_DIGITS[(c >> 8) & 0xF]);
+        out.write(HEX_DIGITS[(c >> 4) & 0xF]);
+        out.write(HEX_DIGITS[c & 0xF]);
+        break;
+    }
+  }
+}
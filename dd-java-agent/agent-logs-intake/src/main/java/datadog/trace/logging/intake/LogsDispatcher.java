@@ -1,20 +1,28 @@
 package datadog.trace.logging.intake;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
 import datadog.communication.BackendApi;
 import datadog.communication.http.OkHttpUtils;
 import datadog.communication.util.IOThrowingFunction;
+import datadog.trace.api.logging.intake.LogRecord;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
+import okio.BufferedSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Encodes log records into JSON array payloads and posts them to the logs intake.
+ *
+ * <p>Records are encoded straight into a reused buffer, and the payload is gzipped while it is
+ * written to the request. The buffers are only ever touched by the thread calling {@link
+ * #dispatch(List)}, which is the logs polling thread.
+ */
 public class LogsDispatcher {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(LogsDispatcher.class);
@@ -31,66 +39,124 @@ public class LogsDispatcher {
   // Maximum size for a single log: 1MB
   static final int MAX_MESSAGE_BYTES = 1024 * 1024;
 
+  // Buffers that grew past this size for an unusually large batch are not kept around
+  private static final int INITIAL_BUFFER_BYTES = 16 * 1024;
+  private static final int MAX_RETAINED_BUFFER_BYTES = 1024 * 1024;
+
   private final BackendApi backendApi;
-  private final JsonAdapter<Map> jsonAdapter;
+  private final LogRecordJsonEncoder encoder;
   private final int maxBatchRecords;
   private final int maxBatchBytes;
   private final int maxMessageBytes;
 
-  public LogsDispatcher(BackendApi backendApi) {
-    this(backendApi, MAX_BATCH_RECORDS, MAX_BATCH_BYTES, MAX_MESSAGE_BYTES);
+  private final GrowableBuffer record =
+      new GrowableBuffer(INITIAL_BUFFER_BYTES, MAX_RETAINED_BUFFER_BYTES);
+  private final GrowableBuffer batch =
+      new GrowableBuffer(INITIAL_BUFFER_BYTES, MAX_RETAINED_BUFFER_BYTES);
+  private final RequestBody batchRequestBody = new BatchRequestBody(batch);
+
+  public LogsDispatcher(BackendApi backendApi, Map<String, String> commonTags) {
+    this(backendApi, commonTags, MAX_BATCH_RECORDS, MAX_BATCH_BYTES, MAX_MESSAGE_BYTES);
   }
 
   LogsDispatcher(
       BackendApi backendApi, int maxBatchRecords, int maxBatchBytes, int maxMessageBytes) {
-    this.backendApi = backendApi;
-
-    Moshi moshi = new Moshi.Builder().build();
-    jsonAdapter = moshi.adapter(Map.class);
+    this(
+        backendApi,
+        Collections.<String, String>emptyMap(),
+        maxBatchRecords,
+        maxBatchBytes,
+        maxMessageBytes);
+  }
 
+  LogsDispatcher(
+      BackendApi backendApi,
+      Map<String, String> commonTags,
+      int maxBatchRecords,
+      int maxBatchBytes,
+      int maxMessageBytes) {
+    this.backendApi = backendApi;
+    this.encoder = new LogRecordJsonEncoder(commonTags);
     this.maxBatchRecords = maxBatchRecords;
     this.maxBatchBytes = maxBatchBytes;
     this.maxMessageBytes = maxMessageBytes;
   }
 
-  public void dispatch(List<Map<String, Object>> messages) {
-    StringBuilder batch = new StringBuilder("[");
+  public void dispatch(List<LogRecord> records) {
+    beginBatch();
     int batchCount = 0, batchLength = 0;
 
-    for (Map<String, Object> message : messages) {
-      String json = jsonAdapter.toJson(message);
-      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
-      if (bytes.length > maxMessageBytes) {
-        LOGGER.debug("Discarding a log message whose size {} exceeds the limit", bytes.length);
+    for (LogRecord logRecord : records) {
+      record.reset();
+      encoder.encode(logRecord, record);
+      int length = record.size();
+      if (length > maxMessageBytes) {
+        LOGGER.debug("Discarding a log message whose size {} exceeds the limit", length);
         continue;
       }
 
-      if (batchCount + 1 > maxBatchRecords || batchLength + bytes.length >= maxBatchBytes) {
-        flush(batch.append(']'));
-        batch = new StringBuilder("[");
+      if (batchCount + 1 > maxBatchRecords || batchLength + length >= maxBatchBytes) {
+        if (batchCount != 0) {
+          flush();
+        }
+        beginBatch();
         batchCount = 0;
         batchLength = 0;
       }
 
       if (batchCount != 0) {
-        batch.append(',');
+        batch.write(',');
       }
-      batch.append(json);
+      batch.write(record);
       batchCount += 1;
-      batchLength += bytes.length;
+      batchLength += length;
     }
 
-    flush(batch.append(']'));
+    if (batchCount != 0) {
+      flush();
+    }
+    record.reset();
+    batch.reset();
+  }
+
+  private void beginBatch() {
+    batch.reset();
+    batch.write('[');
   }
 
-  private void flush(StringBuilder batch) {
+  private void flush() {
+    batch.write(']');
     try {
-      String json = batch.toString();
-      RequestBody requestBody = RequestBody.create(JSON, json);
-      RequestBody gzippedRequestBody = OkHttpUtils.gzippedRequestBodyOf(requestBody);
+      // the request is sent synchronously, so the batch buffer can be reused once post() returns
+      RequestBody gzippedRequestBody = OkHttpUtils.gzippedRequestBodyOf(batchRequestBody);
       backendApi.post("logs", gzippedRequestBody, IGNORE_RESPONSE, null, true);
     } catch (IOException e) {
       LOGGER.error("Could not dispatch logs", e);
     }
   }
+
+  /** Writes the current contents of the batch buffer; written again if the request is retried. */
+  private static final class BatchRequestBody extends RequestBody {
+    private final GrowableBuffer batch;
+
+    private BatchRequestBody(GrowableBuffer batch) {
+      this.batch = batch;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+      return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+      return batch.size();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      batch.writeTo(sink);
+    }
+  }
 }
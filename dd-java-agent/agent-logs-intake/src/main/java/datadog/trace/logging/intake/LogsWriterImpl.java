@@ -2,19 +2,19 @@ package datadog.trace.logging.intake;
 
 import static datadog.trace.util.AgentThreadFactory.AGENT_THREAD_GROUP;
 
+import datadog.common.queue.MessagePassingBlockingQueue;
+import datadog.common.queue.Queues;
 import datadog.communication.BackendApi;
 import datadog.communication.BackendApiFactory;
 import datadog.trace.api.Config;
 import datadog.trace.api.intake.Intake;
+import datadog.trace.api.logging.intake.LogRecord;
 import datadog.trace.api.logging.intake.LogsWriter;
 import datadog.trace.util.AgentThreadFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,12 +23,11 @@ public class LogsWriterImpl implements LogsWriter {
   private static final Logger LOGGER = LoggerFactory.getLogger(LogsWriterImpl.class);
 
   private static final long POLLING_THREAD_SHUTDOWN_TIMEOUT_MILLIS = 5_000;
-  private static final int ENQUEUE_LOG_TIMEOUT_MILLIS = 1_000;
 
-  private final Map<String, Object> commonTags;
+  private final Map<String, String> commonTags;
   private final BackendApiFactory apiFactory;
   private final Intake intake;
-  private final BlockingQueue<Map<String, Object>> messageQueue;
+  private final MessagePassingBlockingQueue<LogRecord> messageQueue;
   private final Thread messagePollingThread;
 
   public LogsWriterImpl(Config config, BackendApiFactory apiFactory, Intake intake) {
@@ -41,7 +40,8 @@ public class LogsWriterImpl implements LogsWriter {
     commonTags.put("service", config.getServiceName());
     commonTags.put("hostname", config.getHostName());
 
-    messageQueue = new ArrayBlockingQueue<>(config.getAgentlessLogSubmissionQueueSize());
+    messageQueue =
+        Queues.mpscBlockingConsumerArrayQueue(config.getAgentlessLogSubmissionQueueSize());
     messagePollingThread =
         AgentThreadFactory.newAgentThread(
             AgentThreadFactory.AgentThread.LOGS_INTAKE, this::logPollingLoop);
@@ -75,37 +75,31 @@ public class LogsWriterImpl implements LogsWriter {
   }
 
   @Override
-  public void log(Map<String, Object> message) {
-    try {
-      message.putAll(commonTags);
-
-      if (!messageQueue.offer(message, ENQUEUE_LOG_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
-        LOGGER.debug("Timeout while trying to enqueue log message");
-      }
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      LOGGER.debug("Interrupted while trying to log");
+  public void log(LogRecord record) {
+    // never block the logging thread: if the polling thread cannot keep up, the record is dropped
+    if (!messageQueue.offer(record)) {
+      LOGGER.debug("Log message queue is full, dropping log message");
     }
   }
 
   private void logPollingLoop() {
     BackendApi backendApi = apiFactory.createBackendApi(intake);
-    LogsDispatcher logsDispatcher = new LogsDispatcher(backendApi);
+    LogsDispatcher logsDispatcher = new LogsDispatcher(backendApi, commonTags);
 
+    List<LogRecord> batch = new ArrayList<>();
     while (!Thread.currentThread().isInterrupted()) {
       try {
-        List<Map<String, Object>> batch = new ArrayList<>();
         batch.add(messageQueue.take());
-        messageQueue.drainTo(batch);
+        messageQueue.drain(batch::add, messageQueue.size());
         logsDispatcher.dispatch(batch);
+        batch.clear();
 
       } catch (InterruptedException e) {
         break;
       }
     }
 
-    List<Map<String, Object>> batch = new ArrayList<>();
-    messageQueue.drainTo(batch);
+    messageQueue.drain(batch::add);
     if (!batch.isEmpty()) {
       logsDispatcher.dispatch(batch);
     }
@@ -0,0 +1,89 @@
+package datadog.trace.logging.intake
+
+import com.squareup.moshi.Moshi
+import datadog.trace.api.logging.intake.LogRecord
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class LogRecordJsonEncoderTest extends Specification {
+
+  private static final mapJsonAdapter = new Moshi.Builder().build().adapter(Map)
+
+  def "full record is encoded as JSON"() {
+    setup:
+    def encoder = new LogRecordJsonEncoder(["ddsource": "java", "service": "my-service", "hostname": null])
+    def record = new LogRecord("main", "ERROR", "com.example.Logger", "something failed")
+      .thrown("java.lang.IllegalStateException", "bad state", "java.lang.IllegalStateException: bad state\n\tat Foo.bar(Foo.java:1)")
+      .endOfBatch(false)
+      .loggerFqcn("org.apache.logging.log4j.spi.AbstractLogger")
+      .contextMap(["user": "alice"])
+      .source("com.example.Foo", "bar", "Foo.java", 42)
+      .traceContext("1234", "5678")
+
+    when:
+    def json = encode(encoder, record)
+
+    then:
+    mapJsonAdapter.fromJson(json) == [
+      "thread"    : "main",
+      "level"     : "ERROR",
+      "loggerName": "com.example.Logger",
+      "message"   : "something failed",
+      "thrown"    : [
+        "message"           : "bad state",
+        "name"              : "java.lang.IllegalStateException",
+        "extendedStackTrace": "java.lang.IllegalStateException: bad state\n\tat Foo.bar(Foo.java:1)"
+      ],
+      "endOfBatch": false,
+      "loggerFqcn": "org.apache.logging.log4j.spi.AbstractLogger",
+      "contextMap": ["user": "alice"],
+      "source"    : ["class": "com.example.Foo", "method": "bar", "file": "Foo.java", "line": 42d],
+      "dd.trace_id": "1234",
+      "dd.span_id": "5678",
+      "ddsource"  : "java",
+      "service"   : "my-service"
+    ]
+  }
+
+  def "null values are omitted"() {
+    setup:
+    def encoder = new LogRecordJsonEncoder([:])
+
+    when:
+    def json = encode(encoder, new LogRecord(null, "INFO", null, "hello").thrown(null, null, null))
+
+    then:
+    json == '{"level":"INFO","message":"hello","thrown":{}}'
+  }
+
+  def "strings are escaped and encoded as UTF-8: #message"() {
+    setup:
+    def encoder = new LogRecordJsonEncoder([:])
+
+    when:
+    def json = encode(encoder, new LogRecord(null, null, null, message))
+
+    then:
+    mapJsonAdapter.fromJson(json) == ["message": message]
+    json == mapJsonAdapter.toJson(["message": message])
+
+    where:
+    message << [
+      "",
+      "plain",
+      "quote \" and backslash \\",
+      "new\nline, tab\t, return\r, backspace\b, form feed\f",
+      "control \u0001\u001f",
+      "latin é, greek λ, cjk 日本",
+      "line separator \u2028 and paragraph separator \u2029",
+      "emoji 😀"
+    ]
+  }
+
+  private static String encode(LogRecordJsonEncoder encoder, LogRecord record) {
+    def buffer = new GrowableBuffer(4, Integer.MAX_VALUE)
+    encoder.encode(record, buffer)
+    return new String(buffer.toByteArray(), StandardCharsets.UTF_8)
+  }
+}
@@ -6,6 +6,7 @@ import datadog.communication.BackendApi
 import datadog.communication.http.OkHttpUtils
 import datadog.communication.util.IOThrowingFunction
 import datadog.communication.util.IOUtils
+import datadog.trace.api.logging.intake.LogRecord
 import okhttp3.RequestBody
 import okio.Buffer
 import spock.lang.Specification
@@ -22,7 +23,7 @@ class LogsDispatcherTest extends Specification {
     def dispatcher = new LogsDispatcher(api, LogsDispatcher.MAX_BATCH_RECORDS, LogsDispatcher.MAX_BATCH_BYTES, maxMessageBytes)
 
     when:
-    dispatcher.dispatch([["message": "a"], ["message": "abcdefghijklmnop"]])
+    dispatcher.dispatch([record("a"), record("abcdefghijklmnop")])
 
     then:
     1 == api.messages.size()
@@ -36,7 +37,7 @@ class LogsDispatcherTest extends Specification {
     def dispatcher = new LogsDispatcher(api, maxBatchRecords, LogsDispatcher.MAX_BATCH_BYTES, LogsDispatcher.MAX_MESSAGE_BYTES)
 
     when:
-    dispatcher.dispatch([["message": "a"], ["message": "b"], ["message": "c"], ["message": "d"], ["message": "e"]])
+    dispatcher.dispatch([record("a"), record("b"), record("c"), record("d"), record("e")])
 
     then:
     3 == api.requestsReceived
@@ -55,7 +56,7 @@ class LogsDispatcherTest extends Specification {
     def dispatcher = new LogsDispatcher(api, LogsDispatcher.MAX_BATCH_RECORDS, maxBatchBytes, LogsDispatcher.MAX_MESSAGE_BYTES)
 
     when:
-    dispatcher.dispatch([["message": "a"], ["message": "b"], ["message": "c"], ["message": "d"], ["message": "e"]])
+    dispatcher.dispatch([record("a"), record("b"), record("c"), record("d"), record("e")])
 
     then:
     3 == api.requestsReceived
@@ -67,6 +68,36 @@ class LogsDispatcherTest extends Specification {
     "e" == api.messages.poll()["message"]
   }
 
+  def "common tags are added to every record"() {
+    setup:
+    def api = new DummyBackendApi()
+    def dispatcher = new LogsDispatcher(api, ["ddsource": "java", "service": "my-service"])
+
+    when:
+    dispatcher.dispatch([record("a"), record("b")])
+
+    then:
+    1 == api.requestsReceived
+    api.messages.poll() == ["message": "a", "ddsource": "java", "service": "my-service"]
+    api.messages.poll() == ["message": "b", "ddsource": "java", "service": "my-service"]
+  }
+
+  def "empty batches are not sent"() {
+    setup:
+    def api = new DummyBackendApi()
+    def dispatcher = new LogsDispatcher(api, [:])
+
+    when:
+    dispatcher.dispatch([])
+
+    then:
+    0 == api.requestsReceived
+  }
+
+  private static LogRecord record(String message) {
+    return new LogRecord(null, null, null, message)
+  }
+
   private static final class DummyBackendApi implements BackendApi {
     private final listJsonAdapter = new Moshi.Builder().build().adapter(List)
     private final Queue<Map<String, Object>> messages = new ArrayDeque<>()
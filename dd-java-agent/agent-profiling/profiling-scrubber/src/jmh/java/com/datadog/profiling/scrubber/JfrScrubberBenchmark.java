@@ -0,0 +1,90 @@
+package com.datadog.profiling.scrubber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the scrubbing of large recordings, the baseline that a chunk-parallel mode would have to
+ * beat. jafar only scrubs files, so such a mode has to copy each chunk through temporary files.
+ *
+ * <p>The synthetic recording is built by concatenating the test recording {@code copies} times;
+ * JFR chunks are self-contained so the result is a valid multi-chunk recording.
+ *
+ * <p>Run with: ./gradlew :dd-java-agent:agent-profiling:profiling-scrubber:jmh
+ * -PjmhIncludes=JfrScrubberBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JfrScrubberBenchmark {
+
+  @Param({"4", "32"})
+  int copies;
+
+  private Path tempDir;
+  private Path input;
+  private Path output;
+  private JfrScrubber scrubber;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    tempDir = Files.createTempDirectory("jfr-scrubber-benchmark");
+    input = tempDir.resolve("input.jfr");
+    output = tempDir.resolve("output.jfr");
+    byte[] recording = readRecording();
+    try (OutputStream out = Files.newOutputStream(input)) {
+      for (int i = 0; i < copies; i++) {
+        out.write(recording);
+      }
+    }
+    scrubber = DefaultScrubDefinition.create(null);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(output);
+    Files.deleteIfExists(input);
+    Files.deleteIfExists(tempDir);
+  }
+
+  @Benchmark
+  public void scrubFile() throws Exception {
+    scrubber.scrubFile(input, output);
+  }
+
+  private static byte[] readRecording() throws IOException {
+    try (InputStream is = JfrScrubberBenchmark.class.getResourceAsStream("/test-recording.jfr")) {
+      if (is == null) {
+        throw new IllegalStateException("test-recording.jfr not found in test resources");
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+      return bytes.toByteArray();
+    }
+  }
+}
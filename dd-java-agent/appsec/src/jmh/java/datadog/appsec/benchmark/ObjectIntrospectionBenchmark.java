@@ -0,0 +1,164 @@
+package datadog.appsec.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.datadog.appsec.event.data.ObjectIntrospection;
+import com.datadog.appsec.gateway.AppSecRequestContext;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of request body objects for the WAF, as deserialized by Spring {@code @RequestBody}:
+ * an order DTO with nested customer, addresses and line items, most of them inheriting fields from
+ * a base entity class.
+ *
+ * <p>Run: {@code ./gradlew :dd-java-agent:appsec:jmh -PjmhIncludes=ObjectIntrospectionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 4, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@Fork(value = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+public class ObjectIntrospectionBenchmark {
+
+  static {
+    BenchmarkUtil.disableLogging();
+  }
+
+  @Param({"1", "20"})
+  int lineItems;
+
+  private AppSecRequestContext context;
+  private Order order;
+  private Map<String, Object> orderAsMap;
+
+  @Setup
+  public void setUp() {
+    context = new AppSecRequestContext();
+    order = newOrder(lineItems);
+    orderAsMap = asMap(order);
+  }
+
+  /** A DTO graph, converted field by field. */
+  @Benchmark
+  public Object convertDto() {
+    return ObjectIntrospection.convert(order, context);
+  }
+
+  /** The same data as maps and lists, as a lower bound for the conversion of the DTOs. */
+  @Benchmark
+  public Object convertMaps() {
+    return ObjectIntrospection.convert(orderAsMap, context);
+  }
+
+  private static Order newOrder(int lineItems) {
+    Order order = new Order();
+    order.id = 1042L;
+    order.createdAt = new Date(1_700_000_000_000L);
+    order.reference = "ORD-2024-001042";
+    order.status = Status.PENDING;
+    order.customer = new Customer();
+    order.customer.id = 7L;
+    order.customer.createdAt = order.createdAt;
+    order.customer.email = "jane.doe@example.com";
+    order.customer.firstName = "Jane";
+    order.customer.lastName = "Doe";
+    order.customer.roles = Arrays.asList("customer", "newsletter");
+    order.shippingAddress = newAddress("221B Baker Street");
+    order.billingAddress = newAddress("10 Downing Street");
+    order.lines = new ArrayList<>();
+    for (int i = 0; i < lineItems; i++) {
+      LineItem line = new LineItem();
+      line.id = 100L + i;
+      line.createdAt = order.createdAt;
+      line.sku = "SKU-" + i;
+      line.description = "Item number " + i + " <b>with markup</b>";
+      line.quantity = 1 + i % 3;
+      line.unitPrice = new BigDecimal("19.99");
+      line.attributes = new HashMap<>();
+      line.attributes.put("color", "blue");
+      line.attributes.put("size", "M");
+      order.lines.add(line);
+    }
+    order.notes = "Leave at the door' OR '1'='1";
+    return order;
+  }
+
+  private static Address newAddress(String street) {
+    Address address = new Address();
+    address.id = 3L;
+    address.createdAt = new Date(1_600_000_000_000L);
+    address.street = street;
+    address.city = "London";
+    address.zipCode = "NW1 6XE";
+    address.country = "GB";
+    return address;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> asMap(Order order) {
+    // the conversion of the DTO is a plain map graph with the same content
+    return (Map<String, Object>) ObjectIntrospection.convert(order, new AppSecRequestContext());
+  }
+
+  enum Status {
+    PENDING,
+    SHIPPED
+  }
+
+  abstract static class Entity {
+    Long id;
+    Date createdAt;
+    int version;
+  }
+
+  static final class Order extends Entity {
+    String reference;
+    Status status;
+    Customer customer;
+    Address shippingAddress;
+    Address billingAddress;
+    List<LineItem> lines;
+    String notes;
+  }
+
+  static final class Customer extends Entity {
+    String email;
+    String firstName;
+    String lastName;
+    List<String> roles;
+  }
+
+  static final class Address extends Entity {
+    String street;
+    String city;
+    String zipCode;
+    String country;
+  }
+
+  static final class LineItem extends Entity {
+    String sku;
+    String description;
+    int quantity;
+    BigDecimal unitPrice;
+    Map<String, String> attributes;
+  }
+}
@@ -6,9 +6,11 @@ import static com.datadog.appsec.ddwaf.WAFModule.MAX_STRING_SIZE;
 
 import com.datadog.appsec.gateway.AppSecRequestContext;
 import datadog.environment.JavaVirtualMachine;
+import datadog.trace.api.GenericClassValue;
 import datadog.trace.api.telemetry.WafMetricCollector;
 import datadog.trace.util.MethodHandles;
 import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -43,6 +45,11 @@ public final class ObjectIntrospection {
     trySetAccessible = method;
   }
 
+  private static final MethodType FIELD_GETTER = MethodType.methodType(Object.class, Object.class);
+
+  private static final ClassValue<FieldPlan> FIELD_PLANS =
+      GenericClassValue.of(ObjectIntrospection::planFields);
+
   private ObjectIntrospection() {}
 
   /**
@@ -269,21 +276,39 @@ public final class ObjectIntrospection {
     }
 
     // else general objects
+    FieldPlan plan = FIELD_PLANS.get(clazz);
     Map<String, Object> newMap = new HashMap<>();
-    List<Field[]> allFields = new ArrayList<>();
+    for (int i = 0; i < plan.names.length; i++) {
+      if (state.elemsLeft <= 0) {
+        state.listMapTooLarge = true;
+        break;
+      }
+      Object value;
+      try {
+        value = plan.getters[i].invokeExact(obj);
+      } catch (Throwable t) {
+        log.error("Unable to get field value", t);
+        // TODO: Use invalid object
+        continue;
+      }
+      newMap.put(plan.names[i], guardedConversion(value, depth + 1, state));
+    }
+
+    return newMap;
+  }
+
+  /**
+   * Collects the instance fields of the class and its superclasses which are converted, and opens
+   * them once for all the objects of this class.
+   */
+  private static FieldPlan planFields(Class<?> clazz) {
+    List<String> names = new ArrayList<>();
+    List<MethodHandle> getters = new ArrayList<>();
+    java.lang.invoke.MethodHandles.Lookup lookup = java.lang.invoke.MethodHandles.lookup();
     for (Class<?> classToLook = clazz;
         classToLook != null && classToLook != Object.class;
         classToLook = classToLook.getSuperclass()) {
-      allFields.add(classToLook.getDeclaredFields());
-    }
-
-    outer:
-    for (Field[] fields : allFields) {
-      for (Field f : fields) {
-        if (state.elemsLeft <= 0) {
-          state.listMapTooLarge = true;
-          break outer;
-        }
+      for (Field f : classToLook.getDeclaredFields()) {
         if (Modifier.isStatic(f.getModifiers())) {
           continue;
         }
@@ -294,25 +319,35 @@ public final class ObjectIntrospection {
         if (ignoredFieldName(name)) {
           continue;
         }
-
-        if (setAccessible(f)) {
-          try {
-            newMap.put(f.getName(), guardedConversion(f.get(obj), depth + 1, state));
-          } catch (IllegalAccessException e) {
-            log.error("Unable to get field value", e);
-            // TODO: Use invalid object
-          }
-        }
         // This field is inaccessible (Strongly Encapsulated Internal class on Java 9+).
         // Skip it and continue with the remaining fields — other accessible fields on the
         // same object may still contain useful data for WAF inspection. Do NOT call
         // obj.toString() here: JDK internal toString() representations (e.g.
         // "class java.lang.Object") can match legitimate WAF phrase_match rules and
         // produce false positives (e.g. crs-944-130 java_code_injection).
+        if (!setAccessible(f)) {
+          continue;
+        }
+        try {
+          getters.add(lookup.unreflectGetter(f).asType(FIELD_GETTER));
+          names.add(name);
+        } catch (IllegalAccessException e) {
+          log.error("Unable to get field value", e);
+        }
       }
     }
+    return new FieldPlan(names.toArray(new String[0]), getters.toArray(new MethodHandle[0]));
+  }
 
-    return newMap;
+  /** Names and getters of the fields converted for the objects of a class. */
+  private static final class FieldPlan {
+    final String[] names;
+    final MethodHandle[] getters;
+
+    FieldPlan(String[] names, MethodHandle[] getters) {
+      this.names = names;
+      this.getters = getters;
+    }
   }
 
   private static boolean ignoredFieldName(final String name) {
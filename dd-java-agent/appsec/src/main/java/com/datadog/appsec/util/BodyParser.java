@@ -3,20 +3,18 @@ package com.datadog.appsec.util;
 import static com.datadog.appsec.ddwaf.WAFModule.MAX_DEPTH;
 import static com.datadog.appsec.ddwaf.WAFModule.MAX_ELEMENTS;
 import static com.datadog.appsec.ddwaf.WAFModule.MAX_STRING_SIZE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
-import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.JsonDataException;
-import com.squareup.moshi.JsonReader;
-import com.squareup.moshi.JsonWriter;
+import datadog.json.JsonReader;
 import datadog.trace.api.appsec.MediaType;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import javax.annotation.Nullable;
-import okio.Okio;
 
 public interface BodyParser {
 
@@ -44,102 +42,96 @@ public interface BodyParser {
     public boolean stringTooLong = false;
   }
 
+  /**
+   * Builds the WAF input of a JSON body while it is read, applying the WAF limits on the way:
+   * strings are truncated as they are read, values nested too deeply are skipped without being
+   * kept, and nothing more is read once the maximum number of elements is reached.
+   */
   class JsonParser implements BodyParser {
 
     private static final BodyParser INSTANCE = new JsonParser();
 
     @Override
     public Object parse(final State state, final InputStream inputStream) {
+      return parse(state, new InputStreamReader(inputStream, UTF_8));
+    }
+
+    private static Object parse(final State state, final Reader reader) {
       try {
-        final JsonAdapter<Object> adapter = new BoundedObjectAdapter(state);
-        return adapter.fromJson(Okio.buffer(Okio.source(inputStream)));
+        return readValue(state, new JsonReader(reader), 0);
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
     }
 
-    private static final class BoundedObjectAdapter extends JsonAdapter<Object> {
-
-      private final State state;
-
-      public BoundedObjectAdapter(final State state) {
-        this.state = state;
+    private static Object readValue(final State state, final JsonReader r, final int depth)
+        throws IOException {
+      if (depth >= MAX_DEPTH) {
+        state.objectTooDeep = true;
+        r.skipValue();
+        return null;
       }
 
-      @Generated
-      @Override
-      public void toJson(final JsonWriter writer, @Nullable final Object value) throws IOException {
-        throw new UnsupportedOperationException("Parsing-only adapter");
+      if (state.elemsLeft-- == 0) {
+        state.listMapTooLarge = true;
+        return null;
       }
 
-      @Override
-      public Object fromJson(final JsonReader reader) throws IOException {
-        return readValue(reader, 0);
-      }
-
-      private Object readValue(final JsonReader r, final int depth) throws IOException {
-        if (depth >= MAX_DEPTH) {
-          state.objectTooDeep = true;
-          r.skipValue();
+      switch (r.peekValueType()) {
+        case OBJECT:
+          return readObject(state, r, depth);
+        case ARRAY:
+          return readArray(state, r, depth);
+        case STRING:
+          return checkStringLength(r.nextString(MAX_STRING_SIZE + 1), state);
+        case NUMBER:
+          return r.nextDouble();
+        case BOOLEAN:
+          return r.nextBoolean();
+        default:
+          r.nextNull();
           return null;
-        }
-
-        if (state.elemsLeft-- == 0) {
-          state.listMapTooLarge = true;
-          r.skipValue();
-          return null;
-        }
+      }
+    }
 
-        switch (r.peek()) {
-          case BEGIN_OBJECT:
-            return readObject(r, depth);
-          case BEGIN_ARRAY:
-            return readArray(r, depth);
-          case STRING:
-            String value = r.nextString();
-            if (value.length() > MAX_STRING_SIZE) {
-              state.stringTooLong = true;
-              value = value.substring(0, MAX_STRING_SIZE);
-            }
-            return value;
-          case NUMBER:
-            return r.nextDouble();
-          case BOOLEAN:
-            return r.nextBoolean();
-          case NULL:
-            return r.nextNull();
-          default:
-            throw new JsonDataException("Unexpected token at value boundary: " + r.peek());
+    private static Map<String, Object> readObject(
+        final State state, final JsonReader r, final int depth) throws IOException {
+      Map<String, Object> map = new LinkedHashMap<>();
+      r.beginObject();
+      while (r.hasNext()) {
+        String name = checkStringLength(r.nextName(MAX_STRING_SIZE + 1), state);
+        Object val = readValue(state, r, depth + 1);
+        if (state.listMapTooLarge) {
+          // the rest of the body is not read
+          return map;
         }
+        map.put(name, val);
       }
+      r.endObject();
+      return map;
+    }
 
-      private Map<String, Object> readObject(final JsonReader r, final int depth)
-          throws IOException {
-        Map<String, Object> map = new LinkedHashMap<>();
-        r.beginObject();
-        while (r.hasNext()) {
-          String name = r.nextName();
-          Object val = readValue(r, depth + 1);
-          if (!state.listMapTooLarge) {
-            map.put(name, val);
-          }
+    private static List<Object> readArray(final State state, final JsonReader r, final int depth)
+        throws IOException {
+      List<Object> list = new ArrayList<>();
+      r.beginArray();
+      while (r.hasNext()) {
+        Object value = readValue(state, r, depth + 1);
+        if (state.listMapTooLarge) {
+          return list;
         }
-        r.endObject();
-        return map;
+        list.add(value);
       }
+      r.endArray();
+      return list;
+    }
 
-      private List<Object> readArray(final JsonReader r, final int depth) throws IOException {
-        List<Object> list = new ArrayList<>();
-        r.beginArray();
-        while (r.hasNext()) {
-          Object value = readValue(r, depth + 1);
-          if (!state.listMapTooLarge) {
-            list.add(value);
-          }
-        }
-        r.endArray();
-        return list;
+    private static String checkStringLength(final String value, final State state) {
+      if (value.length() > MAX_STRING_SIZE) {
+        state.stringTooLong = true;
+        return value.substring(0, MAX_STRING_SIZE);
       }
+      return value;
     }
   }
 }
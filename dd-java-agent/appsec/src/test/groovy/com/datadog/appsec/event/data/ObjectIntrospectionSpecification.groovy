@@ -154,6 +154,22 @@ class ObjectIntrospectionSpecification extends DDSpecification {
     convert(new ProtobufLikeClass(), ctx) == [c: 'd']
   }
 
+  static class NestedDto {
+    String name
+    NestedDto child
+  }
+
+  void 'fields are looked up once per class and read for every object'() {
+    setup:
+    def dto = new NestedDto(name: 'root', child: new NestedDto(name: 'child'))
+
+    expect:
+    convert(dto, ctx) == [name: 'root', child: [name: 'child', child: null]]
+    convert(new NestedDto(name: 'other'), ctx) == [name: 'other', child: null]
+    convert(new ClassToBeConvertedExt(), ctx) == [c: 'd', a: 'b', l: [1, 2]]
+    convert(new ClassToBeConverted(), ctx) == [a: 'b', l: [1, 2]]
+  }
+
   void 'invalid keys are converted to special strings'() {
     expect:
     convert(Collections.singletonMap(new ClassToBeConverted(), 'a'), ctx) == ['invalid_key:1': 'a']
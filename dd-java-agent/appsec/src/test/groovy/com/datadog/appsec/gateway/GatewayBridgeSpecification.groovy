@@ -734,6 +734,30 @@ class GatewayBridgeSpecification extends DDSpecification {
     0 * eventDispatcher.getDataSubscribers(KnownAddresses.REQUEST_BODY_RAW)
   }
 
+  void 'framework body is published after the raw JSON body'() {
+    StoredBodySupplier supplier = Stub()
+    List<DataBundle> bundles = []
+
+    setup:
+    ctx.data.addRequestHeader('Content-Type', 'application/json')
+    supplier.get() >> '{"user":"admin"}'
+    eventDispatcher.getDataSubscribers(_) >> nonEmptyDsInfo
+    eventDispatcher.publishDataEvent(nonEmptyDsInfo, ctx.data, _ as DataBundle, _ as GatewayContext) >> {
+      bundles << it[2]; NoopFlow.INSTANCE
+    }
+
+    when:
+    requestBodyDoneCB.apply(ctx, supplier)
+    requestBodyProcessedCB.apply(ctx, [user: 'admin'])
+
+    then:
+    bundles.size() == 2
+    bundles[0].get(KnownAddresses.REQUEST_BODY_RAW) == '{"user":"admin"}'
+    bundles[0].get(KnownAddresses.REQUEST_BODY_OBJECT) == null
+    bundles[1].get(KnownAddresses.REQUEST_BODY_OBJECT) == [user: 'admin']
+    ctx.data.convertedReqBodyPublished
+  }
+
   void 'forward request body processed'() {
     DataBundle bundle
     GatewayContext gatewayContext
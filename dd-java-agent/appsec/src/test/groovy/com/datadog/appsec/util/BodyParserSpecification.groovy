@@ -250,6 +250,38 @@ class BodyParserSpecification extends Specification {
     !state.stringTooLong
   }
 
+  void 'test input is not read past the elements limit'() {
+    given:
+    def parser = BodyParser.forJson()
+    def state = new BodyParser.State()
+    def largeArrayJson = generateLargeArrayJson(WAFModule.MAX_ELEMENTS + 10)
+    // invalid JSON past the limit is never reached
+    def body = largeArrayJson.substring(0, largeArrayJson.length() - 1) + ',}garbage'
+
+    when:
+    def result = parser.parse(state, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))
+
+    then:
+    result instanceof List
+    result.size() == WAFModule.MAX_ELEMENTS - 1
+    state.listMapTooLarge
+  }
+
+  void 'test key length limit exceeded - stringTooLong flag set'() {
+    given:
+    def parser = BodyParser.forJson()
+    def state = new BodyParser.State()
+    def longKey = "k" * (WAFModule.MAX_STRING_SIZE + 10)
+
+    when:
+    def json = "{\"${longKey}\":1}".toString()
+    def result = parser.parse(state, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))
+
+    then:
+    result == [("k" * WAFModule.MAX_STRING_SIZE): 1.0d]
+    state.stringTooLong
+  }
+
   void 'test invalid JSON throws JsonDataException'() {
     given:
     def parser = BodyParser.forJson()
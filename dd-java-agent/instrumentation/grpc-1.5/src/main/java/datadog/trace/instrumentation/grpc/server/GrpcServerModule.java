@@ -24,6 +24,7 @@ public class GrpcServerModule extends InstrumenterModule.Tracing {
       packageName + ".GrpcServerDecorator",
       packageName + ".GrpcServerDecorator$1",
       packageName + ".GrpcExtractAdapter",
+      packageName + ".GrpcStreamStats",
       packageName + ".TracingServerInterceptor",
       packageName + ".TracingServerInterceptor$TracingServerCall",
       packageName + ".TracingServerInterceptor$TracingServerCallListener",
@@ -0,0 +1,148 @@
+package datadog.trace.instrumentation.grpc.server;
+
+import datadog.trace.api.DDTags;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates the messages received by a gRPC server stream, to be recorded on the server span
+ * instead of creating a span per message.
+ *
+ * <p>The inter-arrival times are kept in a log-linear histogram with four buckets per power of two
+ * microseconds, from which the tagged percentiles are within 12.5% of the actual values. Every
+ * {@code eventInterval} message, starting with the first one, is also recorded as a span event, up
+ * to {@link #MAX_EVENTS} events per stream.
+ *
+ * <p>gRPC calls the listener of a call serially, but the call can be closed from another thread
+ * while messages of a bidirectional stream are still received, so recording and applying the
+ * aggregates are synchronized.
+ */
+final class GrpcStreamStats {
+  static final int MAX_EVENTS = 64;
+
+  static final String MESSAGES_RECEIVED = "grpc.stream.messages.received";
+  static final String BYTES_RECEIVED = "grpc.stream.bytes.received";
+  static final String INTER_ARRIVAL_P50 = "grpc.stream.inter_arrival_ms.p50";
+  static final String INTER_ARRIVAL_P99 = "grpc.stream.inter_arrival_ms.p99";
+  static final String INTER_ARRIVAL_MAX = "grpc.stream.inter_arrival_ms.max";
+
+  private static final int SUB_BUCKET_BITS = 2;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // inter-arrival times above 2^32 microseconds (about 71 minutes) share the last bucket
+  private static final long MAX_MICROS = (1L << 32) - 1;
+  private static final int BUCKET_COUNT = (31 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final int eventInterval;
+  private long messages;
+  private long bytes = -1;
+  private long lastArrivalNanos;
+  private long maxInterArrivalMicros;
+  private int[] interArrivals;
+  private StringBuilder events;
+  private int eventCount;
+
+  GrpcStreamStats(int eventInterval) {
+    this.eventInterval = Math.max(eventInterval, 1);
+  }
+
+  /**
+   * Records a received message.
+   *
+   * @param nanoTime the arrival time, from {@link System#nanoTime()}.
+   * @param size the serialized size of the message, negative if not known.
+   * @param messageType the type of the message, only used by span events.
+   */
+  synchronized void onMessage(long nanoTime, long size, String messageType) {
+    if (messages > 0) {
+      recordInterArrival(TimeUnit.NANOSECONDS.toMicros(nanoTime - lastArrivalNanos));
+    }
+    lastArrivalNanos = nanoTime;
+    if (size >= 0) {
+      bytes = bytes < 0 ? size : bytes + size;
+    }
+    if (messages % eventInterval == 0 && eventCount < MAX_EVENTS) {
+      addEvent(messages, size, messageType);
+    }
+    messages++;
+  }
+
+  /** Tags the span with the aggregates, once the stream is over. */
+  synchronized void applyTo(AgentSpan span) {
+    span.setTag(MESSAGES_RECEIVED, messages);
+    if (bytes >= 0) {
+      span.setTag(BYTES_RECEIVED, bytes);
+    }
+    if (null != interArrivals) {
+      span.setTag(INTER_ARRIVAL_P50, toMillis(percentile(0.5)));
+      span.setTag(INTER_ARRIVAL_P99, toMillis(percentile(0.99)));
+      span.setTag(INTER_ARRIVAL_MAX, toMillis(maxInterArrivalMicros));
+    }
+    if (null != events) {
+      span.setTag(DDTags.SPAN_EVENTS, events.append(']').toString());
+      events = null;
+    }
+  }
+
+  private void recordInterArrival(long micros) {
+    if (null == interArrivals) {
+      interArrivals = new int[BUCKET_COUNT];
+    }
+    micros = Math.min(Math.max(micros, 0), MAX_MICROS);
+    maxInterArrivalMicros = Math.max(maxInterArrivalMicros, micros);
+    interArrivals[bucket(micros)]++;
+  }
+
+  private long percentile(double percentile) {
+    long intervals = messages - 1;
+    long rank = Math.max((long) Math.ceil(percentile * intervals), 1);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += interArrivals[i];
+      if (seen >= rank) {
+        return Math.min(midpoint(i), maxInterArrivalMicros);
+      }
+    }
+    return maxInterArrivalMicros;
+  }
+
+  static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long midpoint(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowerBound + ((1L << shift) >> 1);
+  }
+
+  private static double toMillis(long micros) {
+    return micros / 1000.0;
+  }
+
+  private void addEvent(long index, long size, String messageType) {
+    if (null == events) {
+      events = new StringBuilder("[");
+    } else {
+      events.append(',');
+    }
+    events
+        .append("{\"time_unix_nano\":")
+        .append(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()))
+        .append(",\"name\":\"grpc.message\",\"attributes\":{\"message.index\":")
+        .append(index);
+    if (size >= 0) {
+      events.append(",\"message.size\":").append(size);
+    }
+    // class names need no escaping
+    events.append(",\"message.type\":\"").append(messageType).append("\"}}");
+    eventCount++;
+  }
+}
@@ -30,12 +30,14 @@ import datadog.trace.bootstrap.instrumentation.api.TagContext;
 import io.grpc.ForwardingServerCall;
 import io.grpc.ForwardingServerCallListener;
 import io.grpc.Grpc;
+import io.grpc.KnownLength;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
 import io.grpc.Status;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.Set;
@@ -53,6 +55,10 @@ public class TracingServerInterceptor implements ServerInterceptor {
 
   public static final TracingServerInterceptor INSTANCE = new TracingServerInterceptor();
   private static final Set<String> IGNORED_METHODS = Config.get().getGrpcIgnoredInboundMethods();
+  private static final boolean STREAM_MESSAGE_AGGREGATION =
+      Config.get().isGrpcServerStreamMessageAggregationEnabled();
+  private static final int STREAM_MESSAGE_EVENT_INTERVAL =
+      Config.get().getGrpcServerStreamMessageEventInterval();
 
   private TracingServerInterceptor() {}
 
@@ -91,11 +97,18 @@ public class TracingServerInterceptor implements ServerInterceptor {
     DECORATE.afterStart(span);
     DECORATE.onCall(span, call);
 
+    // streams of client messages get aggregated on the span rather than a span per message
+    final GrpcStreamStats stats =
+        STREAM_MESSAGE_AGGREGATION && isClientStreaming(call.getMethodDescriptor())
+            ? new GrpcStreamStats(STREAM_MESSAGE_EVENT_INTERVAL)
+            : null;
+
     final ServerCall.Listener<ReqT> result;
     try (ContextScope scope = activateSpan(span)) {
       // Wrap the server call so that we can decorate the span
       // with the resulting status
-      final TracingServerCall<ReqT, RespT> tracingServerCall = new TracingServerCall<>(span, call);
+      final TracingServerCall<ReqT, RespT> tracingServerCall =
+          new TracingServerCall<>(span, call, stats);
       // call other interceptors
       result = next.startCall(tracingServerCall, headers);
     } catch (final Throwable e) {
@@ -109,16 +122,36 @@ public class TracingServerInterceptor implements ServerInterceptor {
     }
 
     // This ensures the server implementation can see the span in scope
-    return new TracingServerCallListener<>(span, result);
+    return new TracingServerCallListener<>(span, result, call.getMethodDescriptor(), stats);
+  }
+
+  private static boolean isClientStreaming(MethodDescriptor<?, ?> method) {
+    MethodDescriptor.MethodType type = method.getType();
+    return type == MethodDescriptor.MethodType.CLIENT_STREAMING
+        || type == MethodDescriptor.MethodType.BIDI_STREAMING;
+  }
+
+  private static void publish(final AgentSpan span, final GrpcStreamStats stats) {
+    if (null != stats) {
+      stats.applyTo(span);
+    }
+    DECORATE.beforeFinish(span);
+    callIGCallbackRequestEnded(span);
+    span.publish();
   }
 
   static final class TracingServerCall<ReqT, RespT>
       extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
     final AgentSpan span;
+    private final GrpcStreamStats stats;
 
-    TracingServerCall(final AgentSpan span, final ServerCall<ReqT, RespT> delegate) {
+    TracingServerCall(
+        final AgentSpan span,
+        final ServerCall<ReqT, RespT> delegate,
+        final GrpcStreamStats stats) {
       super(delegate);
       this.span = span;
+      this.stats = stats;
     }
 
     @Override
@@ -131,9 +164,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
         throw e;
       } finally {
         if (span.phasedFinish()) {
-          DECORATE.beforeFinish(span);
-          callIGCallbackRequestEnded(span);
-          span.publish();
+          publish(span, stats);
         }
       }
     }
@@ -142,14 +173,27 @@ public class TracingServerInterceptor implements ServerInterceptor {
   static final class TracingServerCallListener<ReqT>
       extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
     private final AgentSpan span;
-
-    TracingServerCallListener(final AgentSpan span, final ServerCall.Listener<ReqT> delegate) {
+    private final MethodDescriptor<ReqT, ?> method;
+    private final GrpcStreamStats stats;
+    private boolean measureSize = true;
+
+    TracingServerCallListener(
+        final AgentSpan span,
+        final ServerCall.Listener<ReqT> delegate,
+        final MethodDescriptor<ReqT, ?> method,
+        final GrpcStreamStats stats) {
       super(delegate);
       this.span = span;
+      this.method = method;
+      this.stats = stats;
     }
 
     @Override
     public void onMessage(final ReqT message) {
+      if (null != stats) {
+        onStreamMessage(message);
+        return;
+      }
       final AgentSpan msgSpan =
           startSpan(COMPONENT_NAME.toString(), GRPC_MESSAGE, this.span.spanContext())
               .setTag("message.type", message.getClass().getName());
@@ -161,9 +205,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
         // I'm not convinced we should actually be finishing the span here...
         if (span.phasedFinish()) {
           DECORATE.onError(msgSpan, e);
-          DECORATE.beforeFinish(span);
-          callIGCallbackRequestEnded(span);
-          span.publish();
+          publish(span, stats);
         }
         throw e;
       } finally {
@@ -172,6 +214,40 @@ public class TracingServerInterceptor implements ServerInterceptor {
       }
     }
 
+    private void onStreamMessage(final ReqT message) {
+      stats.onMessage(System.nanoTime(), serializedSize(message), message.getClass().getName());
+      try (ContextScope scope = activateSpan(span)) {
+        callIGCallbackGrpcMessage(span, message);
+        delegate().onMessage(message);
+      } catch (final Throwable e) {
+        if (span.phasedFinish()) {
+          DECORATE.onError(span, e);
+          publish(span, stats);
+        }
+        throw e;
+      }
+    }
+
+    /**
+     * Returns the size of the message when its marshaller streams it with a known length, as
+     * protobuf does without serializing it, and -1 otherwise.
+     */
+    private long serializedSize(final ReqT message) {
+      if (!measureSize) {
+        return -1;
+      }
+      try (InputStream stream = method.streamRequest(message)) {
+        if (stream instanceof KnownLength) {
+          return stream.available();
+        }
+      } catch (Throwable ignored) {
+        // fall through, the size is not known
+      }
+      // don't serialize the next messages of the stream just to measure them
+      measureSize = false;
+      return -1;
+    }
+
     @Override
     public void onHalfClose() {
       try (final ContextScope scope = activateSpan(span)) {
@@ -179,9 +255,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
       } catch (final Throwable e) {
         if (span.phasedFinish()) {
           DECORATE.onError(span, e);
-          DECORATE.beforeFinish(span);
-          callIGCallbackRequestEnded(span);
-          span.publish();
+          publish(span, stats);
         }
         throw e;
       }
@@ -201,9 +275,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
         throw e;
       } finally {
         if (span.phasedFinish()) {
-          DECORATE.beforeFinish(span);
-          callIGCallbackRequestEnded(span);
-          span.publish();
+          publish(span, stats);
         }
       }
     }
@@ -222,9 +294,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
          * combination of them to exclusively finish the span, use phasedFinish.
          */
         if (span.phasedFinish()) {
-          DECORATE.beforeFinish(span);
-          callIGCallbackRequestEnded(span);
-          span.publish();
+          publish(span, stats);
         }
       }
     }
@@ -236,9 +306,7 @@ public class TracingServerInterceptor implements ServerInterceptor {
       } catch (final Throwable e) {
         if (span.phasedFinish()) {
           DECORATE.onError(span, e);
-          DECORATE.beforeFinish(span);
-          callIGCallbackRequestEnded(span);
-          span.publish();
+          publish(span, stats);
         }
         throw e;
       }
@@ -1,6 +1,11 @@
 import com.google.common.util.concurrent.MoreExecutors
 import datadog.trace.agent.test.naming.VersionedNamingTestBase
 import datadog.trace.api.DDSpanTypes
+import datadog.trace.api.DDTags
+import datadog.trace.api.gateway.Flow
+import datadog.trace.api.gateway.RequestContext
+import datadog.trace.api.gateway.RequestContextSlot
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer
 import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags
 import datadog.trace.bootstrap.instrumentation.api.Tags
 import example.GreeterGrpc
@@ -11,14 +16,21 @@ import io.grpc.Server
 import io.grpc.inprocess.InProcessChannelBuilder
 import io.grpc.inprocess.InProcessServerBuilder
 import io.grpc.stub.StreamObserver
+import spock.lang.Shared
 
 import java.util.concurrent.CopyOnWriteArrayList
 import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicReference
+import java.util.function.BiFunction
+import java.util.function.Supplier
+
+import static datadog.trace.api.gateway.Events.EVENTS
 
 abstract class GrpcStreamingTest extends VersionedNamingTestBase {
 
+  def collectedAppSecReqMsgs = new CopyOnWriteArrayList<>()
+
   @Override
   final String service() {
     return null
@@ -37,6 +49,10 @@ abstract class GrpcStreamingTest extends VersionedNamingTestBase {
     false
   }
 
+  protected boolean hasServerMessageAggregation() {
+    false
+  }
+
   @Override
   protected void configurePreAgent() {
     super.configurePreAgent()
@@ -45,6 +61,9 @@ abstract class GrpcStreamingTest extends VersionedNamingTestBase {
     if (hasClientMessageSpans()) {
       injectSysConfig("integration.grpc-message.enabled", "true")
     }
+    if (hasServerMessageAggregation()) {
+      injectSysConfig("dd.trace.grpc.server.stream.message.aggregation.enabled", "true")
+    }
     // here to trigger wrapping to record scheduling time - the logic is trivial so it's enough to verify
     // that ClassCastExceptions do not arise from the wrapping
     injectSysConfig("dd.profiling.enabled", "true")
@@ -188,7 +207,7 @@ abstract class GrpcStreamingTest extends VersionedNamingTestBase {
           }
         }
       }
-      trace(clientMessageCount + 1) {
+      trace(hasServerMessageAggregation() ? 1 : clientMessageCount + 1) {
         span {
           operationName serverOperation()
           resourceName "example.Greeter/Conversation"
@@ -201,10 +220,24 @@ abstract class GrpcStreamingTest extends VersionedNamingTestBase {
             "status.code" "OK"
             "grpc.status.code" "OK"
             "$InstrumentationTags.GRPC_STATUS_CODE" 0
+            if (hasServerMessageAggregation()) {
+              "grpc.stream.messages.received" clientMessageCount
+              // protobuf sizes, from the marshaller stream: tag, length and the message string
+              "grpc.stream.bytes.received" clientRange.sum { "call $it".length() + 2 }
+              if (clientMessageCount > 1) {
+                "grpc.stream.inter_arrival_ms.p50" { it >= 0 }
+                "grpc.stream.inter_arrival_ms.p99" { it >= 0 }
+                "grpc.stream.inter_arrival_ms.max" { it >= 0 }
+              }
+              // one event every 100 messages, starting with the first one
+              "$DDTags.SPAN_EVENTS" { String events ->
+                events.count('"name":"grpc.message"') == 1 && events.contains('"message.index":0')
+              }
+            }
             defaultTags(true)
           }
         }
-        clientRange.each {
+        (hasServerMessageAggregation() ? [] : clientRange).each {
           span {
             operationName "grpc.message"
             resourceName "grpc.message"
@@ -222,6 +255,9 @@ abstract class GrpcStreamingTest extends VersionedNamingTestBase {
       }
     }
 
+    and: 'aggregated messages are still passed to the gateway'
+    !hasServerMessageAggregation() || collectedAppSecReqMsgs*.message == clientRange.collect { "call $it" }
+
     cleanup:
     channel?.shutdownNow()?.awaitTermination(10, TimeUnit.SECONDS)
     server?.shutdownNow()?.awaitTermination()
@@ -286,3 +322,29 @@ class GrpcStreamingClientMessageEnabledTest extends GrpcStreamingV0Test {
     true
   }
 }
+
+class GrpcStreamingServerAggregationForkedTest extends GrpcStreamingV0Test {
+  @Shared
+  def ig
+
+  @Override
+  protected boolean hasServerMessageAggregation() {
+    true
+  }
+
+  def setupSpec() {
+    ig = AgentTracer.get().getCallbackProvider(RequestContextSlot.APPSEC)
+  }
+
+  def setup() {
+    ig.registerCallback(EVENTS.requestStarted(), { -> new Flow.ResultFlow(new Object()) } as Supplier<Flow>)
+    ig.registerCallback(EVENTS.grpcServerRequestMessage(), { reqCtx, obj ->
+      collectedAppSecReqMsgs << obj
+      Flow.ResultFlow.empty()
+    } as BiFunction<RequestContext, Object, Flow<Void>>)
+  }
+
+  def cleanup() {
+    ig.reset()
+  }
+}
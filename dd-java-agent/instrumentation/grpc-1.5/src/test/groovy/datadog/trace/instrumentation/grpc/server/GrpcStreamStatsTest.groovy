@@ -0,0 +1,75 @@
+package datadog.trace.instrumentation.grpc.server
+
+import datadog.trace.api.DDTags
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan
+import datadog.trace.test.util.DDSpecification
+
+import java.util.concurrent.TimeUnit
+
+class GrpcStreamStatsTest extends DDSpecification {
+
+  def "aggregates are recorded on the span"() {
+    setup:
+    def stats = new GrpcStreamStats(2)
+    def span = Mock(AgentSpan)
+    def start = System.nanoTime()
+
+    when:
+    (0..<5).each { i ->
+      stats.onMessage(start + TimeUnit.MILLISECONDS.toNanos(10 * i), 100, "Message")
+    }
+    stats.applyTo(span)
+
+    then:
+    1 * span.setTag(GrpcStreamStats.MESSAGES_RECEIVED, 5L)
+    1 * span.setTag(GrpcStreamStats.BYTES_RECEIVED, 500L)
+    1 * span.setTag(GrpcStreamStats.INTER_ARRIVAL_P50, { Math.abs(it - 10.0) <= 1.25 })
+    1 * span.setTag(GrpcStreamStats.INTER_ARRIVAL_P99, { Math.abs(it - 10.0) <= 1.25 })
+    1 * span.setTag(GrpcStreamStats.INTER_ARRIVAL_MAX, 10.0d)
+    1 * span.setTag(DDTags.SPAN_EVENTS, { String events ->
+      events.count("\"name\":\"grpc.message\"") == 3 &&
+        events.contains("\"message.index\":4") &&
+        !events.contains("\"message.index\":3")
+    })
+    0 * _
+  }
+
+  def "unknown sizes and single messages are not tagged"() {
+    setup:
+    def stats = new GrpcStreamStats(100)
+    def span = Mock(AgentSpan)
+
+    when:
+    stats.onMessage(System.nanoTime(), -1, "Message")
+    stats.applyTo(span)
+
+    then:
+    1 * span.setTag(GrpcStreamStats.MESSAGES_RECEIVED, 1L)
+    1 * span.setTag(DDTags.SPAN_EVENTS, { !it.contains("message.size") })
+    0 * _
+  }
+
+  def "span events are capped"() {
+    setup:
+    def stats = new GrpcStreamStats(1)
+    def span = Mock(AgentSpan)
+
+    when:
+    (0..<GrpcStreamStats.MAX_EVENTS * 2).each {
+      stats.onMessage(System.nanoTime(), 1, "Message")
+    }
+    stats.applyTo(span)
+
+    then:
+    1 * span.setTag(DDTags.SPAN_EVENTS, { it.count("grpc.message") == GrpcStreamStats.MAX_EVENTS })
+  }
+
+  def "buckets cover inter-arrival times within 12.5%"() {
+    expect:
+    def midpoint = GrpcStreamStats.midpoint(GrpcStreamStats.bucket(micros))
+    Math.abs(midpoint - micros) <= Math.max(micros / 8, 1)
+
+    where:
+    micros << [0L, 1L, 3L, 4L, 7L, 100L, 1_000L, 12_345L, 1_000_000L, (1L << 32) - 1]
+  }
+}
@@ -4,9 +4,12 @@ import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
 import static datadog.trace.bootstrap.instrumentation.java.concurrent.AdviceUtils.capture;
 import static datadog.trace.bootstrap.instrumentation.java.concurrent.AdviceUtils.endTaskScope;
 import static datadog.trace.bootstrap.instrumentation.java.concurrent.AdviceUtils.startTaskScope;
+import static datadog.trace.bootstrap.instrumentation.java.lang.VirtualThreadHelper.isContextCapturedAtCreation;
 import static java.util.Collections.singletonMap;
-import static net.bytebuddy.matcher.ElementMatchers.isConstructor;
+import static net.bytebuddy.matcher.ElementMatchers.isDeclaredBy;
 import static net.bytebuddy.matcher.ElementMatchers.isMethod;
+import static net.bytebuddy.matcher.ElementMatchers.isPrivate;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 
 import com.google.auto.service.AutoService;
 import datadog.context.ContextScope;
@@ -21,20 +24,33 @@ import net.bytebuddy.asm.Advice.OnMethodEnter;
 import net.bytebuddy.asm.Advice.OnMethodExit;
 
 /**
- * Instruments {@code TaskRunner}, internal runnable for {@code ThreadPerTaskExecutor} (JDK 19+ as
- * preview, 21+ as stable), the executor with default virtual thread factory.
+ * Instruments {@code ThreadPerTaskExecutor} (JDK 19+ as preview, 21+ as stable), and its internal
+ * {@code TaskRunner} runnable, the executor used with the default virtual thread factory.
+ *
+ * <p>The context is captured once the thread of the task is created. Virtual threads capture the
+ * context themselves when created, and restore it when mounted (see java-lang-21.0 {@code
+ * VirtualThreadInstrumentation}), so tasks started on them get no state of their own, and their
+ * run does not look one up. Tasks started on platform threads get the context captured as for any
+ * other executor.
+ *
+ * <p>Only the {@code TaskRunner} of {@code execute} is captured here: the futures of {@code submit}
+ * are run as they are, so their context is left to the instrumentation of the submitted task.
  */
 @SuppressWarnings("unused")
 @AutoService(InstrumenterModule.class)
 public final class TaskRunnerInstrumentation extends InstrumenterModule.ContextTracking
-    implements Instrumenter.ForBootstrap, Instrumenter.ForSingleType, Instrumenter.HasMethodAdvice {
+    implements Instrumenter.ForBootstrap, Instrumenter.ForKnownTypes, Instrumenter.HasMethodAdvice {
+  private static final String THREAD_PER_TASK_EXECUTOR =
+      "java.util.concurrent.ThreadPerTaskExecutor";
+  private static final String TASK_RUNNER = THREAD_PER_TASK_EXECUTOR + "$TaskRunner";
+
   public TaskRunnerInstrumentation() {
     super("java_concurrent", "task-runner");
   }
 
   @Override
-  public String instrumentedType() {
-    return "java.util.concurrent.ThreadPerTaskExecutor$TaskRunner";
+  public String[] knownMatchingTypes() {
+    return new String[] {THREAD_PER_TASK_EXECUTOR, TASK_RUNNER};
   }
 
   @Override
@@ -49,20 +65,40 @@ public final class TaskRunnerInstrumentation extends InstrumenterModule.ContextT
 
   @Override
   public void methodAdvice(MethodTransformer transformer) {
-    transformer.applyAdvice(isConstructor(), getClass().getName() + "$Construct");
-    transformer.applyAdvice(isMethod().and(named("run")), getClass().getName() + "$Run");
+    transformer.applyAdvice(
+        isMethod()
+            .and(isDeclaredBy(named(THREAD_PER_TASK_EXECUTOR)))
+            .and(isPrivate())
+            .and(named("newThread"))
+            .and(takesArguments(Runnable.class)),
+        getClass().getName() + "$NewThread");
+    transformer.applyAdvice(
+        isMethod().and(isDeclaredBy(named(TASK_RUNNER))).and(named("run")),
+        getClass().getName() + "$Run");
   }
 
-  public static final class Construct {
+  public static final class NewThread {
     @OnMethodExit(suppress = Throwable.class)
-    public static void captureScope(@Advice.This Runnable task) {
-      capture(InstrumentationContext.get(Runnable.class, State.class), task);
+    public static void captureScope(
+        @Advice.Argument(0) Runnable task, @Advice.Return Thread thread) {
+      if (isContextCapturedAtCreation() && thread.isVirtual()) {
+        // the virtual thread already holds the context, so the task does not need its own
+        return;
+      }
+      // only TaskRunner.run activates the captured context
+      if ("java.util.concurrent.ThreadPerTaskExecutor$TaskRunner"
+          .equals(task.getClass().getName())) {
+        capture(InstrumentationContext.get(Runnable.class, State.class), task);
+      }
     }
   }
 
   public static final class Run {
     @OnMethodEnter(suppress = Throwable.class)
     public static ContextScope activate(@Advice.This Runnable task) {
+      if (isContextCapturedAtCreation() && Thread.currentThread().isVirtual()) {
+        return null;
+      }
       return startTaskScope(InstrumentationContext.get(Runnable.class, State.class), task);
     }
 
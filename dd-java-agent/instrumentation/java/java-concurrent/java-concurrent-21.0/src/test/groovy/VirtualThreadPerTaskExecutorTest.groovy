@@ -1,9 +1,16 @@
+import static datadog.trace.agent.test.utils.TraceUtils.runUnderTrace
+
 import datadog.trace.agent.test.InstrumentationSpecification
 import datadog.trace.api.Trace
+import datadog.trace.bootstrap.FieldBackedContextStores
+import datadog.trace.bootstrap.instrumentation.java.concurrent.State
 import datadog.trace.core.DDSpan
 import java.util.concurrent.Callable
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.ExecutorCompletionService
 import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
 import java.util.concurrent.TimeUnit
 import spock.lang.Shared
 
@@ -68,5 +75,44 @@ class VirtualThreadPerTaskExecutorTest extends InstrumentationSpecification {
     "invokeAll with timeout" | invokeAllTimeout                        | Executors.newVirtualThreadPerTaskExecutor()
     "invokeAny"              | invokeAny                               | Executors.newVirtualThreadPerTaskExecutor()
     "invokeAny with timeout" | invokeAnyTimeout                        | Executors.newVirtualThreadPerTaskExecutor()
+    "platform execute"       | executeRunnable                         | Executors.newThreadPerTaskExecutor(Executors.defaultThreadFactory())
+    "platform submit"        | submitCallable                          | Executors.newThreadPerTaskExecutor(Executors.defaultThreadFactory())
+  }
+
+  def "task state is only attached on #name threads"() {
+    setup:
+    def store = FieldBackedContextStores.getContextStore(
+      FieldBackedContextStores.getContextStoreId(Runnable.name, State.name))
+    def delegate = threadFactory
+    def tasks = new CopyOnWriteArrayList<Runnable>()
+    def pool = Executors.newThreadPerTaskExecutor({ Runnable task ->
+      tasks.add(task)
+      delegate.newThread(task)
+    } as ThreadFactory)
+    def started = new CountDownLatch(1)
+    def release = new CountDownLatch(1)
+
+    when:
+    runUnderTrace("parent") {
+      pool.execute {
+        started.countDown()
+        release.await()
+      }
+    }
+    started.await()
+    def state = store.get(tasks[0])
+
+    then:
+    tasks.size() == 1
+    (state != null) == hasState
+
+    cleanup:
+    release.countDown()
+    pool?.shutdown()
+
+    where:
+    name       | threadFactory                    | hasState
+    "virtual"  | Thread.ofVirtual().factory()     | false
+    "platform" | Executors.defaultThreadFactory() | true
   }
 }
@@ -23,6 +23,7 @@ import datadog.trace.agent.tooling.InstrumenterModule;
 import datadog.trace.bootstrap.ContextStore;
 import datadog.trace.bootstrap.InstrumentationContext;
 import datadog.trace.bootstrap.instrumentation.java.concurrent.ExcludeFilter;
+import datadog.trace.bootstrap.instrumentation.java.lang.VirtualThreadHelper;
 import datadog.trace.bootstrap.instrumentation.java.lang.VirtualThreadState;
 import java.util.Collection;
 import java.util.Map;
@@ -119,6 +120,7 @@ public final class VirtualThreadInstrumentation extends InstrumenterModule.Conte
   public static final class Construct {
     @OnMethodExit(suppress = Throwable.class)
     public static void afterInit(@Advice.This Object virtualThread) {
+      VirtualThreadHelper.onVirtualThreadCreated();
       Context context = current();
       if (context == root()) {
         return; // No active context to propagate, avoid creating state
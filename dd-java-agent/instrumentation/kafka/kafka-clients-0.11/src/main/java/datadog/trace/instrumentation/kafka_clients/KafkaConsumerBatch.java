@@ -0,0 +1,212 @@
+package datadog.trace.instrumentation.kafka_clients;
+
+import static datadog.trace.api.datastreams.DataStreamsContext.create;
+import static datadog.trace.api.datastreams.DataStreamsTags.Direction.INBOUND;
+import static datadog.trace.api.datastreams.DataStreamsTags.create;
+import static datadog.trace.bootstrap.instrumentation.api.AgentPropagation.DSM_CONCERN;
+import static datadog.trace.bootstrap.instrumentation.api.AgentPropagation.extractContextAndGetSpanContext;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.traceConfig;
+import static datadog.trace.instrumentation.kafka_clients.TextMapExtractAdapter.GETTER;
+import static datadog.trace.instrumentation.kafka_clients.TextMapInjectAdapter.SETTER;
+import static datadog.trace.instrumentation.kafka_common.StreamingContext.STREAMING_CONTEXT;
+import static datadog.trace.instrumentation.kafka_common.Utils.DSM_TRANSACTION_SOURCE_READER;
+import static datadog.trace.instrumentation.kafka_common.Utils.computePayloadSizeBytes;
+
+import datadog.context.Context;
+import datadog.context.propagation.Propagators;
+import datadog.trace.api.Config;
+import datadog.trace.api.DDTraceId;
+import datadog.trace.api.datastreams.DataStreamsTags;
+import datadog.trace.api.datastreams.DataStreamsTransactionExtractor;
+import datadog.trace.api.datastreams.PathwayContext;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpanContext;
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
+import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
+import datadog.trace.bootstrap.instrumentation.api.SpanLink;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * State of the single consumer span created for a batch of records when batch spans are enabled.
+ *
+ * <p>The span links to the distinct producer contexts of the records. Record headers are only
+ * extracted while links can still be added, or for data streams when enabled. Data streams
+ * checkpoints are aggregated per topic, partition and pathway, and set when the batch is finished.
+ *
+ * <p>The batch of a thread is finished before its span is closed or replaced, which also covers an
+ * iteration stopped before its last record.
+ */
+public final class KafkaConsumerBatch {
+  static final int MAX_LINKS = 128;
+
+  private static final ThreadLocal<KafkaConsumerBatch> UNFINISHED = new ThreadLocal<>();
+
+  private final AgentSpan span;
+  private final String group;
+  private final String clusterId;
+  private final Set<Long> linkedSpanIds = new HashSet<>();
+  private Map<CheckpointKey, Checkpoint> checkpoints;
+  private int recordCount;
+  private boolean finished;
+
+  private KafkaConsumerBatch(AgentSpan span, String group, String clusterId) {
+    this.span = span;
+    this.group = group;
+    this.clusterId = clusterId;
+  }
+
+  /** Starts the batch of the active span, which must be finished before the span is closed. */
+  public static KafkaConsumerBatch start(AgentSpan span, String group, String clusterId) {
+    KafkaConsumerBatch batch = new KafkaConsumerBatch(span, group, clusterId);
+    UNFINISHED.set(batch);
+    return batch;
+  }
+
+  /** Finishes the batch started on this thread, if any, before its span is closed or replaced. */
+  public static void finishUnfinished() {
+    KafkaConsumerBatch batch = UNFINISHED.get();
+    if (null != batch) {
+      UNFINISHED.remove();
+      batch.finish();
+    }
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  public void onRecord(ConsumerRecord<?, ?> record) {
+    recordCount++;
+    if (Config.get().isKafkaClientPropagationDisabledForTopic(record.topic())) {
+      return;
+    }
+    boolean dataStreamsEnabled = traceConfig().isDataStreamsEnabled();
+    AgentSpanContext producerContext = null;
+    if (linkedSpanIds.size() < MAX_LINKS) {
+      producerContext = extractContextAndGetSpanContext(record.headers(), GETTER);
+      if (null != producerContext
+          && !DDTraceId.ZERO.equals(producerContext.getTraceId())
+          && linkedSpanIds.add(producerContext.getSpanId())) {
+        span.addLink(SpanLink.from(producerContext));
+      }
+    } else if (dataStreamsEnabled) {
+      // the pathway is the only part of the headers still needed
+      AgentSpan extracted =
+          AgentSpan.fromContext(
+              Propagators.forConcern(DSM_CONCERN)
+                  .extract(Context.root(), record.headers(), GETTER));
+      producerContext = null == extracted ? null : extracted.spanContext();
+    }
+
+    if (dataStreamsEnabled) {
+      DataStreamsTags tags = create("kafka", INBOUND, record.topic(), group, clusterId);
+      long payloadSize = computePayloadSizeBytes(record);
+      if (STREAMING_CONTEXT.isDisabledForTopic(record.topic())) {
+        aggregateCheckpoint(record, producerContext, tags, payloadSize);
+      } else if (STREAMING_CONTEXT.isSourceTopic(record.topic())) {
+        // records may leave the topology on another instance, so the context must be injected
+        Propagators.forConcern(DSM_CONCERN)
+            .inject(
+                span.with(create(tags, record.timestamp(), payloadSize)), record.headers(), SETTER);
+      }
+    }
+
+    AgentTracer.get()
+        .getDataStreamsMonitoring()
+        .trackTransaction(
+            span,
+            DataStreamsTransactionExtractor.Type.KAFKA_CONSUME_HEADERS,
+            record.headers(),
+            DSM_TRANSACTION_SOURCE_READER);
+  }
+
+  private void aggregateCheckpoint(
+      ConsumerRecord<?, ?> record,
+      AgentSpanContext producerContext,
+      DataStreamsTags tags,
+      long payloadSize) {
+    PathwayContext pathway = null == producerContext ? null : producerContext.getPathwayContext();
+    long pathwayHash = null == pathway ? 0 : pathway.getHash();
+    if (null == checkpoints) {
+      checkpoints = new HashMap<>();
+    }
+    CheckpointKey key = new CheckpointKey(record.topic(), record.partition(), pathwayHash);
+    Checkpoint checkpoint = checkpoints.get(key);
+    if (null == checkpoint) {
+      // records without a pathway start a new one from the batch span
+      AgentSpan pathwaySpan = 0 == pathwayHash ? span : AgentSpan.fromSpanContext(producerContext);
+      checkpoints.put(key, new Checkpoint(pathwaySpan, tags, record.timestamp(), payloadSize));
+    } else {
+      checkpoint.payloadSize += payloadSize;
+    }
+  }
+
+  /** Tags the batch span and sets the aggregated checkpoints, before the span is finished. */
+  void finish() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    span.setTag(InstrumentationTags.KAFKA_RECORDS_COUNT, recordCount);
+    if (null != checkpoints) {
+      for (Checkpoint checkpoint : checkpoints.values()) {
+        AgentTracer.get()
+            .getDataStreamsMonitoring()
+            .setCheckpoint(
+                checkpoint.pathwaySpan,
+                create(checkpoint.tags, checkpoint.timestamp, checkpoint.payloadSize));
+      }
+      checkpoints = null;
+    }
+  }
+
+  static final class CheckpointKey {
+    final String topic;
+    final int partition;
+    final long pathwayHash;
+
+    CheckpointKey(String topic, int partition, long pathwayHash) {
+      this.topic = topic;
+      this.partition = partition;
+      this.pathwayHash = pathwayHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CheckpointKey)) {
+        return false;
+      }
+      CheckpointKey that = (CheckpointKey) o;
+      return partition == that.partition
+          && pathwayHash == that.pathwayHash
+          && Objects.equals(topic, that.topic);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * Objects.hashCode(topic) + partition) + Long.hashCode(pathwayHash);
+    }
+  }
+
+  static final class Checkpoint {
+    final AgentSpan pathwaySpan;
+    final DataStreamsTags tags;
+    final long timestamp;
+    long payloadSize;
+
+    Checkpoint(AgentSpan pathwaySpan, DataStreamsTags tags, long timestamp, long payloadSize) {
+      this.pathwaySpan = pathwaySpan;
+      this.tags = tags;
+      this.timestamp = timestamp;
+      this.payloadSize = payloadSize;
+    }
+  }
+}
@@ -66,6 +66,9 @@ public final class KafkaConsumerInstrumentation extends InstrumenterModule.Traci
       packageName + ".TextMapInjectAdapterInterface",
       packageName + ".KafkaConsumerInfo",
       packageName + ".KafkaConsumerInstrumentationHelper",
+      packageName + ".KafkaConsumerBatch",
+      packageName + ".KafkaConsumerBatch$CheckpointKey",
+      packageName + ".KafkaConsumerBatch$Checkpoint",
       packageName + ".KafkaDecorator",
       packageName + ".TextMapExtractAdapter",
       packageName + ".TracingIterableDelegator",
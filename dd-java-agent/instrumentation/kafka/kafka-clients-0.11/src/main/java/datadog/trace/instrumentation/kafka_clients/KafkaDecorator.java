@@ -42,6 +42,8 @@ public class KafkaDecorator extends MessagingClientDecorator {
   public static final boolean KAFKA_LEGACY_TRACING = Config.get().isKafkaLegacyTracingEnabled();
   public static final boolean TIME_IN_QUEUE_ENABLED =
       Config.get().isTimeInQueueEnabled(!KAFKA_LEGACY_TRACING, KAFKA);
+  public static final boolean CONSUMER_BATCH_SPANS_ENABLED =
+      Config.get().isKafkaClientConsumerBatchSpansEnabled();
   public static final String KAFKA_PRODUCED_KEY = "x_datadog_kafka_produced";
   private final String spanKind;
   private final CharSequence spanType;
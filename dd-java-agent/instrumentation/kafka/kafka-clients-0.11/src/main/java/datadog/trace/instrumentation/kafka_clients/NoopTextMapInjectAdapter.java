@@ -10,5 +10,8 @@ public class NoopTextMapInjectAdapter implements TextMapInjectAdapterInterface {
   @Override
   public void set(final Headers headers, final String key, final String value) {}
 
+  @Override
+  public void set(final Headers headers, final String key, final byte[] value) {}
+
   public void injectTimeInQueue(Headers headers) {}
 }
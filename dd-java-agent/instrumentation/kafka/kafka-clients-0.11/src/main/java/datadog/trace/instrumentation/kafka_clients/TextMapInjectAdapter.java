@@ -16,6 +16,11 @@ public class TextMapInjectAdapter implements TextMapInjectAdapterInterface {
     headers.remove(key).add(key, value.getBytes(UTF_8));
   }
 
+  @Override
+  public void set(final Headers headers, final String key, final byte[] value) {
+    headers.remove(key).add(key, value);
+  }
+
   public void injectTimeInQueue(Headers headers) {
     ByteBuffer buf = ByteBuffer.allocate(8);
     buf.putLong(System.currentTimeMillis());
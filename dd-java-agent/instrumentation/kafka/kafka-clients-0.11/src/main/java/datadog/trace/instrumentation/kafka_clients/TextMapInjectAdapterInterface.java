@@ -1,8 +1,8 @@
 package datadog.trace.instrumentation.kafka_clients;
 
-import datadog.context.propagation.CarrierSetter;
+import datadog.context.propagation.BinaryCarrierSetter;
 import org.apache.kafka.common.header.Headers;
 
-public interface TextMapInjectAdapterInterface extends CarrierSetter<Headers> {
+public interface TextMapInjectAdapterInterface extends BinaryCarrierSetter<Headers> {
   void injectTimeInQueue(Headers headers);
 }
@@ -10,6 +10,7 @@ import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.closePrevi
 import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.startSpan;
 import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.traceConfig;
 import static datadog.trace.instrumentation.kafka_clients.KafkaDecorator.BROKER_DECORATE;
+import static datadog.trace.instrumentation.kafka_clients.KafkaDecorator.CONSUMER_BATCH_SPANS_ENABLED;
 import static datadog.trace.instrumentation.kafka_clients.KafkaDecorator.JAVA_KAFKA;
 import static datadog.trace.instrumentation.kafka_clients.KafkaDecorator.KAFKA_DELIVER;
 import static datadog.trace.instrumentation.kafka_clients.KafkaDecorator.TIME_IN_QUEUE_ENABLED;
@@ -47,6 +48,7 @@ public class TracingIterator implements Iterator<ConsumerRecord<?, ?>> {
   private final String group;
   private final String clusterId;
   private final String bootstrapServers;
+  private KafkaConsumerBatch batch;
 
   public TracingIterator(
       final Iterator<ConsumerRecord<?, ?>> delegateIterator,
@@ -68,18 +70,26 @@ public class TracingIterator implements Iterator<ConsumerRecord<?, ?>> {
     boolean moreRecords = delegateIterator.hasNext();
     if (!moreRecords) {
       // no more records, use this as a signal to close the last iteration scope
-      if (InstrumenterConfig.get().isLegacyContextManagerEnabled()) {
-        closePrevious(true);
-      } else {
-        final AgentSpan previousSpan = AgentSpan.fromContext(Context.root().swap());
-        if (previousSpan != null) {
-          previousSpan.finishWithEndToEnd();
-        }
-      }
+      closeLastIterationScope();
     }
     return moreRecords;
   }
 
+  protected void closeLastIterationScope() {
+    if (CONSUMER_BATCH_SPANS_ENABLED) {
+      finishUnfinishedBatch();
+      batch = null;
+    }
+    if (InstrumenterConfig.get().isLegacyContextManagerEnabled()) {
+      closePrevious(true);
+    } else {
+      final AgentSpan previousSpan = AgentSpan.fromContext(Context.root().swap());
+      if (previousSpan != null) {
+        previousSpan.finishWithEndToEnd();
+      }
+    }
+  }
+
   @Override
   public ConsumerRecord<?, ?> next() {
     final ConsumerRecord<?, ?> next = delegateIterator.next();
@@ -88,6 +98,10 @@ public class TracingIterator implements Iterator<ConsumerRecord<?, ?>> {
   }
 
   protected void startNewRecordSpan(ConsumerRecord<?, ?> val) {
+    if (CONSUMER_BATCH_SPANS_ENABLED) {
+      addRecordToBatch(val);
+      return;
+    }
     try {
       if (InstrumenterConfig.get().isLegacyContextManagerEnabled()) {
         closePrevious(true);
@@ -172,6 +186,46 @@ public class TracingIterator implements Iterator<ConsumerRecord<?, ?>> {
     }
   }
 
+  /** Starts the batch span on the first record, then only adds the records to the batch. */
+  private void addRecordToBatch(ConsumerRecord<?, ?> val) {
+    if (val == null) {
+      return;
+    }
+    try {
+      // the batch is finished when its span was replaced by the batch of another iterator
+      if (null == batch || batch.isFinished()) {
+        // the previous batch span may be left unfinished by an iteration that stopped early
+        finishUnfinishedBatch();
+        if (InstrumenterConfig.get().isLegacyContextManagerEnabled()) {
+          closePrevious(true);
+        }
+        final AgentSpan span = startSpan(JAVA_KAFKA.toString(), operationName, null);
+        decorator.afterStart(span);
+        decorator.onConsume(span, val, group, clusterId, bootstrapServers);
+        if (InstrumenterConfig.get().isLegacyContextManagerEnabled()) {
+          activateNext(span);
+        } else {
+          final AgentSpan previousSpan = AgentSpan.fromContext(span.swap());
+          if (previousSpan != null) {
+            previousSpan.finishWithEndToEnd();
+          }
+        }
+        batch = KafkaConsumerBatch.start(span, group, clusterId);
+      }
+      batch.onRecord(val);
+    } catch (final Exception e) {
+      log.debug("Error adding record to batch span", e);
+    }
+  }
+
+  private static void finishUnfinishedBatch() {
+    try {
+      KafkaConsumerBatch.finishUnfinished();
+    } catch (final Exception e) {
+      log.debug("Error finishing batch span", e);
+    }
+  }
+
   @Override
   public void remove() {
     delegateIterator.remove();
@@ -1,10 +1,5 @@
 package datadog.trace.instrumentation.kafka_clients;
 
-import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.closePrevious;
-
-import datadog.context.Context;
-import datadog.trace.api.InstrumenterConfig;
-import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.util.ListIterator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
@@ -29,14 +24,7 @@ public class TracingListIterator extends TracingIterator
     boolean moreRecords = delegateIterator.hasPrevious();
     if (!moreRecords) {
       // no more records, use this as a signal to close the last iteration scope
-      if (InstrumenterConfig.get().isLegacyContextManagerEnabled()) {
-        closePrevious(true);
-      } else {
-        final AgentSpan previousSpan = AgentSpan.fromContext(Context.root().swap());
-        if (previousSpan != null) {
-          previousSpan.finishWithEndToEnd();
-        }
-      }
+      closeLastIterationScope();
     }
     return moreRecords;
   }
@@ -1544,3 +1544,111 @@ class KafkaClientBadBase64HeaderForkedTest extends InstrumentationSpecification
     producer?.close()
   }
 }
+
+class KafkaClientConsumerBatchSpansForkedTest extends InstrumentationSpecification {
+  KafkaEmbedded embeddedKafka
+
+  def setup() {
+    embeddedKafka = new KafkaEmbedded(1, true, KafkaClientTestBase.SHARED_TOPIC)
+    embeddedKafka.before()
+    TEST_WRITER.setFilter(KafkaClientTestBase.DROP_KAFKA_POLL)
+  }
+
+  def cleanup() {
+    embeddedKafka?.after()
+  }
+
+  @Override
+  void configurePreAgent() {
+    super.configurePreAgent()
+    injectSysConfig(TraceInstrumentationConfig.KAFKA_CLIENT_CONSUMER_BATCH_SPANS_ENABLED, "true")
+  }
+
+  @Override
+  protected boolean isDataStreamsEnabled() {
+    return true
+  }
+
+  def "consumer creates one span per batch linked to the producer spans"() {
+    setup:
+    def senderProps = KafkaTestUtils.senderProps(embeddedKafka.getBrokersAsString())
+    def producer = new KafkaProducer<String, String>(senderProps, new StringSerializer(), new StringSerializer())
+    def consumerProperties = KafkaTestUtils.consumerProps("sender", "false", embeddedKafka)
+    consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+    def consumer = new KafkaConsumer<String, String>(consumerProperties)
+    consumer.assign([new TopicPartition(KafkaClientTestBase.SHARED_TOPIC, 0)])
+
+    when:
+    runUnderTrace("parent") {
+      3.times {
+        producer.send(new ProducerRecord<>(KafkaClientTestBase.SHARED_TOPIC, 0, null, "message $it")).get()
+      }
+    }
+    int received = 0
+    int batches = 0
+    while (received < 3) {
+      def records = consumer.poll(1000)
+      if (!records.isEmpty()) {
+        batches++
+      }
+      for (def record : records) {
+        received++
+      }
+    }
+    TEST_WRITER.waitForTraces(1 + batches)
+    List<DDSpan> spans = TEST_WRITER.flatten()
+    def consumerSpans = spans.findAll { it.getTag(Tags.SPAN_KIND) == Tags.SPAN_KIND_CONSUMER }
+    def producerSpanIds = spans.findAll { it.getTag(Tags.SPAN_KIND) == Tags.SPAN_KIND_PRODUCER }*.spanId as Set
+
+    then:
+    producerSpanIds.size() == 3
+    consumerSpans.size() == batches
+    consumerSpans.sum { it.getTag(InstrumentationTags.KAFKA_RECORDS_COUNT) } == 3
+    consumerSpans.collectMany { it.links*.spanId() } as Set == producerSpanIds
+
+    cleanup:
+    consumer?.close()
+    producer?.close()
+  }
+
+  def "consumer batch stopped early is finished when its span is replaced"() {
+    setup:
+    def senderProps = KafkaTestUtils.senderProps(embeddedKafka.getBrokersAsString())
+    def producer = new KafkaProducer<String, String>(senderProps, new StringSerializer(), new StringSerializer())
+    def consumerProperties = KafkaTestUtils.consumerProps("sender", "false", embeddedKafka)
+    consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+    def consumer = new KafkaConsumer<String, String>(consumerProperties)
+    consumer.assign([new TopicPartition(KafkaClientTestBase.SHARED_TOPIC, 0)])
+
+    when:
+    runUnderTrace("parent") {
+      3.times {
+        producer.send(new ProducerRecord<>(KafkaClientTestBase.SHARED_TOPIC, 0, null, "message $it")).get()
+      }
+    }
+    def records = consumer.poll(1000)
+    while (records.isEmpty()) {
+      records = consumer.poll(1000)
+    }
+    for (def record : records) {
+      // stops after the first record, leaving the batch span active
+      break
+    }
+    // the next iteration replaces the span of the batch stopped early
+    consumer.poll(100).iterator().hasNext()
+    TEST_WRITER.waitForTraces(2)
+    TEST_DATA_STREAMS_WRITER.waitForGroups(2)
+    def consumerSpans = TEST_WRITER.flatten().findAll { it.getTag(Tags.SPAN_KIND) == Tags.SPAN_KIND_CONSUMER }
+    StatsGroup inbound = TEST_DATA_STREAMS_WRITER.groups.find { it.tags.hasAllTags("direction:in") }
+
+    then:
+    consumerSpans.size() == 1
+    consumerSpans[0].getTag(InstrumentationTags.KAFKA_RECORDS_COUNT) == 1
+    inbound != null
+    inbound.tags.hasAllTags("group:sender", "topic:$KafkaClientTestBase.SHARED_TOPIC".toString(), "type:kafka")
+
+    cleanup:
+    consumer?.close()
+    producer?.close()
+  }
+}
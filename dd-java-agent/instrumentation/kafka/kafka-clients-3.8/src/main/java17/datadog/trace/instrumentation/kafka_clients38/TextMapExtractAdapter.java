@@ -4,18 +4,21 @@ import static datadog.trace.api.Functions.BASE64_DECODE;
 import static datadog.trace.api.Functions.UTF8_BYTES_TO_STRING;
 import static datadog.trace.api.telemetry.LogCollector.EXCLUDE_TELEMETRY;
 
+import datadog.context.propagation.BinaryCarrierVisitor;
 import datadog.trace.api.Config;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation.ContextVisitor;
 import java.nio.ByteBuffer;
 import java.util.Base64;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class TextMapExtractAdapter implements ContextVisitor<Headers> {
+public class TextMapExtractAdapter
+    implements ContextVisitor<Headers>, BinaryCarrierVisitor<Headers> {
   private static final Logger log = LoggerFactory.getLogger(TextMapExtractAdapter.class);
 
   public static final TextMapExtractAdapter GETTER =
@@ -53,6 +56,26 @@ public class TextMapExtractAdapter implements ContextVisitor<Headers> {
     }
   }
 
+  @Override
+  public void forEachKeyBinaryValue(Headers carrier, BiConsumer<String, byte[]> visitor) {
+    for (Header header : carrier) {
+      String key = header.key();
+      byte[] value = header.value();
+      if (null == value) {
+        continue;
+      }
+      if (null != decoder) {
+        try {
+          value = decoder.decode(value);
+        } catch (IllegalArgumentException e) {
+          log.debug(EXCLUDE_TELEMETRY, "Failed to Base64-decode Kafka header '{}', skipping", key);
+          continue;
+        }
+      }
+      visitor.accept(key, value);
+    }
+  }
+
   public long extractTimeInQueueStart(Headers carrier) {
     Header header = carrier.lastHeader(KafkaDecorator.KAFKA_PRODUCED_KEY);
     if (null != header) {
@@ -2,11 +2,10 @@ package datadog.trace.instrumentation.log4j2;
 
 import datadog.trace.api.Config;
 import datadog.trace.api.CorrelationIdentifier;
+import datadog.trace.api.logging.intake.LogRecord;
 import datadog.trace.api.logging.intake.LogsIntake;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.HashMap;
-import java.util.Map;
 import org.apache.logging.log4j.core.Filter;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
@@ -33,18 +32,16 @@ public class DatadogAppender extends AbstractAppender {
    * reason for re-implementing this rather than using the existing layout class is that the latter
    * requires additional dependencies that may or may not be present in the traced application.
    */
-  private Map<String, Object> map(final LogEvent event) {
-    Map<String, Object> log = new HashMap<>();
-    log.put("thread", event.getThreadName());
-    log.put("level", event.getLevel().name());
-    log.put("loggerName", event.getLoggerName());
-    log.put("message", event.getMessage().getFormattedMessage());
+  private LogRecord map(final LogEvent event) {
+    LogRecord log =
+        new LogRecord(
+            event.getThreadName(),
+            event.getLevel().name(),
+            event.getLoggerName(),
+            event.getMessage().getFormattedMessage());
 
     Throwable thrown = event.getThrown();
     if (thrown != null) {
-      Map<String, Object> thrownLog = new HashMap<>();
-      thrownLog.put("message", thrown.getMessage());
-      thrownLog.put("name", thrown.getClass().getCanonicalName());
       // TODO consider using structured stack trace layout
       //  (see
       // org.apache.logging.log4j.layout.template.json.resolver.ExceptionResolver#createStackTraceResolver)
@@ -55,32 +52,26 @@ public class DatadogAppender extends AbstractAppender {
       String stackTraceString =
           stackTraceBuffer.substring(
               0, Math.min(stackTraceBuffer.length(), MAX_STACKTRACE_STRING_LENGTH));
-      thrownLog.put("extendedStackTrace", stackTraceString);
-
-      log.put("thrown", thrownLog);
+      log.thrown(thrown.getClass().getCanonicalName(), thrown.getMessage(), stackTraceString);
     }
-    log.put("endOfBatch", event.isEndOfBatch());
-    log.put("loggerFqcn", event.getLoggerFqcn());
+    log.endOfBatch(event.isEndOfBatch());
+    log.loggerFqcn(event.getLoggerFqcn());
     if (appLogsCollectionEnabled) {
       // skip log source for now as this is expensive
       // will be later introduce with Log Origin and optimisations
       String traceId = CorrelationIdentifier.getTraceId();
-      if (traceId != null && !traceId.equals("0")) {
-        log.put("dd.trace_id", traceId);
-      }
       String spanId = CorrelationIdentifier.getSpanId();
-      if (spanId != null && !spanId.equals("0")) {
-        log.put("dd.span_id", spanId);
-      }
+      log.traceContext(
+          traceId != null && !traceId.equals("0") ? traceId : null,
+          spanId != null && !spanId.equals("0") ? spanId : null);
     } else {
-      log.put("contextMap", event.getContextMap());
+      log.contextMap(event.getContextMap());
       StackTraceElement source = event.getSource();
-      Map<String, Object> sourceLog = new HashMap<>();
-      sourceLog.put("class", source.getClassName());
-      sourceLog.put("method", source.getMethodName());
-      sourceLog.put("file", source.getFileName());
-      sourceLog.put("line", source.getLineNumber());
-      log.put("source", sourceLog);
+      log.source(
+          source.getClassName(),
+          source.getMethodName(),
+          source.getFileName(),
+          source.getLineNumber());
     }
     return log;
   }
@@ -1,5 +1,6 @@
 import datadog.trace.agent.test.InstrumentationSpecification
 import datadog.trace.api.config.GeneralConfig
+import datadog.trace.api.logging.intake.LogRecord
 import datadog.trace.api.logging.intake.LogsIntake
 import datadog.trace.api.logging.intake.LogsWriter
 import org.apache.logging.log4j.LogManager
@@ -48,9 +49,9 @@ class Log4jDatadogAppenderTest extends InstrumentationSpecification {
     !logsWriter.messages.empty
 
     def message = logsWriter.messages.poll()
-    "A test message" == message.get("message")
-    "ERROR" == message.get("level")
-    "Log4jDatadogAppenderTest" == message.get("loggerName")
+    "A test message" == message.message
+    "ERROR" == message.level
+    "Log4jDatadogAppenderTest" == message.loggerName
   }
 
   private static ensureLog4jVersionCompatibleWithCurrentJVM() {
@@ -63,11 +64,11 @@ class Log4jDatadogAppenderTest extends InstrumentationSpecification {
   }
 
   private static final class DummyLogsWriter implements LogsWriter {
-    private final Queue<Map<String, Object>> messages = new ArrayDeque<>()
+    private final Queue<LogRecord> messages = new ArrayDeque<>()
 
     @Override
-    void log(Map<String, Object> message) {
-      messages.offer(message)
+    void log(LogRecord record) {
+      messages.offer(record)
     }
 
     @Override
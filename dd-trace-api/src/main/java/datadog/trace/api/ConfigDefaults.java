@@ -90,6 +90,8 @@ public final class ConfigDefaults {
   static final int DEFAULT_TRACE_BAGGAGE_MAX_BYTES = 8192;
   static final List<String> DEFAULT_TRACE_BAGGAGE_TAG_KEYS =
       Arrays.asList("user.id", "session.id", "account.id");
+
+  static final int DEFAULT_GRPC_SERVER_STREAM_MESSAGE_EVENT_INTERVAL = 100;
   static final boolean DEFAULT_JMX_FETCH_ENABLED = true;
 
   static final String DEFAULT_TRACE_AGENT_PROTOCOL_VERSION = ProtocolVersion.V0_4.asConfigValue();
@@ -319,6 +321,7 @@ public final class ConfigDefaults {
   static final long DEFAULT_TRACE_LONG_RUNNING_FLUSH_INTERVAL = 120; // seconds -> 2 minutes
 
   static final float DEFAULT_TRACE_FLUSH_INTERVAL = 1;
+  static final int DEFAULT_TRACE_SPILL_BUFFER_SIZE = 0;
 
   static final long DEFAULT_TRACE_POST_PROCESSING_TIMEOUT = 1000; // 1 second
 
@@ -24,6 +24,8 @@ public final class CiVisibilityConfig {
       "civisibility.compiler.plugin.version";
   public static final String CIVISIBILITY_DEBUG_PORT = "civisibility.debug.port";
   public static final String CIVISIBILITY_GIT_CLIENT_ENABLED = "civisibility.git.client.enabled";
+  public static final String CIVISIBILITY_GIT_CLIENT_IN_PROCESS_ENABLED =
+      "civisibility.git.client.in.process.enabled";
   public static final String CIVISIBILITY_GIT_UPLOAD_ENABLED = "civisibility.git.upload.enabled";
   public static final String CIVISIBILITY_GIT_UNSHALLOW_ENABLED =
       "civisibility.git.unshallow.enabled";
@@ -48,6 +50,8 @@ public final class CiVisibilityConfig {
       "civisibility.repo.index.duplicate.key.check.enabled";
   public static final String CIVISIBILITY_REPO_INDEX_FOLLOW_SYMLINKS =
       "civisibility.repo.index.follow.symlinks";
+  public static final String CIVISIBILITY_REPO_INDEX_CACHE_DIR =
+      "civisibility.repo.index.cache.dir";
   public static final String CIVISIBILITY_EXECUTION_SETTINGS_CACHE_SIZE =
       "civisibility.execution.settings.cache.size";
   public static final String CIVISIBILITY_JVM_INFO_CACHE_SIZE = "civisibility.jvm.info.cache.size";
@@ -125,6 +125,7 @@ public final class GeneralConfig {
       "agentless.log.submission.queue.size";
   public static final String TELEMETRY_DEPENDENCY_RESOLUTION_PERIOD_MILLIS =
       "telemetry.dependency.resolution.period.millis";
+  public static final String TELEMETRY_DEPENDENCY_CACHE_DIR = "telemetry.dependency.cache.dir";
   public static final String AGENTLESS_LOG_SUBMISSION_LEVEL = "agentless.log.submission.level";
   public static final String AGENTLESS_LOG_SUBMISSION_URL = "agentless.log.submission.url";
   public static final String APM_TRACING_ENABLED = "apm.tracing.enabled";
@@ -110,6 +110,13 @@ public final class TraceInstrumentationConfig {
       "kafka.client.propagation.disabled.topics";
   public static final String KAFKA_CLIENT_BASE64_DECODING_ENABLED =
       "kafka.client.base64.decoding.enabled";
+  /**
+   * Creates one consumer span per polled batch of records instead of one span per record. The batch
+   * span links to the producer spans of its records and data streams checkpoints are aggregated per
+   * topic, partition and pathway. Disabled by default.
+   */
+  public static final String KAFKA_CLIENT_CONSUMER_BATCH_SPANS_ENABLED =
+      "kafka.client.consumer.batch.spans.enabled";
 
   public static final String JMS_PROPAGATION_DISABLED_TOPICS = "jms.propagation.disabled.topics";
   public static final String JMS_PROPAGATION_DISABLED_QUEUES = "jms.propagation.disabled.queues";
@@ -135,6 +142,15 @@ public final class TraceInstrumentationConfig {
       "trace.grpc.server.trim-package-resource";
   public static final String GRPC_SERVER_ERROR_STATUSES = "grpc.server.error.statuses";
   public static final String GRPC_CLIENT_ERROR_STATUSES = "grpc.client.error.statuses";
+  /**
+   * Aggregates the messages received by client streaming and bidirectional gRPC server calls on
+   * the server span, instead of creating one span per message. Disabled by default.
+   */
+  public static final String GRPC_SERVER_STREAM_MESSAGE_AGGREGATION_ENABLED =
+      "trace.grpc.server.stream.message.aggregation.enabled";
+  /** Records one span event every that many messages of aggregated gRPC streams. */
+  public static final String GRPC_SERVER_STREAM_MESSAGE_EVENT_INTERVAL =
+      "trace.grpc.server.stream.message.event.interval";
   public static final String HYSTRIX_TAGS_ENABLED = "hystrix.tags.enabled";
   public static final String HYSTRIX_MEASURED_ENABLED = "hystrix.measured.enabled";
 
@@ -126,6 +126,14 @@ public final class TracerConfig {
   public static final String SAMPLING_MECHANISM_VALIDATION_DISABLED =
       "trace.sampling.mechanism.validation.disabled";
 
+  /**
+   * Publishes span tags as immutable snapshots which are replaced on every update, so reading tags
+   * never blocks, even while the span is being serialized. Meant for applications where several
+   * threads decorate the same span concurrently. Disabled by default.
+   */
+  public static final String SPAN_TAGS_COPY_ON_WRITE_ENABLED =
+      "trace.span.tags.copy-on-write.enabled";
+
   /**
    * Limit for x-datadog-tags. When exceeded it will stop propagating Datadog tags and will log a
    * warning.
@@ -156,6 +164,12 @@ public final class TracerConfig {
 
   public static final String TRACE_FLUSH_INTERVAL = "trace.flush.interval";
 
+  /**
+   * Byte budget of the memory-mapped file holding the serialized traces that could not be sent
+   * while the agent is unavailable, to be sent once it recovers. Disabled when 0, the default.
+   */
+  public static final String TRACE_SPILL_BUFFER_SIZE = "trace.spill.buffer.size";
+
   public static final String TRACE_POST_PROCESSING_TIMEOUT = "trace.post-processing.timeout";
 
   public static final String TRACE_CLOUD_PAYLOAD_TAGGING_SERVICES =
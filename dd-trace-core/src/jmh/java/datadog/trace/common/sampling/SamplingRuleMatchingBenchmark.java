@@ -0,0 +1,131 @@
+package datadog.trace.common.sampling;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.api.sampling.SamplingMechanism;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of finding the sampling rule of a root span with large, remotely configured rule sets, by
+ * trying the rules in order and through {@link SamplingRuleIndex}.
+ *
+ * <p>Each service has three rules: one on its resources, one with a tag condition and one with a
+ * glob on the service name. The spans cycle through the last few services, so they only match a
+ * rule near the end of the list.
+ *
+ * <p>Run: {@code ./gradlew :dd-trace-core:jmh -PjmhIncludes=SamplingRuleMatchingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class SamplingRuleMatchingBenchmark {
+
+  private static final int SPAN_COUNT = 64;
+
+  @Param({"10", "100", "500"})
+  int ruleCount;
+
+  private CoreTracer tracer;
+  private List<RateSamplingRule> rules;
+  private SamplingRuleIndex index;
+  private DDSpan[] spans;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    rules = new ArrayList<>(ruleCount);
+    for (int i = 0; i < ruleCount; i++) {
+      String service = "service-" + (i / 3);
+      switch (i % 3) {
+        case 0:
+          rules.add(rule(service, "*", "GET /users/*", Collections.emptyMap()));
+          break;
+        case 1:
+          rules.add(rule(service, "*", "*", Collections.singletonMap("env", "prod")));
+          break;
+        default:
+          rules.add(rule(service + "-*", "servlet.request", "*", Collections.emptyMap()));
+          break;
+      }
+    }
+    index = new SamplingRuleIndex(rules);
+
+    tracer = CoreTracer.builder().writer(new ListWriter()).build();
+    spans = new DDSpan[SPAN_COUNT];
+    // services with all three rules, the spans use the last ones which come last in the list
+    int services = Math.max(1, ruleCount / 3);
+    for (int i = 0; i < SPAN_COUNT; i++) {
+      int service = services - 1 - (i % Math.min(services, 8));
+      spans[i] =
+          (DDSpan)
+              tracer
+                  .buildSpan("benchmark", "servlet.request")
+                  .withServiceName("service-" + service + "-api")
+                  .withResourceName("GET /orders/" + (i % 4))
+                  .withTag("env", "staging")
+                  .start();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (DDSpan span : spans) {
+      span.finish();
+    }
+    tracer.close();
+  }
+
+  @Benchmark
+  public RateSamplingRule inOrder() {
+    DDSpan span = nextSpan();
+    for (RateSamplingRule rule : rules) {
+      if (rule.matches(span)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public RateSamplingRule indexed() {
+    return index.firstMatch(nextSpan());
+  }
+
+  private DDSpan nextSpan() {
+    return spans[next++ & (SPAN_COUNT - 1)];
+  }
+
+  private static RateSamplingRule rule(
+      String service, String operation, String resource, Map<String, String> tags) {
+    return new RateSamplingRule.TraceSamplingRule(
+        service,
+        operation,
+        resource,
+        tags,
+        new DeterministicSampler.TraceSampler(0.5),
+        SamplingMechanism.REMOTE_USER_RULE);
+  }
+}
@@ -9,6 +9,7 @@ import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -42,7 +43,15 @@ import org.openjdk.jmh.infra.Blackhole;
  * five-method {@code Writer} interface (implemented as a no-op {@link DropWriter}). If you add to
  * it, keep it inside that stable surface or grafting it onto old tags for the historical curve will
  * stop compiling. (Source rebuilds only reach ~v1.53 — older tags hit dead build-time dependencies;
- * deeper history is a published-jar job.)
+ * deeper history is a published-jar job.) The child-span arms additionally use {@code
+ * AgentSpan.spanContext()}, {@code asChildOf} and {@code setBaggageItem}; check them against a tag
+ * before grafting them onto it.
+ *
+ * <p><b>Child spans are reported per span.</b> The {@code childSpans*} arms create a local root
+ * with {@value #CHILDREN_PER_TRACE} short children that set two tags each, and are declared with
+ * {@code @OperationsPerInvocation} so that {@code gc.alloc.rate.norm} is the allocation per span
+ * (root included) rather than per trace. The baggage arm shows what the children inherit from
+ * their parent beyond the tags.
  *
  * <p>Spans are finished against {@link DropWriter} so the create/tag/finish allocation is isolated
  * from serialization and agent I/O — those live on a different lever and would otherwise leak into
@@ -130,6 +139,11 @@ public class SpanCreationBenchmark {
   private static final String DB_PEER_HOSTNAME_VALUE = "db.internal";
   private static final int DB_PEER_PORT_VALUE = 90; // in-cache; value itself is immaterial here
 
+  // Short internal children, the shape of the spans under a request (method / client calls).
+  static final int CHILDREN_PER_TRACE = 16;
+  private static final String CHILD_OPERATION_NAME = "internal.call";
+  private static final String CHILD_COMPONENT_VALUE = "trace";
+
   CoreTracer tracer;
 
   @Setup
@@ -211,4 +225,39 @@ public class SpanCreationBenchmark {
     span.setTag(Tags.PEER_PORT, DB_PEER_PORT_VALUE);
     span.finish();
   }
+
+  /**
+   * Local root with {@value #CHILDREN_PER_TRACE} short children (2 tags each), the dominant shape
+   * of real traces. Allocation and throughput are per span.
+   */
+  @Benchmark
+  @OperationsPerInvocation(CHILDREN_PER_TRACE + 1)
+  public void childSpans() {
+    AgentSpan root = tracer.buildSpan(INSTRUMENTATION_NAME, SERVER_OPERATION_NAME).start();
+    createChildren(root);
+    root.finish();
+  }
+
+  /** Same as {@link #childSpans}, with a baggage item set on the root and inherited by children. */
+  @Benchmark
+  @OperationsPerInvocation(CHILDREN_PER_TRACE + 1)
+  public void childSpansWithBaggage() {
+    AgentSpan root = tracer.buildSpan(INSTRUMENTATION_NAME, SERVER_OPERATION_NAME).start();
+    root.setBaggageItem("user.id", "42");
+    createChildren(root);
+    root.finish();
+  }
+
+  private void createChildren(AgentSpan root) {
+    for (int i = 0; i < CHILDREN_PER_TRACE; i++) {
+      AgentSpan child =
+          tracer
+              .buildSpan(INSTRUMENTATION_NAME, CHILD_OPERATION_NAME)
+              .asChildOf(root.spanContext())
+              .start();
+      child.setTag(Tags.COMPONENT, CHILD_COMPONENT_VALUE);
+      child.setTag(Tags.SPAN_KIND, Tags.SPAN_KIND_INTERNAL);
+      child.finish();
+    }
+  }
 }
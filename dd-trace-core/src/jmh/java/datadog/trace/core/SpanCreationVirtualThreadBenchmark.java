@@ -6,6 +6,8 @@ import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -37,6 +39,11 @@ import org.openjdk.jmh.infra.Blackhole;
  * Thread.startVirtualThread}); {@link #setup()} fails fast on a pre-21 JDK. The per-op vthread
  * spawn + join cost is constant across tracer versions, so it cancels in the 1.55→1.57 delta (read
  * the delta, not the absolute B/op).
+ *
+ * <p>{@link #startSpanOnVirtualThreadPerTaskExecutor()} submits the same task to the executor of
+ * {@code Executors.newVirtualThreadPerTaskExecutor}, from a thread with no active span. Run it with
+ * the agent attached ({@code -javaagent}) to include the executor context propagation, which then
+ * adds no per-task state on top of the virtual thread creation.
  */
 @State(Scope.Benchmark)
 @Warmup(iterations = 5)
@@ -54,6 +61,8 @@ public class SpanCreationVirtualThreadBenchmark {
   private MethodHandle startVirtualThread;
   // Reused so no per-op capturing-lambda allocation muddies the measurement.
   private Runnable spanTask;
+  // Executors.newVirtualThreadPerTaskExecutor(), resolved reflectively (JDK 21+).
+  private ExecutorService virtualThreadPerTaskExecutor;
 
   @Setup
   public void setup(Blackhole blackhole) throws Throwable {
@@ -69,10 +78,19 @@ public class SpanCreationVirtualThreadBenchmark {
           AgentSpan span = tracer.startSpan(INSTRUMENTATION_NAME, OPERATION_NAME);
           span.finish();
         };
+    this.virtualThreadPerTaskExecutor =
+        (ExecutorService)
+            MethodHandles.publicLookup()
+                .findStatic(
+                    Executors.class,
+                    "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class))
+                .invoke();
   }
 
   @TearDown
   public void tearDown() {
+    this.virtualThreadPerTaskExecutor.shutdown();
     this.tracer.close();
   }
 
@@ -82,4 +100,10 @@ public class SpanCreationVirtualThreadBenchmark {
     Thread vthread = (Thread) startVirtualThread.invokeExact(spanTask);
     vthread.join();
   }
+
+  /** create + finish a bare span on a task of the virtual thread per task executor; wait. */
+  @Benchmark
+  public void startSpanOnVirtualThreadPerTaskExecutor() throws Exception {
+    virtualThreadPerTaskExecutor.submit(spanTask).get();
+  }
 }
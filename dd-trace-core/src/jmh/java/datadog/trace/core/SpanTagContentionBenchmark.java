@@ -0,0 +1,102 @@
+package datadog.trace.core;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.common.writer.ListWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reads and writes of the tags of a single span shared by several threads, with the default locked
+ * tags and with copy-on-write tags ({@code dd.trace.span.tags.copy-on-write.enabled}).
+ *
+ * <p>Each group has six threads reading tags and two threads decorating the span, which is the
+ * shape the copy-on-write mode is meant for: reads stop contending on the lock, while each write
+ * pays for copying the span's own tags. The span keeps a fixed set of tags, so the write cost does
+ * not grow over the run.
+ *
+ * <p>Run: {@code ./gradlew :dd-trace-core:jmh -PjmhIncludes=SpanTagContentionBenchmark}.
+ */
+@State(Scope.Group)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class SpanTagContentionBenchmark {
+
+  private static final String[] NAMES = {
+    "http.method",
+    "http.route",
+    "http.url",
+    "http.useragent",
+    "peer.hostname",
+    "component",
+    "db.instance",
+    "db.user",
+  };
+
+  @Param({"false", "true"})
+  boolean copyOnWrite;
+
+  private CoreTracer tracer;
+  private AgentSpan span;
+  private DDSpanContext context;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    tracer = CoreTracer.builder().writer(new ListWriter()).build();
+    span = tracer.startSpan("benchmark", "servlet.request");
+    context = (DDSpanContext) span.spanContext();
+    for (String name : NAMES) {
+      context.setTag(name, "value");
+    }
+    if (copyOnWrite) {
+      context.enableCopyOnWriteTags();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    span.finish();
+    tracer.close();
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+
+    String nextName() {
+      return NAMES[next++ & (NAMES.length - 1)];
+    }
+  }
+
+  @Benchmark
+  @Group("decorate")
+  @GroupThreads(6)
+  public Object readTag(Cursor cursor) {
+    return context.getTag(cursor.nextName());
+  }
+
+  @Benchmark
+  @Group("decorate")
+  @GroupThreads(2)
+  public void writeTag(Cursor cursor) {
+    context.setTag(cursor.nextName(), cursor.next);
+  }
+}
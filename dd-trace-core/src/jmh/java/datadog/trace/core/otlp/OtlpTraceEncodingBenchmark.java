@@ -0,0 +1,110 @@
+package datadog.trace.core.otlp;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.otlp.common.OtlpHttpRequestBody;
+import datadog.trace.core.otlp.common.OtlpPayload;
+import datadog.trace.core.otlp.trace.OtlpTraceProtoCollector;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import okio.BufferedSink;
+import okio.Okio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Export-thread cost of encoding a batch of traces as an OTLP protobuf payload and writing it to
+ * the HTTP request body, with and without gzip.
+ *
+ * <p>The sink discards what it is given, so this measures encoding, chunk handling and compression
+ * but not the network. The collector is reused across invocations like the OTLP writer does, so
+ * the payload chunks come from its pool once warmed up; run with {@code -prof gc} to see the
+ * allocation per export.
+ *
+ * <p>Run: {@code ./gradlew :dd-trace-core:jmh -PjmhIncludes=OtlpTraceEncodingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class OtlpTraceEncodingBenchmark {
+
+  private static final int SPANS_PER_TRACE = 10;
+
+  @Param({"10", "100", "1000"})
+  int traceCount;
+
+  @Param({"false", "true"})
+  boolean gzip;
+
+  private CoreTracer tracer;
+  private List<List<DDSpan>> traces;
+  private OtlpTraceProtoCollector collector;
+  private BufferedSink sink;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    ListWriter writer = new ListWriter();
+    tracer = CoreTracer.builder().writer(writer).strictTraceWrites(true).build();
+    for (int t = 0; t < traceCount; t++) {
+      AgentSpan root = tracer.startSpan("benchmark", "servlet.request");
+      root.setResourceName("GET /users/{id}");
+      root.setTag("span.kind", "server");
+      root.setTag("http.method", "GET");
+      root.setTag("http.url", "http://localhost:8080/users/" + t);
+      root.setHttpStatusCode(200);
+      for (int s = 1; s < SPANS_PER_TRACE; s++) {
+        AgentSpan child = tracer.startSpan("benchmark", "jdbc.query", root.spanContext());
+        child.setResourceName("SELECT * FROM users WHERE id = ?");
+        child.setTag("span.kind", "client");
+        child.setTag("db.type", "postgresql");
+        child.setTag("db.instance", "users");
+        child.setTag("db.row_count", s);
+        child.finish();
+      }
+      root.finish();
+    }
+    if (writer.size() != traceCount) {
+      throw new IllegalStateException(
+          "expected " + traceCount + " finished traces, got " + writer.size());
+    }
+    traces = new ArrayList<>(writer);
+    collector = new OtlpTraceProtoCollector();
+    sink = Okio.buffer(Okio.blackhole());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracer.close();
+  }
+
+  @Benchmark
+  public int exportTraces() throws IOException {
+    for (List<DDSpan> trace : traces) {
+      collector.addTrace(trace);
+    }
+    OtlpPayload payload = collector.collectTraces();
+    new OtlpHttpRequestBody(payload, gzip).writeTo(sink);
+    sink.flush();
+    return payload.getContentLength();
+  }
+}
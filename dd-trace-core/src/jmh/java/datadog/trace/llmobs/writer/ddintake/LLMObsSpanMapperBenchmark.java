@@ -0,0 +1,127 @@
+package datadog.trace.llmobs.writer.ddintake;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.serialization.FlushingBuffer;
+import datadog.communication.serialization.msgpack.MsgPackWriter;
+import datadog.trace.api.llmobs.LLMObs;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.InternalSpanTypes;
+import datadog.trace.bootstrap.instrumentation.api.Tags;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writer-thread cost of serializing a RAG style trace, a workflow span around LLM spans with large
+ * prompts and completions, into an EVP proxy sized payload.
+ *
+ * <p>The payload is flushed to a consumer which discards it. With the largest messages the spans
+ * exceed the content budget of {@link LLMObsSpanMapper} and are truncated, where the whole trace
+ * used to be dropped because it did not fit in the payload. Run with {@code -prof gc} to see the
+ * allocation per trace.
+ *
+ * <p>Run: {@code ./gradlew :dd-trace-core:jmh -PjmhIncludes=LLMObsSpanMapperBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class LLMObsSpanMapperBenchmark {
+
+  private static final int LLM_SPANS_PER_TRACE = 4;
+
+  @Param({"1", "64", "2048"})
+  int messageKiB;
+
+  private CoreTracer tracer;
+  private List<DDSpan> trace;
+  private LLMObsSpanMapper mapper;
+  private MsgPackWriter packer;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    tracer = CoreTracer.builder().writer(new ListWriter()).build();
+    String prompt = content("Use the retrieved documents to answer. ", messageKiB * 1024);
+    String completion = content("The documents say that ", messageKiB * 1024);
+
+    trace = new ArrayList<>();
+    AgentSpan workflow = tracer.startSpan("benchmark", "rag.workflow");
+    workflow.setSpanType(InternalSpanTypes.LLMOBS);
+    workflow.setTag("_ml_obs_tag.span.kind", Tags.LLMOBS_WORKFLOW_SPAN_KIND);
+    workflow.setTag("_ml_obs_tag.input", "What does the contract say about renewals?");
+    trace.add((DDSpan) workflow);
+    for (int i = 0; i < LLM_SPANS_PER_TRACE; i++) {
+      AgentSpan llm = tracer.startSpan("benchmark", "openai.request", workflow.spanContext());
+      llm.setSpanType(InternalSpanTypes.LLMOBS);
+      llm.setResourceName("createChatCompletion");
+      llm.setTag("_ml_obs_tag.span.kind", Tags.LLMOBS_LLM_SPAN_KIND);
+      llm.setTag("_ml_obs_tag.model_name", "gpt-4o");
+      llm.setTag("_ml_obs_metric.input_tokens", messageKiB * 256);
+      llm.setTag(
+          "_ml_obs_tag.input",
+          Arrays.asList(
+              LLMObs.LLMMessage.from("system", "You are a helpful assistant."),
+              LLMObs.LLMMessage.from("user", prompt)));
+      llm.setTag(
+          "_ml_obs_tag.output",
+          Collections.singletonList(LLMObs.LLMMessage.from("assistant", completion)));
+      llm.finish();
+      trace.add((DDSpan) llm);
+    }
+    workflow.finish();
+
+    mapper = new LLMObsSpanMapper();
+    packer =
+        new MsgPackWriter(
+            new FlushingBuffer(mapper.messageBufferSize(), (messageCount, buffer) -> {}));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracer.close();
+  }
+
+  @Benchmark
+  public boolean mapTrace() {
+    // the mapper moves the span kind out of the tags as it writes them
+    for (DDSpan span : trace) {
+      span.setTag(
+          "_ml_obs_tag.span.kind",
+          span == trace.get(0) ? Tags.LLMOBS_WORKFLOW_SPAN_KIND : Tags.LLMOBS_LLM_SPAN_KIND);
+    }
+    boolean written = packer.format(trace, mapper);
+    packer.flush();
+    mapper.reset();
+    return written;
+  }
+
+  private static String content(String sentence, int length) {
+    StringBuilder builder = new StringBuilder(length);
+    while (builder.length() < length) {
+      builder.append(sentence);
+    }
+    builder.setLength(length);
+    return builder.toString();
+  }
+}
@@ -42,6 +42,9 @@ public final class AggregateEntry extends Hashtable.Entry {
   // Schema-ordered "key:value" strings; "key:" prefix makes packing unambiguous without null slots.
   final UTF8BytesString[] additionalTags;
 
+  // Where the latency histograms come from and go back to; null for entries built outside a table.
+  @Nullable private final HistogramPool histograms;
+
   // Recording state (this field through errorDuration below) is thread-confined: the entry is
   // mutated only on the aggregator thread, so these fields are intentionally unsynchronized and not
   // thread-safe. Producers hand off immutable SpanSnapshots; only the aggregator thread records
@@ -79,6 +82,42 @@ public final class AggregateEntry extends Hashtable.Entry {
       boolean traceRoot,
       List<UTF8BytesString> peerTags,
       UTF8BytesString[] additionalTags) {
+    this(
+        keyHash,
+        resource,
+        service,
+        operationName,
+        serviceSource,
+        type,
+        spanKind,
+        httpMethod,
+        httpEndpoint,
+        grpcStatusCode,
+        httpStatusCode,
+        synthetic,
+        traceRoot,
+        peerTags,
+        additionalTags,
+        null);
+  }
+
+  private AggregateEntry(
+      long keyHash,
+      UTF8BytesString resource,
+      UTF8BytesString service,
+      UTF8BytesString operationName,
+      UTF8BytesString serviceSource,
+      UTF8BytesString type,
+      UTF8BytesString spanKind,
+      UTF8BytesString httpMethod,
+      UTF8BytesString httpEndpoint,
+      UTF8BytesString grpcStatusCode,
+      short httpStatusCode,
+      boolean synthetic,
+      boolean traceRoot,
+      List<UTF8BytesString> peerTags,
+      UTF8BytesString[] additionalTags,
+      @Nullable HistogramPool histograms) {
     super(keyHash);
     this.resource = resource;
     this.service = service;
@@ -94,7 +133,8 @@ public final class AggregateEntry extends Hashtable.Entry {
     this.traceRoot = traceRoot;
     this.peerTags = peerTags;
     this.additionalTags = additionalTags;
-    this.okLatencies = Histogram.newHistogram();
+    this.histograms = histograms;
+    this.okLatencies = newHistogram();
   }
 
   /**
@@ -286,12 +326,16 @@ public final class AggregateEntry extends Hashtable.Entry {
   private Histogram errorLatenciesForWrite() {
     Histogram h = errorLatencies;
     if (h == null) {
-      h = Histogram.newHistogram();
+      h = newHistogram();
       errorLatencies = h;
     }
     return h;
   }
 
+  private Histogram newHistogram() {
+    return histograms == null ? Histogram.newHistogram() : histograms.acquire();
+  }
+
   /**
    * Records a single hit. {@code tagAndDuration} carries the duration nanos with optional {@link
    * #ERROR_TAG} / {@link #TOP_LEVEL_TAG} bits OR-ed in.
@@ -330,6 +374,18 @@ public final class AggregateEntry extends Hashtable.Entry {
     }
   }
 
+  /**
+   * Hands the histograms back to the pool they came from, once the entry has been removed from its
+   * table. The entry must not be used afterwards.
+   */
+  void recycleHistograms() {
+    if (histograms != null) {
+      histograms.release(okLatencies);
+      histograms.release(errorLatencies);
+      errorLatencies = null;
+    }
+  }
+
   /**
    * Reusable scratch buffer for canonicalizing a {@link SpanSnapshot} into UTF8 fields, computing
    * its lookup hash, comparing against existing entries, and building a fresh entry on miss.
@@ -368,6 +424,9 @@ public final class AggregateEntry extends Hashtable.Entry {
     /** Schema + per-key blocked sentinels for additional metric tags. Immutable. */
     final AdditionalTagsSchema additionalTagsSchema;
 
+    /** Latency histograms for new entries; owned by the enclosing {@link AggregateTable}. */
+    final HistogramPool histograms;
+
     /**
      * Reusable scratch for canonicalized additional-tag values, sized to the schema. Present values
      * are packed at the front in schema order (alphabetical by key); {@link #additionalTagsSize}
@@ -382,9 +441,13 @@ public final class AggregateEntry extends Hashtable.Entry {
 
     long keyHash;
 
-    Canonical(CoreHandlers handlers, AdditionalTagsSchema additionalTagsSchema) {
+    Canonical(
+        CoreHandlers handlers,
+        AdditionalTagsSchema additionalTagsSchema,
+        HistogramPool histograms) {
       this.handlers = handlers;
       this.additionalTagsSchema = additionalTagsSchema;
+      this.histograms = histograms;
       this.additionalTagsBuffer = new UTF8BytesString[additionalTagsSchema.size()];
     }
 
@@ -564,7 +627,8 @@ public final class AggregateEntry extends Hashtable.Entry {
           synthetic,
           traceRoot,
           snapshottedPeerTags,
-          snapshottedAdditionalTags);
+          snapshottedAdditionalTags,
+          histograms);
     }
   }
 
@@ -49,7 +49,9 @@ final class AggregateTable {
       int maxAggregates, CoreHandlers handlers, AdditionalTagsSchema additionalTagsSchema) {
     this.buckets = Hashtable.Support.create(maxAggregates, Hashtable.Support.MAX_RATIO);
     this.maxAggregates = maxAggregates;
-    this.canonical = new AggregateEntry.Canonical(handlers, additionalTagsSchema);
+    this.canonical =
+        new AggregateEntry.Canonical(
+            handlers, additionalTagsSchema, new HistogramPool(maxAggregates));
   }
 
   void resetCoreHandlers(HealthMetrics healthMetrics, CardinalityLimitReporter reporter) {
@@ -122,6 +124,7 @@ final class AggregateTable {
       if (e.getHitCount() == 0) {
         int bucket = iter.currentBucket();
         iter.remove();
+        e.recycleHistograms();
         size--;
         evictCursor = bucket;
         return true;
@@ -143,7 +146,10 @@ final class AggregateTable {
     Hashtable.Support.forEach(buckets, context, consumer);
   }
 
-  /** Removes entries whose {@code getHitCount() == 0}. */
+  /**
+   * Removes entries whose {@code getHitCount() == 0}. Their histograms go back to the pool, for the
+   * entries created in the next reporting intervals.
+   */
   void expungeStaleAggregates() {
     for (MutatingTableIterator<AggregateEntry> iter =
             Hashtable.Support.mutatingTableIterator(buckets);
@@ -151,12 +157,14 @@ final class AggregateTable {
       AggregateEntry e = iter.next();
       if (e.getHitCount() == 0) {
         iter.remove();
+        e.recycleHistograms();
         size--;
       }
     }
   }
 
   void clear() {
+    forEach(AggregateEntry::recycleHistograms);
     Hashtable.Support.clear(buckets);
     size = 0;
     evictCursor = 0;
@@ -0,0 +1,47 @@
+package datadog.trace.common.metrics;
+
+import datadog.metrics.api.Histogram;
+
+/**
+ * Latency histograms of expunged or evicted {@link AggregateEntry entries}, cleared and kept for
+ * the entries created next.
+ *
+ * <p>Aggregates come and go with the reporting intervals, but their histograms have already grown
+ * their bins for the latencies of the application, so reusing them saves both the allocation and
+ * the growth. The pool is bounded, histograms released past its capacity are dropped.
+ *
+ * <p><b>Not thread-safe.</b> Owned by the {@link AggregateTable} of the aggregator thread.
+ */
+final class HistogramPool {
+
+  private static final int MAX_CAPACITY = 128;
+
+  private final Histogram[] histograms;
+  private int size;
+
+  HistogramPool(int maxAggregates) {
+    this.histograms = new Histogram[Math.max(0, Math.min(maxAggregates, MAX_CAPACITY))];
+  }
+
+  /** Returns an empty histogram, reused if one was released. */
+  Histogram acquire() {
+    if (size == 0) {
+      return Histogram.newHistogram();
+    }
+    Histogram histogram = histograms[--size];
+    histograms[size] = null;
+    return histogram;
+  }
+
+  /** Clears the histogram and keeps it for reuse if there is room left. */
+  void release(Histogram histogram) {
+    if (histogram != null && size < histograms.length) {
+      histogram.clear();
+      histograms[size++] = histogram;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+}
@@ -110,10 +110,22 @@ public abstract class RateSamplingRule {
 
     @Override
     public <T extends CoreSpan<T>> boolean matches(T span) {
+      return matchesNames(span) && tagsMatcher.matches(span);
+    }
+
+    /** Checks the service, operation and resource names of the span, but not its tags. */
+    <T extends CoreSpan<T>> boolean matchesNames(T span) {
       return Matchers.matches(serviceMatcher, span.getServiceName())
           && Matchers.matches(operationMatcher, span.getOperationName())
-          && Matchers.matches(resourceMatcher, span.getResourceName())
-          && tagsMatcher.matches(span);
+          && Matchers.matches(resourceMatcher, span.getResourceName());
+    }
+
+    <T extends CoreSpan<T>> boolean matchesTags(T span) {
+      return tagsMatcher.matches(span);
+    }
+
+    boolean hasTagConditions() {
+      return !tagsMatcher.isEmpty();
     }
   }
 
@@ -15,7 +15,12 @@ import org.slf4j.LoggerFactory;
 public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, PrioritySampler {
 
   private static final Logger log = LoggerFactory.getLogger(RuleBasedTraceSampler.class);
+
+  // with fewer rules, trying them in order costs about as much as looking them up in the index
+  private static final int MIN_RULES_FOR_INDEX = 4;
+
   private final List<RateSamplingRule> samplingRules;
+  private final SamplingRuleIndex samplingRuleIndex;
   private final PrioritySampler fallbackSampler;
   private final SimpleRateLimiter rateLimiter;
   private final long rateLimit;
@@ -28,6 +33,8 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
       final int rateLimit,
       final PrioritySampler fallbackSampler) {
     this.samplingRules = samplingRules;
+    this.samplingRuleIndex =
+        samplingRules.size() >= MIN_RULES_FOR_INDEX ? new SamplingRuleIndex(samplingRules) : null;
     this.fallbackSampler = fallbackSampler;
     rateLimiter = new SimpleRateLimiter(rateLimit);
 
@@ -136,10 +143,14 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
   public <T extends CoreSpan<T>> void setSamplingPriority(final T span) {
     RateSamplingRule matchedRule = null;
 
-    for (final RateSamplingRule samplingRule : samplingRules) {
-      if (samplingRule.matches(span)) {
-        matchedRule = samplingRule;
-        break;
+    if (samplingRuleIndex != null) {
+      matchedRule = samplingRuleIndex.firstMatch(span);
+    } else {
+      for (final RateSamplingRule samplingRule : samplingRules) {
+        if (samplingRule.matches(span)) {
+          matchedRule = samplingRule;
+          break;
+        }
       }
     }
 
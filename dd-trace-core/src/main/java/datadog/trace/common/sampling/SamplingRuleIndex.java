@@ -0,0 +1,138 @@
+package datadog.trace.common.sampling;
+
+import datadog.trace.api.cache.DDCaches;
+import datadog.trace.api.cache.DDPartialKeyCache;
+import datadog.trace.core.CoreSpan;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the first sampling rule matching a root span without trying every rule on every span.
+ *
+ * <p>Most rule conditions only look at the service, operation and resource names, which have a low
+ * cardinality. For each combination of names, the index remembers which rules are left once those
+ * conditions are checked: the rules which also have tag conditions, followed by the first rule
+ * which has no other condition. Deciding on a span is then a cache lookup, plus checking the tags
+ * of the remembered rules if there are any.
+ *
+ * <p>The cache has a fixed size, so unusual names only cost a recomputation. The index belongs to
+ * the sampler it was built for: when the rules change, a new sampler with a new index replaces it.
+ */
+final class SamplingRuleIndex {
+
+  private static final int CACHE_CAPACITY = 512;
+
+  private static final RateSamplingRule[] NO_RULES = new RateSamplingRule[0];
+
+  private final RateSamplingRule[] rules;
+
+  private final DDPartialKeyCache<CoreSpan<?>, Candidates> candidatesCache =
+      DDCaches.newFixedSizePartialKeyCache(CACHE_CAPACITY);
+  private final DDPartialKeyCache.Producer<CoreSpan<?>, Candidates> candidatesProducer =
+      (span, hash, m, n) -> collectCandidates(span);
+
+  SamplingRuleIndex(List<RateSamplingRule> rules) {
+    this.rules = rules.toArray(NO_RULES);
+  }
+
+  /** Returns the first rule matching the span, or {@code null} if there is none. */
+  <T extends CoreSpan<T>> RateSamplingRule firstMatch(T span) {
+    Candidates candidates =
+        candidatesCache.computeIfAbsent(
+            span, 0, 0, SamplingRuleIndex::hash, SamplingRuleIndex::isFor, candidatesProducer);
+    for (RateSamplingRule rule : candidates.conditional) {
+      if (matchesConditions(rule, span)) {
+        return rule;
+      }
+    }
+    return candidates.unconditional;
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private Candidates collectCandidates(CoreSpan span) {
+    List<RateSamplingRule> conditional = null;
+    for (RateSamplingRule rule : rules) {
+      boolean hasMoreConditions;
+      if (rule instanceof RateSamplingRule.TraceSamplingRule) {
+        RateSamplingRule.TraceSamplingRule traceRule = (RateSamplingRule.TraceSamplingRule) rule;
+        if (!traceRule.matchesNames(span)) {
+          continue;
+        }
+        hasMoreConditions = traceRule.hasTagConditions();
+      } else if (rule instanceof RateSamplingRule.AlwaysMatchesSamplingRule
+          || rule instanceof RateSamplingRule.ServiceSamplingRule
+          || rule instanceof RateSamplingRule.OperationSamplingRule) {
+        if (!rule.matches(span)) {
+          continue;
+        }
+        hasMoreConditions = false;
+      } else {
+        // other rules may look at anything, so they are checked in full for every span
+        hasMoreConditions = true;
+      }
+
+      if (!hasMoreConditions) {
+        return new Candidates(span, conditional, rule);
+      }
+      if (conditional == null) {
+        conditional = new ArrayList<>();
+      }
+      conditional.add(rule);
+    }
+    return new Candidates(span, conditional, null);
+  }
+
+  private static <T extends CoreSpan<T>> boolean matchesConditions(RateSamplingRule rule, T span) {
+    if (rule instanceof RateSamplingRule.TraceSamplingRule) {
+      // the names were already checked when the candidates were collected
+      return ((RateSamplingRule.TraceSamplingRule) rule).matchesTags(span);
+    }
+    return rule.matches(span);
+  }
+
+  private static int hash(CoreSpan<?> span, int m, int n) {
+    int hash = hash(span.getServiceName());
+    hash = 31 * hash + hash(span.getOperationName());
+    return 31 * hash + hash(span.getResourceName());
+  }
+
+  private static int hash(CharSequence name) {
+    return name == null ? 0 : name.toString().hashCode();
+  }
+
+  private static boolean isFor(CoreSpan<?> span, int m, int n, Candidates candidates) {
+    return sameName(candidates.serviceName, span.getServiceName())
+        && sameName(candidates.operationName, span.getOperationName())
+        && sameName(candidates.resourceName, span.getResourceName());
+  }
+
+  private static boolean sameName(String name, CharSequence other) {
+    return name == null ? other == null : other != null && name.equals(other.toString());
+  }
+
+  private static String nameOf(CharSequence name) {
+    return name == null ? null : name.toString();
+  }
+
+  /** The rules which may still match spans with the given names, in rule order. */
+  private static final class Candidates {
+    final String serviceName;
+    final String operationName;
+    final String resourceName;
+
+    /** Rules which match the names, but have more conditions to check for each span. */
+    final RateSamplingRule[] conditional;
+
+    /** The first rule which matches the names and has no other condition, if any. */
+    final RateSamplingRule unconditional;
+
+    Candidates(
+        CoreSpan<?> span, List<RateSamplingRule> conditional, RateSamplingRule unconditional) {
+      this.serviceName = span.getServiceName();
+      this.operationName = nameOf(span.getOperationName());
+      this.resourceName = nameOf(span.getResourceName());
+      this.conditional = conditional == null ? NO_RULES : conditional.toArray(NO_RULES);
+      this.unconditional = unconditional;
+    }
+  }
+}
@@ -45,6 +45,7 @@ public class DDAgentWriter extends RemoteWriter {
     private int flushTimeout = 1;
     private TimeUnit flushTimeoutUnit = TimeUnit.SECONDS;
     boolean alwaysFlush = false;
+    int spillBufferSize = Config.get().getTraceSpillBufferSize();
 
     private DDAgentApi agentApi;
     private Prioritization prioritization;
@@ -149,6 +150,11 @@ public class DDAgentWriter extends RemoteWriter {
       return this;
     }
 
+    public DDAgentWriterBuilder spillBufferSize(int spillBufferSize) {
+      this.spillBufferSize = spillBufferSize;
+      return this;
+    }
+
     public DDAgentWriter build() {
       final HttpUrl agentUrl = HttpUrl.get("http://" + agentHost + ":" + traceAgentPort);
       final OkHttpClient client =
@@ -173,7 +179,8 @@ public class DDAgentWriter extends RemoteWriter {
 
       final DDAgentMapperDiscovery mapperDiscovery = new DDAgentMapperDiscovery(featureDiscovery);
       final PayloadDispatcher dispatcher =
-          new PayloadDispatcherImpl(mapperDiscovery, agentApi, healthMetrics, monitoring);
+          new PayloadDispatcherImpl(
+              mapperDiscovery, agentApi, healthMetrics, monitoring, spillBufferSize);
       final TraceProcessingWorker traceProcessingWorker =
           new TraceProcessingWorker(
               traceBufferSize,
@@ -11,6 +11,9 @@ interface PayloadDispatcher {
 
   void flush();
 
+  /** Called by the serializing thread once it stopped, nothing is dispatched afterwards. */
+  default void onShutdown() {}
+
   // used by tests
   Collection<RemoteApi> getApis();
 }
@@ -6,12 +6,16 @@ import datadog.communication.serialization.WritableFormatter;
 import datadog.communication.serialization.msgpack.MsgPackWriter;
 import datadog.metrics.api.Monitoring;
 import datadog.metrics.api.Recording;
+import datadog.trace.api.time.SystemTimeSource;
+import datadog.trace.api.time.TimeSource;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.monitor.HealthMetrics;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.LongAdder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,10 +24,19 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
 
   private static final Logger log = LoggerFactory.getLogger(PayloadDispatcherImpl.class);
 
+  private static final long MIN_REPLAY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long MAX_REPLAY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(32);
+
   private final RemoteApi api;
   private final RemoteMapperDiscovery mapperDiscovery;
   private final HealthMetrics healthMetrics;
   private final Monitoring monitoring;
+  private final PayloadSpill spill;
+  private final TimeSource timeSource;
+
+  private RemoteApi.Response lastFailure;
+  private long replayBackoffNanos = MIN_REPLAY_BACKOFF_NANOS;
+  private long nextReplayNanos;
 
   private Recording batchTimer;
   private RemoteMapper mapper;
@@ -37,10 +50,42 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       RemoteApi api,
       HealthMetrics healthMetrics,
       Monitoring monitoring) {
+    this(mapperDiscovery, api, healthMetrics, monitoring, 0);
+  }
+
+  /**
+   * @param spillBufferSize the byte budget to spill the payloads that could not be sent while the
+   *     agent is unavailable, until they can be replayed, 0 to drop them instead.
+   */
+  public PayloadDispatcherImpl(
+      RemoteMapperDiscovery mapperDiscovery,
+      RemoteApi api,
+      HealthMetrics healthMetrics,
+      Monitoring monitoring,
+      int spillBufferSize) {
+    this(
+        mapperDiscovery,
+        api,
+        healthMetrics,
+        monitoring,
+        spillBufferSize,
+        SystemTimeSource.INSTANCE);
+  }
+
+  PayloadDispatcherImpl(
+      RemoteMapperDiscovery mapperDiscovery,
+      RemoteApi api,
+      HealthMetrics healthMetrics,
+      Monitoring monitoring,
+      int spillBufferSize,
+      TimeSource timeSource) {
     this.mapperDiscovery = mapperDiscovery;
     this.api = api;
     this.healthMetrics = healthMetrics;
     this.monitoring = monitoring;
+    this.spill =
+        spillBufferSize > 0 ? new PayloadSpill(spillBufferSize, this::onEvictedPayload) : null;
+    this.timeSource = timeSource;
   }
 
   @Override
@@ -48,6 +93,10 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
     if (null != packer) {
       packer.flush();
     }
+    if (null != spill && !spill.isEmpty()) {
+      // replay even when there are no new traces
+      replaySpilled();
+    }
   }
 
   @Override
@@ -106,7 +155,17 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       Payload payload = newPayload(messageCount, buffer);
       final int sizeInBytes = payload.sizeInBytes();
       healthMetrics.onSerialize(sizeInBytes);
+      if (null != spill && !spill.isEmpty() && !replaySpilled()) {
+        // the agent is still unavailable, the payload waits behind the spilled ones
+        if (!spill.offer(payload)) {
+          healthMetrics.onFailedSend(messageCount, sizeInBytes, lastFailure);
+        }
+        mapper.reset();
+        return;
+      }
       RemoteApi.Response response = api.sendSerializedTraces(payload);
+      // the payload must be spilled before the mapper is reset
+      boolean spilled = !response.success() && spillFailed(payload, response);
       mapper.reset();
       if (response.success()) {
         if (log.isDebugEnabled()) {
@@ -120,15 +179,96 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       } else {
         if (log.isDebugEnabled()) {
           log.debug(
-              "Failed to send {} traces of size {} bytes to the API {} status {} response {}",
+              "Failed to send {} traces of size {} bytes to the API {} status {} response {}{}",
               messageCount,
               sizeInBytes,
               mapper.endpoint(),
               response.status(),
-              response.response());
+              response.response(),
+              spilled ? ", spilled until the agent is available" : "");
+        }
+        if (!spilled) {
+          healthMetrics.onFailedSend(messageCount, sizeInBytes, response);
         }
-        healthMetrics.onFailedSend(messageCount, sizeInBytes, response);
       }
     }
   }
+
+  private boolean spillFailed(Payload payload, RemoteApi.Response response) {
+    if (null == spill || !isAgentUnavailable(response)) {
+      return false;
+    }
+    lastFailure = response;
+    nextReplayNanos = timeSource.getNanoTicks() + replayBackoffNanos;
+    return spill.offer(payload);
+  }
+
+  /**
+   * Sends the spilled payloads, oldest first, until one fails while the agent is still unavailable.
+   * Replays are spaced with an exponential backoff, so the new payloads are spilled rather than
+   * waiting for the agent while it is down.
+   *
+   * @return whether all the spilled payloads were replayed.
+   */
+  private boolean replaySpilled() {
+    long now = timeSource.getNanoTicks();
+    if (now - nextReplayNanos < 0) {
+      return false;
+    }
+    Payload payload;
+    while (null != (payload = spill.peek())) {
+      int traceCount = payload.traceCount();
+      int sizeInBytes = payload.sizeInBytes();
+      RemoteApi.Response response = api.sendSerializedTraces(payload);
+      if (response.success()) {
+        healthMetrics.onSend(traceCount, sizeInBytes, response);
+      } else if (isAgentUnavailable(response)) {
+        lastFailure = response;
+        replayBackoffNanos = Math.min(replayBackoffNanos * 2, MAX_REPLAY_BACKOFF_NANOS);
+        nextReplayNanos = now + replayBackoffNanos;
+        return false;
+      } else {
+        // the agent rejected the payload, it would be rejected again
+        healthMetrics.onFailedSend(traceCount, sizeInBytes, response);
+      }
+      spill.remove();
+    }
+    log.debug("Replayed the spilled traces");
+    replayBackoffNanos = MIN_REPLAY_BACKOFF_NANOS;
+    return true;
+  }
+
+  /** Reports the spilled payloads that could not be replayed before shutdown as failed sends. */
+  @Override
+  public void onShutdown() {
+    if (null == spill) {
+      return;
+    }
+    Payload payload;
+    while (null != (payload = spill.peek())) {
+      healthMetrics.onFailedSend(payload.traceCount(), payload.sizeInBytes(), lastFailure);
+      spill.remove();
+    }
+  }
+
+  private void onEvictedPayload(int traceCount, int sizeInBytes) {
+    healthMetrics.onFailedSend(traceCount, sizeInBytes, lastFailure);
+  }
+
+  /**
+   * Whether the request failed because the agent is down or overloaded, rather than rejected. A 404
+   * is only reported without a response body when no agent was detected, a 404 from the agent means
+   * it does not serve the endpoint, and the payload would be rejected again when replayed.
+   */
+  private static boolean isAgentUnavailable(RemoteApi.Response response) {
+    OptionalInt status = response.status();
+    if (!status.isPresent()) {
+      return true;
+    }
+    int code = status.getAsInt();
+    return (code == 404 && null == response.response())
+        || code == 408
+        || code == 429
+        || code >= 500;
+  }
 }
@@ -0,0 +1,250 @@
+package datadog.trace.common.writer;
+
+import static datadog.communication.http.OkHttpUtils.msgpackRequestBodyOf;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import okhttp3.RequestBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded ring of serialized payloads, in a memory-mapped temporary file, holding the payloads
+ * that could not be sent while the agent is unavailable until they can be replayed.
+ *
+ * <p>Payloads are stored as they are sent, with their trace and dropped counts, and are replayed
+ * oldest first. When the byte budget is exhausted, the oldest payloads are evicted to make room for
+ * the newest ones. The file is only created when the first payload is spilled.
+ *
+ * <p>Not thread-safe: only used by the thread serializing the payloads.
+ */
+final class PayloadSpill {
+
+  private static final Logger log = LoggerFactory.getLogger(PayloadSpill.class);
+
+  /** Notified of the payloads evicted to make room for newer ones. */
+  interface EvictionListener {
+    void onEvicted(int traceCount, int sizeInBytes);
+  }
+
+  // payload size, trace count, dropped traces and dropped spans
+  static final int RECORD_HEADER_SIZE = 4 + 4 + 8 + 8;
+
+  private final int capacity;
+  private final EvictionListener evictionListener;
+
+  private ByteBuffer ring;
+  private boolean unavailable;
+
+  // records are in [head, tail), or in [head, limit) then [0, tail) once wrapped
+  private int head;
+  private int tail;
+  private int limit;
+  private boolean wrapped;
+  private int payloadCount;
+
+  PayloadSpill(int capacity, EvictionListener evictionListener) {
+    this.capacity = capacity;
+    this.evictionListener = evictionListener;
+    this.limit = capacity;
+  }
+
+  boolean isEmpty() {
+    return payloadCount == 0;
+  }
+
+  int payloadCount() {
+    return payloadCount;
+  }
+
+  /**
+   * Spills the payload, evicting the oldest payloads if needed.
+   *
+   * @return whether the payload was spilled, it is not when larger than the whole budget, or when
+   *     the file cannot be mapped.
+   */
+  boolean offer(Payload payload) {
+    int size = payload.sizeInBytes();
+    int recordSize = RECORD_HEADER_SIZE + size;
+    if (size <= 0 || recordSize > capacity || !map()) {
+      return false;
+    }
+    int position;
+    while ((position = reserve(recordSize)) < 0) {
+      ByteBuffer evicted = headRecord();
+      int traceCount = evicted.getInt(4);
+      int evictedSize = evicted.getInt(0);
+      removeHead();
+      evictionListener.onEvicted(traceCount, evictedSize);
+    }
+    ByteBuffer record = slice(position, recordSize);
+    record.position(RECORD_HEADER_SIZE);
+    try {
+      payload.writeTo(new BufferChannel(record));
+    } catch (IOException | RuntimeException e) {
+      log.debug("Failed to spill payload of {} traces", payload.traceCount(), e);
+      return false;
+    }
+    if (record.hasRemaining()) {
+      // the payload wrote less than its announced size, don't replay a truncated request
+      return false;
+    }
+    record
+        .putInt(0, size)
+        .putInt(4, payload.traceCount())
+        .putLong(8, payload.droppedTraces())
+        .putLong(16, payload.droppedSpans());
+    commit(position, recordSize);
+    return true;
+  }
+
+  /** Returns the oldest spilled payload, without removing it, {@code null} when empty. */
+  Payload peek() {
+    if (payloadCount == 0) {
+      return null;
+    }
+    ByteBuffer record = headRecord();
+    int size = record.getInt(0);
+    record.position(RECORD_HEADER_SIZE).limit(RECORD_HEADER_SIZE + size);
+    return new SpilledPayload()
+        .withBody(record.getInt(4), record.slice())
+        .withDroppedTraces(record.getLong(8))
+        .withDroppedSpans(record.getLong(16));
+  }
+
+  /** Removes the oldest spilled payload, once replayed. */
+  void remove() {
+    if (payloadCount > 0) {
+      removeHead();
+    }
+  }
+
+  private boolean map() {
+    if (null != ring) {
+      return true;
+    }
+    if (unavailable) {
+      return false;
+    }
+    try {
+      File file = File.createTempFile("dd-trace-spill-", ".bin");
+      file.deleteOnExit();
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+          FileChannel channel = raf.getChannel()) {
+        // the mapping remains valid once the channel is closed
+        ring = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      }
+      log.debug("Spilling traces to {} until the agent is available", file);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Failed to create the trace spill file, traces will be dropped instead", e);
+      unavailable = true;
+      return false;
+    }
+  }
+
+  /** Returns where to write a record of the given size, or -1 when the oldest must be evicted. */
+  private int reserve(int recordSize) {
+    if (payloadCount == 0) {
+      head = tail = 0;
+      limit = capacity;
+      wrapped = false;
+      return 0;
+    }
+    if (wrapped) {
+      return head - tail >= recordSize ? tail : -1;
+    }
+    if (capacity - tail >= recordSize) {
+      return tail;
+    }
+    return head >= recordSize ? 0 : -1;
+  }
+
+  private void commit(int position, int recordSize) {
+    if (payloadCount > 0 && !wrapped && position < tail) {
+      limit = tail;
+      wrapped = true;
+    }
+    tail = position + recordSize;
+    payloadCount++;
+  }
+
+  private ByteBuffer headRecord() {
+    int size = ring.getInt(head);
+    return slice(head, RECORD_HEADER_SIZE + size);
+  }
+
+  private void removeHead() {
+    head += RECORD_HEADER_SIZE + ring.getInt(head);
+    payloadCount--;
+    if (wrapped && head >= limit) {
+      head = 0;
+      limit = capacity;
+      wrapped = false;
+    }
+    if (payloadCount == 0) {
+      head = tail = 0;
+      limit = capacity;
+      wrapped = false;
+    }
+  }
+
+  private ByteBuffer slice(int position, int length) {
+    ByteBuffer slice = ring.duplicate();
+    slice.position(position).limit(position + length);
+    return slice.slice();
+  }
+
+  private static final class BufferChannel implements WritableByteChannel {
+    private final ByteBuffer target;
+
+    BufferChannel(ByteBuffer target) {
+      this.target = target;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      int written = src.remaining();
+      if (written > target.remaining()) {
+        throw new IOException("Payload larger than its announced size");
+      }
+      target.put(src);
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  /** A spilled payload, whose body is the whole request as it was to be sent. */
+  private static final class SpilledPayload extends Payload {
+
+    @Override
+    public int sizeInBytes() {
+      return body.remaining();
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+      ByteBuffer buffer = body.duplicate();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+
+    @Override
+    public RequestBody toRequest() {
+      return msgpackRequestBodyOf(Collections.singletonList(body.duplicate()));
+    }
+  }
+}
@@ -169,6 +169,7 @@ public class TraceProcessingWorker implements AutoCloseable {
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
       }
+      payloadDispatcher.onShutdown();
       log.debug(
           "Datadog trace processor exited. Publishing traces stopped. Unpublished traces left: {}",
           !queuesAreEmpty());
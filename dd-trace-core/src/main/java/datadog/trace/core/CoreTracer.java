@@ -218,6 +218,7 @@ public class CoreTracer implements AgentTracer.TracerAPI, TracerFlare.Reporter {
   private final DataStreamsMonitoring dataStreamsMonitoring;
   private final ExternalAgentLauncher externalAgentLauncher;
   private final boolean disableSamplingMechanismValidation;
+  private final boolean copyOnWriteSpanTags;
   private final TimeSource timeSource;
   private final ProfilingContextIntegration profilingContextIntegration;
   private final boolean injectBaggageAsTags;
@@ -759,6 +760,7 @@ public class CoreTracer implements AgentTracer.TracerAPI, TracerFlare.Reporter {
     externalAgentLauncher = new ExternalAgentLauncher(config);
 
     disableSamplingMechanismValidation = config.isSamplingMechanismValidationDisabled();
+    copyOnWriteSpanTags = config.isSpanTagsCopyOnWriteEnabled();
 
     if (sharedCommunicationObjects == null) {
       sharedCommunicationObjects = new SharedCommunicationObjects();
@@ -2018,14 +2020,17 @@ public class CoreTracer implements AgentTracer.TracerAPI, TracerFlare.Reporter {
 
       String parentServiceName = null;
       CharSequence serviceNameSource = MANUAL;
+      DDSpanContext localParent = null;
       // Propagate internal trace.
       // Note: if we are not in the context of distributed tracing, and we are starting the first
       // root span, parentSpanContext will be null at this point.
       if (resolvedParentSpanContext instanceof DDSpanContext) {
         final DDSpanContext ddsc = (DDSpanContext) resolvedParentSpanContext;
+        localParent = ddsc;
         traceId = ddsc.getTraceId();
         parentSpanId = ddsc.getSpanId();
-        baggage = ddsc.getBaggageItems();
+        // shared by reference once the context is built
+        baggage = null;
         w3cBaggage = null;
         parentTraceCollector = ddsc.getTraceCollector();
         samplingPriority = PrioritySampling.UNSET;
@@ -2050,7 +2055,8 @@ public class CoreTracer implements AgentTracer.TracerAPI, TracerFlare.Reporter {
           requestContextDataIast = null;
           ciVisibilityContextData = null;
         }
-        propagationTags = tracer.propagationTagsFactory.empty();
+        // the trace propagation tags live on the local root, the child creates its own on demand
+        propagationTags = null;
       } else {
         long endToEndStartTime;
 
@@ -2224,6 +2230,9 @@ public class CoreTracer implements AgentTracer.TracerAPI, TracerFlare.Reporter {
               tracer.injectBaggageAsTags,
               tracer.injectLinksAsTags,
               mergedTracerTagsNeedsIntercept ? null : mergedTracerTags);
+      if (localParent != null) {
+        context.inheritBaggage(localParent);
+      }
 
       // By setting the tags on the context we apply decorators to any tags that have been set via
       // the builder. This is the order that the tags were added previously, but maybe the `tags`
@@ -2248,6 +2257,11 @@ public class CoreTracer implements AgentTracer.TracerAPI, TracerFlare.Reporter {
       // the existing semantics where a builder-set version is replaced by the config version. Under
       // read-through this is a cheap local removal (version isn't in the parent, so no tombstone).
       context.removeTag(Tags.VERSION);
+      // Tags set while building go straight into the map, snapshots only start being published
+      // once the span is handed out
+      if (tracer.copyOnWriteSpanTags) {
+        context.enableCopyOnWriteTags();
+      }
       return context;
     }
   }
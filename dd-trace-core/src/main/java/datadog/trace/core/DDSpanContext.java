@@ -82,7 +82,12 @@ public class DDSpanContext
 
   private final TagInterceptor tagInterceptor;
 
-  /** Baggage is associated with the whole trace and shared with other spans */
+  /**
+   * Baggage is associated with the whole trace and shared with other spans.
+   *
+   * <p>The map is never modified once published, setting an item replaces it with an updated copy.
+   * This lets local children share the baggage of their parent by reference until they change it.
+   */
   private volatile Map<String, String> baggageItems;
 
   private final Baggage w3cBaggage;
@@ -135,9 +140,22 @@ public class DDSpanContext
    * threads, they will rarely, if ever, be read and modified concurrently by multiple threads but
    * rather read and accessed in a serial fashion on thread after thread. The synchronization can
    * then be wrapped around bulk operations to minimize the costly atomic operations.
+   *
+   * <p>The map is also the lock guarding it. When {@link #enableCopyOnWriteTags() copy-on-write}
+   * is enabled, writers still update it under that lock but then publish a frozen copy in {@link
+   * #tagSnapshot}, which readers use without locking.
    */
   private final TagMap unsafeTags;
 
+  /** Guarded by {@link #unsafeTags}. */
+  private boolean copyOnWriteTags;
+
+  /**
+   * Immutable copy of the tags as of the last update, only maintained in copy-on-write mode. Reads
+   * go to the snapshot so they never wait for a writer or for the span being serialized.
+   */
+  private volatile TagMap tagSnapshot;
+
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
 
@@ -177,7 +195,11 @@ public class DDSpanContext
 
   private final boolean disableSamplingMechanismValidation;
 
-  private final PropagationTags propagationTags;
+  /**
+   * Only created on first use for local children, which are given none: the propagation tags of a
+   * trace are read and updated on its local root span.
+   */
+  private volatile PropagationTags propagationTags;
 
   private volatile PathwayContext pathwayContext;
 
@@ -395,7 +417,7 @@ public class DDSpanContext
     if (baggageItems == null || baggageItems.isEmpty()) {
       this.baggageItems = EMPTY_BAGGAGE;
     } else {
-      this.baggageItems = new ConcurrentHashMap<>(baggageItems);
+      this.baggageItems = Collections.unmodifiableMap(new HashMap<>(baggageItems));
     }
     this.w3cBaggage = w3cBaggage;
 
@@ -434,11 +456,10 @@ public class DDSpanContext
     this.threadName = THREAD_NAMES.computeIfAbsent(current.getName(), Functions.UTF8_ENCODE);
 
     this.disableSamplingMechanismValidation = disableSamplingMechanismValidation;
-    this.propagationTags =
-        propagationTags != null
-            ? propagationTags
-            : traceCollector.getTracer().getPropagationTagsFactory().empty();
-    this.propagationTags.updateTraceIdHighOrderBits(this.traceId.toHighOrderLong());
+    this.propagationTags = propagationTags;
+    if (propagationTags != null) {
+      propagationTags.updateTraceIdHighOrderBits(this.traceId.toHighOrderLong());
+    }
     this.injectBaggageAsTags = injectBaggageAsTags;
     this.injectLinksAsTags = injectLinksAsTags;
     if (origin != null) {
@@ -447,7 +468,15 @@ public class DDSpanContext
     if (samplingPriority != PrioritySampling.UNSET) {
       setSamplingPriority(samplingPriority, SamplingMechanism.UNKNOWN);
     }
-    setTag(PARENT_ID, this.propagationTags.getLastParentId());
+    setTag(PARENT_ID, propagationTags != null ? propagationTags.getLastParentId() : null);
+  }
+
+  /**
+   * Shares the baggage of the local parent instead of copying it, as published baggage maps are
+   * never modified.
+   */
+  void inheritBaggage(final DDSpanContext parent) {
+    this.baggageItems = parent.getBaggageItems();
   }
 
   @Override
@@ -616,15 +645,15 @@ public class DDSpanContext
     // even if the old sampling priority and mechanism have already propagated
     SAMPLING_PRIORITY_UPDATER.set(this, PrioritySampling.USER_KEEP);
     // record force keep decision for future distributed trace propagation
-    propagationTags.forceKeep(samplingMechanism);
+    propagationTags().forceKeep(samplingMechanism);
   }
 
   public void addPropagatedTraceSource(final int value) {
-    propagationTags.addTraceSource(value);
+    propagationTags().addTraceSource(value);
   }
 
   public void updateDebugPropagation(String value) {
-    propagationTags.updateDebugPropagation(value);
+    propagationTags().updateDebugPropagation(value);
   }
 
   /**
@@ -657,7 +686,7 @@ public class DDSpanContext
     }
     if (SamplingMechanism.canAvoidSamplingPriorityLock(newPriority, newMechanism)) {
       SAMPLING_PRIORITY_UPDATER.set(this, newPriority);
-      propagationTags.updateTraceSamplingPriority(newPriority, newMechanism);
+      propagationTags().updateTraceSamplingPriority(newPriority, newMechanism);
       return true;
     }
     if (!SAMPLING_PRIORITY_UPDATER.compareAndSet(this, PrioritySampling.UNSET, newPriority)) {
@@ -671,7 +700,7 @@ public class DDSpanContext
       return false;
     }
     // set trace level sampling priority tag propagationTags
-    propagationTags.updateTraceSamplingPriority(newPriority, newMechanism);
+    propagationTags().updateTraceSamplingPriority(newPriority, newMechanism);
     return true;
   }
 
@@ -713,6 +742,7 @@ public class DDSpanContext
       if (limit != Integer.MAX_VALUE) {
         unsafeSetTag(SPAN_SAMPLING_MAX_PER_SECOND_TAG, limit);
       }
+      publishTags();
     }
   }
 
@@ -755,14 +785,11 @@ public class DDSpanContext
       log.debug("Try to set invalid baggage: key = {}, value = {}", key, value);
       return;
     }
-    if (baggageItems == EMPTY_BAGGAGE) {
-      synchronized (this) {
-        if (baggageItems == EMPTY_BAGGAGE) {
-          baggageItems = new ConcurrentHashMap<>(4);
-        }
-      }
+    synchronized (this) {
+      Map<String, String> items = new HashMap<>(baggageItems);
+      items.put(key, value);
+      baggageItems = Collections.unmodifiableMap(items);
     }
-    baggageItems.put(key, value);
   }
 
   public String getBaggageItem(final String key) {
@@ -867,6 +894,10 @@ public class DDSpanContext
       return SPAN_KIND_VALUES[ordinal];
     }
     // UNSET or CUSTOM -- fall through to tag map
+    TagMap snapshot = tagSnapshot;
+    if (snapshot != null) {
+      return snapshot.getString(Tags.SPAN_KIND);
+    }
     synchronized (unsafeTags) {
       return unsafeTags.getString(Tags.SPAN_KIND);
     }
@@ -875,36 +906,41 @@ public class DDSpanContext
   public void setOrigin(final CharSequence origin) {
     DDSpanContext context = getRootSpanContextOrThis();
     context.origin = origin;
-    context.propagationTags.updateTraceOrigin(origin);
+    context.propagationTags().updateTraceOrigin(origin);
   }
 
   public void setMetric(final CharSequence key, final Number value) {
     synchronized (unsafeTags) {
       unsafeSetTag(key.toString(), value);
+      publishTags();
     }
   }
 
   public void setMetric(final CharSequence key, final int value) {
     synchronized (unsafeTags) {
       unsafeTags.set(key.toString(), value);
+      publishTags();
     }
   }
 
   public void setMetric(final CharSequence key, final long value) {
     synchronized (unsafeTags) {
       unsafeTags.set(key.toString(), value);
+      publishTags();
     }
   }
 
   public void setMetric(final CharSequence key, final float value) {
     synchronized (unsafeTags) {
       unsafeTags.set(key.toString(), value);
+      publishTags();
     }
   }
 
   public void setMetric(final CharSequence key, final double value) {
     synchronized (unsafeTags) {
       unsafeTags.set(key.toString(), value);
+      publishTags();
     }
   }
 
@@ -915,6 +951,7 @@ public class DDSpanContext
 
     synchronized (unsafeTags) {
       unsafeTags.set(entry);
+      publishTags();
     }
   }
 
@@ -925,6 +962,7 @@ public class DDSpanContext
     }
     synchronized (unsafeTags) {
       unsafeTags.remove(tag);
+      publishTags();
     }
   }
 
@@ -946,6 +984,7 @@ public class DDSpanContext
     } else if (!tagInterceptor.interceptTag(this, tag, value)) {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, value);
+        publishTags();
       }
     }
   }
@@ -959,6 +998,7 @@ public class DDSpanContext
     } else if (!tagInterceptor.interceptTag(this, tag, value)) {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, value);
+        publishTags();
       }
     }
   }
@@ -975,6 +1015,7 @@ public class DDSpanContext
     if (!intercepted) {
       synchronized (unsafeTags) {
         unsafeTags.set(entry);
+        publishTags();
       }
     }
   }
@@ -1004,6 +1045,7 @@ public class DDSpanContext
     if (!tagInterceptor.interceptTag(this, tag, box)) {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, box);
+        publishTags();
       }
     }
   }
@@ -1017,6 +1059,7 @@ public class DDSpanContext
     } else {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, value);
+        publishTags();
       }
     }
   }
@@ -1030,6 +1073,7 @@ public class DDSpanContext
     } else {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, value);
+        publishTags();
       }
     }
   }
@@ -1044,6 +1088,7 @@ public class DDSpanContext
     if (!intercepted) {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, value);
+        publishTags();
       }
     }
   }
@@ -1057,6 +1102,7 @@ public class DDSpanContext
     } else {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, value);
+        publishTags();
       }
     }
   }
@@ -1070,6 +1116,7 @@ public class DDSpanContext
     } else {
       synchronized (unsafeTags) {
         unsafeTags.set(tag, value);
+        publishTags();
       }
     }
   }
@@ -1101,6 +1148,7 @@ public class DDSpanContext
       } else {
         unsafeTags.putAll(map);
       }
+      publishTags();
     }
   }
 
@@ -1128,6 +1176,7 @@ public class DDSpanContext
           }
         }
       }
+      publishTags();
     }
   }
 
@@ -1143,10 +1192,33 @@ public class DDSpanContext
             unsafeSetTag(tag.getKey(), tag.getValue());
           }
         }
+        publishTags();
       }
     }
   }
 
+  /**
+   * Publishes a new snapshot of the tags in copy-on-write mode. Must be called holding the lock on
+   * {@link #unsafeTags}, after modifying them; bulk updates call it once at the end.
+   */
+  private void publishTags() {
+    if (copyOnWriteTags) {
+      tagSnapshot = unsafeTags.immutableCopy();
+    }
+  }
+
+  /**
+   * Switches the tags to copy-on-write: every update then publishes an immutable snapshot, and
+   * reads use the latest snapshot without taking the lock. This makes writes more expensive, so it
+   * is only worth it when the span is read and decorated from several threads at the same time.
+   */
+  void enableCopyOnWriteTags() {
+    synchronized (unsafeTags) {
+      copyOnWriteTags = true;
+      tagSnapshot = unsafeTags.immutableCopy();
+    }
+  }
+
   void unsafeSetTag(final String tag, final Object value) {
     unsafeTags.set(tag, value);
   }
@@ -1176,8 +1248,13 @@ public class DDSpanContext
         return getSpanKindString();
       default:
         Object value;
-        synchronized (unsafeTags) {
-          value = unsafeGetTag(key);
+        TagMap snapshot = tagSnapshot;
+        if (snapshot != null) {
+          value = snapshot.getObject(key);
+        } else {
+          synchronized (unsafeTags) {
+            value = unsafeGetTag(key);
+          }
         }
         // maintain previously observable type of http url :|
         return value == null ? null : Tags.HTTP_URL.equals(key) ? value.toString() : value;
@@ -1188,6 +1265,9 @@ public class DDSpanContext
    * This is not thread-safe and must only be used when it can be guaranteed that the context will
    * not be mutated. This is internal API and must not be exposed to users.
    *
+   * <p>Always reads the live tags, even in copy-on-write mode, so that interceptors see the tags
+   * set earlier in the same bulk update before the snapshot is published.
+   *
    * @param tag
    * @return the value associated with the tag
    */
@@ -1249,6 +1329,7 @@ public class DDSpanContext
   void earlyProcessTags(AppendableSpanLinks links) {
     synchronized (unsafeTags) {
       TagsPostProcessorFactory.eagerProcessor().processTags(unsafeTags, this, links);
+      publishTags();
     }
   }
 
@@ -1260,7 +1341,7 @@ public class DDSpanContext
         restrictedSpan,
         injectLinksAsTags,
         injectBaggageAsTags,
-        propagationTags);
+        propagationTags());
   }
 
   void processTagsAndBaggage(
@@ -1289,7 +1370,7 @@ public class DDSpanContext
         restrictedSpan,
         false, // injectLinksAsTags
         injectBaggageAsTags,
-        propagationTags);
+        propagationTags());
   }
 
   void processTagsAndBaggageWithStructuredLinks(
@@ -1329,16 +1410,22 @@ public class DDSpanContext
           unsafeTags.set(SPAN_LINKS, linksTag);
         }
       }
+      publishTags();
 
       // Baggage
       Map<String, String> baggageItemsWithPropagationTags;
       if (injectBaggageAsTags) {
-        baggageItemsWithPropagationTags = new HashMap<>(baggageItems);
-        if (w3cBaggage != null) {
-          injectW3CBaggageTags(baggageItemsWithPropagationTags);
-        }
-        if (serializedPropagationTags != null) {
-          serializedPropagationTags.fillTagMap(baggageItemsWithPropagationTags);
+        if (w3cBaggage == null && serializedPropagationTags == null) {
+          // nothing to add, and the baggage map is never modified
+          baggageItemsWithPropagationTags = baggageItems;
+        } else {
+          baggageItemsWithPropagationTags = new HashMap<>(baggageItems);
+          if (w3cBaggage != null) {
+            injectW3CBaggageTags(baggageItemsWithPropagationTags);
+          }
+          if (serializedPropagationTags != null) {
+            serializedPropagationTags.fillTagMap(baggageItemsWithPropagationTags);
+          }
         }
       } else {
         baggageItemsWithPropagationTags =
@@ -1489,7 +1576,22 @@ public class DDSpanContext
   }
 
   public PropagationTags getPropagationTags() {
-    return getRootSpanContextOrThis().propagationTags;
+    return getRootSpanContextOrThis().propagationTags();
+  }
+
+  private PropagationTags propagationTags() {
+    PropagationTags tags = propagationTags;
+    if (tags == null) {
+      synchronized (this) {
+        tags = propagationTags;
+        if (tags == null) {
+          tags = traceCollector.getTracer().getPropagationTagsFactory().empty();
+          tags.updateTraceIdHighOrderBits(traceId.toHighOrderLong());
+          propagationTags = tags;
+        }
+      }
+    }
+    return tags;
   }
 
   /** TraceSegment Implementation */
@@ -7,6 +7,7 @@ import static datadog.trace.bootstrap.instrumentation.api.AgentSpan.fromSpanCont
 import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.traceConfig;
 
 import datadog.context.Context;
+import datadog.context.propagation.BinaryCarrierSetter;
 import datadog.context.propagation.CarrierSetter;
 import datadog.context.propagation.CarrierVisitor;
 import datadog.context.propagation.Propagator;
@@ -58,9 +59,19 @@ public class DataStreamsPropagator implements Propagator {
     }
   }
 
+  @SuppressWarnings("unchecked")
   private <C> boolean injectPathwayContext(
       PathwayContext pathwayContext, C carrier, CarrierSetter<C> setter) {
     try {
+      if (setter instanceof BinaryCarrierSetter) {
+        // byte-native carriers get the encoded bytes without a round-trip through String
+        byte[] encodedContext = pathwayContext.encodeBytes();
+        if (encodedContext != null) {
+          ((BinaryCarrierSetter<C>) setter).set(carrier, PROPAGATION_KEY_BASE64, encodedContext);
+          return true;
+        }
+        return false;
+      }
       String encodedContext = pathwayContext.encode();
       if (encodedContext != null) {
         // LOGGER.debug("Injecting pathway context {}", pathwayContext);
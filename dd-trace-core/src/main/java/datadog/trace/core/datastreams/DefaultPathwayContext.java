@@ -7,6 +7,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import com.datadoghq.sketch.ddsketch.encoding.ByteArrayInput;
 import com.datadoghq.sketch.ddsketch.encoding.GrowingByteArrayOutput;
 import com.datadoghq.sketch.ddsketch.encoding.VarEncodingHelper;
+import datadog.context.propagation.BinaryCarrierVisitor;
 import datadog.context.propagation.CarrierVisitor;
 import datadog.trace.api.datastreams.DataStreamsContext;
 import datadog.trace.api.datastreams.DataStreamsTags;
@@ -16,6 +17,7 @@ import datadog.trace.api.time.TimeSource;
 import datadog.trace.util.FNV64Hash;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Base64;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -153,12 +155,17 @@ public class DefaultPathwayContext implements PathwayContext {
     return this.savedStats;
   }
 
+  @Override
+  public String encode() throws IOException {
+    return new String(encodeBytes(), ISO_8859_1);
+  }
+
   @Override
   @SuppressFBWarnings(
       value = "USO_UNSAFE_METHOD_SYNCHRONIZATION",
       justification =
           "Agent-internal pathway object; instances do not escape to application code that could synchronize on the monitor.")
-  public synchronized String encode() throws IOException {
+  public synchronized byte[] encodeBytes() throws IOException {
     if (!started) {
       throw new IllegalStateException("Context must be started to encode");
     }
@@ -174,8 +181,10 @@ public class DefaultPathwayContext implements PathwayContext {
             + TimeUnit.NANOSECONDS.toMillis(edgeStartNanoTicks - pathwayStartNanoTicks);
 
     VarEncodingHelper.encodeSignedVarLong(outputBuffer, edgeStartMillis);
-    byte[] base64 = Base64.getEncoder().encode(outputBuffer.trimmedCopy());
-    return new String(base64, ISO_8859_1);
+    // encode straight from the reused buffer, the result is sized to the encoded length
+    return Base64.getEncoder()
+        .encode(ByteBuffer.wrap(outputBuffer.backingArray(), 0, outputBuffer.numWrittenBytes()))
+        .array();
   }
 
   @Override
@@ -201,10 +210,10 @@ public class DefaultPathwayContext implements PathwayContext {
     }
   }
 
-  private static class PathwayContextExtractor implements BiConsumer<String, String> {
-    private final TimeSource timeSource;
-    private final String serviceNameOverride;
-    private DefaultPathwayContext extractedContext;
+  private abstract static class PathwayContextExtractor<V> implements BiConsumer<String, V> {
+    final TimeSource timeSource;
+    final String serviceNameOverride;
+    DefaultPathwayContext extractedContext;
 
     PathwayContextExtractor(TimeSource timeSource, String serviceNameOverride) {
       this.timeSource = timeSource;
@@ -212,21 +221,56 @@ public class DefaultPathwayContext implements PathwayContext {
     }
 
     @Override
-    public void accept(String key, String value) {
+    public void accept(String key, V value) {
       if (value != null && PROPAGATION_KEY_BASE64.equalsIgnoreCase(key)) {
         try {
-          extractedContext = decode(timeSource, serviceNameOverride, value);
+          extractedContext = decode(value);
         } catch (Throwable ignored) {
         }
       }
     }
+
+    abstract DefaultPathwayContext decode(V value) throws IOException;
   }
 
+  private static final class TextPathwayContextExtractor extends PathwayContextExtractor<String> {
+    TextPathwayContextExtractor(TimeSource timeSource, String serviceNameOverride) {
+      super(timeSource, serviceNameOverride);
+    }
+
+    @Override
+    DefaultPathwayContext decode(String value) throws IOException {
+      return DefaultPathwayContext.decode(timeSource, serviceNameOverride, value);
+    }
+  }
+
+  private static final class BinaryPathwayContextExtractor
+      extends PathwayContextExtractor<byte[]> {
+    BinaryPathwayContextExtractor(TimeSource timeSource, String serviceNameOverride) {
+      super(timeSource, serviceNameOverride);
+    }
+
+    @Override
+    DefaultPathwayContext decode(byte[] value) throws IOException {
+      return DefaultPathwayContext.decode(timeSource, serviceNameOverride, value);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
   static <C> DefaultPathwayContext extract(
       C carrier, CarrierVisitor<C> getter, TimeSource timeSource, String serviceNameOverride) {
-    PathwayContextExtractor extractor =
-        new PathwayContextExtractor(timeSource, serviceNameOverride);
-    getter.forEachKeyValue(carrier, extractor);
+    PathwayContextExtractor<?> extractor;
+    if (getter instanceof BinaryCarrierVisitor) {
+      BinaryPathwayContextExtractor binaryExtractor =
+          new BinaryPathwayContextExtractor(timeSource, serviceNameOverride);
+      ((BinaryCarrierVisitor<C>) getter).forEachKeyBinaryValue(carrier, binaryExtractor);
+      extractor = binaryExtractor;
+    } else {
+      TextPathwayContextExtractor textExtractor =
+          new TextPathwayContextExtractor(timeSource, serviceNameOverride);
+      getter.forEachKeyValue(carrier, textExtractor);
+      extractor = textExtractor;
+    }
     if (extractor.extractedContext == null) {
       log.debug("No context extracted");
     } else {
@@ -237,9 +281,12 @@ public class DefaultPathwayContext implements PathwayContext {
 
   protected static DefaultPathwayContext decode(
       TimeSource timeSource, String serviceNameOverride, String base64) throws IOException {
-    byte[] base64Bytes = base64.getBytes(UTF_8);
-    byte[] bytes = Base64.getDecoder().decode(base64Bytes);
-    ByteArrayInput input = ByteArrayInput.wrap(bytes);
+    return decode(timeSource, serviceNameOverride, base64.getBytes(UTF_8));
+  }
+
+  protected static DefaultPathwayContext decode(
+      TimeSource timeSource, String serviceNameOverride, byte[] base64) throws IOException {
+    ByteArrayInput input = ByteArrayInput.wrap(Base64.getDecoder().decode(base64));
 
     long hash = input.readLongLE();
 
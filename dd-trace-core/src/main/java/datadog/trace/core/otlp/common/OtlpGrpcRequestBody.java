@@ -41,8 +41,9 @@ public final class OtlpGrpcRequestBody extends RequestBody {
   public void writeTo(@Nonnull BufferedSink sink) throws IOException {
     if (gzip) {
       try (Buffer gzipBody = new Buffer()) {
+        // the compressed length goes in the frame header, so compress before writing the frame
         try (BufferedSink gzipSink = Okio.buffer(new GzipSink(gzipBody))) {
-          gzipSink.write(payload.getContent());
+          payload.writeTo(gzipSink);
         }
         sink.writeByte(COMPRESSED_FLAG);
         long gzipLength = gzipBody.size();
@@ -52,7 +53,7 @@ public final class OtlpGrpcRequestBody extends RequestBody {
     } else {
       sink.writeByte(UNCOMPRESSED_FLAG);
       sink.writeInt(payload.getContentLength());
-      sink.write(payload.getContent());
+      payload.writeTo(sink);
     }
   }
 }
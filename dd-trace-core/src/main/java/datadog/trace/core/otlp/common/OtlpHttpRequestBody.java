@@ -34,11 +34,12 @@ public final class OtlpHttpRequestBody extends RequestBody {
   @Override
   public void writeTo(@Nonnull BufferedSink sink) throws IOException {
     if (gzip) {
+      // compress chunks as they are written, without staging the full payload
       try (BufferedSink gzipSink = Okio.buffer(new GzipSink(sink))) {
-        gzipSink.write(payload.getContent());
+        payload.writeTo(gzipSink);
       }
     } else {
-      sink.write(payload.getContent());
+      payload.writeTo(sink);
     }
   }
 }
@@ -1,6 +1,8 @@
 package datadog.trace.core.otlp.common;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import okio.BufferedSink;
 
 public final class OtlpPayload {
   public static final String PROTOBUF_CONTENT_TYPE = "application/x-protobuf";
@@ -8,20 +10,56 @@ public final class OtlpPayload {
 
   public static final OtlpPayload EMPTY = new OtlpPayload(ByteBuffer.allocate(0), "");
 
-  private final ByteBuffer content;
+  private final ByteBuffer[] chunks;
   private final int contentLength;
   private final String contentType;
 
   public OtlpPayload(ByteBuffer content, String contentType) {
-    this.content = content;
-    this.contentLength = content.remaining();
+    this(new ByteBuffer[] {content}, content.remaining(), contentType);
+  }
+
+  /**
+   * @param chunks chunks of content, in payload order
+   * @param contentLength total number of bytes remaining in the chunks
+   * @param contentType the payload's media type
+   */
+  OtlpPayload(ByteBuffer[] chunks, int contentLength, String contentType) {
+    this.chunks = chunks;
+    this.contentLength = contentLength;
     this.contentType = contentType;
   }
 
+  /**
+   * Returns the content as a single read-only buffer.
+   *
+   * <p>Chunked content is copied into a new buffer, use {@link #writeTo(BufferedSink)} to send it.
+   */
   public ByteBuffer getContent() {
+    if (chunks.length == 1) {
+      return chunks[0].asReadOnlyBuffer();
+    }
+    ByteBuffer content = ByteBuffer.allocate(contentLength);
+    for (ByteBuffer chunk : chunks) {
+      content.put(chunk.duplicate());
+    }
+    content.flip();
     return content.asReadOnlyBuffer();
   }
 
+  /**
+   * Writes the content chunk by chunk to the given sink, without copying it first.
+   *
+   * <p>Can be called more than once, for example when the request is retried.
+   */
+  public void writeTo(BufferedSink sink) throws IOException {
+    for (ByteBuffer chunk : chunks) {
+      ByteBuffer content = chunk.duplicate();
+      while (content.hasRemaining()) {
+        sink.write(content);
+      }
+    }
+  }
+
   public int getContentLength() {
     return contentLength;
   }
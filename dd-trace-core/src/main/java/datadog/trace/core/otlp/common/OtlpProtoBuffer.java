@@ -8,35 +8,55 @@ import static datadog.trace.util.BitUtils.nextPowerOfTwo;
 
 import datadog.communication.serialization.GrowableBuffer;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 
 /**
- * Growable buffer optimized for prepending protobuf messages. This buffer doesn't have a bounded
- * length, and grows linearly. It should only be used to serialize bounded data structures.
+ * Chunked buffer optimized for prepending protobuf messages. This buffer doesn't have a bounded
+ * number of chunks, but each payload is limited to {@link #MAX_CAPACITY_BYTES}. It should only be
+ * used to serialize bounded data structures.
  *
  * <p>Messages appear in the final payload in reverse insertion order.
  *
+ * <p>Messages are prepended into fixed-size direct chunks. When the current chunk is full a new one
+ * is started in front of it, so growing never copies previously recorded content. Chunks are
+ * handed to the payload as-is and recycled by {@link #reset()}; messages larger than a chunk get a
+ * dedicated chunk which is not recycled.
+ *
  * @see GrowableBuffer
  */
 public final class OtlpProtoBuffer {
   // hard limit to avoid unbounded buffering; matches OTLP spec's recommended default
   public static final int MAX_CAPACITY_BYTES = 64 << 20; // 64 MiB
 
-  private final int initialCapacity;
+  // upper bound on the chunks kept around between collections
+  private static final int MAX_POOLED_BYTES = 2 << 20; // 2 MiB
+
+  private static final ByteBuffer[] NO_CHUNKS = {};
+
+  private final int chunkSize;
+  private final int maxPooledChunks;
+  private final ArrayDeque<ByteBuffer> pooledChunks = new ArrayDeque<>();
+
+  // chunks in insertion order; the last one is the current chunk, which appears first in payloads
+  private ByteBuffer[] chunks = new ByteBuffer[8];
+  private int chunkCount;
+
   private ByteBuffer buffer;
   private int remaining;
+  private int size;
 
   public OtlpProtoBuffer(int requiredCapacity) {
-    this.initialCapacity = nextPowerOfTwo(requiredCapacity);
-    if (this.initialCapacity > MAX_CAPACITY_BYTES) {
+    this.chunkSize = nextPowerOfTwo(requiredCapacity);
+    if (this.chunkSize > MAX_CAPACITY_BYTES) {
       throw new IllegalArgumentException(
           "OTLP payload initial capacity of "
-              + this.initialCapacity
+              + this.chunkSize
               + " bytes exceeds maximum buffer size of "
               + MAX_CAPACITY_BYTES
               + " bytes");
     }
-    this.buffer = ByteBuffer.allocate(initialCapacity);
-    this.remaining = initialCapacity;
+    this.maxPooledChunks = Math.max(1, MAX_POOLED_BYTES / chunkSize);
   }
 
   /**
@@ -66,9 +86,10 @@ public final class OtlpProtoBuffer {
       int length = messageSize + bytesSoFar;
       int tag = fieldNum << 3 | LEN_WIRE_TYPE;
       int numBytes = sizeVarInt(tag) + sizeVarInt(length) + messageSize;
-      // grow the buffer to fit the incoming content
+      // make sure the current chunk can fit the incoming content
       checkCapacity(numBytes);
       remaining -= numBytes;
+      size += numBytes;
       // reposition so we can write the encoded message
       buffer.position(remaining);
       // write the usual prelude
@@ -90,10 +111,11 @@ public final class OtlpProtoBuffer {
    * @return overall size of the message in bytes
    */
   public int recordMessage(byte[] bytes) {
-    // grow the buffer to fit the incoming content
+    // make sure the current chunk can fit the incoming content
     int numBytes = bytes.length;
     checkCapacity(numBytes);
     remaining -= numBytes;
+    size += numBytes;
     // reposition so we can write the cached message
     buffer.position(remaining);
     buffer.put(bytes);
@@ -101,15 +123,31 @@ public final class OtlpProtoBuffer {
     return numBytes;
   }
 
-  /** Flips the buffer, returning the protobuf encoded content for reading. */
+  /**
+   * Flips the buffer, returning the protobuf encoded content for reading.
+   *
+   * <p>Content spread over several chunks is copied into a single buffer, prefer {@link
+   * #toPayload()} when sending the content.
+   */
   public ByteBuffer flip() {
+    if (chunkCount == 0) {
+      return ByteBuffer.allocate(0);
+    }
     buffer.position(remaining);
-    return buffer;
+    if (chunkCount == 1) {
+      return buffer;
+    }
+    ByteBuffer content = ByteBuffer.allocate(size);
+    for (int i = chunkCount - 1; i >= 0; i--) {
+      content.put(chunks[i].duplicate());
+    }
+    content.flip();
+    return content;
   }
 
   /** Returns the number of bytes currently recorded in the buffer. */
   public int sizeInBytes() {
-    return buffer.capacity() - remaining;
+    return size;
   }
 
   /**
@@ -118,7 +156,16 @@ public final class OtlpProtoBuffer {
    * <p>This payload is only valid for the calling thread until the next collection.
    */
   public OtlpPayload toPayload() {
-    return new OtlpPayload(flip(), PROTOBUF_CONTENT_TYPE);
+    if (chunkCount == 0) {
+      return new OtlpPayload(NO_CHUNKS, 0, PROTOBUF_CONTENT_TYPE);
+    }
+    buffer.position(remaining);
+    // the most recently started chunk holds the start of the payload
+    ByteBuffer[] content = new ByteBuffer[chunkCount];
+    for (int i = 0; i < chunkCount; i++) {
+      content[i] = chunks[chunkCount - 1 - i].asReadOnlyBuffer();
+    }
+    return new OtlpPayload(content, size, PROTOBUF_CONTENT_TYPE);
   }
 
   /**
@@ -127,36 +174,52 @@ public final class OtlpProtoBuffer {
    * <p>This does not affect the active payload, which remains valid until the next collection.
    */
   public void reset() {
-    if (buffer.capacity() > initialCapacity) {
-      buffer = ByteBuffer.allocate(initialCapacity);
+    for (int i = 0; i < chunkCount; i++) {
+      ByteBuffer chunk = chunks[i];
+      if (chunk.capacity() == chunkSize && pooledChunks.size() < maxPooledChunks) {
+        pooledChunks.push(chunk);
+      }
+      chunks[i] = null;
     }
-    remaining = buffer.capacity();
+    chunkCount = 0;
+    buffer = null;
+    remaining = 0;
+    size = 0;
   }
 
-  /** Grows the buffer to ensure the required number of bytes can be prepended. */
+  /** Starts a new chunk if the required number of bytes can't be prepended to the current one. */
   private void checkCapacity(int required) {
-    if (remaining < required) {
-      ByteBuffer oldBuffer = flip();
-      int oldSize = oldBuffer.remaining();
-      // round up to next multiple of initialCapacity that can accommodate required
-      // (uses long arithmetic so overflow can be detected before allocating)
-      long newSize = ((long) oldSize + required + initialCapacity - 1) & -initialCapacity;
-      if (newSize > MAX_CAPACITY_BYTES) {
+    if (buffer == null || remaining < required) {
+      // uses long arithmetic so overflow can be detected before allocating
+      if ((long) size + required > MAX_CAPACITY_BYTES) {
         throw new IllegalStateException(
             "OTLP payload exceeds maximum buffer size of "
                 + MAX_CAPACITY_BYTES
                 + " bytes: "
-                + oldSize
+                + size
                 + " bytes buffered, "
                 + required
                 + " more requested");
       }
-      ByteBuffer newBuffer = ByteBuffer.allocate((int) newSize);
-      // copy over old content so it stays at the far end
-      remaining = (int) newSize - oldSize;
-      newBuffer.position(remaining);
-      newBuffer.put(oldBuffer);
-      buffer = newBuffer;
+      if (buffer != null) {
+        // freeze the content start of the full chunk, payloads read it from there
+        buffer.position(remaining);
+      }
+      buffer = required <= chunkSize ? nextChunk() : ByteBuffer.allocate(required);
+      remaining = buffer.capacity();
+      if (chunkCount == chunks.length) {
+        chunks = Arrays.copyOf(chunks, chunkCount << 1);
+      }
+      chunks[chunkCount++] = buffer;
+    }
+  }
+
+  private ByteBuffer nextChunk() {
+    ByteBuffer chunk = pooledChunks.poll();
+    if (chunk == null) {
+      chunk = ByteBuffer.allocateDirect(chunkSize);
     }
+    chunk.clear();
+    return chunk;
   }
 }
@@ -24,6 +24,7 @@ import datadog.trace.api.TraceConfig;
 import datadog.trace.api.TracePropagationStyle;
 import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
+import datadog.trace.api.http.HeaderTagMatcher;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.ActiveSubsystems;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
@@ -39,7 +40,9 @@ import java.util.TreeMap;
 public abstract class ContextInterpreter implements AgentPropagation.KeyClassifier {
   private TraceConfig traceConfig;
 
-  protected Map<String, String> headerTags;
+  private static final HeaderTagMatcher.Cache HEADER_TAGS = new HeaderTagMatcher.Cache();
+
+  protected HeaderTagMatcher headerTags;
   protected Map<String, String> baggageMapping;
 
   protected DDTraceId traceId;
@@ -196,8 +199,7 @@ public abstract class ContextInterpreter implements AgentPropagation.KeyClassifi
     if (headerTags.isEmpty() || value == null) {
       return false;
     }
-    final String lowerCaseKey = toLowerCase(key);
-    final String mappedKey = headerTags.get(lowerCaseKey);
+    final String mappedKey = headerTags.tagFor(key);
     if (null != mappedKey) {
       tagLedger()
           .set(
@@ -241,7 +243,7 @@ public abstract class ContextInterpreter implements AgentPropagation.KeyClassifi
         this.clientIpWithoutAppSec
             || this.clientIpResolutionEnabled
                 && (ActiveSubsystems.APPSEC_ACTIVE || this.aiGuardEnabled);
-    headerTags = traceConfig.getRequestHeaderTags();
+    headerTags = HEADER_TAGS.get(traceConfig.getRequestHeaderTags());
     baggageMapping = traceConfig.getBaggageMapping();
     propagationTags = null;
     lastParentId = null;
@@ -2,7 +2,6 @@ package datadog.trace.core.util;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.regex.Pattern;
 
 public final class Matchers {
   public static final Matcher ANY = new AnyMatcher();
@@ -15,9 +14,7 @@ public final class Matchers {
     } else if (isExact(glob)) {
       return new InsensitiveEqualsMatcher(glob);
     } else {
-      // DQH - not sure about the error handling here
-      Pattern pattern = GlobPattern.globToRegexPattern(glob);
-      return new PatternMatcher(pattern);
+      return new GlobMatcher(glob);
     }
   }
 
@@ -143,21 +140,85 @@ public final class Matchers {
     }
   }
 
-  static final class PatternMatcher extends BaseMatcher {
-    private final Pattern pattern;
+  /**
+   * Matches a glob with {@code *} and {@code ?} wildcards by walking the glob and the text once,
+   * backtracking only to the last {@code *}, instead of going through a regular expression.
+   *
+   * <p>Keeps the semantics of the regular expression the glob used to be translated to: letters are
+   * compared ignoring ASCII case, wildcards match whole code points but not line terminators.
+   */
+  static final class GlobMatcher extends BaseMatcher {
+    private final String glob;
 
-    PatternMatcher(Pattern pattern) {
-      this.pattern = pattern;
+    GlobMatcher(String glob) {
+      this.glob = glob;
     }
 
     @Override
-    public boolean matches(CharSequence charSeq) {
-      return pattern.matcher(charSeq).matches();
+    public boolean matches(String str) {
+      return matches((CharSequence) str);
     }
 
     @Override
-    public boolean matches(String str) {
-      return pattern.matcher(str).matches();
+    public boolean matches(CharSequence charSeq) {
+      final String glob = this.glob;
+      int globLen = glob.length();
+      int textLen = charSeq.length();
+      int g = 0;
+      int t = 0;
+      // position after the last '*' seen, and the text position it is currently matched up to
+      int starG = -1;
+      int starT = 0;
+      while (t < textLen) {
+        if (g < globLen) {
+          char globChar = glob.charAt(g);
+          char textChar = charSeq.charAt(t);
+          if (globChar == '*') {
+            starG = ++g;
+            starT = t;
+            continue;
+          } else if (globChar == '?') {
+            if (!isLineTerminator(textChar)) {
+              g++;
+              t = nextCodePoint(charSeq, t, textLen);
+              continue;
+            }
+          } else if (globChar == textChar || equalsIgnoreAsciiCase(globChar, textChar)) {
+            g++;
+            t++;
+            continue;
+          }
+        }
+        // mismatch: let the last '*' swallow one more code point and retry from there
+        if (starG < 0 || isLineTerminator(charSeq.charAt(starT))) {
+          return false;
+        }
+        starT = nextCodePoint(charSeq, starT, textLen);
+        g = starG;
+        t = starT;
+      }
+      while (g < globLen && glob.charAt(g) == '*') {
+        g++;
+      }
+      return g == globLen;
+    }
+
+    private static int nextCodePoint(CharSequence charSeq, int index, int length) {
+      if (Character.isHighSurrogate(charSeq.charAt(index))
+          && index + 1 < length
+          && Character.isLowSurrogate(charSeq.charAt(index + 1))) {
+        return index + 2;
+      }
+      return index + 1;
+    }
+
+    private static boolean isLineTerminator(char c) {
+      return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean equalsIgnoreAsciiCase(char a, char b) {
+      int lowerA = a | 0x20;
+      return lowerA == (b | 0x20) && lowerA >= 'a' && lowerA <= 'z';
     }
   }
 }
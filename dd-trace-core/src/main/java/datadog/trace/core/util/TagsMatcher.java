@@ -23,6 +23,10 @@ public final class TagsMatcher {
     this.matchers = matchers;
   }
 
+  public boolean isEmpty() {
+    return matchers.isEmpty();
+  }
+
   public <T extends CoreSpan<T>> boolean matches(T span) {
     for (Map.Entry<String, Matcher> entry : matchers.entrySet()) {
       String tag = entry.getKey();
@@ -35,7 +35,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import okhttp3.RequestBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +43,12 @@ public class LLMObsSpanMapper implements RemoteMapper {
 
   private static final boolean[] NO_DROPPED_SPANS = new boolean[0];
 
+  // Message contents, document texts, tool results and IO values of a span are capped so that a
+  // span with huge prompts or completions is truncated instead of overflowing the payload, which
+  // would drop the whole trace.
+  static final int DEFAULT_MAX_CONTENT_BYTES = 1024 * 1024;
+  static final String TRUNCATED_SUFFIX = "... [truncated]";
+
   // Well known tags for LLM obs will be prefixed with _ml_obs_(tags|metrics).
   // Prefix for tags
   private static final String LLMOBS_TAG_PREFIX = "_ml_obs_tag.";
@@ -106,7 +111,7 @@ public class LLMObsSpanMapper implements RemoteMapper {
   private static final String SESSION_ID_TAG_INTERNAL_FULL =
       LLMOBS_TAG_PREFIX + LLMObsTags.SESSION_ID;
 
-  private final MetaWriter metaWriter = new MetaWriter();
+  private final MetaWriter metaWriter;
   private final int size;
 
   private final ByteBuffer header;
@@ -114,11 +119,12 @@ public class LLMObsSpanMapper implements RemoteMapper {
   private int spansWritten;
 
   public LLMObsSpanMapper() {
-    this(EvpProxy.PAYLOAD_SIZE_LIMIT_BYTES);
+    this(EvpProxy.PAYLOAD_SIZE_LIMIT_BYTES, DEFAULT_MAX_CONTENT_BYTES);
   }
 
-  private LLMObsSpanMapper(int size) {
+  LLMObsSpanMapper(int size, int maxContentBytes) {
     this.size = size;
+    this.metaWriter = new MetaWriter(maxContentBytes);
 
     GrowableBuffer header = new GrowableBuffer(64);
     MsgPackWriter headerWriter = new MsgPackWriter(header);
@@ -144,10 +150,8 @@ public class LLMObsSpanMapper implements RemoteMapper {
       pendingDroppedSpans = null;
     }
 
-    List<? extends CoreSpan<?>> llmobsSpans =
-        trace.stream().filter(LLMObsSpanMapper::isLLMObsSpan).collect(Collectors.toList());
-
-    if (llmobsSpans.isEmpty()) {
+    List<? extends CoreSpan<?>> llmobsSpans = llmObsSpans(trace);
+    if (llmobsSpans == null) {
       // do nothing if no llmobs spans in the trace
       return;
     }
@@ -222,6 +226,21 @@ public class LLMObsSpanMapper implements RemoteMapper {
     pendingDroppedSpans = null;
   }
 
+  /** Returns the LLMObs spans of the trace, or {@code null} without allocating if there is none. */
+  private static List<CoreSpan<?>> llmObsSpans(List<? extends CoreSpan<?>> trace) {
+    List<CoreSpan<?>> llmobsSpans = null;
+    for (int i = 0; i < trace.size(); i++) {
+      CoreSpan<?> span = trace.get(i);
+      if (isLLMObsSpan(span)) {
+        if (llmobsSpans == null) {
+          llmobsSpans = new ArrayList<>(trace.size() - i);
+        }
+        llmobsSpans.add(span);
+      }
+    }
+    return llmobsSpans;
+  }
+
   private List<? extends CoreSpan<?>> processSpans(
       List<? extends CoreSpan<?>> spans, boolean retry) {
     if (retry && pendingDroppedSpans != null) {
@@ -331,8 +350,11 @@ public class LLMObsSpanMapper implements RemoteMapper {
 
   private static final class MetaWriter implements MetadataConsumer {
 
+    private final int maxContentBytes;
+
     private Writable writable;
     private Map<String, String> errorInfo;
+    private int contentBytesLeft;
 
     private static final Set<String> TAGS_FOR_REMAPPING =
         Collections.unmodifiableSet(
@@ -347,9 +369,14 @@ public class LLMObsSpanMapper implements RemoteMapper {
                     LLMOBS_TAG_PREFIX + LLMObsTags.TOOL_DEFINITIONS,
                     LLMOBS_TAG_PREFIX + LLMObsTags.METADATA)));
 
+    MetaWriter(int maxContentBytes) {
+      this.maxContentBytes = maxContentBytes;
+    }
+
     MetaWriter withWritable(Writable writable, Map<String, String> errorInfo) {
       this.writable = writable;
       this.errorInfo = errorInfo;
+      this.contentBytesLeft = maxContentBytes;
       return this;
     }
 
@@ -487,7 +514,7 @@ public class LLMObsSpanMapper implements RemoteMapper {
               if (document.getScore() != null) documentSize++;
               writable.startMap(documentSize);
               writable.writeString("text", null);
-              writable.writeString(document.getText(), null);
+              writeContent(document.getText());
               if (document.getName() != null) {
                 writable.writeString("name", null);
                 writable.writeString(document.getName(), null);
@@ -511,7 +538,11 @@ public class LLMObsSpanMapper implements RemoteMapper {
             writable.writeString(key, null);
             writable.startMap(1);
             writable.writeString("value", null);
-            writable.writeObject(val, null);
+            if (val instanceof String) {
+              writeContent((String) val);
+            } else {
+              writable.writeObject(val, null);
+            }
           }
         } else if (key.equals(INPUT_PROMPT)) {
           // Serialized as meta.input.prompt above, or after this loop when no input is present.
@@ -637,7 +668,7 @@ public class LLMObsSpanMapper implements RemoteMapper {
         writable.writeString(message.getRole(), null);
         if (hasContent) {
           writable.writeUTF8(LLM_MESSAGE_CONTENT);
-          writable.writeString(message.getContent(), null);
+          writeContent(message.getContent());
         }
         if (hasToolCalls) {
           writable.writeUTF8(LLM_MESSAGE_TOOL_CALLS);
@@ -674,11 +705,62 @@ public class LLMObsSpanMapper implements RemoteMapper {
             writable.writeUTF8(LLM_TOOL_CALL_TOOL_ID);
             writable.writeString(toolResult.getToolId(), null);
             writable.writeUTF8(LLM_TOOL_RESULT_RESULT);
-            writable.writeString(toolResult.getResult(), null);
+            writeContent(toolResult.getResult());
           }
         }
       }
     }
+
+    /**
+     * Writes content which may be arbitrarily large, truncated to what is left of the span's
+     * content budget. Measuring the encoded size only scans the characters, so the common case of
+     * content within the budget is written exactly as before.
+     */
+    private void writeContent(String content) {
+      if (content == null) {
+        writable.writeNull();
+        return;
+      }
+      int length = content.length();
+      int budget = contentBytesLeft;
+      int bytes = 0;
+      int end = 0;
+      while (end < length) {
+        char c = content.charAt(end);
+        int charCount = 1;
+        int charBytes;
+        if (c < 0x80) {
+          charBytes = 1;
+        } else if (c < 0x800) {
+          charBytes = 2;
+        } else if (Character.isHighSurrogate(c)
+            && end + 1 < length
+            && Character.isLowSurrogate(content.charAt(end + 1))) {
+          // never split a surrogate pair
+          charCount = 2;
+          charBytes = 4;
+        } else {
+          charBytes = 3;
+        }
+        if (bytes + charBytes > budget) {
+          break;
+        }
+        bytes += charBytes;
+        end += charCount;
+      }
+      if (end == length) {
+        contentBytesLeft = budget - bytes;
+        writable.writeString(content, null);
+      } else {
+        // the rest of the span's content is truncated as well
+        contentBytesLeft = 0;
+        writable.writeString(
+            new StringBuilder(end + TRUNCATED_SUFFIX.length())
+                .append(content, 0, end)
+                .append(TRUNCATED_SUFFIX),
+            null);
+      }
+    }
   }
 
   private static class PayloadV1 extends Payload {
@@ -13,6 +13,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import datadog.metrics.agent.AgentMeter;
+import datadog.metrics.api.Histogram;
 import datadog.metrics.api.statsd.StatsDClient;
 import datadog.metrics.impl.DDSketchHistograms;
 import datadog.metrics.impl.MonitoringImpl;
@@ -187,6 +188,29 @@ class AggregateTableTest {
     assertSame(live, table.findOrInsert(snapshot("svc-live", "op", "client")));
   }
 
+  @Test
+  void expungedHistogramsAreReusedByNewEntries() {
+    AggregateTable table = new AggregateTable(16);
+
+    AggregateEntry stale = table.findOrInsert(snapshot("svc-stale", "op", "client"));
+    stale.recordOneDuration(10L);
+    stale.recordOneDuration(20L | ERROR_TAG);
+    Histogram okLatencies = stale.getOkLatencies();
+    Histogram errorLatencies = stale.getErrorLatencies();
+    // reported in a previous interval, nothing since
+    stale.clearAggregate();
+    table.expungeStaleAggregates();
+    assertEquals(0, table.size());
+
+    AggregateEntry fresh = table.findOrInsert(snapshot("svc-fresh", "op", "client"));
+    fresh.recordOneDuration(30L | ERROR_TAG);
+
+    assertSame(errorLatencies, fresh.getOkLatencies());
+    assertTrue(fresh.getOkLatencies().isEmpty());
+    assertSame(okLatencies, fresh.getErrorLatencies());
+    assertEquals(1, (int) fresh.getErrorLatencies().getCount());
+  }
+
   @Test
   void forEachVisitsEveryEntry() {
     AggregateTable table = new AggregateTable(8);
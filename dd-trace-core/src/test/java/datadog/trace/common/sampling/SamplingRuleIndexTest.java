@@ -0,0 +1,124 @@
+package datadog.trace.common.sampling;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import datadog.trace.api.sampling.SamplingMechanism;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SamplingRuleIndexTest {
+
+  private CoreTracer tracer;
+
+  @BeforeEach
+  void setUp() {
+    tracer = CoreTracer.builder().writer(new ListWriter()).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    tracer.close();
+  }
+
+  @Test
+  void findsTheSameRuleAsTryingTheRulesInOrder() {
+    List<RateSamplingRule> rules =
+        Arrays.asList(
+            rule("checkout", null, null, emptyMap()),
+            rule("cart", "*.request", "GET /cart*", emptyMap()),
+            rule(null, "kafka.*", null, singletonMap("topic", "orders")),
+            rule("cart", null, null, singletonMap("env", "prod")),
+            rule("c?rt", "servlet.request", null, emptyMap()),
+            new RateSamplingRule.ServiceSamplingRule(
+                "pay.*", new DeterministicSampler.TraceSampler(0.3)),
+            rule(null, null, "*/health", emptyMap()));
+    SamplingRuleIndex index = new SamplingRuleIndex(rules);
+
+    String[] services = {"checkout", "CHECKOUT", "cart", "payments", "other"};
+    String[] operations = {"servlet.request", "kafka.consume", "jdbc.query"};
+    String[] resources = {"GET /cart/items", "GET /health", "SELECT"};
+    List<Map<String, ?>> tagSets = new ArrayList<>();
+    tagSets.add(emptyMap());
+    tagSets.add(singletonMap("topic", "orders"));
+    tagSets.add(singletonMap("env", "prod"));
+
+    // twice, so that the second round is answered from the cache
+    for (int round = 0; round < 2; round++) {
+      for (String service : services) {
+        for (String operation : operations) {
+          for (String resource : resources) {
+            for (Map<String, ?> tags : tagSets) {
+              DDSpan span = span(service, operation, resource, tags);
+              assertSame(firstMatchInOrder(rules, span), index.firstMatch(span));
+              span.finish();
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void checksTagsForEverySpanWithTheSameNames() {
+    RateSamplingRule tagged = rule("cart", null, null, singletonMap("env", "prod"));
+    RateSamplingRule fallback = rule("cart", null, null, emptyMap());
+    SamplingRuleIndex index =
+        new SamplingRuleIndex(
+            Arrays.asList(tagged, rule("other", null, null, emptyMap()), fallback));
+
+    DDSpan prod = span("cart", "servlet.request", "GET /", singletonMap("env", "prod"));
+    DDSpan staging = span("cart", "servlet.request", "GET /", singletonMap("env", "staging"));
+
+    assertSame(tagged, index.firstMatch(prod));
+    assertSame(fallback, index.firstMatch(staging));
+    assertSame(tagged, index.firstMatch(prod));
+    assertNull(
+        index.firstMatch(span("unknown", "servlet.request", "GET /", emptyMap())),
+        "no rule matches");
+  }
+
+  private DDSpan span(String service, String operation, String resource, Map<String, ?> tags) {
+    DDSpan span =
+        (DDSpan)
+            tracer
+                .buildSpan("test", operation)
+                .withServiceName(service)
+                .withResourceName(resource)
+                .start();
+    for (Map.Entry<String, ?> tag : tags.entrySet()) {
+      span.setTag(tag.getKey(), tag.getValue());
+    }
+    return span;
+  }
+
+  private static RateSamplingRule rule(
+      String service, String operation, String resource, Map<String, String> tags) {
+    return new RateSamplingRule.TraceSamplingRule(
+        service,
+        operation,
+        resource,
+        tags,
+        new DeterministicSampler.TraceSampler(0.5),
+        SamplingMechanism.LOCAL_USER_RULE);
+  }
+
+  private static RateSamplingRule firstMatchInOrder(List<RateSamplingRule> rules, DDSpan span) {
+    for (RateSamplingRule rule : rules) {
+      if (rule.matches(span)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+}
@@ -8,6 +8,8 @@ import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.intThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -18,6 +20,7 @@ import datadog.trace.api.DDSpanId;
 import datadog.trace.api.DDTraceId;
 import datadog.trace.api.datastreams.NoopPathwayContext;
 import datadog.trace.api.sampling.PrioritySampling;
+import datadog.trace.api.time.ControllableTimeSource;
 import datadog.trace.common.writer.ddagent.DDAgentApi;
 import datadog.trace.common.writer.ddagent.DDAgentMapperDiscovery;
 import datadog.trace.core.CoreTracer;
@@ -27,8 +30,10 @@ import datadog.trace.core.PendingTrace;
 import datadog.trace.core.monitor.HealthMetrics;
 import datadog.trace.core.propagation.PropagationTags;
 import datadog.trace.test.util.DDJavaSpecification;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -136,6 +141,123 @@ class PayloadDispatcherImplTest extends DDJavaSpecification {
     verify(api).sendSerializedTraces(argThat(p -> p.traceCount() == traceCount));
   }
 
+  @TableTest({
+    "scenario | traceEndpoint",
+    "v0.4     | 'v0.4/traces'",
+    "v0.5     | 'v0.5/traces'"
+  })
+  void testShouldSpillAndReplayPayloadsWhileAgentIsUnavailable(String traceEndpoint)
+      throws Exception {
+    HealthMetrics healthMetrics = mock(HealthMetrics.class);
+    DDAgentFeaturesDiscovery discovery = mock(DDAgentFeaturesDiscovery.class);
+    DDAgentApi api = mock(DDAgentApi.class);
+    ControllableTimeSource timeSource = new ControllableTimeSource();
+    List<Integer> sentSizes = new ArrayList<>();
+    AtomicBoolean agentAvailable = new AtomicBoolean();
+    when(discovery.getTraceEndpoint()).thenReturn(traceEndpoint);
+    when(api.sendSerializedTraces(any()))
+        .thenAnswer(
+            inv -> {
+              sentSizes.add(inv.<Payload>getArgument(0).sizeInBytes());
+              return agentAvailable.get()
+                  ? RemoteApi.Response.success(200)
+                  : RemoteApi.Response.failed(new IOException("connection refused"));
+            });
+    PayloadDispatcherImpl dispatcher =
+        new PayloadDispatcherImpl(
+            new DDAgentMapperDiscovery(discovery),
+            api,
+            healthMetrics,
+            monitoring,
+            1 << 20,
+            timeSource);
+    List<DDSpan> trace = Collections.singletonList(realSpan());
+
+    dispatcher.addTrace(trace);
+    dispatcher.flush();
+    // the next payload is spilled without being sent until the backoff elapsed
+    dispatcher.addTrace(trace);
+    dispatcher.flush();
+
+    verify(api, times(1)).sendSerializedTraces(any());
+    verify(healthMetrics, never()).onFailedSend(anyInt(), anyInt(), any());
+
+    agentAvailable.set(true);
+    timeSource.advance(TimeUnit.SECONDS.toNanos(1));
+    dispatcher.flush();
+
+    verify(api, times(3)).sendSerializedTraces(any());
+    verify(healthMetrics, times(2)).onSend(eq(1), anyInt(), any());
+    verify(healthMetrics, never()).onFailedSend(anyInt(), anyInt(), any());
+    // the payload is replayed as it was first sent
+    assertEquals(sentSizes.get(0), sentSizes.get(1));
+  }
+
+  @TableTest({
+    "scenario           | status",
+    "bad request        | 400   ",
+    "endpoint not found | 404   "
+  })
+  void testShouldNotSpillPayloadsRejectedByAgent(int status) throws Exception {
+    HealthMetrics healthMetrics = mock(HealthMetrics.class);
+    DDAgentFeaturesDiscovery discovery = mock(DDAgentFeaturesDiscovery.class);
+    DDAgentApi api = mock(DDAgentApi.class);
+    when(discovery.getTraceEndpoint()).thenReturn("v0.4/traces");
+    when(api.sendSerializedTraces(any())).thenReturn(RemoteApi.Response.failed(status, ""));
+    PayloadDispatcherImpl dispatcher =
+        new PayloadDispatcherImpl(
+            new DDAgentMapperDiscovery(discovery),
+            api,
+            healthMetrics,
+            monitoring,
+            1 << 20,
+            new ControllableTimeSource());
+    List<DDSpan> trace = Collections.singletonList(realSpan());
+
+    dispatcher.addTrace(trace);
+    dispatcher.flush();
+    dispatcher.addTrace(trace);
+    dispatcher.flush();
+
+    verify(api, times(2)).sendSerializedTraces(any());
+    verify(healthMetrics, times(2)).onFailedSend(eq(1), anyInt(), any());
+  }
+
+  @Test
+  void testShouldReportSpilledPayloadsAsFailedAtShutdown() throws Exception {
+    HealthMetrics healthMetrics = mock(HealthMetrics.class);
+    DDAgentFeaturesDiscovery discovery = mock(DDAgentFeaturesDiscovery.class);
+    DDAgentApi api = mock(DDAgentApi.class);
+    when(discovery.getTraceEndpoint()).thenReturn("v0.4/traces");
+    // reported when no agent was detected
+    when(api.sendSerializedTraces(any())).thenReturn(RemoteApi.Response.failed(404));
+    PayloadDispatcherImpl dispatcher =
+        new PayloadDispatcherImpl(
+            new DDAgentMapperDiscovery(discovery),
+            api,
+            healthMetrics,
+            monitoring,
+            1 << 20,
+            new ControllableTimeSource());
+    List<DDSpan> trace = Collections.singletonList(realSpan());
+
+    dispatcher.addTrace(trace);
+    dispatcher.flush();
+    dispatcher.addTrace(trace);
+    dispatcher.flush();
+
+    verify(healthMetrics, never()).onFailedSend(anyInt(), anyInt(), any());
+
+    dispatcher.onShutdown();
+
+    verify(api, times(1)).sendSerializedTraces(any());
+    verify(healthMetrics, times(2)).onFailedSend(eq(1), intThat(size -> size > 0), any());
+
+    dispatcher.onShutdown();
+
+    verify(healthMetrics, times(2)).onFailedSend(anyInt(), anyInt(), any());
+  }
+
   @Test
   void testShouldDropTraceWhenThereIsNoAgentConnectivity() throws Exception {
     HealthMetrics healthMetrics = mock(HealthMetrics.class);
@@ -0,0 +1,166 @@
+package datadog.trace.common.writer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.Test;
+
+class PayloadSpillTest {
+
+  @Test
+  void spilledPayloadsAreReplayedInOrder() throws IOException {
+    PayloadSpill spill = new PayloadSpill(1024, (traceCount, sizeInBytes) -> {});
+
+    assertTrue(spill.isEmpty());
+    assertNull(spill.peek());
+    assertTrue(spill.offer(payload(1, 100)));
+    assertTrue(spill.offer(payload(2, 200)));
+
+    Payload first = spill.peek();
+    assertEquals(1, first.traceCount());
+    assertEquals(100, first.sizeInBytes());
+    assertEquals(2, first.droppedTraces());
+    assertEquals(3, first.droppedSpans());
+    assertArrayEquals(content(1, 100), bytesOf(first));
+    // replaying a payload does not consume it
+    assertArrayEquals(content(1, 100), bytesOf(first));
+    spill.remove();
+
+    Payload second = spill.peek();
+    assertEquals(2, second.traceCount());
+    assertArrayEquals(content(2, 200), bytesOf(second));
+    spill.remove();
+
+    assertTrue(spill.isEmpty());
+  }
+
+  @Test
+  void oldestPayloadsAreEvictedWhenFull() throws IOException {
+    List<Integer> evicted = new ArrayList<>();
+    int recordSize = PayloadSpill.RECORD_HEADER_SIZE + 100;
+    PayloadSpill spill =
+        new PayloadSpill(3 * recordSize, (traceCount, sizeInBytes) -> evicted.add(traceCount));
+
+    for (int i = 1; i <= 5; i++) {
+      assertTrue(spill.offer(payload(i, 100)));
+    }
+
+    assertEquals(Arrays.asList(1, 2), evicted);
+    assertEquals(3, spill.payloadCount());
+    for (int i = 3; i <= 5; i++) {
+      Payload payload = spill.peek();
+      assertEquals(i, payload.traceCount());
+      assertArrayEquals(content(i, 100), bytesOf(payload));
+      spill.remove();
+    }
+    assertTrue(spill.isEmpty());
+  }
+
+  @Test
+  void payloadsWrapAroundTheEndOfTheFile() throws IOException {
+    List<Integer> evicted = new ArrayList<>();
+    int recordSize = PayloadSpill.RECORD_HEADER_SIZE + 100;
+    PayloadSpill spill =
+        new PayloadSpill(3 * recordSize + 50, (traceCount, sizeInBytes) -> evicted.add(traceCount));
+
+    assertTrue(spill.offer(payload(1, 100)));
+    assertTrue(spill.offer(payload(2, 100)));
+    assertTrue(spill.offer(payload(3, 100)));
+    spill.remove();
+    // does not fit before the end of the file, so goes at its start where the first one was
+    assertTrue(spill.offer(payload(4, 100)));
+
+    assertTrue(evicted.isEmpty());
+    for (int i = 2; i <= 4; i++) {
+      Payload payload = spill.peek();
+      assertEquals(i, payload.traceCount());
+      assertArrayEquals(content(i, 100), bytesOf(payload));
+      spill.remove();
+    }
+    assertTrue(spill.isEmpty());
+  }
+
+  @Test
+  void payloadsLargerThanTheBudgetAreNotSpilled() {
+    List<Integer> evicted = new ArrayList<>();
+    PayloadSpill spill =
+        new PayloadSpill(256, (traceCount, sizeInBytes) -> evicted.add(traceCount));
+
+    assertTrue(spill.offer(payload(1, 100)));
+    assertFalse(spill.offer(payload(2, 256)));
+
+    assertTrue(evicted.isEmpty());
+    assertEquals(1, spill.payloadCount());
+  }
+
+  private static Payload payload(int id, int size) {
+    return new TestPayload(content(id, size))
+        .withBody(id, null)
+        .withDroppedTraces(2L * id)
+        .withDroppedSpans(3L * id);
+  }
+
+  private static byte[] content(int id, int size) {
+    byte[] content = new byte[size];
+    Arrays.fill(content, (byte) id);
+    return content;
+  }
+
+  private static byte[] bytesOf(Payload payload) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(payload.sizeInBytes());
+    payload.writeTo(
+        new WritableByteChannel() {
+          @Override
+          public int write(ByteBuffer src) {
+            int written = src.remaining();
+            buffer.put(src);
+            return written;
+          }
+
+          @Override
+          public boolean isOpen() {
+            return true;
+          }
+
+          @Override
+          public void close() {}
+        });
+    return buffer.array();
+  }
+
+  private static final class TestPayload extends Payload {
+    private final byte[] content;
+
+    TestPayload(byte[] content) {
+      this.content = content;
+    }
+
+    @Override
+    public int sizeInBytes() {
+      return content.length;
+    }
+
+    @Override
+    public void writeTo(WritableByteChannel channel) throws IOException {
+      ByteBuffer buffer = ByteBuffer.wrap(content);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+
+    @Override
+    public RequestBody toRequest() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -18,6 +18,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.Mockito.mock;
@@ -283,6 +284,25 @@ public class CoreSpanBuilderTest extends DDCoreJavaSpecification {
     assertEquals(expectedChildType, span.spanContext().getSpanType());
   }
 
+  @Test
+  void childSharesParentBaggageUntilChanged() {
+    DDSpan parent = (DDSpan) tracer.buildSpan("test", "parent").start();
+    parent.setBaggageItem("shared", "parent");
+    DDSpan child = (DDSpan) tracer.buildSpan("test", "child").asChildOf(parent).start();
+
+    assertSame(parent.spanContext().getBaggageItems(), child.spanContext().getBaggageItems());
+
+    child.setBaggageItem("child", "value");
+    parent.setBaggageItem("shared", "updated");
+
+    assertEquals("parent", child.getBaggageItem("shared"));
+    assertEquals("value", child.getBaggageItem("child"));
+    assertEquals("updated", parent.getBaggageItem("shared"));
+    assertNull(parent.getBaggageItem("child"));
+    // propagation tags are always read from the local root
+    assertSame(parent.spanContext().getPropagationTags(), child.spanContext().getPropagationTags());
+  }
+
   @Test
   void shouldTrackAllSpansInTrace() {
     int nbSamples = 10;
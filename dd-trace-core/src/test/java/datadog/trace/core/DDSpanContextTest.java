@@ -31,6 +31,7 @@ import static org.mockito.Mockito.when;
 
 import datadog.trace.api.DDTags;
 import datadog.trace.api.DDTraceId;
+import datadog.trace.api.TagMap;
 import datadog.trace.api.internal.TraceSegment;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpanContext;
@@ -41,8 +42,15 @@ import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.common.writer.ListWriter;
 import datadog.trace.core.propagation.ExtractedContext;
 import datadog.trace.test.junit.utils.tabletest.TableTestTypeConverters;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -554,6 +562,101 @@ public class DDSpanContextTest extends DDCoreJavaSpecification {
     span.finish();
   }
 
+  @Test
+  void copyOnWriteTagsReadTheLatestUpdate() throws Exception {
+    AgentSpan span = tracer.buildSpan("test", "test").withTag("builder.tag", "a").start();
+    DDSpanContext context = (DDSpanContext) span.spanContext();
+    context.enableCopyOnWriteTags();
+
+    assertEquals("a", context.getTag("builder.tag"));
+
+    context.setTag("string.tag", "b");
+    context.setTag("long.tag", 42L);
+    context.setMetric("metric", 1.5);
+    context.setTag(SPAN_KIND, "custom-kind");
+    context.setTag("builder.tag", null);
+
+    assertEquals("b", context.getTag("string.tag"));
+    assertEquals(42L, context.unsafeGetTag("long.tag"));
+    assertEquals(1.5, context.getTag("metric"));
+    assertEquals("custom-kind", context.getSpanKindString());
+    assertNull(context.getTag("builder.tag"));
+
+    span.finish();
+    writer.waitForTraces(1);
+
+    Map<String, Object> tags = context.getTags();
+    assertEquals("b", tags.get("string.tag"));
+    assertFalse(tags.containsKey("builder.tag"));
+  }
+
+  @Test
+  void copyOnWriteTagsAreVisibleToInterceptorsDuringBulkUpdates() {
+    AgentSpan span = tracer.buildSpan("test", "test").start();
+    DDSpanContext context = (DDSpanContext) span.spanContext();
+    context.enableCopyOnWriteTags();
+
+    Map<String, Object> tags = new LinkedHashMap<>();
+    tags.put(Tags.HTTP_METHOD, "GET");
+    tags.put(Tags.HTTP_URL, "http://localhost/users");
+    context.setAllTags(tags);
+
+    assertEquals("GET /users", context.getResourceName().toString());
+    span.finish();
+  }
+
+  @Test
+  void copyOnWriteTagsAreVisibleToInterceptorsDuringLedgerUpdates() {
+    AgentSpan span = tracer.buildSpan("test", "test").start();
+    DDSpanContext context = (DDSpanContext) span.spanContext();
+    context.enableCopyOnWriteTags();
+
+    context.setAllTags(
+        TagMap.ledger()
+            .set(Tags.HTTP_METHOD, "POST")
+            .set(Tags.HTTP_URL, "http://localhost/orders"));
+
+    assertEquals("POST /orders", context.getResourceName().toString());
+    span.finish();
+  }
+
+  @Test
+  void copyOnWriteTagsKeepConcurrentUpdates() throws Exception {
+    AgentSpan span = tracer.buildSpan("test", "test").start();
+    DDSpanContext context = (DDSpanContext) span.spanContext();
+    context.enableCopyOnWriteTags();
+
+    int threads = 4;
+    int tagsPerThread = 100;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        String prefix = "thread" + t + ".";
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < tagsPerThread; i++) {
+                    context.setTag(prefix + i, i);
+                    assertEquals(i, context.getTag(prefix + i));
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int t = 0; t < threads; t++) {
+      for (int i = 0; i < tagsPerThread; i++) {
+        assertEquals(i, context.getTag("thread" + t + "." + i));
+      }
+    }
+    span.finish();
+  }
+
   static void assertTagmap(Map<?, ?> source, Map<?, ?> comparison) {
     assertTagmap(source, comparison, false);
   }
@@ -5,7 +5,9 @@ import static datadog.trace.api.TracePropagationStyle.DATADOG;
 import static datadog.trace.api.datastreams.DataStreamsContext.create;
 import static datadog.trace.api.datastreams.DataStreamsContext.fromTags;
 import static datadog.trace.api.datastreams.PathwayContext.PROPAGATION_KEY_BASE64;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -18,6 +20,7 @@ import static org.mockito.Mockito.when;
 
 import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
 import datadog.context.Context;
+import datadog.context.propagation.BinaryCarrierVisitor;
 import datadog.context.propagation.Propagator;
 import datadog.trace.api.BaseHash;
 import datadog.trace.api.Config;
@@ -38,6 +41,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -385,6 +389,53 @@ public class DefaultPathwayContextTest extends DDCoreJavaSpecification {
     assertEquals(MILLISECONDS.toNanos(32), third.getEdgeLatencyNano());
   }
 
+  @Test
+  void encodingAndDecodingBinaryWithInjectsAndExtracts() throws IOException {
+    // Timesource needs to be advanced in milliseconds because encoding truncates to millis
+    ControllableTimeSource timeSource = new ControllableTimeSource();
+    DefaultPathwayContext context = new DefaultPathwayContext(timeSource, null);
+    BinaryMapContextVisitor contextVisitor = new BinaryMapContextVisitor();
+
+    timeSource.advance(MILLISECONDS.toNanos(50));
+    context.setCheckpoint(
+        fromTags(DataStreamsTags.create("internal", DataStreamsTags.Direction.INBOUND)),
+        pointConsumer);
+
+    byte[] encoded = context.encodeBytes();
+    assertArrayEquals(context.encode().getBytes(ISO_8859_1), encoded);
+
+    Map<String, byte[]> carrier = new HashMap<>();
+    carrier.put(PROPAGATION_KEY_BASE64, encoded);
+    carrier.put("someotherkey", "someothervalue".getBytes(ISO_8859_1));
+    timeSource.advance(MILLISECONDS.toNanos(1));
+    DefaultPathwayContext decodedContext =
+        DefaultPathwayContext.extract(carrier, contextVisitor, timeSource, null);
+    timeSource.advance(MILLISECONDS.toNanos(25));
+    decodedContext.setCheckpoint(
+        fromTags(
+            DataStreamsTags.create(
+                "kafka", DataStreamsTags.Direction.OUTBOUND, "topic", "group", null)),
+        pointConsumer);
+
+    assertTrue(decodedContext.isStarted());
+    assertEquals(2, pointConsumer.points.size());
+    StatsPoint second = pointConsumer.points.get(1);
+    assertEquals(pointConsumer.points.get(0).getHash(), second.getParentHash());
+    assertNotEquals(0L, second.getHash());
+    assertEquals(MILLISECONDS.toNanos(26), second.getPathwayLatencyNano());
+    assertEquals(MILLISECONDS.toNanos(26), second.getEdgeLatencyNano());
+  }
+
+  @Test
+  void invalidBinaryValueIsNotExtracted() {
+    ControllableTimeSource timeSource = new ControllableTimeSource();
+    Map<String, byte[]> carrier = new HashMap<>();
+    carrier.put(PROPAGATION_KEY_BASE64, "not base64!".getBytes(ISO_8859_1));
+
+    assertNull(
+        DefaultPathwayContext.extract(carrier, new BinaryMapContextVisitor(), timeSource, null));
+  }
+
   @Test
   void encodingAndDecodingSqsFormattedWithInjectsAndExtracts() throws IOException {
     // Timesource needs to be advanced in milliseconds because encoding truncates to millis
@@ -732,4 +783,17 @@ public class DefaultPathwayContextTest extends DDCoreJavaSpecification {
       }
     }
   }
+
+  static class BinaryMapContextVisitor implements BinaryCarrierVisitor<Map<String, byte[]>> {
+    @Override
+    public void forEachKeyBinaryValue(
+        Map<String, byte[]> carrier, BiConsumer<String, byte[]> visitor) {
+      carrier.forEach(visitor);
+    }
+
+    @Override
+    public void forEachKeyValue(Map<String, byte[]> carrier, BiConsumer<String, String> visitor) {
+      carrier.forEach((key, value) -> visitor.accept(key, new String(value, ISO_8859_1)));
+    }
+  }
 }
@@ -72,6 +72,25 @@ class OtlpHttpRequestBodyTest {
     assertArrayEquals(data, gunzip(sink.readByteArray()));
   }
 
+  @Test
+  void writeToStreamsChunkedPayloadWhenGzipped() throws IOException {
+    byte[] first = "the quick brown fox ".getBytes();
+    byte[] second = "jumps over the lazy dog".getBytes();
+    OtlpHttpRequestBody body =
+        new OtlpHttpRequestBody(
+            new OtlpPayload(
+                new ByteBuffer[] {ByteBuffer.wrap(first), ByteBuffer.wrap(second)},
+                first.length + second.length,
+                "application/x-protobuf"),
+            true);
+    Buffer sink = new Buffer();
+
+    body.writeTo(sink);
+
+    assertArrayEquals(
+        "the quick brown fox jumps over the lazy dog".getBytes(), gunzip(sink.readByteArray()));
+  }
+
   private static byte[] gunzip(byte[] gzipped) throws IOException {
     ByteArrayOutputStream out = new ByteArrayOutputStream();
     try (InputStream gz = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
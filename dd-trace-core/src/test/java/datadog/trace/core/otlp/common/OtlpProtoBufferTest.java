@@ -445,4 +445,69 @@ class OtlpProtoBufferTest {
     }
     assertTrue(in.isAtEnd());
   }
+
+  // ─── chunking ─────────────────────────────────────────────────────────────
+
+  @Test
+  void messagesSpanningChunksAreReadInOrder() throws IOException {
+    // chunk size 16: five 6-byte messages need three chunks
+    for (int i = 1; i <= 5; i++) {
+      buffer.recordMessage(growable((byte) i, (byte) i, (byte) i, (byte) i), i);
+    }
+    assertEquals(30, buffer.sizeInBytes());
+
+    CodedInputStream in = CodedInputStream.newInstance(readAll(buffer));
+    for (int expected = 5; expected >= 1; expected--) {
+      assertEquals(expected, WireFormat.getTagFieldNumber(in.readTag()));
+      assertEquals(4, in.readByteArray().length);
+    }
+    assertTrue(in.isAtEnd());
+  }
+
+  @Test
+  void chunkedPayloadWritesSameContentAsFlip() throws IOException {
+    for (int i = 1; i <= 5; i++) {
+      buffer.recordMessage(growable((byte) i, (byte) (i + 10)), i);
+    }
+    buffer.recordMessage(new byte[40]); // larger than a chunk
+    byte[] expected = readAll(buffer);
+
+    OtlpPayload payload = buffer.toPayload();
+    assertEquals(expected.length, payload.getContentLength());
+
+    okio.Buffer sink = new okio.Buffer();
+    payload.writeTo(sink);
+    assertArrayEquals(expected, sink.readByteArray());
+
+    // writing again, as on a retry, produces the same content
+    payload.writeTo(sink);
+    assertArrayEquals(expected, sink.readByteArray());
+
+    ByteBuffer content = payload.getContent();
+    byte[] actual = new byte[content.remaining()];
+    content.get(actual);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  void resetRecyclesChunksForNextCollection() throws IOException {
+    for (int i = 1; i <= 5; i++) {
+      buffer.recordMessage(growable((byte) i, (byte) i, (byte) i, (byte) i), i);
+    }
+    buffer.reset();
+    assertEquals(0, buffer.sizeInBytes());
+
+    for (int i = 6; i <= 8; i++) {
+      buffer.recordMessage(growable((byte) i, (byte) i, (byte) i, (byte) i), i);
+    }
+
+    CodedInputStream in = CodedInputStream.newInstance(readAll(buffer));
+    for (int expected = 8; expected >= 6; expected--) {
+      assertEquals(expected, WireFormat.getTagFieldNumber(in.readTag()));
+      assertArrayEquals(
+          new byte[] {(byte) expected, (byte) expected, (byte) expected, (byte) expected},
+          in.readByteArray());
+    }
+    assertTrue(in.isAtEnd());
+  }
 }
@@ -32,8 +32,8 @@ class MatchersTest {
 
   @ParameterizedTest
   @ValueSource(strings = {"?", "foo*", "*bar", "F?oB?r", "F?o*", "?*", "*?"})
-  void patternWithEitherStarOrQuestionMustBeAPatternMatcher(String glob) {
-    assertInstanceOf(Matchers.PatternMatcher.class, Matchers.compileGlob(glob));
+  void patternWithEitherStarOrQuestionMustBeAGlobMatcher(String glob) {
+    assertInstanceOf(Matchers.GlobMatcher.class, Matchers.compileGlob(glob));
   }
 
   @ParameterizedTest
@@ -104,7 +104,15 @@ class MatchersTest {
         arguments("^ matches ^", "^", "^", true),
         arguments("() matches ()", "()", "()", true),
         arguments("(*) matches (-)", "(*)", "(-)", true),
-        arguments("$ matches $", "$", "$", true));
+        arguments("$ matches $", "$", "$", true),
+        arguments("a+* matches a+b", "a+*", "a+b", true),
+        arguments("a+* does not match aab", "a+*", "aab", false),
+        arguments("*x*y*z matches axbxcyz", "*x*y*z", "axbxcyz", true),
+        arguments("*x*y*z does not match axbxcyza", "*x*y*z", "axbxcyza", false),
+        arguments("? matches a supplementary character", "?", "\uD83D\uDE00", true),
+        arguments("* does not match a new line", "a*", "a\nb", false),
+        arguments("? does not match a new line", "a?b", "a\nb", false),
+        arguments("É* does not match é", "É*", "é", false));
   }
 
   @ParameterizedTest(name = "{0}")
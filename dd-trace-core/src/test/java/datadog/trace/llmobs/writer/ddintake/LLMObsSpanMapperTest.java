@@ -685,6 +685,52 @@ public class LLMObsSpanMapperTest extends DDCoreJavaSpecification {
     tracer.close();
   }
 
+  @Test
+  void testLLMObsSpanMapperTruncatesContentOverTheSpanBudget() throws Exception {
+    CoreTracer tracer = tracerBuilder().writer(new ListWriter()).build();
+    AgentSpan llmSpan =
+        tracer
+            .buildSpan("datadog", "llm")
+            .withTag("_ml_obs_tag.span.kind", Tags.LLMOBS_LLM_SPAN_KIND)
+            .start();
+    llmSpan.setSpanType(InternalSpanTypes.LLMOBS);
+    // 4 bytes + 2 bytes for each repetition, the pair must not be split
+    String large = repeat("\uD83D\uDE00\u00E9", 8);
+    llmSpan.setTag(
+        "_ml_obs_tag.input",
+        Arrays.asList(
+            LLMObs.LLMMessage.from("system", "short"),
+            LLMObs.LLMMessage.from("user", large),
+            LLMObs.LLMMessage.from("user", "over the budget")));
+    llmSpan.finish();
+
+    LLMObsSpanMapper mapper = new LLMObsSpanMapper(16 * 1024, 5 + 16);
+    Map<String, Object> meta =
+        (Map<String, Object>) serializeSingleSpan(mapper, llmSpan).get("meta");
+
+    List<Map<String, Object>> messages =
+        (List<Map<String, Object>>) ((Map<String, Object>) meta.get("input")).get("messages");
+    assertEquals("short", messages.get(0).get("content"));
+    assertEquals(
+        "\uD83D\uDE00\u00E9\uD83D\uDE00\u00E9\uD83D\uDE00" + LLMObsSpanMapper.TRUNCATED_SUFFIX,
+        messages.get(1).get("content"));
+    assertEquals(LLMObsSpanMapper.TRUNCATED_SUFFIX, messages.get(2).get("content"));
+
+    // the budget is per span
+    AgentSpan next =
+        tracer
+            .buildSpan("datadog", "workflow")
+            .withTag("_ml_obs_tag.span.kind", Tags.LLMOBS_WORKFLOW_SPAN_KIND)
+            .withTag("_ml_obs_tag.input", "within the budget")
+            .start();
+    next.setSpanType(InternalSpanTypes.LLMOBS);
+    next.finish();
+    Map<String, Object> nextMeta =
+        (Map<String, Object>) serializeSingleSpan(mapper, next).get("meta");
+    assertEquals("within the budget", ((Map<String, Object>) nextMeta.get("input")).get("value"));
+    tracer.close();
+  }
+
   @Test
   void testLLMObsSpanProcessorCanDropSpan() throws Exception {
     LLMObs.registerProcessor(span -> "true".equals(span.getTag("drop")) ? null : span);
@@ -828,6 +874,14 @@ public class LLMObsSpanMapperTest extends DDCoreJavaSpecification {
     return span;
   }
 
+  private static String repeat(String value, int times) {
+    StringBuilder builder = new StringBuilder(value.length() * times);
+    for (int i = 0; i < times; i++) {
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
   private static List<Map<String, Object>> serialize(List<DDSpan> trace, LLMObsSpanMapper mapper)
       throws Exception {
     CapturingByteBufferConsumer sink = new CapturingByteBufferConsumer();
@@ -0,0 +1,62 @@
+package datadog.trace.api.http;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark comparing the header tag lookups for the headers of a typical servlet response, as
+ * named by the container, against lowercasing the names to look them up in the configured map.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class HeaderTagMatcherBenchmark {
+  private static final String[] HEADERS = {
+    "Content-Type",
+    "Content-Length",
+    "Date",
+    "Cache-Control",
+    "Set-Cookie",
+    "X-Request-Id",
+    "Vary",
+    "ETag",
+    "Transfer-Encoding",
+    "Strict-Transport-Security",
+  };
+
+  private Map<String, String> headerTags;
+  private HeaderTagMatcher matcher;
+
+  @Setup
+  public void setup() {
+    headerTags = new HashMap<>();
+    headerTags.put("content-type", "http.response.headers.content-type");
+    headerTags.put("x-request-id", "http.response.headers.x-request-id");
+    headerTags.put("cache-control", "http.response.headers.cache-control");
+    matcher = HeaderTagMatcher.compile(headerTags);
+  }
+
+  @Benchmark
+  public void lowerCaseAndMap(Blackhole blackhole) {
+    for (String header : HEADERS) {
+      blackhole.consume(headerTags.get(header.toLowerCase(Locale.ROOT)));
+    }
+  }
+
+  @Benchmark
+  public void matcher(Blackhole blackhole) {
+    for (String header : HEADERS) {
+      blackhole.consume(matcher.tagFor(header));
+    }
+  }
+}
@@ -92,6 +92,7 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_FEATURE_FLAGGING_CONFIGUR
 import static datadog.trace.api.ConfigDefaults.DEFAULT_FEATURE_FLAGGING_CONFIGURATION_SOURCE_REQUEST_TIMEOUT_SECONDS;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_GRPC_CLIENT_ERROR_STATUSES;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_GRPC_SERVER_ERROR_STATUSES;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_GRPC_SERVER_STREAM_MESSAGE_EVENT_INTERVAL;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HEALTH_METRICS_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_CLIENT_ERROR_STATUSES;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_CLIENT_SPLIT_BY_DOMAIN;
@@ -274,6 +275,7 @@ import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_FLAKY_RET
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_FLAKY_RETRY_ENABLED;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_FLAKY_RETRY_ONLY_KNOWN_FLAKES;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_GIT_CLIENT_ENABLED;
+import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_GIT_CLIENT_IN_PROCESS_ENABLED;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_GIT_COMMAND_TIMEOUT_MILLIS;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_GIT_REMOTE_NAME;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_GIT_UNSHALLOW_DEFER;
@@ -290,6 +292,7 @@ import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_JACOCO_PL
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_JVM_INFO_CACHE_SIZE;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_KNOWN_TESTS_REQUEST_ENABLED;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_MODULE_NAME;
+import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_REPO_INDEX_CACHE_DIR;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_REPO_INDEX_DUPLICATE_KEY_CHECK_ENABLED;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_REPO_INDEX_FOLLOW_SYMLINKS;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_RESOURCE_FOLDER_NAMES;
@@ -595,6 +598,8 @@ import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_CLIENT_ER
 import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_IGNORED_INBOUND_METHODS;
 import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_IGNORED_OUTBOUND_METHODS;
 import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_SERVER_ERROR_STATUSES;
+import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_SERVER_STREAM_MESSAGE_AGGREGATION_ENABLED;
+import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_SERVER_STREAM_MESSAGE_EVENT_INTERVAL;
 import static datadog.trace.api.config.TraceInstrumentationConfig.GRPC_SERVER_TRIM_PACKAGE_RESOURCE;
 import static datadog.trace.api.config.TraceInstrumentationConfig.HTTP_CLIENT_HOST_SPLIT_BY_DOMAIN;
 import static datadog.trace.api.config.TraceInstrumentationConfig.HTTP_CLIENT_TAG_HEADERS;
@@ -613,6 +618,7 @@ import static datadog.trace.api.config.TraceInstrumentationConfig.JMS_PROPAGATIO
 import static datadog.trace.api.config.TraceInstrumentationConfig.JMS_PROPAGATION_DISABLED_TOPICS;
 import static datadog.trace.api.config.TraceInstrumentationConfig.JMS_UNACKNOWLEDGED_MAX_AGE;
 import static datadog.trace.api.config.TraceInstrumentationConfig.KAFKA_CLIENT_BASE64_DECODING_ENABLED;
+import static datadog.trace.api.config.TraceInstrumentationConfig.KAFKA_CLIENT_CONSUMER_BATCH_SPANS_ENABLED;
 import static datadog.trace.api.config.TraceInstrumentationConfig.KAFKA_CLIENT_PROPAGATION_DISABLED_TOPICS;
 import static datadog.trace.api.config.TraceInstrumentationConfig.LOGS_INJECTION;
 import static datadog.trace.api.config.TraceInstrumentationConfig.LOGS_INJECTION_ENABLED;
@@ -673,6 +679,7 @@ import static datadog.trace.api.config.TracerConfig.SERVICE_MAPPING;
 import static datadog.trace.api.config.TracerConfig.SPAN_SAMPLING_RULES;
 import static datadog.trace.api.config.TracerConfig.SPAN_SAMPLING_RULES_FILE;
 import static datadog.trace.api.config.TracerConfig.SPAN_TAGS;
+import static datadog.trace.api.config.TracerConfig.SPAN_TAGS_COPY_ON_WRITE_ENABLED;
 import static datadog.trace.api.config.TracerConfig.SPLIT_BY_TAGS;
 import static datadog.trace.api.config.TracerConfig.TEST_AGENT_SESSION_TOKEN;
 import static datadog.trace.api.config.TracerConfig.TRACE_128_BIT_TRACEID_GENERATION_ENABLED;
@@ -1183,6 +1190,7 @@ public class Config {
   private final boolean ciVisibilityCodeCoverageReportUploadEnabled;
   private final Integer ciVisibilityDebugPort;
   private final boolean ciVisibilityGitClientEnabled;
+  private final boolean ciVisibilityGitClientInProcessEnabled;
   private final boolean ciVisibilityGitUploadEnabled;
   private final boolean ciVisibilityGitUnshallowEnabled;
   private final boolean ciVisibilityGitUnshallowDefer;
@@ -1198,6 +1206,7 @@ public class Config {
   private final boolean ciVisibilityCiProviderIntegrationEnabled;
   private final boolean ciVisibilityRepoIndexDuplicateKeyCheckEnabled;
   private final boolean ciVisibilityRepoIndexFollowSymlinks;
+  private final String ciVisibilityRepoIndexCacheDir;
   private final int ciVisibilityExecutionSettingsCacheSize;
   private final int ciVisibilityJvmInfoCacheSize;
   private final int ciVisibilityCoverageRootPackagesLimit;
@@ -1299,6 +1308,7 @@ public class Config {
   private final boolean kafkaClientPropagationEnabled;
   private final Set<String> kafkaClientPropagationDisabledTopics;
   private final boolean kafkaClientBase64DecodingEnabled;
+  private final boolean kafkaClientConsumerBatchSpansEnabled;
 
   private final boolean jmsPropagationEnabled;
   private final Set<String> jmsPropagationDisabledTopics;
@@ -1358,6 +1368,8 @@ public class Config {
   private final boolean grpcServerTrimPackageResource;
   private final BitSet grpcServerErrorStatuses;
   private final BitSet grpcClientErrorStatuses;
+  private final boolean grpcServerStreamMessageAggregationEnabled;
+  private final int grpcServerStreamMessageEventInterval;
 
   private final boolean cwsEnabled;
   private final int cwsTlsRefresh;
@@ -1420,6 +1432,7 @@ public class Config {
   private final boolean websocketTagSessionId;
   private final boolean axisPromoteResourceName;
   private final float traceFlushIntervalSeconds;
+  private final int traceSpillBufferSize;
   private final long tracePostProcessingTimeout;
 
   private final boolean telemetryDebugRequestsEnabled;
@@ -1436,6 +1449,7 @@ public class Config {
   private final int cloudPayloadTaggingMaxTags;
 
   private final long dependecyResolutionPeriodMillis;
+  private final String telemetryDependencyCacheDir;
 
   private final boolean apmTracingEnabled;
   private final Set<String> experimentalFeaturesEnabled;
@@ -2775,6 +2789,8 @@ public class Config {
         configProvider.getBoolean(CIVISIBILITY_CODE_COVERAGE_REPORT_UPLOAD_ENABLED, true);
     ciVisibilityDebugPort = configProvider.getInteger(CIVISIBILITY_DEBUG_PORT);
     ciVisibilityGitClientEnabled = configProvider.getBoolean(CIVISIBILITY_GIT_CLIENT_ENABLED, true);
+    ciVisibilityGitClientInProcessEnabled =
+        configProvider.getBoolean(CIVISIBILITY_GIT_CLIENT_IN_PROCESS_ENABLED, false);
     ciVisibilityGitUploadEnabled =
         configProvider.getBoolean(
             CIVISIBILITY_GIT_UPLOAD_ENABLED, DEFAULT_CIVISIBILITY_GIT_UPLOAD_ENABLED);
@@ -2814,6 +2830,7 @@ public class Config {
         configProvider.getBoolean(CIVISIBILITY_REPO_INDEX_DUPLICATE_KEY_CHECK_ENABLED, true);
     ciVisibilityRepoIndexFollowSymlinks =
         configProvider.getBoolean(CIVISIBILITY_REPO_INDEX_FOLLOW_SYMLINKS, false);
+    ciVisibilityRepoIndexCacheDir = configProvider.getString(CIVISIBILITY_REPO_INDEX_CACHE_DIR);
     ciVisibilityExecutionSettingsCacheSize =
         configProvider.getInteger(CIVISIBILITY_EXECUTION_SETTINGS_CACHE_SIZE, 16);
     ciVisibilityJvmInfoCacheSize = configProvider.getInteger(CIVISIBILITY_JVM_INFO_CACHE_SIZE, 8);
@@ -3090,6 +3107,8 @@ public class Config {
         tryMakeImmutableSet(configProvider.getList(KAFKA_CLIENT_PROPAGATION_DISABLED_TOPICS));
     kafkaClientBase64DecodingEnabled =
         configProvider.getBoolean(KAFKA_CLIENT_BASE64_DECODING_ENABLED, false);
+    kafkaClientConsumerBatchSpansEnabled =
+        configProvider.getBoolean(KAFKA_CLIENT_CONSUMER_BATCH_SPANS_ENABLED, false);
     jmsPropagationEnabled = isPropagationEnabled(true, "jms");
     jmsPropagationDisabledTopics =
         tryMakeImmutableSet(configProvider.getList(JMS_PROPAGATION_DISABLED_TOPICS));
@@ -3135,6 +3154,12 @@ public class Config {
     grpcClientErrorStatuses =
         configProvider.getIntegerRange(
             GRPC_CLIENT_ERROR_STATUSES, DEFAULT_GRPC_CLIENT_ERROR_STATUSES);
+    grpcServerStreamMessageAggregationEnabled =
+        configProvider.getBoolean(GRPC_SERVER_STREAM_MESSAGE_AGGREGATION_ENABLED, false);
+    grpcServerStreamMessageEventInterval =
+        configProvider.getInteger(
+            GRPC_SERVER_STREAM_MESSAGE_EVENT_INTERVAL,
+            DEFAULT_GRPC_SERVER_STREAM_MESSAGE_EVENT_INTERVAL);
 
     hystrixTagsEnabled = configProvider.getBoolean(HYSTRIX_TAGS_ENABLED, false);
     hystrixMeasuredEnabled = configProvider.getBoolean(HYSTRIX_MEASURED_ENABLED, false);
@@ -3287,6 +3312,10 @@ public class Config {
         configProvider.getFloat(
             TracerConfig.TRACE_FLUSH_INTERVAL, ConfigDefaults.DEFAULT_TRACE_FLUSH_INTERVAL);
 
+    this.traceSpillBufferSize =
+        configProvider.getInteger(
+            TracerConfig.TRACE_SPILL_BUFFER_SIZE, ConfigDefaults.DEFAULT_TRACE_SPILL_BUFFER_SIZE);
+
     this.tracePostProcessingTimeout =
         configProvider.getLong(
             TRACE_POST_PROCESSING_TIMEOUT, DEFAULT_TRACE_POST_PROCESSING_TIMEOUT);
@@ -3380,6 +3409,8 @@ public class Config {
         configProvider.getLong(
             GeneralConfig.TELEMETRY_DEPENDENCY_RESOLUTION_PERIOD_MILLIS,
             1000); // 1 second by default
+    this.telemetryDependencyCacheDir =
+        configProvider.getString(GeneralConfig.TELEMETRY_DEPENDENCY_CACHE_DIR);
 
     timelineEventsEnabled =
         configProvider.getBoolean(
@@ -3574,6 +3605,10 @@ public class Config {
     return traceFlushIntervalSeconds;
   }
 
+  public int getTraceSpillBufferSize() {
+    return traceSpillBufferSize;
+  }
+
   public long getTracePostProcessingTimeout() {
     return tracePostProcessingTimeout;
   }
@@ -4598,6 +4633,10 @@ public class Config {
     return ciVisibilityGitClientEnabled;
   }
 
+  public boolean isCiVisibilityGitClientInProcessEnabled() {
+    return ciVisibilityGitClientInProcessEnabled;
+  }
+
   public boolean isCiVisibilityGitUploadEnabled() {
     return ciVisibilityGitUploadEnabled;
   }
@@ -4658,6 +4697,10 @@ public class Config {
     return ciVisibilityRepoIndexFollowSymlinks;
   }
 
+  public String getCiVisibilityRepoIndexCacheDir() {
+    return ciVisibilityRepoIndexCacheDir;
+  }
+
   public int getCiVisibilityExecutionSettingsCacheSize() {
     return ciVisibilityExecutionSettingsCacheSize;
   }
@@ -5058,6 +5101,10 @@ public class Config {
     return kafkaClientBase64DecodingEnabled;
   }
 
+  public boolean isKafkaClientConsumerBatchSpansEnabled() {
+    return kafkaClientConsumerBatchSpansEnabled;
+  }
+
   public boolean isRabbitPropagationEnabled() {
     return rabbitPropagationEnabled;
   }
@@ -5246,6 +5293,14 @@ public class Config {
     return grpcClientErrorStatuses;
   }
 
+  public boolean isGrpcServerStreamMessageAggregationEnabled() {
+    return grpcServerStreamMessageAggregationEnabled;
+  }
+
+  public int getGrpcServerStreamMessageEventInterval() {
+    return grpcServerStreamMessageEventInterval;
+  }
+
   public boolean isCassandraKeyspaceStatementExtractionEnabled() {
     return cassandraKeyspaceStatementExtractionEnabled;
   }
@@ -5984,6 +6039,10 @@ public class Config {
     return dependecyResolutionPeriodMillis;
   }
 
+  public String getTelemetryDependencyCacheDir() {
+    return telemetryDependencyCacheDir;
+  }
+
   public boolean isDbmInjectSqlBaseHash() {
     return dbmInjectSqlBaseHash;
   }
@@ -6066,6 +6125,10 @@ public class Config {
     return configProvider.getBoolean(SAMPLING_MECHANISM_VALIDATION_DISABLED, false);
   }
 
+  public boolean isSpanTagsCopyOnWriteEnabled() {
+    return configProvider.getBoolean(SPAN_TAGS_COPY_ON_WRITE_ENABLED, false);
+  }
+
   public <T extends Enum<T>> T getEnumValue(
       final String name, final Class<T> type, final T defaultValue) {
     return configProvider.getEnum(name, type, defaultValue);
@@ -6803,6 +6866,8 @@ public class Config {
         + kafkaClientPropagationDisabledTopics
         + ", kafkaClientBase64DecodingEnabled="
         + kafkaClientBase64DecodingEnabled
+        + ", kafkaClientConsumerBatchSpansEnabled="
+        + kafkaClientConsumerBatchSpansEnabled
         + ", jmsPropagationEnabled="
         + jmsPropagationEnabled
         + ", jmsPropagationDisabledTopics="
@@ -6864,6 +6929,10 @@ public class Config {
         + grpcServerErrorStatuses
         + ", grpcClientErrorStatuses="
         + grpcClientErrorStatuses
+        + ", grpcServerStreamMessageAggregationEnabled="
+        + grpcServerStreamMessageAggregationEnabled
+        + ", grpcServerStreamMessageEventInterval="
+        + grpcServerStreamMessageEventInterval
         + ", clientIpEnabled="
         + clientIpEnabled
         + ", appSecRulesFile='"
@@ -6903,6 +6972,8 @@ public class Config {
         + elasticsearchBodyAndParamsEnabled
         + ", traceFlushInterval="
         + traceFlushIntervalSeconds
+        + ", traceSpillBufferSize="
+        + traceSpillBufferSize
         + ", injectBaggageAsTagsEnabled="
         + injectBaggageAsTagsEnabled
         + ", injectLinksAsTagsEnabled="
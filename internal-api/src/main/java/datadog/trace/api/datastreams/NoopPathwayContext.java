@@ -30,4 +30,9 @@ public class NoopPathwayContext implements PathwayContext {
   public String encode() {
     return null;
   }
+
+  @Override
+  public byte[] encodeBytes() {
+    return null;
+  }
 }
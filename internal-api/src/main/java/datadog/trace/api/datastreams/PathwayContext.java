@@ -18,4 +18,10 @@ public interface PathwayContext {
   StatsPoint getSavedStats();
 
   String encode() throws IOException;
+
+  /**
+   * Encodes the context as the bytes of the {@link #encode()} value, for carriers that store values
+   * as bytes.
+   */
+  byte[] encodeBytes() throws IOException;
 }
@@ -0,0 +1,215 @@
+package datadog.trace.api.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive lookup of the tags configured for header names, as in {@link
+ * datadog.trace.api.TraceConfig#getRequestHeaderTags()}.
+ *
+ * <p>The configured names are compiled once into an open-addressing table, whose hash function is
+ * seeded so that no two names share a slot whenever possible. Header names are then matched as
+ * found in the carrier, without being lowercased first, so visiting the headers of a request or a
+ * response allocates nothing for the headers that are not tagged.
+ *
+ * <p>A {@code "*"} name is not matched against headers, it is the prefix to use to tag all headers
+ * and is available from {@link #wildcardPrefix()}.
+ */
+public final class HeaderTagMatcher {
+  public static final HeaderTagMatcher EMPTY =
+      new HeaderTagMatcher(new String[1], new String[1], 0, 0, null);
+
+  private static final String WILDCARD = "*";
+  private static final int MAX_SEEDS_PER_SIZE = 32;
+  private static final int MAX_LOAD_FACTOR_SHIFT = 3;
+
+  private final String[] names;
+  private final String[] tags;
+  private final int mask;
+  private final int multiplier;
+  private final String wildcardPrefix;
+
+  private HeaderTagMatcher(
+      String[] names, String[] tags, int mask, int multiplier, String wildcardPrefix) {
+    this.names = names;
+    this.tags = tags;
+    this.mask = mask;
+    this.multiplier = multiplier;
+    this.wildcardPrefix = wildcardPrefix;
+  }
+
+  /**
+   * Compiles the given header tags.
+   *
+   * @param headerTags the tags by lowercase header name.
+   * @return the matcher for the header tags.
+   */
+  public static HeaderTagMatcher compile(Map<String, String> headerTags) {
+    if (null == headerTags || headerTags.isEmpty()) {
+      return EMPTY;
+    }
+    String wildcardPrefix = null;
+    List<String> names = new ArrayList<>(headerTags.size());
+    List<String> tags = new ArrayList<>(headerTags.size());
+    for (Map.Entry<String, String> entry : headerTags.entrySet()) {
+      String name = entry.getKey();
+      if (null == name || null == entry.getValue()) {
+        continue;
+      }
+      if (WILDCARD.equals(name)) {
+        wildcardPrefix = entry.getValue();
+      } else {
+        names.add(lowerCase(name));
+        tags.add(entry.getValue());
+      }
+    }
+    int minSize = Integer.highestOneBit(Math.max(names.size(), 1)) << 2;
+    for (int shift = 0; shift < MAX_LOAD_FACTOR_SHIFT; shift++) {
+      int size = minSize << shift;
+      for (int seed = 0; seed < MAX_SEEDS_PER_SIZE; seed++) {
+        HeaderTagMatcher matcher =
+            tryCompile(names, tags, size, multiplier(seed), wildcardPrefix, false);
+        if (null != matcher) {
+          return matcher;
+        }
+      }
+    }
+    // no collision-free seed found, fall back on linear probing
+    return tryCompile(names, tags, minSize, multiplier(0), wildcardPrefix, true);
+  }
+
+  private static HeaderTagMatcher tryCompile(
+      List<String> names,
+      List<String> tags,
+      int size,
+      int multiplier,
+      String wildcardPrefix,
+      boolean allowCollisions) {
+    String[] tableNames = new String[size];
+    String[] tableTags = new String[size];
+    int mask = size - 1;
+    for (int i = 0; i < names.size(); i++) {
+      String name = names.get(i);
+      int index = hash(name, multiplier) & mask;
+      while (null != tableNames[index]) {
+        if (tableNames[index].equals(name)) {
+          break; // same name configured with different cases, the last one wins
+        }
+        if (!allowCollisions) {
+          return null;
+        }
+        index = (index + 1) & mask;
+      }
+      tableNames[index] = name;
+      tableTags[index] = tags.get(i);
+    }
+    return new HeaderTagMatcher(tableNames, tableTags, mask, multiplier, wildcardPrefix);
+  }
+
+  /**
+   * Returns the tag configured for the given header.
+   *
+   * @param headerName the header name, in any case.
+   * @return the tag for the header, {@code null} if the header is not tagged.
+   */
+  public String tagFor(String headerName) {
+    if (null == headerName) {
+      return null;
+    }
+    int index = hash(headerName, multiplier) & mask;
+    String name;
+    while (null != (name = names[index])) {
+      if (matches(name, headerName)) {
+        return tags[index];
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  /** Returns the prefix to tag all headers with, {@code null} if not configured. */
+  public String wildcardPrefix() {
+    return wildcardPrefix;
+  }
+
+  /** Whether no header gets tagged. */
+  public boolean isEmpty() {
+    return this == EMPTY;
+  }
+
+  private static boolean matches(String lowerCaseName, String headerName) {
+    int length = lowerCaseName.length();
+    if (length != headerName.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (lowerCaseName.charAt(i) != lowerCase(headerName.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int hash(String name, int multiplier) {
+    int hash = 0;
+    for (int i = 0; i < name.length(); i++) {
+      hash = hash * multiplier + lowerCase(name.charAt(i));
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int multiplier(int seed) {
+    // odd multipliers spread over the int range, starting with the usual 31
+    return 31 + seed * 0x9E3779B8;
+  }
+
+  private static char lowerCase(char c) {
+    if (c < 128) {
+      return c >= 'A' && c <= 'Z' ? (char) (c | 0x20) : c;
+    }
+    return Character.toLowerCase(c);
+  }
+
+  private static String lowerCase(String name) {
+    char[] chars = null;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      char lower = lowerCase(c);
+      if (c != lower) {
+        if (null == chars) {
+          chars = name.toCharArray();
+        }
+        chars[i] = lower;
+      }
+    }
+    return null == chars ? name : new String(chars);
+  }
+
+  /**
+   * Keeps the matcher compiled for the last header tags it was given, for call sites that get the
+   * header tags from a {@link datadog.trace.api.TraceConfig} on every request.
+   */
+  public static final class Cache {
+    private volatile Entry entry;
+
+    public HeaderTagMatcher get(Map<String, String> headerTags) {
+      Entry entry = this.entry;
+      if (null == entry || entry.headerTags != headerTags) {
+        entry = new Entry(headerTags, compile(headerTags));
+        this.entry = entry;
+      }
+      return entry.matcher;
+    }
+
+    private static final class Entry {
+      final Map<String, String> headerTags;
+      final HeaderTagMatcher matcher;
+
+      Entry(Map<String, String> headerTags, HeaderTagMatcher matcher) {
+        this.headerTags = headerTags;
+        this.matcher = matcher;
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package datadog.trace.api.logging.intake;
+
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A log event captured by one of the logging library integrations.
+ *
+ * <p>Field names follow Log4j's JSON layout, which the logs backend already knows how to parse.
+ * Optional parts are set with the chained setters; {@code null} values are omitted from the
+ * submitted payload. A record is handed over to the logs writer once it is fully populated and is
+ * not modified afterwards.
+ */
+public final class LogRecord {
+
+  private final String thread;
+  private final String level;
+  private final String loggerName;
+  private final String message;
+
+  private boolean thrown;
+  private String thrownName;
+  private String thrownMessage;
+  private String thrownStackTrace;
+
+  private String traceId;
+  private String spanId;
+
+  private Boolean endOfBatch;
+  private String loggerFqcn;
+  private Map<String, String> contextMap;
+
+  private boolean source;
+  private String sourceClass;
+  private String sourceMethod;
+  private String sourceFile;
+  private int sourceLine;
+
+  public LogRecord(
+      @Nullable String thread,
+      @Nullable String level,
+      @Nullable String loggerName,
+      @Nullable String message) {
+    this.thread = thread;
+    this.level = level;
+    this.loggerName = loggerName;
+    this.message = message;
+  }
+
+  public LogRecord thrown(
+      @Nullable String name, @Nullable String message, @Nullable String extendedStackTrace) {
+    this.thrown = true;
+    this.thrownName = name;
+    this.thrownMessage = message;
+    this.thrownStackTrace = extendedStackTrace;
+    return this;
+  }
+
+  public LogRecord traceContext(@Nullable String traceId, @Nullable String spanId) {
+    this.traceId = traceId;
+    this.spanId = spanId;
+    return this;
+  }
+
+  public LogRecord endOfBatch(boolean endOfBatch) {
+    this.endOfBatch = endOfBatch;
+    return this;
+  }
+
+  public LogRecord loggerFqcn(@Nullable String loggerFqcn) {
+    this.loggerFqcn = loggerFqcn;
+    return this;
+  }
+
+  public LogRecord contextMap(@Nullable Map<String, String> contextMap) {
+    this.contextMap = contextMap;
+    return this;
+  }
+
+  public LogRecord source(
+      @Nullable String className,
+      @Nullable String methodName,
+      @Nullable String fileName,
+      int lineNumber) {
+    this.source = true;
+    this.sourceClass = className;
+    this.sourceMethod = methodName;
+    this.sourceFile = fileName;
+    this.sourceLine = lineNumber;
+    return this;
+  }
+
+  @Nullable
+  public String getThread() {
+    return thread;
+  }
+
+  @Nullable
+  public String getLevel() {
+    return level;
+  }
+
+  @Nullable
+  public String getLoggerName() {
+    return loggerName;
+  }
+
+  @Nullable
+  public String getMessage() {
+    return message;
+  }
+
+  public boolean hasThrown() {
+    return thrown;
+  }
+
+  @Nullable
+  public String getThrownName() {
+    return thrownName;
+  }
+
+  @Nullable
+  public String getThrownMessage() {
+    return thrownMessage;
+  }
+
+  @Nullable
+  public String getThrownStackTrace() {
+    return thrownStackTrace;
+  }
+
+  @Nullable
+  public String getTraceId() {
+    return traceId;
+  }
+
+  @Nullable
+  public String getSpanId() {
+    return spanId;
+  }
+
+  @Nullable
+  public Boolean getEndOfBatch() {
+    return endOfBatch;
+  }
+
+  @Nullable
+  public String getLoggerFqcn() {
+    return loggerFqcn;
+  }
+
+  @Nullable
+  public Map<String, String> getContextMap() {
+    return contextMap;
+  }
+
+  public boolean hasSource() {
+    return source;
+  }
+
+  @Nullable
+  public String getSourceClass() {
+    return sourceClass;
+  }
+
+  @Nullable
+  public String getSourceMethod() {
+    return sourceMethod;
+  }
+
+  @Nullable
+  public String getSourceFile() {
+    return sourceFile;
+  }
+
+  public int getSourceLine() {
+    return sourceLine;
+  }
+}
@@ -1,7 +1,5 @@
 package datadog.trace.api.logging.intake;
 
-import java.util.Map;
-
 public class LogsIntake {
 
   private static volatile LogsWriter WRITER;
@@ -17,10 +15,10 @@ public class LogsIntake {
     }
   }
 
-  public static void log(Map<String, Object> message) {
+  public static void log(LogRecord record) {
     LogsWriter writer = WRITER;
     if (writer != null) {
-      writer.log(message);
+      writer.log(record);
     }
   }
 }
@@ -1,12 +1,10 @@
 package datadog.trace.api.logging.intake;
 
-import java.util.Map;
-
 public interface LogsWriter {
 
   void start();
 
-  void log(Map<String, Object> message);
+  void log(LogRecord record);
 
   void shutdown();
 }
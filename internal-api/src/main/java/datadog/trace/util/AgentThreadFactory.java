@@ -37,6 +37,7 @@ public final class AgentThreadFactory implements ThreadFactory {
     CRASHTRACKING_HTTP_DISPATCHER("dd-crashtracking-http-dispatcher"),
 
     TELEMETRY("dd-telemetry"),
+    TELEMETRY_DEPENDENCY_RESOLVER("dd-telemetry-dependency-resolver"),
 
     FLEET_MANAGEMENT_POLLER("dd-fleet-management-poller"),
     REMOTE_CONFIG("dd-remote-config"),
@@ -58,6 +59,7 @@ public final class AgentThreadFactory implements ThreadFactory {
     CI_GIT_DATA_UPLOADER("dd-ci-git-data-uploader"),
     CI_GIT_DATA_SHUTDOWN_HOOK("dd-ci-git-data-shutdown-hook"),
     CI_PROJECT_CONFIGURATOR("dd-ci-project-configurator"),
+    CI_REPO_INDEXER("dd-ci-repo-indexer"),
     CI_SIGNAL_SERVER("dd-ci-signal-server"),
 
     RETRANSFORMER("dd-retransformer"),
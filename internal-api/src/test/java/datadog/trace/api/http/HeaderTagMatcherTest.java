@@ -0,0 +1,77 @@
+package datadog.trace.api.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HeaderTagMatcherTest {
+
+  @Test
+  void emptyHeaderTagsCompileToEmptyMatcher() {
+    assertSame(HeaderTagMatcher.EMPTY, HeaderTagMatcher.compile(null));
+    assertSame(HeaderTagMatcher.EMPTY, HeaderTagMatcher.compile(Collections.emptyMap()));
+    assertTrue(HeaderTagMatcher.EMPTY.isEmpty());
+    assertNull(HeaderTagMatcher.EMPTY.tagFor("content-type"));
+    assertNull(HeaderTagMatcher.EMPTY.wildcardPrefix());
+  }
+
+  @Test
+  void headersAreMatchedInAnyCase() {
+    Map<String, String> headerTags = new HashMap<>();
+    headerTags.put("content-type", "http.response.headers.content-type");
+    headerTags.put("x-request-id", "request.id");
+    HeaderTagMatcher matcher = HeaderTagMatcher.compile(headerTags);
+
+    assertFalse(matcher.isEmpty());
+    assertEquals("http.response.headers.content-type", matcher.tagFor("content-type"));
+    assertEquals("http.response.headers.content-type", matcher.tagFor("Content-Type"));
+    assertEquals("request.id", matcher.tagFor("X-REQUEST-ID"));
+    assertNull(matcher.tagFor("content-length"));
+    assertNull(matcher.tagFor("content-typ"));
+    assertNull(matcher.tagFor(null));
+  }
+
+  @Test
+  void wildcardIsOnlyUsedAsPrefix() {
+    Map<String, String> headerTags = new HashMap<>();
+    headerTags.put("*", "http.headers.");
+    HeaderTagMatcher matcher = HeaderTagMatcher.compile(headerTags);
+
+    assertFalse(matcher.isEmpty());
+    assertEquals("http.headers.", matcher.wildcardPrefix());
+    assertNull(matcher.tagFor("*"));
+  }
+
+  @Test
+  void manyHeaderTagsAreAllMatched() {
+    Map<String, String> headerTags = new HashMap<>();
+    for (int i = 0; i < 500; i++) {
+      headerTags.put("x-header-" + i, "tag." + i);
+    }
+    HeaderTagMatcher matcher = HeaderTagMatcher.compile(headerTags);
+
+    for (int i = 0; i < 500; i++) {
+      assertEquals("tag." + i, matcher.tagFor("X-Header-" + i));
+    }
+    assertNull(matcher.tagFor("x-header-500"));
+  }
+
+  @Test
+  void cacheRecompilesOnlyForOtherHeaderTags() {
+    HeaderTagMatcher.Cache cache = new HeaderTagMatcher.Cache();
+    Map<String, String> headerTags = Collections.singletonMap("content-type", "type");
+    HeaderTagMatcher matcher = cache.get(headerTags);
+
+    assertSame(matcher, cache.get(headerTags));
+    HeaderTagMatcher other = cache.get(Collections.singletonMap("content-type", "other"));
+    assertEquals("other", other.tagFor("Content-Type"));
+    assertSame(HeaderTagMatcher.EMPTY, cache.get(Collections.emptyMap()));
+  }
+}
@@ -0,0 +1,163 @@
+package datadog.trace.api.openfeature;
+
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.api.featureflag.ufc.v1.Allocation;
+import datadog.trace.api.featureflag.ufc.v1.ConditionConfiguration;
+import datadog.trace.api.featureflag.ufc.v1.ConditionOperator;
+import datadog.trace.api.featureflag.ufc.v1.Flag;
+import datadog.trace.api.featureflag.ufc.v1.ParsedSemver;
+import datadog.trace.api.featureflag.ufc.v1.Rule;
+import datadog.trace.api.featureflag.ufc.v1.ServerConfiguration;
+import datadog.trace.api.featureflag.ufc.v1.Shard;
+import datadog.trace.api.featureflag.ufc.v1.ShardRange;
+import datadog.trace.api.featureflag.ufc.v1.Split;
+import datadog.trace.api.featureflag.ufc.v1.ValueType;
+import datadog.trace.api.featureflag.ufc.v1.Variant;
+import dev.openfeature.sdk.MutableContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Evaluation-thread cost of DDEvaluator.evaluate across flag shapes: the work the evaluator does
+ * before any hook runs.
+ *
+ * <p>Each shape exercises one part of the pre-compiled EvaluationPlan: regex conditions use the
+ * pattern compiled when the configuration was received, numeric conditions the pre-parsed operand,
+ * one-of conditions the operand set, semver conditions the pre-parsed comparand, and sharded splits
+ * the flattened shard ranges and the thread-local MD5 digest. Every shape matches on its last
+ * allocation, so the non-matching allocations in front of it are evaluated as well.
+ *
+ * <p>compileConfiguration measures the one-off cost paid on every Remote Config update to build
+ * the plan for the same configuration.
+ *
+ * <p>Run: {@code ./gradlew :products:feature-flagging:feature-flagging-api:jmh
+ * -PjmhIncludes=DDEvaluatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class DDEvaluatorBenchmark {
+
+  private static final String FLAG_KEY = "bench-flag";
+  private static final int ALLOCATIONS = 4;
+
+  @Param({"static", "regex", "numeric", "one_of/100", "semver", "sharded"})
+  public String shape;
+
+  private DDEvaluator evaluator;
+  private ServerConfiguration configuration;
+  private MutableContext context;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    configuration = buildConfiguration(shape);
+    evaluator = new DDEvaluator(() -> {});
+    evaluator.accept(configuration);
+    context =
+        new MutableContext("bench-user-1234")
+            .add("email", "bench-user@example.com")
+            .add("age", 42)
+            .add("plan", "plan-99")
+            .add("version", "2.3.4");
+  }
+
+  @Benchmark
+  public void evaluate(final Blackhole blackhole) {
+    blackhole.consume(evaluator.evaluate(String.class, FLAG_KEY, "default", context));
+  }
+
+  @Benchmark
+  public void compileConfiguration(final Blackhole blackhole) {
+    blackhole.consume(EvaluationPlan.compile(configuration));
+  }
+
+  private static ServerConfiguration buildConfiguration(final String shape) {
+    final List<Allocation> allocations = new ArrayList<>(ALLOCATIONS);
+    for (int i = 0; i < ALLOCATIONS; i++) {
+      final boolean matching = i == ALLOCATIONS - 1;
+      allocations.add(allocation(shape, "alloc-" + i, matching));
+    }
+    final Map<String, Variant> variations = new HashMap<>();
+    variations.put("on", new Variant("on", "on-value"));
+    final Map<String, Flag> flags = new HashMap<>();
+    flags.put(FLAG_KEY, new Flag(FLAG_KEY, true, ValueType.STRING, variations, allocations));
+    return new ServerConfiguration("", "", false, null, flags);
+  }
+
+  private static Allocation allocation(
+      final String shape, final String key, final boolean matching) {
+    List<Rule> rules = null;
+    List<Shard> shards = null;
+    switch (shape) {
+      case "static":
+        if (!matching) {
+          rules = rule(new ConditionConfiguration(ConditionOperator.IS_NULL, "email", true));
+        }
+        break;
+      case "regex":
+        rules =
+            rule(
+                new ConditionConfiguration(
+                    ConditionOperator.MATCHES,
+                    "email",
+                    matching ? "^[[:alnum:]-]+@example\\.com$" : "@example\\.org$"));
+        break;
+      case "numeric":
+        rules = rule(new ConditionConfiguration(ConditionOperator.GTE, "age", matching ? 18 : 65));
+        break;
+      case "one_of/100":
+        final List<String> plans = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+          plans.add(matching ? "plan-" + i : "other-" + i);
+        }
+        rules = rule(new ConditionConfiguration(ConditionOperator.ONE_OF, "plan", plans));
+        break;
+      case "semver":
+        final String comparand = matching ? "2.0.0" : "3.0.0";
+        final ConditionConfiguration condition =
+            new ConditionConfiguration(ConditionOperator.SEMVER_GTE, "version", comparand);
+        condition.semverComparand = ParsedSemver.parse(comparand);
+        rules = rule(condition);
+        break;
+      case "sharded":
+        shards =
+            Arrays.asList(
+                new Shard(
+                    key + "-traffic",
+                    singletonList(new ShardRange(0, matching ? 10000 : 0)),
+                    10000),
+                new Shard(key + "-split", singletonList(new ShardRange(0, 10000)), 10000));
+        break;
+      default:
+        throw new IllegalArgumentException("unknown benchmark shape: " + shape);
+    }
+    final Split split = new Split(shards, "on", null, null);
+    return Allocation.fromInstants(key, rules, null, null, singletonList(split), false);
+  }
+
+  private static List<Rule> rule(final ConditionConfiguration condition) {
+    return singletonList(new Rule(singletonList(condition)));
+  }
+}
@@ -6,14 +6,10 @@ import datadog.trace.api.featureflag.FeatureFlaggingGateway;
 import datadog.trace.api.featureflag.exposure.ExposureEvent;
 import datadog.trace.api.featureflag.exposure.Subject;
 import datadog.trace.api.featureflag.ufc.v1.Allocation;
-import datadog.trace.api.featureflag.ufc.v1.ConditionConfiguration;
 import datadog.trace.api.featureflag.ufc.v1.ConditionOperator;
 import datadog.trace.api.featureflag.ufc.v1.Flag;
 import datadog.trace.api.featureflag.ufc.v1.ParsedSemver;
-import datadog.trace.api.featureflag.ufc.v1.Rule;
 import datadog.trace.api.featureflag.ufc.v1.ServerConfiguration;
-import datadog.trace.api.featureflag.ufc.v1.Shard;
-import datadog.trace.api.featureflag.ufc.v1.ShardRange;
 import datadog.trace.api.featureflag.ufc.v1.Split;
 import datadog.trace.api.featureflag.ufc.v1.ValueType;
 import datadog.trace.api.featureflag.ufc.v1.Variant;
@@ -26,8 +22,6 @@ import dev.openfeature.sdk.Reason;
 import dev.openfeature.sdk.Structure;
 import dev.openfeature.sdk.Value;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -111,7 +105,8 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
   private static final boolean SPAN_ENRICHMENT_ENABLED = SpanEnrichmentGate.isEnabled();
 
   private final Runnable configCallback;
-  private final AtomicReference<ServerConfiguration> configuration = new AtomicReference<>();
+  // Compiled when the configuration is received, so evaluations never re-parse UFC operands.
+  private final AtomicReference<EvaluationPlan> plan = new AtomicReference<>();
   private final CountDownLatch initializationLatch = new CountDownLatch(1);
 
   public DDEvaluator(final Runnable configCallback) {
@@ -128,7 +123,7 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
 
   @Override
   public boolean hasConfiguration() {
-    return configuration.get() != null;
+    return plan.get() != null;
   }
 
   @Override
@@ -138,7 +133,7 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
 
   @Override
   public void accept(final ServerConfiguration config) {
-    configuration.set(config);
+    plan.set(config == null ? null : EvaluationPlan.compile(config));
     if (config != null) {
       initializationLatch.countDown();
       configCallback.run();
@@ -156,7 +151,8 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
     // Snapshot the config once and thread observeFullEvaluationData through every
     // ProviderEvaluation returned, so the hook's consent decision is pinned to this evaluation's
     // config and cannot drift on a concurrent Remote Config swap.
-    final ServerConfiguration config = configuration.get();
+    final EvaluationPlan plan = this.plan.get();
+    final ServerConfiguration config = plan == null ? null : plan.configuration;
     // Boolean.TRUE.equals covers both null (privacy-preserving default) and Boolean.FALSE without
     // an NPE — the field is boxed so a malformed UFC message doesn't abort the whole parse.
     final boolean observeFullEvaluationData =
@@ -170,8 +166,8 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
         return error(defaultValue, ErrorCode.INVALID_CONTEXT, null, observeFullEvaluationData);
       }
 
-      final Flag flag = config.flags.get(key);
-      if (flag == null) {
+      final EvaluationPlan.FlagPlan flagPlan = plan.flag(key);
+      if (flagPlan == null) {
         if (config.invalidFlags != null && config.invalidFlags.containsKey(key)) {
           if ("invalid_semver_comparand".equals(config.invalidFlags.get(key))) {
             return error(
@@ -189,6 +185,7 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
         return error(defaultValue, ErrorCode.FLAG_NOT_FOUND, null, observeFullEvaluationData);
       }
 
+      final Flag flag = flagPlan.flag;
       if (!flag.enabled) {
         return ProviderEvaluation.<T>builder()
             .value(defaultValue)
@@ -205,61 +202,67 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
             observeFullEvaluationData);
       }
 
+      if (flagPlan.invalid != null) {
+        throw flagPlan.invalid;
+      }
+
       final Instant now = Instant.now();
       final long evalTimestampMs = now.toEpochMilli();
       final String targetingKey = context.getTargetingKey();
+      byte[] targetingKeyBytes = null;
 
-      for (final Allocation allocation : flag.allocations) {
-        if (!isAllocationActive(allocation, now)) {
+      for (final EvaluationPlan.AllocationPlan allocation : flagPlan.allocations) {
+        if (!allocation.isActive(now)) {
           continue;
         }
 
-        if (!isEmpty(allocation.rules)) {
+        if (allocation.rules != null) {
           if (!evaluateRules(allocation.rules, context)) {
             continue;
           }
         }
 
-        if (!isEmpty(allocation.splits)) {
-          for (final Split split : allocation.splits) {
-            if (isEmpty(split.shards)) {
+        for (final EvaluationPlan.SplitPlan split : allocation.splits) {
+          if (split.shards.length == 0) {
+            return resolveVariant(
+                target,
+                key,
+                defaultValue,
+                flag,
+                split.split.variationKey,
+                allocation.allocation,
+                split.split,
+                context,
+                evalTimestampMs,
+                observeFullEvaluationData);
+          } else {
+            if (targetingKey == null) {
+              return error(
+                  defaultValue, ErrorCode.TARGETING_KEY_MISSING, null, observeFullEvaluationData);
+            }
+            if (targetingKeyBytes == null) {
+              targetingKeyBytes = targetingKey.getBytes(StandardCharsets.UTF_8);
+            }
+            // To match a split, subject must match ALL underlying shards
+            boolean allShardsMatch = true;
+            for (final EvaluationPlan.ShardPlan shard : split.shards) {
+              if (!shard.matches(targetingKeyBytes)) {
+                allShardsMatch = false;
+                break;
+              }
+            }
+            if (allShardsMatch) {
               return resolveVariant(
                   target,
                   key,
                   defaultValue,
                   flag,
-                  split.variationKey,
-                  allocation,
-                  split,
+                  split.split.variationKey,
+                  allocation.allocation,
+                  split.split,
                   context,
                   evalTimestampMs,
                   observeFullEvaluationData);
-            } else {
-              if (targetingKey == null) {
-                return error(
-                    defaultValue, ErrorCode.TARGETING_KEY_MISSING, null, observeFullEvaluationData);
-              }
-              // To match a split, subject must match ALL underlying shards
-              boolean allShardsMatch = true;
-              for (final Shard shard : split.shards) {
-                if (!matchesShard(shard, targetingKey)) {
-                  allShardsMatch = false;
-                  break;
-                }
-              }
-              if (allShardsMatch) {
-                return resolveVariant(
-                    target,
-                    key,
-                    defaultValue,
-                    flag,
-                    split.variationKey,
-                    allocation,
-                    split,
-                    context,
-                    evalTimestampMs,
-                    observeFullEvaluationData);
-              }
             }
           }
         }
@@ -310,12 +313,14 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
   }
 
   static boolean isAllocationActive(final Allocation allocation, final Instant now) {
-    final Instant startDate = allocation.startAtInstant();
+    return isActive(allocation.startAtInstant(), allocation.endAtInstant(), now);
+  }
+
+  static boolean isActive(final Instant startDate, final Instant endDate, final Instant now) {
     if (startDate != null && now.isBefore(startDate)) {
       return false;
     }
 
-    final Instant endDate = allocation.endAtInstant();
     if (endDate != null && now.isAfter(endDate)) {
       return false;
     }
@@ -323,14 +328,11 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
     return true;
   }
 
-  private static boolean evaluateRules(final List<Rule> rules, final EvaluationContext context) {
-    for (final Rule rule : rules) {
-      if (isEmpty(rule.conditions)) {
-        continue;
-      }
-
+  private static boolean evaluateRules(
+      final EvaluationPlan.ConditionPlan[][] rules, final EvaluationContext context) {
+    for (final EvaluationPlan.ConditionPlan[] rule : rules) {
       boolean allConditionsMatch = true;
-      for (final ConditionConfiguration condition : rule.conditions) {
+      for (final EvaluationPlan.ConditionPlan condition : rule) {
         if (!evaluateCondition(condition, context)) {
           allConditionsMatch = false;
           break;
@@ -345,13 +347,11 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
   }
 
   private static boolean evaluateCondition(
-      final ConditionConfiguration condition, final EvaluationContext context) {
+      final EvaluationPlan.ConditionPlan condition, final EvaluationContext context) {
     if (condition.operator == ConditionOperator.IS_NULL) {
       final Object value = resolveAttribute(condition.attribute, context);
-      boolean isNull = value == null;
       // condition.value determines if we're checking for null (true) or not null (false)
-      boolean expectedNull = condition.value instanceof Boolean ? (Boolean) condition.value : true;
-      return isNull == expectedNull;
+      return (value == null) == condition.expectedNull;
     }
 
     final Object attributeValue = resolveAttribute(condition.attribute, context);
@@ -361,21 +361,21 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
 
     switch (condition.operator) {
       case MATCHES:
-        return matchesRegex(attributeValue, condition.value);
+        return matchesRegex(attributeValue, condition);
       case NOT_MATCHES:
-        return !matchesRegex(attributeValue, condition.value);
+        return !matchesRegex(attributeValue, condition);
       case ONE_OF:
-        return isOneOf(attributeValue, condition.value);
+        return isOneOf(attributeValue, condition);
       case NOT_ONE_OF:
-        return !isOneOf(attributeValue, condition.value);
+        return !isOneOf(attributeValue, condition);
       case GTE:
-        return compareNumber(attributeValue, condition.value, (a, b) -> a >= b);
+        return compareNumber(attributeValue, condition, (a, b) -> a >= b);
       case GT:
-        return compareNumber(attributeValue, condition.value, (a, b) -> a > b);
+        return compareNumber(attributeValue, condition, (a, b) -> a > b);
       case LTE:
-        return compareNumber(attributeValue, condition.value, (a, b) -> a <= b);
+        return compareNumber(attributeValue, condition, (a, b) -> a <= b);
       case LT:
-        return compareNumber(attributeValue, condition.value, (a, b) -> a < b);
+        return compareNumber(attributeValue, condition, (a, b) -> a < b);
       case SEMVER_EQ:
         return evaluateSemverCondition(attributeValue, condition.semverComparand, (o) -> o == 0);
       case SEMVER_NEQ:
@@ -393,14 +393,19 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
     }
   }
 
-  private static boolean matchesRegex(final Object attributeValue, final Object conditionValue) {
-    // PatternSyntaxException is intentionally not caught here so it propagates to evaluate(),
-    // which maps it to ErrorCode.PARSE_ERROR.
-    final Pattern pattern = Pattern.compile(normalizeRegex(String.valueOf(conditionValue)));
+  private static boolean matchesRegex(
+      final Object attributeValue, final EvaluationPlan.ConditionPlan condition) {
+    // A null plan pattern did not compile: compiling it again throws the PatternSyntaxException,
+    // which is intentionally not caught here so it propagates to evaluate(), which maps it to
+    // ErrorCode.PARSE_ERROR.
+    final Pattern pattern =
+        condition.pattern != null
+            ? condition.pattern
+            : Pattern.compile(normalizeRegex(String.valueOf(condition.value)));
     return pattern.matcher(String.valueOf(attributeValue)).find();
   }
 
-  private static String normalizeRegex(final String regex) {
+  static String normalizeRegex(final String regex) {
     return regex
         .replace("[:alnum:]", "\\p{Alnum}")
         .replace("[:alpha:]", "\\p{Alpha}")
@@ -410,11 +415,17 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
         .replace("[:space:]", "\\p{Space}");
   }
 
-  private static boolean isOneOf(final Object attributeValue, final Object conditionValue) {
-    if (!(conditionValue instanceof Iterable)) {
+  private static boolean isOneOf(
+      final Object attributeValue, final EvaluationPlan.ConditionPlan condition) {
+    // With string-only operands valuesEqual reduces to comparing the attribute's string form.
+    // Numbers are compared numerically (and may fail to parse), so they take the generic path.
+    if (condition.strings != null && !(attributeValue instanceof Number)) {
+      return condition.strings.contains(String.valueOf(attributeValue));
+    }
+    if (!(condition.value instanceof Iterable)) {
       return false;
     }
-    for (final Object value : (Iterable<?>) conditionValue) {
+    for (final Object value : (Iterable<?>) condition.value) {
       if (valuesEqual(attributeValue, value)) {
         return true;
       }
@@ -434,6 +445,18 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
     return String.valueOf(a).equals(String.valueOf(b));
   }
 
+  private static boolean compareNumber(
+      final Object attributeValue,
+      final EvaluationPlan.ConditionPlan condition,
+      NumberComparator comparator) {
+    if (!condition.numberParsed) {
+      // re-parse so that an invalid operand fails with the same exception as before
+      return compareNumber(attributeValue, condition.value, comparator);
+    }
+    final double a = mapValue(Double.class, attributeValue);
+    return comparator.compare(a, condition.number);
+  }
+
   private static boolean compareNumber(
       final Object attributeValue, final Object conditionValue, NumberComparator comparator) {
     final double a = mapValue(Double.class, attributeValue);
@@ -460,42 +483,6 @@ class DDEvaluator implements Evaluator, FeatureFlaggingGateway.ConfigListener {
     return comparator.compare(ParsedSemver.compare(parsedAttribute, comparand));
   }
 
-  private static boolean matchesShard(final Shard shard, final String targetingKey) {
-    final int assignedShard = getShard(shard.salt, targetingKey, shard.totalShards);
-    for (final ShardRange range : shard.ranges) {
-      if (assignedShard >= range.start && assignedShard < range.end) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  private static int getShard(final String salt, final String targetingKey, final int totalShards) {
-    final String hashKey = salt + "-" + targetingKey;
-    final String md5Hash = getMD5Hash(hashKey);
-    final String first8Chars = md5Hash.substring(0, Math.min(8, md5Hash.length()));
-    final long intFromHash = Long.parseLong(first8Chars, 16);
-    return (int) (intFromHash % totalShards);
-  }
-
-  private static String getMD5Hash(final String input) {
-    try {
-      final MessageDigest md = MessageDigest.getInstance("MD5");
-      final byte[] hashBytes = md.digest(input.getBytes(StandardCharsets.UTF_8));
-      final StringBuilder hexString = new StringBuilder();
-      for (byte b : hashBytes) {
-        final String hex = Integer.toHexString(0xff & b);
-        if (hex.length() == 1) {
-          hexString.append('0');
-        }
-        hexString.append(hex);
-      }
-      return hexString.toString();
-    } catch (NoSuchAlgorithmException e) {
-      throw new RuntimeException("MD5 algorithm not available", e);
-    }
-  }
-
   private static <T> ProviderEvaluation<T> resolveVariant(
       final Class<T> target,
       final String key,
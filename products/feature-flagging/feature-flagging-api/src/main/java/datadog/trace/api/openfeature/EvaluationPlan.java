@@ -0,0 +1,334 @@
+package datadog.trace.api.openfeature;
+
+import datadog.trace.api.featureflag.ufc.v1.Allocation;
+import datadog.trace.api.featureflag.ufc.v1.ConditionConfiguration;
+import datadog.trace.api.featureflag.ufc.v1.ConditionOperator;
+import datadog.trace.api.featureflag.ufc.v1.Flag;
+import datadog.trace.api.featureflag.ufc.v1.ParsedSemver;
+import datadog.trace.api.featureflag.ufc.v1.Rule;
+import datadog.trace.api.featureflag.ufc.v1.ServerConfiguration;
+import datadog.trace.api.featureflag.ufc.v1.Shard;
+import datadog.trace.api.featureflag.ufc.v1.ShardRange;
+import datadog.trace.api.featureflag.ufc.v1.Split;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable, pre-compiled form of a {@link ServerConfiguration}, built once when the configuration
+ * is received so that evaluations only pay for the work that depends on the evaluation context.
+ *
+ * <p>Regular expressions are compiled, numeric operands parsed, one-of string lists turned into
+ * sets and shard ranges flattened into int intervals. Operands that fail to compile are not
+ * reported here: the evaluator falls back to the original lazy path for them, so an invalid regex
+ * or number still surfaces as the same error code, and only when the condition is reached.
+ */
+final class EvaluationPlan {
+
+  private static final AllocationPlan[] NO_ALLOCATIONS = new AllocationPlan[0];
+  private static final SplitPlan[] NO_SPLITS = new SplitPlan[0];
+  private static final ShardPlan[] NO_SHARDS = new ShardPlan[0];
+
+  // MessageDigest is not thread-safe, and getInstance walks the security providers on every call
+  private static final ThreadLocal<MessageDigest> MD5 =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+              throw new RuntimeException("MD5 algorithm not available", e);
+            }
+          });
+
+  final ServerConfiguration configuration;
+
+  // null when the configuration has no flags map, so that lookups fail the same way as before
+  private final Map<String, FlagPlan> flags;
+
+  private EvaluationPlan(
+      final ServerConfiguration configuration, final Map<String, FlagPlan> flags) {
+    this.configuration = configuration;
+    this.flags = flags;
+  }
+
+  static EvaluationPlan compile(final ServerConfiguration configuration) {
+    final Map<String, Flag> flags = configuration.flags;
+    if (flags == null) {
+      return new EvaluationPlan(configuration, null);
+    }
+    final Map<String, FlagPlan> plans = new HashMap<>(flags.size() * 4 / 3 + 1);
+    for (final Map.Entry<String, Flag> entry : flags.entrySet()) {
+      if (entry.getValue() != null) {
+        plans.put(entry.getKey(), FlagPlan.compile(entry.getValue()));
+      }
+    }
+    return new EvaluationPlan(configuration, plans);
+  }
+
+  /** Returns the plan for the given flag key, or {@code null} if the flag is not configured. */
+  FlagPlan flag(final String key) {
+    return flags.get(key);
+  }
+
+  private static boolean isEmpty(final List<?> list) {
+    return list == null || list.isEmpty();
+  }
+
+  static final class FlagPlan {
+    final Flag flag;
+    final AllocationPlan[] allocations;
+
+    /**
+     * Set when the flag has a shape the plan cannot represent (e.g. null list entries). Thrown
+     * when the flag is evaluated instead of failing the whole configuration.
+     */
+    final RuntimeException invalid;
+
+    private FlagPlan(
+        final Flag flag, final AllocationPlan[] allocations, final RuntimeException invalid) {
+      this.flag = flag;
+      this.allocations = allocations;
+      this.invalid = invalid;
+    }
+
+    static FlagPlan compile(final Flag flag) {
+      if (isEmpty(flag.allocations)) {
+        return new FlagPlan(flag, NO_ALLOCATIONS, null);
+      }
+      try {
+        final AllocationPlan[] allocations = new AllocationPlan[flag.allocations.size()];
+        for (int i = 0; i < allocations.length; i++) {
+          allocations[i] = new AllocationPlan(flag.allocations.get(i));
+        }
+        return new FlagPlan(flag, allocations, null);
+      } catch (final RuntimeException e) {
+        return new FlagPlan(flag, NO_ALLOCATIONS, e);
+      }
+    }
+  }
+
+  static final class AllocationPlan {
+    final Allocation allocation;
+    private final Instant startAt;
+    private final Instant endAt;
+
+    /**
+     * Rules that have conditions, or {@code null} if the allocation has no rules. Rules without
+     * conditions never match, so an empty array means the allocation can never be selected.
+     */
+    final ConditionPlan[][] rules;
+
+    final SplitPlan[] splits;
+
+    AllocationPlan(final Allocation allocation) {
+      this.allocation = allocation;
+      this.startAt = allocation.startAtInstant();
+      this.endAt = allocation.endAtInstant();
+
+      if (isEmpty(allocation.rules)) {
+        this.rules = null;
+      } else {
+        final List<ConditionPlan[]> rules = new ArrayList<>(allocation.rules.size());
+        for (final Rule rule : allocation.rules) {
+          if (isEmpty(rule.conditions)) {
+            continue;
+          }
+          final ConditionPlan[] conditions = new ConditionPlan[rule.conditions.size()];
+          for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = new ConditionPlan(rule.conditions.get(i));
+          }
+          rules.add(conditions);
+        }
+        this.rules = rules.toArray(new ConditionPlan[0][]);
+      }
+
+      if (isEmpty(allocation.splits)) {
+        this.splits = NO_SPLITS;
+      } else {
+        this.splits = new SplitPlan[allocation.splits.size()];
+        for (int i = 0; i < splits.length; i++) {
+          splits[i] = new SplitPlan(allocation.splits.get(i));
+        }
+      }
+    }
+
+    boolean isActive(final Instant now) {
+      return DDEvaluator.isActive(startAt, endAt, now);
+    }
+  }
+
+  static final class ConditionPlan {
+    final ConditionOperator operator;
+    final String attribute;
+    final Object value;
+    final ParsedSemver semverComparand;
+
+    /** For IS_NULL: whether the attribute is expected to be null. */
+    final boolean expectedNull;
+
+    /** For MATCHES / NOT_MATCHES: the compiled pattern, or {@code null} if it does not compile. */
+    final Pattern pattern;
+
+    /** For GTE / GT / LTE / LT: whether {@link #number} holds the parsed operand. */
+    final boolean numberParsed;
+
+    final double number;
+
+    /**
+     * For ONE_OF / NOT_ONE_OF: the operand values when all of them are strings, {@code null}
+     * otherwise.
+     */
+    final Set<String> strings;
+
+    ConditionPlan(final ConditionConfiguration condition) {
+      this.operator = condition.operator;
+      this.attribute = condition.attribute;
+      this.value = condition.value;
+      this.semverComparand = condition.semverComparand;
+      this.expectedNull = !(value instanceof Boolean) || (Boolean) value;
+
+      Pattern pattern = null;
+      boolean numberParsed = false;
+      double number = 0;
+      Set<String> strings = null;
+      if (operator != null) {
+        switch (operator) {
+          case MATCHES:
+          case NOT_MATCHES:
+            pattern = compilePattern(value);
+            break;
+          case GTE:
+          case GT:
+          case LTE:
+          case LT:
+            final Double parsed = parseNumber(value);
+            if (parsed != null) {
+              numberParsed = true;
+              number = parsed;
+            }
+            break;
+          case ONE_OF:
+          case NOT_ONE_OF:
+            strings = stringSet(value);
+            break;
+          default:
+            break;
+        }
+      }
+      this.pattern = pattern;
+      this.numberParsed = numberParsed;
+      this.number = number;
+      this.strings = strings;
+    }
+
+    private static Pattern compilePattern(final Object value) {
+      try {
+        return Pattern.compile(DDEvaluator.normalizeRegex(String.valueOf(value)));
+      } catch (final PatternSyntaxException e) {
+        return null;
+      }
+    }
+
+    private static Double parseNumber(final Object value) {
+      try {
+        return DDEvaluator.mapValue(Double.class, value);
+      } catch (final NumberFormatException e) {
+        return null;
+      }
+    }
+
+    private static Set<String> stringSet(final Object value) {
+      if (!(value instanceof Iterable)) {
+        return null;
+      }
+      final Set<String> strings = new HashSet<>();
+      for (final Object item : (Iterable<?>) value) {
+        if (!(item instanceof String)) {
+          return null;
+        }
+        strings.add((String) item);
+      }
+      return strings;
+    }
+  }
+
+  static final class SplitPlan {
+    final Split split;
+    final ShardPlan[] shards;
+
+    SplitPlan(final Split split) {
+      this.split = split;
+      if (isEmpty(split.shards)) {
+        this.shards = NO_SHARDS;
+      } else {
+        this.shards = new ShardPlan[split.shards.size()];
+        for (int i = 0; i < shards.length; i++) {
+          shards[i] = new ShardPlan(split.shards.get(i));
+        }
+      }
+    }
+  }
+
+  static final class ShardPlan {
+    /** UTF-8 bytes of {@code salt + "-"}, the prefix of the hashed key. */
+    private final byte[] saltPrefix;
+
+    private final int totalShards;
+
+    /** Flattened [start, end) pairs, {@code null} (and failing on use) if the shard has none. */
+    private final int[] ranges;
+
+    ShardPlan(final Shard shard) {
+      this.saltPrefix = (shard.salt + "-").getBytes(StandardCharsets.UTF_8);
+      this.totalShards = shard.totalShards;
+      final List<ShardRange> ranges = shard.ranges;
+      if (ranges == null) {
+        this.ranges = null;
+      } else {
+        this.ranges = new int[ranges.size() * 2];
+        for (int i = 0; i < ranges.size(); i++) {
+          final ShardRange range = ranges.get(i);
+          this.ranges[i * 2] = range.start;
+          this.ranges[i * 2 + 1] = range.end;
+        }
+      }
+    }
+
+    boolean matches(final byte[] targetingKey) {
+      final int assignedShard = shardOf(targetingKey);
+      for (int i = 0; i < ranges.length; i += 2) {
+        if (assignedShard >= ranges[i] && assignedShard < ranges[i + 1]) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Hashes {@code salt + "-" + targetingKey} with MD5 and reduces the first 4 bytes of the
+     * digest, read as an unsigned big-endian int, modulo the total number of shards. This is the
+     * same value as parsing the first 8 hex characters of the digest, without the hex encoding.
+     */
+    int shardOf(final byte[] targetingKey) {
+      final MessageDigest md5 = MD5.get();
+      md5.update(saltPrefix);
+      md5.update(targetingKey);
+      final byte[] hash = md5.digest();
+      final long intFromHash =
+          ((hash[0] & 0xFFL) << 24)
+              | ((hash[1] & 0xFF) << 16)
+              | ((hash[2] & 0xFF) << 8)
+              | (hash[3] & 0xFF);
+      return (int) (intFromHash % totalShards);
+    }
+  }
+}
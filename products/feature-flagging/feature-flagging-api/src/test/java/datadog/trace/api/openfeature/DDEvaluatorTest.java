@@ -33,6 +33,8 @@ import datadog.trace.api.featureflag.ufc.v1.Flag;
 import datadog.trace.api.featureflag.ufc.v1.ParsedSemver;
 import datadog.trace.api.featureflag.ufc.v1.Rule;
 import datadog.trace.api.featureflag.ufc.v1.ServerConfiguration;
+import datadog.trace.api.featureflag.ufc.v1.Shard;
+import datadog.trace.api.featureflag.ufc.v1.ShardRange;
 import datadog.trace.api.featureflag.ufc.v1.Split;
 import datadog.trace.api.featureflag.ufc.v1.ValueType;
 import datadog.trace.api.featureflag.ufc.v1.Variant;
@@ -47,6 +49,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -488,6 +491,29 @@ public class DDEvaluatorTest {
     assertThat(DDEvaluator.isAllocationActive(allocation, endAt.plusNanos(1_000)), equalTo(false));
   }
 
+  @Test
+  public void testShardAssignmentMatchesHexDigestPrefix() throws Exception {
+    final String[] targetingKeys = {"", "alice", "user-1234567890", "caf\u00e9", "\ud83d\ude80"};
+    for (final String salt : new String[] {"salt", "exp-42", null}) {
+      final EvaluationPlan.ShardPlan shard =
+          new EvaluationPlan.ShardPlan(new Shard(salt, singletonList(new ShardRange(0, 1)), 10000));
+      for (final String targetingKey : targetingKeys) {
+        // reference: first 8 hex chars of the MD5 digest, parsed as a long
+        final byte[] digest =
+            MessageDigest.getInstance("MD5")
+                .digest((salt + "-" + targetingKey).getBytes(StandardCharsets.UTF_8));
+        final StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 4; i++) {
+          hex.append(String.format("%02x", digest[i]));
+        }
+        final int expected = (int) (Long.parseLong(hex.toString(), 16) % 10000);
+
+        assertThat(
+            shard.shardOf(targetingKey.getBytes(StandardCharsets.UTF_8)), equalTo(expected));
+      }
+    }
+  }
+
   // --- SemVer condition evaluation tests (ported from Go evaluator_test.go) ---
 
   private static Flag semverFlag(final ConditionOperator operator, final String comparand) {
@@ -6,6 +6,7 @@ plugins {
   `java-library`
   id("com.gradleup.shadow")
   id("dd-trace-java.module.product-subsystem")
+  id("dd-trace-java.jmh-conventions")
 }
 
 description = "StatsD client"
@@ -25,6 +26,10 @@ dependencies {
   testImplementation(group = "com.google.protobuf", name = "protobuf-java", version = "3.14.0")
 }
 
+jmh {
+  jmhVersion = libs.versions.jmh.get()
+}
+
 tasks.named<ShadowJar>("shadowJar") {
   dependencies {
     val deps = project.extra["deps"] as Map<*, *>
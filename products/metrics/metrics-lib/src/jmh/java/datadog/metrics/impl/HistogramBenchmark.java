@@ -0,0 +1,95 @@
+package datadog.metrics.impl;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.datadoghq.sketch.ddsketch.DDSketch;
+import com.datadoghq.sketch.ddsketch.mapping.BitwiseLinearlyInterpolatedMapping;
+import com.datadoghq.sketch.ddsketch.store.CollapsingLowestDenseStore;
+import datadog.metrics.api.Histogram;
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the latency histograms of the client stats aggregates, as DDSketch library sketches
+ * ({@code ddsketch}) and as {@link CompactHistogram} ({@code compact}), over a reporting interval:
+ * recording the latencies of an aggregate, serializing the histogram and clearing it.
+ *
+ * <p>{@code reuse} keeps the histogram across intervals, as the entries which stay in the
+ * aggregate table do, {@code allocate} creates a new one for each interval, as entries created for
+ * new aggregates did before histograms were pooled.
+ *
+ * <p>Run: {@code ./gradlew :products:metrics:metrics-lib:jmh -Pjmh.includes=HistogramBenchmark
+ * -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class HistogramBenchmark {
+
+  private static final BitwiseLinearlyInterpolatedMapping INDEX_MAPPING =
+      new BitwiseLinearlyInterpolatedMapping(1.0 / 128.0);
+
+  @Param({"ddsketch", "compact"})
+  public String implementation;
+
+  /** Number of distinct latencies, in milliseconds, recorded per interval. */
+  @Param({"4", "1000"})
+  public int distinctLatencies;
+
+  @Param({"16", "1024"})
+  public int hitsPerInterval;
+
+  private long[] latencies;
+  private Histogram histogram;
+
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(0);
+    latencies = new long[hitsPerInterval];
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = (1 + random.nextInt(distinctLatencies)) * 1_000_000L;
+    }
+    histogram = newHistogram();
+  }
+
+  private Histogram newHistogram() {
+    if ("compact".equals(implementation)) {
+      return DDSketchHistograms.FACTORY.newHistogram();
+    }
+    return new DDSketchHistogram(
+        new DDSketch(INDEX_MAPPING, () -> new CollapsingLowestDenseStore(1024)));
+  }
+
+  @Benchmark
+  public void reuse(Blackhole blackhole) {
+    report(histogram, blackhole);
+  }
+
+  @Benchmark
+  public void allocate(Blackhole blackhole) {
+    report(newHistogram(), blackhole);
+  }
+
+  private void report(Histogram histogram, Blackhole blackhole) {
+    for (long latency : latencies) {
+      histogram.accept(latency);
+    }
+    blackhole.consume(histogram.serialize());
+    histogram.clear();
+  }
+}
@@ -0,0 +1,334 @@
+package datadog.metrics.impl;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Counts per sketch bin index, kept in primitive arrays.
+ *
+ * <p>A store starts sparse, as sorted parallel arrays of the indexes and counts of its non-empty
+ * bins, which is all most histograms ever need. Past {@link #SPARSE_CAPACITY} bins, or when its
+ * bins span more than {@code maxNumBins}, it switches to a dense array over the range of its bins.
+ * Like {@code CollapsingLowestDenseStore}, the dense range is limited to {@code maxNumBins} and the
+ * lowest bins are collapsed into the lowest one that remains. Clearing keeps the arrays so that the
+ * store can be refilled without allocating.
+ *
+ * <p>Not thread-safe.
+ */
+final class CompactBinStore {
+  static final int SPARSE_CAPACITY = 32;
+  static final long NO_BIN = Long.MIN_VALUE;
+
+  private static final int INITIAL_SPARSE_CAPACITY = 4;
+  private static final int DENSE_GROWTH = 64;
+
+  private static final int[] NO_INDEXES = new int[0];
+  private static final double[] NO_COUNTS = new double[0];
+
+  private final int maxNumBins;
+
+  // sparse mode: bin indexes in ascending order, null once the store is dense
+  private int[] indexes = NO_INDEXES;
+  // sparse mode: counts of the bins in indexes; dense mode: count of bin offset + i at i
+  private double[] counts = NO_COUNTS;
+  // sparse mode: number of bins
+  private int size;
+
+  // dense mode: bin index of counts[0], and the range of bins which may be non-empty
+  private int offset;
+  private int minIndex;
+  private int maxIndex;
+
+  private double totalCount;
+
+  CompactBinStore(int maxNumBins) {
+    this.maxNumBins = maxNumBins;
+  }
+
+  boolean isEmpty() {
+    return totalCount == 0;
+  }
+
+  double getTotalCount() {
+    return totalCount;
+  }
+
+  boolean isDense() {
+    return indexes == null;
+  }
+
+  void add(int index, double count) {
+    if (count == 0) {
+      return;
+    }
+    if (indexes != null) {
+      if (addSparse(index, count)) {
+        totalCount += count;
+        return;
+      }
+      toDense();
+    }
+    addDense(index, count);
+    totalCount += count;
+  }
+
+  /** Adds the bins of another store. */
+  void mergeWith(CompactBinStore other) {
+    if (other.indexes != null) {
+      for (int i = 0; i < other.size; i++) {
+        add(other.indexes[i], other.counts[i]);
+      }
+    } else if (!other.isEmpty()) {
+      for (int index = other.minIndex; index <= other.maxIndex; index++) {
+        add(index, other.counts[index - other.offset]);
+      }
+    }
+  }
+
+  void clear() {
+    if (indexes != null) {
+      size = 0;
+    } else if (!isEmpty()) {
+      Arrays.fill(counts, minIndex - offset, maxIndex - offset + 1, 0);
+    }
+    totalCount = 0;
+  }
+
+  int getMinIndex() {
+    if (isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    if (indexes != null) {
+      return indexes[0];
+    }
+    int index = minIndex;
+    while (counts[index - offset] == 0) {
+      index++;
+    }
+    return index;
+  }
+
+  int getMaxIndex() {
+    if (isEmpty()) {
+      throw new NoSuchElementException();
+    }
+    if (indexes != null) {
+      return indexes[size - 1];
+    }
+    int index = maxIndex;
+    while (counts[index - offset] == 0) {
+      index--;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index of the first bin, in ascending or descending order, at which the cumulated
+   * counts of the bins exceed {@code rank}, or {@link #NO_BIN} if they don't.
+   */
+  long indexAtRank(double rank, boolean ascending) {
+    double n = 0;
+    if (indexes != null) {
+      for (int i = 0; i < size; i++) {
+        int bin = ascending ? i : size - 1 - i;
+        if ((n += counts[bin]) > rank) {
+          return indexes[bin];
+        }
+      }
+    } else if (!isEmpty()) {
+      for (int i = minIndex; i <= maxIndex; i++) {
+        int index = ascending ? i : maxIndex - (i - minIndex);
+        if ((n += counts[index - offset]) > rank) {
+          return index;
+        }
+      }
+    }
+    return NO_BIN;
+  }
+
+  /** Visits the non-empty bins in ascending order of index. */
+  void forEach(BinConsumer consumer) {
+    if (indexes != null) {
+      for (int i = 0; i < size; i++) {
+        consumer.accept(indexes[i], counts[i]);
+      }
+    } else if (!isEmpty()) {
+      for (int index = minIndex; index <= maxIndex; index++) {
+        double count = counts[index - offset];
+        if (count != 0) {
+          consumer.accept(index, count);
+        }
+      }
+    }
+  }
+
+  /** Returns the size of the store encoded as a {@code Store} protobuf message. */
+  int serializedSize() {
+    if (indexes != null) {
+      int bytes = 0;
+      for (int i = 0; i < size; i++) {
+        int entrySize = binCountEntrySize(indexes[i]);
+        bytes += 1 + Protobuf.varintSize(entrySize) + entrySize;
+      }
+      return bytes;
+    }
+    if (isEmpty()) {
+      return 0;
+    }
+    int first = getMinIndex();
+    int countsSize = 8 * (getMaxIndex() - first + 1);
+    int bytes = 1 + Protobuf.varintSize(countsSize) + countsSize;
+    if (first != 0) {
+      bytes += 1 + Protobuf.varintSize(Protobuf.zigZag(first));
+    }
+    return bytes;
+  }
+
+  /**
+   * Encodes the store as a {@code Store} protobuf message: the bins of a sparse store as entries
+   * of its {@code binCounts} map, those of a dense store as {@code contiguousBinCounts}.
+   */
+  int serialize(byte[] buffer, int position) {
+    if (indexes != null) {
+      for (int i = 0; i < size; i++) {
+        int index = indexes[i];
+        // binCounts map entry: sint32 key = 1, double value = 2
+        buffer[position++] = 0x0A;
+        position = Protobuf.writeVarint(buffer, position, binCountEntrySize(index));
+        buffer[position++] = 0x08;
+        position = Protobuf.writeVarint(buffer, position, Protobuf.zigZag(index));
+        buffer[position++] = 0x11;
+        position = Protobuf.writeDouble(buffer, position, counts[i]);
+      }
+      return position;
+    }
+    if (isEmpty()) {
+      return position;
+    }
+    int first = getMinIndex();
+    int last = getMaxIndex();
+    // packed contiguousBinCounts = 2, sint32 contiguousBinIndexOffset = 3
+    buffer[position++] = 0x12;
+    position = Protobuf.writeVarint(buffer, position, 8 * (last - first + 1));
+    for (int index = first; index <= last; index++) {
+      position = Protobuf.writeDouble(buffer, position, counts[index - offset]);
+    }
+    if (first != 0) {
+      buffer[position++] = 0x18;
+      position = Protobuf.writeVarint(buffer, position, Protobuf.zigZag(first));
+    }
+    return position;
+  }
+
+  private static int binCountEntrySize(int index) {
+    return 1 + Protobuf.varintSize(Protobuf.zigZag(index)) + 1 + 8;
+  }
+
+  /**
+   * Returns {@code false} if the bin is new and the store has no room left for it, or if it would
+   * widen the range past {@code maxNumBins}, which only a dense store can collapse.
+   */
+  private boolean addSparse(int index, double count) {
+    int position = Arrays.binarySearch(indexes, 0, size, index);
+    if (position >= 0) {
+      counts[position] += count;
+      return true;
+    }
+    if (size == SPARSE_CAPACITY
+        || (size > 0
+            && (long) Math.max(index, indexes[size - 1]) - Math.min(index, indexes[0])
+                >= maxNumBins)) {
+      return false;
+    }
+    position = ~position;
+    if (size == indexes.length) {
+      int capacity = Math.min(SPARSE_CAPACITY, Math.max(INITIAL_SPARSE_CAPACITY, size * 2));
+      indexes = Arrays.copyOf(indexes, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+    }
+    System.arraycopy(indexes, position, indexes, position + 1, size - position);
+    System.arraycopy(counts, position, counts, position + 1, size - position);
+    indexes[position] = index;
+    counts[position] = count;
+    size++;
+    return true;
+  }
+
+  private void toDense() {
+    int[] sparseIndexes = indexes;
+    double[] sparseCounts = counts;
+    int sparseSize = size;
+    indexes = null;
+    counts = NO_COUNTS;
+    size = 0;
+    totalCount = 0;
+    // from the highest bin down, so that only the lowest bins are collapsed if the range is too
+    // wide
+    for (int i = sparseSize - 1; i >= 0; i--) {
+      addDense(sparseIndexes[i], sparseCounts[i]);
+      totalCount += sparseCounts[i];
+    }
+  }
+
+  private void addDense(int index, double count) {
+    if (isEmpty()) {
+      if (index < offset || index >= offset + counts.length) {
+        if (counts.length == 0) {
+          counts = new double[Math.min(maxNumBins, DENSE_GROWTH)];
+        }
+        offset = index - (counts.length >> 1);
+      }
+      minIndex = index;
+      maxIndex = index;
+    } else if (index < minIndex || index > maxIndex) {
+      index = extendRange(index);
+    }
+    counts[index - offset] += count;
+  }
+
+  /** Makes the range include the index, and returns the bin to count it in. */
+  private int extendRange(int index) {
+    int newMin = Math.min(index, minIndex);
+    int newMax = Math.max(index, maxIndex);
+    if ((long) newMax - newMin + 1 > maxNumBins) {
+      newMin = newMax - maxNumBins + 1;
+      index = Math.max(index, newMin);
+    }
+    if (newMin < offset || newMax >= offset + counts.length) {
+      relocate(newMin, newMax, index < minIndex);
+    } else if (newMin > minIndex) {
+      collapseBelow(newMin);
+    }
+    minIndex = newMin;
+    maxIndex = newMax;
+    return index;
+  }
+
+  /** Collapses the counts of the bins below newMin into it, in place. */
+  private void collapseBelow(int newMin) {
+    double collapsed = 0;
+    for (int i = minIndex; i < newMin && i <= maxIndex; i++) {
+      collapsed += counts[i - offset];
+      counts[i - offset] = 0;
+    }
+    counts[newMin - offset] += collapsed;
+  }
+
+  private void relocate(int newMin, int newMax, boolean growingDown) {
+    int length = (int) Math.min(maxNumBins, (long) newMax - newMin + 1 + DENSE_GROWTH);
+    int newOffset = growingDown ? newMax - length + 1 : newMin;
+    double[] newCounts = new double[length];
+    for (int index = minIndex; index <= maxIndex; index++) {
+      double count = counts[index - offset];
+      if (count != 0) {
+        newCounts[Math.max(index, newMin) - newOffset] += count;
+      }
+    }
+    counts = newCounts;
+    offset = newOffset;
+  }
+
+  interface BinConsumer {
+    void accept(int index, double count);
+  }
+}
@@ -0,0 +1,237 @@
+package datadog.metrics.impl;
+
+import com.datadoghq.sketch.ddsketch.DDSketch;
+import com.datadoghq.sketch.ddsketch.mapping.IndexMapping;
+import com.datadoghq.sketch.ddsketch.store.CollapsingLowestDenseStore;
+import datadog.metrics.api.Histogram;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * DDSketch histogram with its bins in {@link CompactBinStore}s instead of the stores of the
+ * DDSketch library.
+ *
+ * <p>It has the same mapping, accuracy and protobuf encoding as a {@link DDSketch} with
+ * collapsing-lowest dense stores, but a histogram holding a few samples only costs a few small
+ * arrays, and clearing it keeps them for the next reporting interval. Histograms can be merged in
+ * place, and are serialized directly into the returned buffer.
+ *
+ * <p>Not thread-safe.
+ */
+final class CompactHistogram implements Histogram {
+  private final Mapping mapping;
+  private final CompactBinStore positiveValues;
+  // negative values are rare, for instance never seen in latencies
+  private CompactBinStore negativeValues;
+  private double zeroCount;
+
+  CompactHistogram(Mapping mapping) {
+    this.mapping = mapping;
+    this.positiveValues = new CompactBinStore(mapping.maxNumBins);
+  }
+
+  @Override
+  public double getCount() {
+    return zeroCount + positiveValues.getTotalCount() + negativeCount();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return getCount() == 0;
+  }
+
+  @Override
+  public void accept(double value) {
+    accept(value, 1);
+  }
+
+  @Override
+  public void accept(double value, double count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("The count cannot be negative.");
+    }
+    IndexMapping indexMapping = mapping.indexMapping;
+    if (value < -indexMapping.maxIndexableValue() || value > indexMapping.maxIndexableValue()) {
+      throw new IllegalArgumentException(
+          "The input value is outside the range that is tracked by the sketch.");
+    }
+    if (value > indexMapping.minIndexableValue()) {
+      positiveValues.add(indexMapping.index(value), count);
+    } else if (value < -indexMapping.minIndexableValue()) {
+      negativeValuesForWrite().add(indexMapping.index(-value), count);
+    } else {
+      zeroCount += count;
+    }
+  }
+
+  /** Adds the samples of another histogram with the same mapping. */
+  void mergeWith(CompactHistogram other) {
+    if (other.mapping != mapping) {
+      throw new IllegalArgumentException("The histograms do not share the same index mapping.");
+    }
+    positiveValues.mergeWith(other.positiveValues);
+    if (other.negativeValues != null && !other.negativeValues.isEmpty()) {
+      negativeValuesForWrite().mergeWith(other.negativeValues);
+    }
+    zeroCount += other.zeroCount;
+  }
+
+  @Override
+  public double getValueAtQuantile(double quantile) {
+    if (quantile < 0 || quantile > 1) {
+      throw new IllegalArgumentException("The quantile must be between 0 and 1.");
+    }
+    double count = getCount();
+    if (count == 0) {
+      throw new NoSuchElementException();
+    }
+    double rank = quantile * (count - 1);
+    IndexMapping indexMapping = mapping.indexMapping;
+    double negativeCount = negativeCount();
+    if (rank < negativeCount) {
+      // the largest negative bins hold the lowest values
+      return -indexMapping.value((int) negativeValues.indexAtRank(rank, false));
+    }
+    if (rank < negativeCount + zeroCount) {
+      return 0;
+    }
+    long index = positiveValues.indexAtRank(rank - negativeCount - zeroCount, true);
+    if (index == CompactBinStore.NO_BIN) {
+      return indexMapping.value(positiveValues.getMaxIndex());
+    }
+    return indexMapping.value((int) index);
+  }
+
+  @Override
+  public double getMinValue() {
+    if (negativeCount() > 0) {
+      return -mapping.indexMapping.value(negativeValues.getMaxIndex());
+    } else if (zeroCount > 0) {
+      return 0;
+    }
+    return mapping.indexMapping.value(positiveValues.getMinIndex());
+  }
+
+  @Override
+  public double getMaxValue() {
+    if (!positiveValues.isEmpty()) {
+      return mapping.indexMapping.value(positiveValues.getMaxIndex());
+    } else if (zeroCount > 0) {
+      return 0;
+    } else if (negativeCount() > 0) {
+      return -mapping.indexMapping.value(negativeValues.getMinIndex());
+    }
+    throw new NoSuchElementException();
+  }
+
+  @Override
+  public List<Double> getBinBoundaries() {
+    List<Double> boundaries = new ArrayList<>();
+    IndexMapping indexMapping = mapping.indexMapping;
+    // same gap handling as DDSketchHistogram
+    int[] lastBinIndex = {-1};
+    positiveValues.forEach(
+        (binIndex, count) -> {
+          if (lastBinIndex[0] < binIndex - 1) {
+            boundaries.add(indexMapping.upperBound(binIndex - 1));
+          }
+          boundaries.add(indexMapping.upperBound(binIndex));
+          lastBinIndex[0] = binIndex;
+        });
+    return boundaries;
+  }
+
+  @Override
+  public List<Double> getBinCounts() {
+    List<Double> counts = new ArrayList<>();
+    int[] lastBinIndex = {-1};
+    positiveValues.forEach(
+        (binIndex, count) -> {
+          if (lastBinIndex[0] < binIndex - 1) {
+            counts.add(0d);
+          }
+          counts.add(count);
+          lastBinIndex[0] = binIndex;
+        });
+    return counts;
+  }
+
+  @Override
+  public void clear() {
+    positiveValues.clear();
+    if (negativeValues != null) {
+      negativeValues.clear();
+    }
+    zeroCount = 0;
+  }
+
+  @Override
+  public ByteBuffer serialize() {
+    // DDSketch message: IndexMapping mapping = 1, Store positiveValues = 2,
+    // Store negativeValues = 3, double zeroCount = 4
+    byte[] emptySketch = mapping.emptySketch;
+    int positiveSize = positiveValues.serializedSize();
+    int negativeSize = negativeCount() > 0 ? negativeValues.serializedSize() : 0;
+    int size = emptySketch.length;
+    if (positiveSize > 0) {
+      size += 1 + Protobuf.varintSize(positiveSize) + positiveSize;
+    }
+    if (negativeSize > 0) {
+      size += 1 + Protobuf.varintSize(negativeSize) + negativeSize;
+    }
+    if (zeroCount != 0) {
+      size += 1 + 8;
+    }
+    // starting with the encoding of an empty sketch gives the mapping, the stores that follow
+    // are merged into its empty ones when parsed
+    byte[] buffer = Arrays.copyOf(emptySketch, size);
+    int position = emptySketch.length;
+    if (positiveSize > 0) {
+      buffer[position++] = 0x12;
+      position = Protobuf.writeVarint(buffer, position, positiveSize);
+      position = positiveValues.serialize(buffer, position);
+    }
+    if (negativeSize > 0) {
+      buffer[position++] = 0x1A;
+      position = Protobuf.writeVarint(buffer, position, negativeSize);
+      position = negativeValues.serialize(buffer, position);
+    }
+    if (zeroCount != 0) {
+      buffer[position++] = 0x21;
+      Protobuf.writeDouble(buffer, position, zeroCount);
+    }
+    return ByteBuffer.wrap(buffer);
+  }
+
+  private double negativeCount() {
+    return negativeValues == null ? 0 : negativeValues.getTotalCount();
+  }
+
+  private CompactBinStore negativeValuesForWrite() {
+    CompactBinStore store = negativeValues;
+    if (store == null) {
+      store = new CompactBinStore(mapping.maxNumBins);
+      negativeValues = store;
+    }
+    return store;
+  }
+
+  /** An index mapping and bin limit shared by histograms, with their empty encoding. */
+  static final class Mapping {
+    final IndexMapping indexMapping;
+    final int maxNumBins;
+    final byte[] emptySketch;
+
+    Mapping(IndexMapping indexMapping, int maxNumBins) {
+      this.indexMapping = indexMapping;
+      this.maxNumBins = maxNumBins;
+      ByteBuffer empty =
+          new DDSketch(indexMapping, () -> new CollapsingLowestDenseStore(maxNumBins)).serialize();
+      this.emptySketch = new byte[empty.remaining()];
+      empty.get(emptySketch);
+    }
+  }
+}
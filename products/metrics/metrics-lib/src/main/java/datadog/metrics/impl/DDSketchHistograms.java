@@ -22,20 +22,23 @@ public final class DDSketchHistograms implements Histograms.Factory {
   // any conversions in the backend that would lead to a loss of precision
   private static final LogarithmicMapping LOG_INDEX_MAPPING =
       new LogarithmicMapping(1.015625, 1.8761281912861705);
+  // latency histograms mostly hold a few distinct values, keep them in compact bins
+  private static final CompactHistogram.Mapping COMPACT_MAPPING =
+      new CompactHistogram.Mapping(INDEX_MAPPING, 1024);
+  private static final CompactHistogram.Mapping COMPACT_LOG_MAPPING =
+      new CompactHistogram.Mapping(LOG_INDEX_MAPPING, 1024);
   public static final Histograms.Factory FACTORY = new DDSketchHistograms();
 
   private DDSketchHistograms() {}
 
   @Override
   public Histogram newHistogram() {
-    DDSketch sketch = new DDSketch(INDEX_MAPPING, () -> new CollapsingLowestDenseStore(1024));
-    return new DDSketchHistogram(sketch);
+    return new CompactHistogram(COMPACT_MAPPING);
   }
 
   @Override
   public Histogram newLogHistogram() {
-    DDSketch sketch = new DDSketch(LOG_INDEX_MAPPING, () -> new CollapsingLowestDenseStore(1024));
-    return new DDSketchHistogram(sketch);
+    return new CompactHistogram(COMPACT_LOG_MAPPING);
   }
 
   @Override
@@ -0,0 +1,40 @@
+package datadog.metrics.impl;
+
+/** The few protobuf encoding primitives needed to write sketches without an intermediate copy. */
+final class Protobuf {
+  private Protobuf() {}
+
+  static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  static int varintSize(int value) {
+    if ((value & (~0 << 7)) == 0) {
+      return 1;
+    } else if ((value & (~0 << 14)) == 0) {
+      return 2;
+    } else if ((value & (~0 << 21)) == 0) {
+      return 3;
+    } else if ((value & (~0 << 28)) == 0) {
+      return 4;
+    }
+    return 5;
+  }
+
+  static int writeVarint(byte[] buffer, int position, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+    return position;
+  }
+
+  static int writeDouble(byte[] buffer, int position, double value) {
+    long bits = Double.doubleToRawLongBits(value);
+    for (int i = 0; i < 8; i++) {
+      buffer[position++] = (byte) (bits >>> (8 * i));
+    }
+    return position;
+  }
+}
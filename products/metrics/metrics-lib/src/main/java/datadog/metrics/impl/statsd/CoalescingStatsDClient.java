@@ -0,0 +1,250 @@
+package datadog.metrics.impl.statsd;
+
+import datadog.metrics.api.statsd.StatsDClient;
+import datadog.trace.util.AgentTaskScheduler;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Pre-aggregates counters and gauges between flushes before handing them to another client.
+ *
+ * <p>Counting is a lock-free increment of the series for the metric name and tags, and setting a
+ * gauge only records its latest value, so frequent updates cost no message allocation, no name or
+ * tag mapping and no queueing in the DogStatsD client. Each flush sends one count per series which
+ * changed and one value per gauge which was set. Fewer messages also means fewer datagrams, as the
+ * DogStatsD client already packs its messages up to the maximum packet size.
+ *
+ * <p>Histograms, distributions, service checks and events are passed through as they are.
+ */
+public final class CoalescingStatsDClient implements StatsDClient {
+  private static final String[] NO_TAGS = new String[0];
+
+  private final StatsDClient delegate;
+
+  private final Map<String, Series> counters = new ConcurrentHashMap<>();
+  private final Map<String, Series> longGauges = new ConcurrentHashMap<>();
+  private final Map<String, Series> doubleGauges = new ConcurrentHashMap<>();
+
+  private final AgentTaskScheduler.Scheduled<CoalescingStatsDClient> flushTask;
+
+  public CoalescingStatsDClient(
+      final StatsDClient delegate, final long flushInterval, final TimeUnit flushUnit) {
+    this.delegate = delegate;
+    this.flushTask =
+        AgentTaskScheduler.get()
+            .scheduleAtFixedRate(FlushTask.INSTANCE, this, flushInterval, flushInterval, flushUnit);
+  }
+
+  /** Creates a client which is only flushed on demand. */
+  CoalescingStatsDClient(final StatsDClient delegate) {
+    this.delegate = delegate;
+    this.flushTask = null;
+  }
+
+  @Override
+  public void incrementCounter(final String metricName, final String... tags) {
+    count(metricName, 1L, tags);
+  }
+
+  @Override
+  public void count(final String metricName, final long delta, final String... tags) {
+    ((CounterEntry) series(counters, metricName).entry(tags, CounterEntry::new)).sum.add(delta);
+  }
+
+  @Override
+  public void gauge(final String metricName, final long value, final String... tags) {
+    ((GaugeEntry) series(longGauges, metricName).entry(tags, GaugeEntry::new)).set(value);
+  }
+
+  @Override
+  public void gauge(final String metricName, final double value, final String... tags) {
+    ((GaugeEntry) series(doubleGauges, metricName).entry(tags, GaugeEntry::new))
+        .set(Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public void histogram(final String metricName, final long value, final String... tags) {
+    delegate.histogram(metricName, value, tags);
+  }
+
+  @Override
+  public void histogram(final String metricName, final double value, final String... tags) {
+    delegate.histogram(metricName, value, tags);
+  }
+
+  @Override
+  public void distribution(final String metricName, final long value, final String... tags) {
+    delegate.distribution(metricName, value, tags);
+  }
+
+  @Override
+  public void distribution(final String metricName, final double value, final String... tags) {
+    delegate.distribution(metricName, value, tags);
+  }
+
+  @Override
+  public void serviceCheck(
+      final String serviceCheckName,
+      final String status,
+      final String message,
+      final String... tags) {
+    delegate.serviceCheck(serviceCheckName, status, message, tags);
+  }
+
+  @Override
+  public void recordEvent(
+      String type, String source, String eventName, String message, String... tags) {
+    delegate.recordEvent(type, source, eventName, message, tags);
+  }
+
+  @Override
+  public void error(final Exception error) {
+    delegate.error(error);
+  }
+
+  @Override
+  public int getErrorCount() {
+    return delegate.getErrorCount();
+  }
+
+  /** Sends what was aggregated since the last flush. */
+  void flush() {
+    for (Series series : counters.values()) {
+      for (Entry entry : series.entries) {
+        LongAdder sum = ((CounterEntry) entry).sum;
+        // subtracting what is sent keeps increments racing with the flush for the next one
+        long delta = sum.sum();
+        if (delta != 0) {
+          sum.add(-delta);
+          delegate.count(series.metricName, delta, entry.tags);
+        }
+      }
+    }
+    for (Series series : longGauges.values()) {
+      for (Entry entry : series.entries) {
+        GaugeEntry gauge = (GaugeEntry) entry;
+        if (gauge.takeUpdate()) {
+          delegate.gauge(series.metricName, gauge.value, gauge.tags);
+        }
+      }
+    }
+    for (Series series : doubleGauges.values()) {
+      for (Entry entry : series.entries) {
+        GaugeEntry gauge = (GaugeEntry) entry;
+        if (gauge.takeUpdate()) {
+          delegate.gauge(series.metricName, Double.longBitsToDouble(gauge.value), gauge.tags);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (null != flushTask) {
+      flushTask.cancel();
+    }
+    try {
+      flush();
+    } finally {
+      delegate.close();
+    }
+  }
+
+  private static Series series(final Map<String, Series> seriesByName, final String metricName) {
+    Series series = seriesByName.get(metricName);
+    if (null == series) {
+      series = seriesByName.computeIfAbsent(metricName, Series::new);
+    }
+    return series;
+  }
+
+  /** The entries of a metric name, one per distinct set of tags. */
+  private static final class Series {
+    final String metricName;
+    // copy-on-write, new tag sets only appear until the application has warmed up
+    volatile Entry[] entries = new Entry[0];
+
+    Series(final String metricName) {
+      this.metricName = metricName;
+    }
+
+    Entry entry(final String[] tags, final Function<String[], Entry> factory) {
+      String[] lookupTags = null == tags ? NO_TAGS : tags;
+      Entry entry = find(entries, lookupTags);
+      if (null == entry) {
+        synchronized (this) {
+          Entry[] current = entries;
+          entry = find(current, lookupTags);
+          if (null == entry) {
+            // the caller may reuse its array, keep a copy
+            entry = factory.apply(lookupTags.clone());
+            Entry[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = entry;
+            entries = updated;
+          }
+        }
+      }
+      return entry;
+    }
+
+    private static Entry find(final Entry[] entries, final String[] tags) {
+      for (Entry entry : entries) {
+        if (Arrays.equals(entry.tags, tags)) {
+          return entry;
+        }
+      }
+      return null;
+    }
+  }
+
+  private abstract static class Entry {
+    final String[] tags;
+
+    Entry(final String[] tags) {
+      this.tags = tags;
+    }
+  }
+
+  private static final class CounterEntry extends Entry {
+    final LongAdder sum = new LongAdder();
+
+    CounterEntry(final String[] tags) {
+      super(tags);
+    }
+  }
+
+  private static final class GaugeEntry extends Entry {
+    volatile long value;
+    private volatile boolean updated;
+
+    GaugeEntry(final String[] tags) {
+      super(tags);
+    }
+
+    void set(final long value) {
+      this.value = value;
+      updated = true;
+    }
+
+    boolean takeUpdate() {
+      if (updated) {
+        updated = false;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  private static final class FlushTask implements AgentTaskScheduler.Task<CoalescingStatsDClient> {
+    static final FlushTask INSTANCE = new FlushTask();
+
+    @Override
+    public void run(final CoalescingStatsDClient target) {
+      target.flush();
+    }
+  }
+}
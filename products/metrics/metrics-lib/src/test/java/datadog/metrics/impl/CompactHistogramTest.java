@@ -0,0 +1,209 @@
+package datadog.metrics.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.datadoghq.sketch.ddsketch.DDSketch;
+import com.datadoghq.sketch.ddsketch.DDSketchProtoBinding;
+import com.datadoghq.sketch.ddsketch.mapping.BitwiseLinearlyInterpolatedMapping;
+import com.datadoghq.sketch.ddsketch.store.CollapsingLowestDenseStore;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class CompactHistogramTest {
+
+  private static final BitwiseLinearlyInterpolatedMapping INDEX_MAPPING =
+      new BitwiseLinearlyInterpolatedMapping(1.0 / 128.0);
+  private static final CompactHistogram.Mapping MAPPING =
+      new CompactHistogram.Mapping(INDEX_MAPPING, 1024);
+
+  private static final double[] QUANTILES = {0, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 1};
+
+  @Test
+  void staysSparseForFewDistinctValues() {
+    CompactBinStore store = new CompactBinStore(1024);
+    for (int i = 0; i < CompactBinStore.SPARSE_CAPACITY; i++) {
+      store.add(1000 - 10 * i, 1);
+      store.add(1000 - 10 * i, 2);
+    }
+    assertFalse(store.isDense());
+    assertEquals(3 * CompactBinStore.SPARSE_CAPACITY, store.getTotalCount());
+    assertEquals(1000 - 10 * (CompactBinStore.SPARSE_CAPACITY - 1), store.getMinIndex());
+    assertEquals(1000, store.getMaxIndex());
+
+    store.add(5, 1);
+    assertTrue(store.isDense());
+    assertEquals(3 * CompactBinStore.SPARSE_CAPACITY + 1, store.getTotalCount());
+    assertEquals(5, store.getMinIndex());
+    assertEquals(1000, store.getMaxIndex());
+  }
+
+  @Test
+  void collapsesTheLowestBinsOnceDense() {
+    CompactBinStore store = new CompactBinStore(64);
+    for (int i = 0; i <= 100; i++) {
+      store.add(i, 1);
+    }
+    assertTrue(store.isDense());
+    assertEquals(101, store.getTotalCount());
+    // only 64 bins fit, the lowest ones are counted in bin 37
+    assertEquals(37, store.getMinIndex());
+    assertEquals(100, store.getMaxIndex());
+    assertEquals(37, store.indexAtRank(37, true));
+    assertEquals(38, store.indexAtRank(38, true));
+
+    store.add(-1000, 2);
+    assertEquals(37, store.getMinIndex());
+    assertEquals(37, store.indexAtRank(39, true));
+    assertEquals(103, store.getTotalCount());
+  }
+
+  @Test
+  void clearKeepsTheStoreReusable() {
+    CompactBinStore store = new CompactBinStore(1024);
+    for (int i = 0; i < 100; i++) {
+      store.add(i * 3, 1);
+    }
+    store.clear();
+    assertTrue(store.isEmpty());
+    assertThrows(NoSuchElementException.class, store::getMinIndex);
+    assertEquals(CompactBinStore.NO_BIN, store.indexAtRank(0, true));
+
+    store.add(-50, 4);
+    assertEquals(-50, store.getMinIndex());
+    assertEquals(-50, store.getMaxIndex());
+    assertEquals(4, store.getTotalCount());
+  }
+
+  @Test
+  void matchesTheDDSketchQuantiles() {
+    SplittableRandom random = new SplittableRandom(0);
+    for (int distinct : new int[] {1, 5, 31, 32, 33, 1000, 100_000}) {
+      CompactHistogram histogram = new CompactHistogram(MAPPING);
+      DDSketch sketch = newSketch();
+      for (int i = 0; i < 10_000; i++) {
+        double value = random.nextInt(distinct) * 1000 + random.nextInt(1000);
+        if (random.nextInt(100) == 0) {
+          // a few negative values and zeros
+          value = -value / 10;
+        }
+        histogram.accept(value);
+        sketch.accept(value);
+      }
+      assertSameDistribution(sketch, histogram);
+      assertSameDistribution(sketch, roundTrip(histogram));
+    }
+  }
+
+  @Test
+  void mergesInPlace() {
+    CompactHistogram histogram = new CompactHistogram(MAPPING);
+    CompactHistogram other = new CompactHistogram(MAPPING);
+    DDSketch sketch = newSketch();
+    for (int i = 1; i <= 500; i++) {
+      histogram.accept(i);
+      sketch.accept(i);
+      other.accept(-i * 7.5);
+      sketch.accept(-i * 7.5);
+      other.accept(0);
+      sketch.accept(0);
+    }
+    histogram.mergeWith(other);
+    assertSameDistribution(sketch, histogram);
+
+    CompactHistogram unrelated =
+        new CompactHistogram(new CompactHistogram.Mapping(INDEX_MAPPING, 1024));
+    assertThrows(IllegalArgumentException.class, () -> histogram.mergeWith(unrelated));
+  }
+
+  @Test
+  void reportsBinsWithGaps() {
+    CompactHistogram histogram = new CompactHistogram(MAPPING);
+    DDSketchHistogram reference = new DDSketchHistogram(newSketch());
+    for (double value : new double[] {1, 1, 2, 2.5, 100, 1e6}) {
+      histogram.accept(value);
+      reference.accept(value);
+    }
+    assertEquals(reference.getBinBoundaries(), histogram.getBinBoundaries());
+    assertEquals(reference.getBinCounts(), histogram.getBinCounts());
+  }
+
+  @Test
+  void serializesLikeAnEmptySketchOnceCleared() {
+    CompactHistogram histogram = new CompactHistogram(MAPPING);
+    histogram.accept(1);
+    histogram.accept(-2);
+    histogram.accept(0);
+    histogram.clear();
+
+    assertTrue(histogram.isEmpty());
+    assertArrayEquals(toArray(newSketch().serialize()), histogram.serialize().array());
+    assertThrows(NoSuchElementException.class, () -> histogram.getValueAtQuantile(0.5));
+  }
+
+  @Test
+  void rejectsInvalidInput() {
+    CompactHistogram histogram = new CompactHistogram(MAPPING);
+    assertThrows(IllegalArgumentException.class, () -> histogram.accept(1, -1));
+    assertThrows(IllegalArgumentException.class, () -> histogram.accept(Double.POSITIVE_INFINITY));
+    histogram.accept(1);
+    assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtQuantile(1.5));
+  }
+
+  private static DDSketch newSketch() {
+    return new DDSketch(INDEX_MAPPING, () -> new CollapsingLowestDenseStore(1024));
+  }
+
+  private static DDSketch roundTrip(CompactHistogram histogram) {
+    try {
+      return DDSketchProtoBinding.fromProto(
+          () -> new CollapsingLowestDenseStore(1024),
+          com.datadoghq.sketch.ddsketch.proto.DDSketch.parseFrom(histogram.serialize().array()));
+    } catch (InvalidProtocolBufferException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static void assertSameDistribution(DDSketch expected, Object actual) {
+    List<Double> expectedValues = new ArrayList<>();
+    List<Double> actualValues = new ArrayList<>();
+    expectedValues.add(expected.getCount());
+    expectedValues.add(expected.getMinValue());
+    expectedValues.add(expected.getMaxValue());
+    for (double quantile : QUANTILES) {
+      expectedValues.add(expected.getValueAtQuantile(quantile));
+    }
+    if (actual instanceof DDSketch) {
+      DDSketch sketch = (DDSketch) actual;
+      actualValues.add(sketch.getCount());
+      actualValues.add(sketch.getMinValue());
+      actualValues.add(sketch.getMaxValue());
+      for (double quantile : QUANTILES) {
+        actualValues.add(sketch.getValueAtQuantile(quantile));
+      }
+    } else {
+      CompactHistogram histogram = (CompactHistogram) actual;
+      actualValues.add(histogram.getCount());
+      actualValues.add(histogram.getMinValue());
+      actualValues.add(histogram.getMaxValue());
+      for (double quantile : QUANTILES) {
+        actualValues.add(histogram.getValueAtQuantile(quantile));
+      }
+    }
+    assertEquals(expectedValues, actualValues);
+  }
+
+  private static byte[] toArray(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
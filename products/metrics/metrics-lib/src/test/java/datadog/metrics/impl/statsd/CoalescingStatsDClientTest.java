@@ -0,0 +1,198 @@
+package datadog.metrics.impl.statsd;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import datadog.metrics.api.statsd.StatsDClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class CoalescingStatsDClientTest {
+
+  @Test
+  void sendsOneCountPerSeriesAndFlush() {
+    RecordingStatsDClient delegate = new RecordingStatsDClient();
+    CoalescingStatsDClient client = new CoalescingStatsDClient(delegate);
+
+    client.incrementCounter("spans", "kind:server");
+    client.count("spans", 2, "kind:server");
+    // a different array with the same tags is the same series
+    client.count("spans", 3, new String[] {"kind:server"});
+    client.count("spans", 5, "kind:client");
+    client.incrementCounter("traces");
+    client.count("dropped", 0);
+
+    client.flush();
+    List<String> firstFlush = delegate.calls();
+    Collections.sort(firstFlush);
+    assertEquals(
+        asList("count spans 5 [kind:client]", "count spans 6 [kind:server]", "count traces 1 []"),
+        firstFlush);
+
+    client.flush();
+    assertEquals(emptyList(), delegate.calls(), "nothing changed since the last flush");
+
+    client.count("spans", 4, "kind:server");
+    client.flush();
+    assertEquals(asList("count spans 4 [kind:server]"), delegate.calls());
+  }
+
+  @Test
+  void sendsTheLatestGaugeValueOnce() {
+    RecordingStatsDClient delegate = new RecordingStatsDClient();
+    CoalescingStatsDClient client = new CoalescingStatsDClient(delegate);
+
+    client.gauge("queue.size", 10L);
+    client.gauge("queue.size", 7L);
+    client.gauge("load", 0.25);
+    client.gauge("load", 0.5);
+
+    client.flush();
+    List<String> firstFlush = delegate.calls();
+    Collections.sort(firstFlush);
+    assertEquals(asList("gauge load 0.5 []", "gauge queue.size 7 []"), firstFlush);
+
+    client.flush();
+    assertEquals(emptyList(), delegate.calls());
+  }
+
+  @Test
+  void passesThroughWhatCannotBeAggregated() {
+    RecordingStatsDClient delegate = new RecordingStatsDClient();
+    CoalescingStatsDClient client = new CoalescingStatsDClient(delegate);
+
+    client.histogram("latency", 3L, "op:read");
+    client.distribution("size", 1.5);
+    client.serviceCheck("check", "OK", null);
+
+    assertEquals(
+        asList(
+            "histogram latency 3 [op:read]",
+            "distribution size 1.5 []",
+            "serviceCheck check OK"),
+        delegate.calls());
+  }
+
+  @Test
+  void flushesAndClosesTheDelegateOnClose() {
+    RecordingStatsDClient delegate = new RecordingStatsDClient();
+    CoalescingStatsDClient client = new CoalescingStatsDClient(delegate);
+
+    client.incrementCounter("spans");
+    client.close();
+
+    assertEquals(asList("count spans 1 []"), delegate.calls());
+    assertTrue(delegate.closed);
+  }
+
+  @Test
+  void keepsConcurrentIncrements() throws Exception {
+    RecordingStatsDClient delegate = new RecordingStatsDClient();
+    CoalescingStatsDClient client = new CoalescingStatsDClient(delegate);
+
+    int threadCount = 4;
+    int increments = 10_000;
+    CountDownLatch done = new CountDownLatch(threadCount);
+    for (int t = 0; t < threadCount; t++) {
+      String[] tags = {"thread:" + (t % 2)};
+      new Thread(
+              () -> {
+                for (int i = 0; i < increments; i++) {
+                  client.incrementCounter("spans", tags);
+                }
+                done.countDown();
+              })
+          .start();
+    }
+    // flushing while the threads increment must not lose any increment
+    while (done.getCount() > 0) {
+      client.flush();
+    }
+    client.flush();
+
+    long total = 0;
+    for (String call : delegate.calls()) {
+      total += Long.parseLong(call.substring("count spans ".length(), call.indexOf(" [")));
+    }
+    assertEquals((long) threadCount * increments, total);
+  }
+
+  static final class RecordingStatsDClient implements StatsDClient {
+    private final List<String> calls = new ArrayList<>();
+    boolean closed;
+
+    synchronized List<String> calls() {
+      List<String> result = new ArrayList<>(calls);
+      calls.clear();
+      return result;
+    }
+
+    private synchronized void record(String call, String metricName, Object value, String[] tags) {
+      calls.add(call + " " + metricName + " " + value + " " + asList(tags));
+    }
+
+    @Override
+    public void incrementCounter(String metricName, String... tags) {
+      record("incrementCounter", metricName, 1, tags);
+    }
+
+    @Override
+    public void count(String metricName, long delta, String... tags) {
+      record("count", metricName, delta, tags);
+    }
+
+    @Override
+    public void gauge(String metricName, long value, String... tags) {
+      record("gauge", metricName, value, tags);
+    }
+
+    @Override
+    public void gauge(String metricName, double value, String... tags) {
+      record("gauge", metricName, value, tags);
+    }
+
+    @Override
+    public void histogram(String metricName, long value, String... tags) {
+      record("histogram", metricName, value, tags);
+    }
+
+    @Override
+    public void histogram(String metricName, double value, String... tags) {
+      record("histogram", metricName, value, tags);
+    }
+
+    @Override
+    public void distribution(String metricName, long value, String... tags) {
+      record("distribution", metricName, value, tags);
+    }
+
+    @Override
+    public void distribution(String metricName, double value, String... tags) {
+      record("distribution", metricName, value, tags);
+    }
+
+    @Override
+    public synchronized void serviceCheck(
+        String serviceCheckName, String status, String message, String... tags) {
+      calls.add("serviceCheck " + serviceCheckName + " " + status);
+    }
+
+    @Override
+    public void error(Exception error) {}
+
+    @Override
+    public int getErrorCount() {
+      return 0;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 plugins {
   `java-library`
   id("dd-trace-java.module.internal-library")
+  id("dd-trace-java.jmh-conventions")
 }
 
 val minimumBranchCoverage by extra(0.6)
@@ -40,3 +41,7 @@ dependencies {
   testImplementation(libs.assertj.core)
   testImplementation(libs.json.unit.assertj)
 }
+
+jmh {
+  jmhVersion = libs.versions.jmh.get()
+}
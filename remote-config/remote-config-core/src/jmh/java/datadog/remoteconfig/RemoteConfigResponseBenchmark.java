@@ -0,0 +1,130 @@
+package datadog.remoteconfig;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.squareup.moshi.Moshi;
+import datadog.remoteconfig.tuf.InstantJsonAdapter;
+import datadog.remoteconfig.tuf.RawJsonAdapter;
+import datadog.remoteconfig.tuf.RemoteConfigResponse;
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a poll whose response carries the same signed targets as the previous one, which is
+ * what the agent sends as long as the configuration does not change: parsing the response and
+ * canonicalizing the signed targets for the signature check.
+ *
+ * <p>The target files are not sent again once the tracer reports them as cached, so the response
+ * only holds the targets, which grow with the number of configurations.
+ *
+ * <p>{@code unchangedTargets} reuses the response factory, as the poller does, so that the targets
+ * are only compared with the previous ones. {@code parsedTargets} parses and canonicalizes them
+ * again, as every poll did before.
+ *
+ * <p>Run: {@code ./gradlew :remote-config:remote-config-core:jmh
+ * -Pjmh.includes=RemoteConfigResponseBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class RemoteConfigResponseBenchmark {
+
+  /** Number of configurations in the targets, across ASM, debugger, flags and APM tracing. */
+  @Param({"10", "500"})
+  public int configCount;
+
+  private Moshi moshi;
+  private byte[] body;
+  private RemoteConfigResponse.Factory factory;
+  private Object lastTargetsSigned;
+
+  @Setup
+  public void setUp() {
+    moshi =
+        new Moshi.Builder()
+            .add(Instant.class, new InstantJsonAdapter())
+            .add(ByteString.class, new RawJsonAdapter())
+            .build();
+    factory = new RemoteConfigResponse.Factory(moshi);
+    body = responseBody(configCount).getBytes(UTF_8);
+    unchangedTargets();
+  }
+
+  @Benchmark
+  public byte[] unchangedTargets() {
+    return poll(factory);
+  }
+
+  @Benchmark
+  public byte[] parsedTargets() {
+    return poll(new RemoteConfigResponse.Factory(moshi));
+  }
+
+  private byte[] poll(RemoteConfigResponse.Factory factory) {
+    RemoteConfigResponse response =
+        factory
+            .fromInputStream(new ByteArrayInputStream(body))
+            .orElseThrow(IllegalStateException::new);
+    // the poller only checks the signature of targets it did not verify yet
+    if (response.getTargetsSigned() == lastTargetsSigned) {
+      return null;
+    }
+    lastTargetsSigned = response.getTargetsSigned();
+    Map<String, Object> untypedTargetsSigned = response.getUntypedTargetsSigned();
+    return JsonCanonicalizer.canonicalize(untypedTargetsSigned);
+  }
+
+  private static String responseBody(int configCount) {
+    StringBuilder targets = new StringBuilder();
+    targets.append("{\"signed\":{\"_type\":\"targets\",\"custom\":{\"opaque_backend_state\":\"");
+    targets.append(Base64.getEncoder().encodeToString(new byte[512])).append("\"},");
+    targets.append("\"expires\":\"2030-01-01T00:00:00Z\",\"spec_version\":\"1.0.0\",\"targets\":{");
+    StringBuilder clientConfigs = new StringBuilder();
+    String[] products = {"ASM_DD", "LIVE_DEBUGGING", "FFE_FLAGS", "APM_TRACING"};
+    for (int i = 0; i < configCount; i++) {
+      String path = "datadog/2/" + products[i % products.length] + "/config-" + i + "/config";
+      if (i > 0) {
+        targets.append(',');
+        clientConfigs.append(',');
+      }
+      targets
+          .append('"')
+          .append(path)
+          .append("\":{\"custom\":{\"v\":")
+          .append(i + 1)
+          .append("},\"hashes\":{\"sha256\":\"")
+          .append(String.format("%064x", i))
+          .append("\"},\"length\":")
+          .append(1000 + i)
+          .append('}');
+      clientConfigs.append('"').append(path).append('"');
+    }
+    targets.append("},\"version\":42},\"signatures\":[{\"keyid\":\"");
+    targets.append(String.format("%064x", 1)).append("\",\"sig\":\"");
+    targets.append(String.format("%0128x", 2)).append("\"}]}");
+    return "{\"targets\":\""
+        + Base64.getEncoder().encodeToString(targets.toString().getBytes(UTF_8))
+        + "\",\"client_configs\":["
+        + clientConfigs
+        + "]}";
+  }
+}
@@ -85,6 +85,9 @@ public class DefaultConfigurationPoller
   private PollerRequestFactory requestFactory;
   private RemoteConfigResponse.Factory responseFactory;
   private boolean fatalOnInitialization = false;
+  // signed targets of the last verified signature, which are shared by the following responses
+  // for as long as the targets do not change
+  private RemoteConfigResponse.Targets.TargetsSigned verifiedTargetsSigned;
 
   public DefaultConfigurationPoller(
       Config config,
@@ -553,6 +556,11 @@ public class DefaultConfigurationPoller
     Ed25519Signature sig;
     byte[] canonicalTargetsSigned;
     try {
+      RemoteConfigResponse.Targets.TargetsSigned targetsSigned = resp.getTargetsSigned();
+      if (targetsSigned != null && targetsSigned == verifiedTargetsSigned) {
+        // same targets as an already verified response, skip canonicalizing them again
+        return;
+      }
       {
         String targetsSignatureStr = resp.getTargetsSignature(this.keyId);
         sig = Ed25519Signature.fromByteArray(HexUtils.fromHexString(targetsSignatureStr));
@@ -570,6 +578,7 @@ public class DefaultConfigurationPoller
       throw new ReportableException(
           "Signature verification failed for targets.signed. Key id: " + this.keyId);
     }
+    this.verifiedTargetsSigned = resp.getTargetsSigned();
   }
 
   private void verifyTargetsPresence(RemoteConfigResponse resp) {
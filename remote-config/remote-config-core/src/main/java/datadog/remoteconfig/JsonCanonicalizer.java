@@ -1,7 +1,7 @@
 package datadog.remoteconfig;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -11,14 +11,14 @@ public class JsonCanonicalizer {
   private static final byte[] NULL_CONSTANT = {'n', 'u', 'l', 'l'};
 
   public static byte[] canonicalize(Map<String, Object> map) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    serialize(baos, map);
-    return baos.toByteArray();
+    Output os = new Output();
+    serialize(os, map);
+    return os.toByteArray();
   }
 
-  private static void serialize(ByteArrayOutputStream os, Object o) {
+  private static void serialize(Output os, Object o) {
     if (o == null) {
-      os.write(NULL_CONSTANT, 0, NULL_CONSTANT.length);
+      os.write(NULL_CONSTANT);
     } else if (o instanceof String) {
       serialize(os, (String) o);
     } else if (o instanceof Number) {
@@ -34,44 +34,53 @@ public class JsonCanonicalizer {
     }
   }
 
-  private static void serialize(ByteArrayOutputStream os, String s) {
+  private static void serialize(Output os, String s) {
     os.write('"');
-    s.codePoints()
-        .forEach(
-            codepoint -> {
-              if (codepoint == '\\' || codepoint == '"') {
-                os.write('\\');
-              }
-              if (codepoint < 0x80) {
-                os.write(codepoint);
-              } else if (codepoint < 0x800) {
-                os.write(0xc0 | (codepoint >> 6));
-                os.write(0x80 | (codepoint & 0x3f));
-              } else if (codepoint < 0x10000) {
-                os.write(0xe0 | ((codepoint >> 12)));
-                os.write(0x80 | ((codepoint >> 6) & 0x3f));
-                os.write(0x80 | (codepoint & 0x3f));
-              } else {
-                os.write(0xf0 | ((codepoint >> 18)));
-                os.write(0x80 | ((codepoint >> 12) & 0x3f));
-                os.write(0x80 | ((codepoint >> 6) & 0x3f));
-                os.write(0x80 | (codepoint & 0x3f));
-              }
-            });
+    int length = s.length();
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        // most of the targets are ASCII, written without decoding code points
+        if (c == '\\' || c == '"') {
+          os.write('\\');
+        }
+        os.write(c);
+        continue;
+      }
+      int codepoint = c;
+      if (Character.isHighSurrogate(c)
+          && i + 1 < length
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        codepoint = Character.toCodePoint(c, s.charAt(++i));
+      }
+      if (codepoint < 0x800) {
+        os.write(0xc0 | (codepoint >> 6));
+        os.write(0x80 | (codepoint & 0x3f));
+      } else if (codepoint < 0x10000) {
+        os.write(0xe0 | ((codepoint >> 12)));
+        os.write(0x80 | ((codepoint >> 6) & 0x3f));
+        os.write(0x80 | (codepoint & 0x3f));
+      } else {
+        os.write(0xf0 | ((codepoint >> 18)));
+        os.write(0x80 | ((codepoint >> 12) & 0x3f));
+        os.write(0x80 | ((codepoint >> 6) & 0x3f));
+        os.write(0x80 | (codepoint & 0x3f));
+      }
+    }
     os.write('"');
   }
 
-  private static void serialize(ByteArrayOutputStream os, long l) {
+  private static void serialize(Output os, long l) {
     byte[] bytes = Long.toString(l).getBytes(StandardCharsets.US_ASCII);
-    os.write(bytes, 0, bytes.length);
+    os.write(bytes);
   }
 
-  private static void serialize(ByteArrayOutputStream os, Boolean b) {
+  private static void serialize(Output os, Boolean b) {
     byte[] arr = b.booleanValue() ? TRUE_CONSTANT : FALSE_CONSTANT;
-    os.write(arr, 0, arr.length);
+    os.write(arr);
   }
 
-  private static void serialize(ByteArrayOutputStream os, List<Object> list) {
+  private static void serialize(Output os, List<Object> list) {
     os.write('[');
     for (int i = 0; i < list.size(); i++) {
       if (i != 0) {
@@ -82,26 +91,50 @@ public class JsonCanonicalizer {
     os.write(']');
   }
 
-  private static void serialize(ByteArrayOutputStream os, Map<String, Object> map) {
+  private static void serialize(Output os, Map<String, Object> map) {
     os.write('{');
 
-    boolean[] first = new boolean[] {true};
-    map.entrySet().stream()
-        // the canonical json spec only says "keys are lexicographically sorted"
-        .sorted((e1, e2) -> String.CASE_INSENSITIVE_ORDER.compare(e1.getKey(), e2.getKey()))
-        .forEach(
-            e -> {
-              if (first[0]) {
-                first[0] = false;
-              } else {
-                os.write(',');
-              }
-
-              serialize(os, e.getKey());
-              os.write(':');
-              serialize(os, e.getValue());
-            });
+    String[] keys = map.keySet().toArray(new String[0]);
+    // the canonical json spec only says "keys are lexicographically sorted"
+    Arrays.sort(keys, String.CASE_INSENSITIVE_ORDER);
+    for (int i = 0; i < keys.length; i++) {
+      if (i != 0) {
+        os.write(',');
+      }
+      serialize(os, keys[i]);
+      os.write(':');
+      serialize(os, map.get(keys[i]));
+    }
 
     os.write('}');
   }
+
+  /**
+   * Growable byte buffer written one byte at a time, without the synchronization of {@link
+   * java.io.ByteArrayOutputStream}.
+   */
+  private static final class Output {
+    // signed targets are rarely smaller, start big enough to avoid most of the copies
+    private byte[] buffer = new byte[4096];
+    private int size;
+
+    void write(int b) {
+      if (size == buffer.length) {
+        buffer = Arrays.copyOf(buffer, size << 1);
+      }
+      buffer[size++] = (byte) b;
+    }
+
+    void write(byte[] bytes) {
+      if (size + bytes.length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(size << 1, size + bytes.length));
+      }
+      System.arraycopy(bytes, 0, buffer, size, bytes.length);
+      size += bytes.length;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+  }
 }
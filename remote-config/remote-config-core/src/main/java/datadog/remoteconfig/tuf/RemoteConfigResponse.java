@@ -8,6 +8,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
@@ -38,10 +39,21 @@ public class RemoteConfigResponse {
   @Json(name = "target_files")
   public List<TargetFile> targetFiles;
 
+  /**
+   * Parses the responses of the agent.
+   *
+   * <p>The agent sends the whole signed targets on every poll, even when nothing changed. The
+   * factory remembers the last encoded targets and their parsed form, so that identical targets
+   * are only compared with the previous ones instead of being decoded and parsed again. Not
+   * thread-safe: a factory belongs to the poller thread.
+   */
   public static class Factory {
     private final JsonAdapter<RemoteConfigResponse> adapterRC;
     private final JsonAdapter<Targets> adapterTargets;
 
+    private String lastTargetsJson;
+    private Targets lastTargets;
+
     public Factory(Moshi moshi) {
       this.adapterRC = moshi.adapter(RemoteConfigResponse.class);
       this.adapterTargets = moshi.adapter(Targets.class);
@@ -54,13 +66,13 @@ public class RemoteConfigResponse {
         if (targetsJsonBase64 == null) {
           return Optional.empty(); // empty response -- no change
         }
-        byte[] targetsJsonDecoded =
-            Base64.getDecoder().decode(targetsJsonBase64.getBytes(StandardCharsets.ISO_8859_1));
-        if (targetsJsonDecoded.length > 0) {
-          response.targets =
-              adapterTargets.fromJson(
-                  Okio.buffer(Okio.source(new ByteArrayInputStream(targetsJsonDecoded))));
-          response.targets.targetsSignedUntyped = extractUntypedSignedField(targetsJsonDecoded);
+        if (targetsJsonBase64.equals(lastTargetsJson)) {
+          // parsed targets are only read, they can be shared with the previous response
+          response.targets = lastTargets;
+        } else {
+          response.targets = parseTargets(targetsJsonBase64);
+          lastTargetsJson = targetsJsonBase64;
+          lastTargets = response.targets;
         }
         response.targetsJson = null;
         return Optional.of(response);
@@ -71,7 +83,21 @@ public class RemoteConfigResponse {
       }
     }
 
-    private Map<String, Object> extractUntypedSignedField(byte[] targetsJsonDecoded)
+    private Targets parseTargets(String targetsJsonBase64) throws IOException {
+      byte[] targetsJsonDecoded =
+          Base64.getDecoder().decode(targetsJsonBase64.getBytes(StandardCharsets.ISO_8859_1));
+      if (targetsJsonDecoded.length == 0) {
+        return null;
+      }
+      Targets targets =
+          adapterTargets.fromJson(
+              Okio.buffer(Okio.source(new ByteArrayInputStream(targetsJsonDecoded))));
+      // the untyped view is only needed to check the signature, parse it on demand
+      targets.decodedJson = targetsJsonDecoded;
+      return targets;
+    }
+
+    private static Map<String, Object> extractUntypedSignedField(byte[] targetsJsonDecoded)
         throws IOException {
       JsonReader reader =
           JsonReader.of(Okio.buffer(Okio.source(new ByteArrayInputStream(targetsJsonDecoded))));
@@ -107,7 +133,15 @@ public class RemoteConfigResponse {
   }
 
   public Map<String, Object> getUntypedTargetsSigned() {
-    return this.targets.targetsSignedUntyped;
+    Targets targets = this.targets;
+    if (targets.targetsSignedUntyped != null || targets.decodedJson == null) {
+      return targets.targetsSignedUntyped;
+    }
+    try {
+      return Factory.extractUntypedSignedField(targets.decodedJson);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
   public byte[] getFileContents(String configKey) {
@@ -189,6 +223,9 @@ public class RemoteConfigResponse {
 
     public transient Map<String, Object> targetsSignedUntyped;
 
+    // decoded targets, to parse the untyped view of the signed targets from when it is needed
+    transient byte[] decodedJson;
+
     public static class Signature {
       @Json(name = "keyid")
       public String keyId;
@@ -0,0 +1,56 @@
+package datadog.remoteconfig.tuf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.squareup.moshi.Moshi;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Map;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+class RemoteConfigResponseFactoryTest {
+
+  private final RemoteConfigResponse.Factory factory =
+      new RemoteConfigResponse.Factory(
+          new Moshi.Builder()
+              .add(Instant.class, new InstantJsonAdapter())
+              .add(ByteString.class, new RawJsonAdapter())
+              .build());
+
+  @Test
+  void identicalTargetsAreOnlyParsedOnce() throws IOException {
+    RemoteConfigResponse first = parse("validOneFile");
+    RemoteConfigResponse second = parse("validOneFile");
+
+    assertSame(first.getTargetsSigned(), second.getTargetsSigned());
+    Map<String, Object> untypedTargetsSigned = second.getUntypedTargetsSigned();
+    assertNotNull(untypedTargetsSigned);
+    assertEquals(first.getUntypedTargetsSigned(), untypedTargetsSigned);
+    // the target files of each response are still their own
+    assertNotSame(first.targetFiles, second.targetFiles);
+  }
+
+  @Test
+  void changedTargetsAreParsedAgain() throws IOException {
+    RemoteConfigResponse first = parse("validOneFile");
+    RemoteConfigResponse second = parse("tufTargetsInvalidSignature");
+    RemoteConfigResponse third = parse("validOneFile");
+
+    assertNotSame(first.getTargetsSigned(), second.getTargetsSigned());
+    assertNotSame(first.getTargetsSigned(), third.getTargetsSigned());
+    assertEquals(first.getUntypedTargetsSigned(), third.getUntypedTargetsSigned());
+  }
+
+  private RemoteConfigResponse parse(String baseFileName) throws IOException {
+    byte[] body =
+        Files.readAllBytes(Paths.get("src/test/resources/rcte1/" + baseFileName + ".json"));
+    return factory.fromInputStream(new ByteArrayInputStream(body)).get();
+  }
+}
@@ -1,10 +1,11 @@
 package datadog.telemetry.dependency;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
-import java.security.DigestInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -27,20 +28,21 @@ public final class Dependency {
   private static final Pattern FILE_REGEX =
       Pattern.compile("^(.+?)(?:-([0-9][^-]+(?:-\\w+)?))?\\.jar$");
 
-  private static final byte[] buf = new byte[8192];
+  /** Size of the windows mapped when hashing a jar file, keeping the address space use bounded. */
+  private static final long MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
 
-  private static final MessageDigest md;
-
-  static {
-    MessageDigest digest = null;
-    try {
-      digest = MessageDigest.getInstance("SHA-1");
-    } catch (NoSuchAlgorithmException e) {
-      // should not happen
-      log.error("Unable to create cipher", e);
-    }
-    md = digest;
-  }
+  /** Digests are thread-confined so that jars can be hashed concurrently without locking. */
+  private static final ThreadLocal<MessageDigest> SHA1 =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+              // should not happen
+              log.error("Unable to create cipher", e);
+              return null;
+            }
+          });
 
   public final String name;
   public final String version;
@@ -130,13 +132,15 @@ public final class Dependency {
     return dependencies;
   }
 
-  @SuppressFBWarnings(
-      value = {"USO_UNSAFE_METHOD_SYNCHRONIZATION", "USO_UNSAFE_STATIC_METHOD_SYNCHRONIZATION"},
-      justification =
-          "Static synchronized method guards the shared static MessageDigest and byte[] buffer; the"
-              + " Dependency.class lock is internal and not exposed to application code.")
-  public static synchronized Dependency guessFallbackNoPom(
-      Attributes manifest, String source, InputStream is) throws IOException {
+  public static Dependency guessFallbackNoPom(Attributes manifest, String source, InputStream is)
+      throws IOException {
+    // Compute hash for all dependencies that have no pom
+    // No reliable version calculate hash and use any version
+    return guessFallbackNoPomWithHash(manifest, source, sha1(is));
+  }
+
+  static Dependency guessFallbackNoPomWithHash(
+      Attributes manifest, String source, @Nullable String hash) {
     final int slashIndex = source.lastIndexOf('/');
     if (slashIndex >= 0) {
       source = source.substring(slashIndex + 1);
@@ -145,7 +149,6 @@ public final class Dependency {
     String artifactId;
     String groupId = null;
     String version;
-    String hash = null;
 
     // Guess from manifest
     String bundleSymbolicName = null;
@@ -216,18 +219,51 @@ public final class Dependency {
       name = groupId + ":" + artifactId;
     }
 
-    if (md != null) {
-      // Compute hash for all dependencies that have no pom
-      // No reliable version calculate hash and use any version
-      md.reset();
-      is = new DigestInputStream(is, md);
-      while (is.read(buf, 0, buf.length) > 0) {}
-      hash = String.format("%040X", new BigInteger(1, md.digest()));
-    }
     log.debug("No maven dependency added {}.{} jar name {} hash {}", name, version, source, hash);
     return new Dependency(name, version, source, hash);
   }
 
+  /** Returns the upper-case hex SHA-1 of the stream content, or null if SHA-1 is unavailable. */
+  @Nullable
+  static String sha1(InputStream is) throws IOException {
+    final MessageDigest md = SHA1.get();
+    if (md == null) {
+      return null;
+    }
+    md.reset();
+    final byte[] buf = new byte[8192];
+    int read;
+    while ((read = is.read(buf, 0, buf.length)) > 0) {
+      md.update(buf, 0, read);
+    }
+    return toHex(md.digest());
+  }
+
+  /**
+   * Returns the upper-case hex SHA-1 of the file content, reading it through memory mapped windows
+   * instead of copying it through a heap buffer. Returns null if SHA-1 is unavailable.
+   */
+  @Nullable
+  static String sha1(Path file) throws IOException {
+    final MessageDigest md = SHA1.get();
+    if (md == null) {
+      return null;
+    }
+    md.reset();
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      for (long position = 0; position < size; position += MAPPED_WINDOW_SIZE) {
+        final long length = Math.min(MAPPED_WINDOW_SIZE, size - position);
+        md.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+      }
+    }
+    return toHex(md.digest());
+  }
+
+  private static String toHex(byte[] digest) {
+    return String.format("%040X", new BigInteger(1, digest));
+  }
+
   private static boolean isValidArtifactId(String artifactId) {
     return hasText(artifactId)
         && !artifactId.contains(" ")
@@ -0,0 +1,221 @@
+package datadog.telemetry.dependency;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of resolved dependency metadata, so that restarts skip reopening and rehashing jars
+ * that did not change.
+ *
+ * <p>Entries are keyed by the location together with the last modification time and size of the
+ * backing file. The cache file is append-only: each resolved location adds one tab-separated line
+ * per dependency, and lines written concurrently by other JVMs sharing the directory are merged on
+ * the next load, keeping a single dependency per name and version of a location. The file is
+ * discarded once it grows past {@link #MAX_FILE_SIZE}.
+ */
+public final class DependencyCache {
+
+  private static final Logger log = LoggerFactory.getLogger(DependencyCache.class);
+
+  static final String FILE_NAME = "telemetry-dependencies-v1.cache";
+  private static final long MAX_FILE_SIZE = 4 * 1024 * 1024;
+  private static final char SEPARATOR = '\t';
+
+  private final Path file;
+  private final Map<String, List<Dependency>> entries = new ConcurrentHashMap<>();
+
+  DependencyCache(Path file) {
+    this.file = file;
+    load();
+  }
+
+  /**
+   * Creates a cache stored in the given directory.
+   *
+   * @return the cache, or null if no directory is configured or it cannot be created
+   */
+  @Nullable
+  public static DependencyCache create(@Nullable String directory) {
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    try {
+      Path dir = Paths.get(directory);
+      Files.createDirectories(dir);
+      return new DependencyCache(dir.resolve(FILE_NAME));
+    } catch (Exception e) {
+      log.debug("Unable to use dependency cache directory {}", directory, e);
+      return null;
+    }
+  }
+
+  @Nullable
+  List<Dependency> get(String key) {
+    return entries.get(key);
+  }
+
+  void put(String key, List<Dependency> dependencies) {
+    if (entries.putIfAbsent(key, dependencies) != null) {
+      return;
+    }
+    StringBuilder lines = new StringBuilder();
+    for (Dependency dependency : dependencies) {
+      if (!appendLine(lines, key, dependency)) {
+        return; // not representable, keep it in memory only
+      }
+    }
+    // a single append per location keeps lines from concurrent writers from interleaving
+    try (FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(UTF_8));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } catch (IOException e) {
+      log.debug("Unable to write dependency cache {}", file, e);
+    }
+  }
+
+  /**
+   * Computes the cache key of a location, from the location itself and the modification time and
+   * size of the file backing it (the outer jar for nested jars).
+   *
+   * @return the key, or null if the location is not backed by a regular file
+   */
+  @Nullable
+  static String key(URI uri) {
+    File backingFile = backingFile(uri);
+    if (backingFile == null || !backingFile.isFile()) {
+      return null;
+    }
+    long lastModified = backingFile.lastModified();
+    long size = backingFile.length();
+    if (lastModified == 0 || size == 0) {
+      return null;
+    }
+    String location = uri.toString();
+    if (location.indexOf(SEPARATOR) >= 0 || location.indexOf('\n') >= 0) {
+      return null;
+    }
+    return location + '|' + lastModified + '|' + size;
+  }
+
+  @Nullable
+  private static File backingFile(URI uri) {
+    String scheme = uri.getScheme();
+    if ("file".equals(scheme)) {
+      return uri.isOpaque() ? new File(uri.getSchemeSpecificPart()) : new File(uri);
+    }
+    if (!"jar".equals(scheme)) {
+      return null;
+    }
+    String path = uri.getSchemeSpecificPart();
+    String separator;
+    if (path.startsWith("file:")) {
+      path = path.substring("file:".length());
+      separator = "!/";
+    } else if (path.startsWith("nested:")) {
+      path = path.substring("nested:".length());
+      separator = "/!";
+    } else {
+      return null;
+    }
+    int sepIdx = path.indexOf(separator);
+    return new File(sepIdx == -1 ? stripTrailingBang(path) : path.substring(0, sepIdx));
+  }
+
+  private static String stripTrailingBang(String path) {
+    return path.endsWith("!") ? path.substring(0, path.length() - 1) : path;
+  }
+
+  private static boolean appendLine(StringBuilder lines, String key, Dependency dependency) {
+    String[] fields = {dependency.name, dependency.version, dependency.source, dependency.hash};
+    lines.append(key);
+    for (String field : fields) {
+      if (field != null && (field.indexOf(SEPARATOR) >= 0 || field.indexOf('\n') >= 0)) {
+        return false;
+      }
+      lines.append(SEPARATOR).append(field != null ? field : "");
+    }
+    lines.append('\n');
+    return true;
+  }
+
+  private void load() {
+    try {
+      if (Files.size(file) > MAX_FILE_SIZE) {
+        Files.deleteIfExists(file);
+        return;
+      }
+      // several JVMs may append the same location, so dependencies are deduplicated by name and
+      // version, the last line read winning
+      Map<String, Map<String, Dependency>> loaded = new HashMap<>();
+      try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] fields = split(line);
+          if (fields == null || fields[0].isEmpty() || fields[1].isEmpty()) {
+            continue; // partially written or corrupted line
+          }
+          loaded
+              .computeIfAbsent(fields[0], k -> new LinkedHashMap<>())
+              .put(
+                  fields[1] + SEPARATOR + fields[2],
+                  new Dependency(
+                      fields[1], fields[2], fields[3], fields[4].isEmpty() ? null : fields[4]));
+        }
+      }
+      for (Map.Entry<String, Map<String, Dependency>> entry : loaded.entrySet()) {
+        entries.put(
+            entry.getKey(),
+            Collections.unmodifiableList(new ArrayList<>(entry.getValue().values())));
+      }
+    } catch (NoSuchFileException ignored) {
+      // nothing cached yet
+    } catch (Exception e) {
+      log.debug("Unable to read dependency cache {}", file, e);
+    }
+  }
+
+  @Nullable
+  private static String[] split(String line) {
+    String[] fields = new String[5];
+    int start = 0;
+    for (int i = 0; i < fields.length - 1; i++) {
+      int end = line.indexOf(SEPARATOR, start);
+      if (end < 0) {
+        return null;
+      }
+      fields[i] = line.substring(start, end);
+      start = end + 1;
+    }
+    String last = line.substring(start);
+    if (last.indexOf(SEPARATOR) >= 0) {
+      return null;
+    }
+    fields[fields.length - 1] = last;
+    return fields;
+  }
+}
@@ -2,10 +2,10 @@ package datadog.telemetry.dependency;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,8 +14,27 @@ public class DependencyResolver {
   private static final Logger log = LoggerFactory.getLogger(DependencyResolver.class);
 
   public static List<Dependency> resolve(URI uri) {
+    return resolve(uri, null);
+  }
+
+  /**
+   * Resolves the dependencies at the given location, reusing the metadata stored in the cache when
+   * the backing file is unchanged since it was last resolved.
+   */
+  public static List<Dependency> resolve(URI uri, @Nullable DependencyCache cache) {
     try {
-      return internalResolve(uri);
+      final String cacheKey = cache != null ? DependencyCache.key(uri) : null;
+      if (cacheKey != null) {
+        final List<Dependency> cached = cache.get(cacheKey);
+        if (cached != null) {
+          return cached;
+        }
+      }
+      final List<Dependency> dependencies = internalResolve(uri);
+      if (cacheKey != null && !dependencies.isEmpty()) {
+        cache.put(cacheKey, dependencies);
+      }
+      return dependencies;
     } catch (Throwable t) {
       log.debug("Failed to determine dependency for uri {}", uri, t);
     }
@@ -49,10 +68,9 @@ public class DependencyResolver {
     if (!dependencies.isEmpty()) {
       return dependencies;
     }
-    try (final InputStream is = metadata.inputStreamSupplier.get()) {
-      return Collections.singletonList(
-          Dependency.guessFallbackNoPom(metadata.manifest, metadata.jarName, is));
-    }
+    return Collections.singletonList(
+        Dependency.guessFallbackNoPomWithHash(
+            metadata.manifest, metadata.jarName, metadata.hashSupplier.get()));
   }
 
   private static JarReader.Extracted resolveNestedJar(final URI uri) throws IOException {
@@ -2,6 +2,7 @@ package datadog.telemetry.dependency;
 
 import datadog.trace.api.Config;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -19,11 +20,16 @@ public class DependencyResolverQueue {
   private final Set<URI> processedUrlsSet; // guarded by this
   private static int MAX_QUEUE_SIZE = Config.get().getTelemetryDependencyResolutionQueueSize();
 
+  private final DependencyCache cache;
+  private final ParallelDependencyResolver parallelResolver;
+
   private boolean resolverQueueDisabled = false;
 
   public DependencyResolverQueue() {
     newUrlsQueue = new ConcurrentLinkedQueue<>();
     processedUrlsSet = new HashSet<>();
+    cache = DependencyCache.create(Config.get().getTelemetryDependencyCacheDir());
+    parallelResolver = new ParallelDependencyResolver(cache);
   }
 
   // This constructor is intended for testing purposes only
@@ -31,6 +37,16 @@ public class DependencyResolverQueue {
     MAX_QUEUE_SIZE = maxQueueSize;
     newUrlsQueue = new ConcurrentLinkedQueue<>();
     processedUrlsSet = new HashSet<>();
+    cache = null;
+    parallelResolver = new ParallelDependencyResolver(null);
+  }
+
+  // This constructor is intended for testing purposes only
+  DependencyResolverQueue(DependencyCache cache, int parallelism) {
+    newUrlsQueue = new ConcurrentLinkedQueue<>();
+    processedUrlsSet = new HashSet<>();
+    this.cache = cache;
+    parallelResolver = new ParallelDependencyResolver(cache, parallelism);
   }
 
   public void queueURI(URI uri) {
@@ -79,7 +95,7 @@ public class DependencyResolverQueue {
       return Collections.emptyList();
     }
 
-    List<Dependency> dep = DependencyResolver.resolve(uri);
+    List<Dependency> dep = DependencyResolver.resolve(uri, cache);
     if (dep.isEmpty()) {
       log.debug("unable to detect dependency for URI {}", uri);
       return Collections.emptyList();
@@ -90,4 +106,24 @@ public class DependencyResolverQueue {
 
     return dep;
   }
+
+  /**
+   * Resolves up to {@code maxBatchSize} queued locations at once, in parallel.
+   *
+   * @return the dependencies detected in the polled locations
+   */
+  public List<Dependency> pollDependencies(int maxBatchSize) {
+    List<URI> uris = new ArrayList<>();
+    URI uri;
+    while (uris.size() < maxBatchSize && (uri = newUrlsQueue.poll()) != null) {
+      uris.add(uri);
+    }
+
+    List<Dependency> deps = parallelResolver.resolveAll(uris);
+    if (log.isDebugEnabled() && !uris.isEmpty()) {
+      log.debug("dependencies detected {} for {}", deps, uris);
+    }
+
+    return deps;
+  }
 }
@@ -23,12 +23,24 @@ public class DependencyService implements Runnable {
 
   private static final Logger log = LoggerFactory.getLogger(DependencyService.class);
 
-  private final DependencyResolverQueue resolverQueue = new DependencyResolverQueue();
+  /** Maximum number of locations resolved in one periodic run. */
+  private static final int MAX_BATCH_SIZE = 64;
+
+  private final DependencyResolverQueue resolverQueue;
 
   private final BlockingQueue<Dependency> newDependencies = new LinkedBlockingQueue<>();
 
   private AgentTaskScheduler.Scheduled<Runnable> scheduledTask;
 
+  public DependencyService() {
+    this(new DependencyResolverQueue());
+  }
+
+  // This constructor is intended for testing purposes only
+  DependencyService(DependencyResolverQueue resolverQueue) {
+    this.resolverQueue = resolverQueue;
+  }
+
   public void schedulePeriodicResolution() {
     scheduledTask =
         AgentTaskScheduler.get()
@@ -50,6 +62,14 @@ public class DependencyService implements Runnable {
     }
   }
 
+  /** Resolves a batch of queued locations concurrently. */
+  public void resolveDependencies() {
+    for (Dependency dependency : resolverQueue.pollDependencies(MAX_BATCH_SIZE)) {
+      log.debug("Resolved dependency {}", dependency.name);
+      newDependencies.add(dependency);
+    }
+  }
+
   /**
    * Registers this service as a no-op class file transformer.
    *
@@ -99,7 +119,7 @@ public class DependencyService implements Runnable {
 
   @Override
   public void run() {
-    resolveOneDependency();
+    resolveDependencies();
   }
 
   public void stop() {
@@ -3,7 +3,6 @@ package datadog.telemetry.dependency;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Paths;
 import java.util.Enumeration;
@@ -22,23 +21,23 @@ class JarReader {
     final Map<String, Properties> pomProperties;
     final Attributes manifest;
     final boolean isDirectory;
-    final InputStreamSupplier inputStreamSupplier;
+    final HashSupplier hashSupplier;
 
     public Extracted(
         final String jarName,
         final Map<String, Properties> pomProperties,
         final Attributes manifest,
         final boolean isDirectory,
-        final InputStreamSupplier inputStreamSupplier) {
+        final HashSupplier hashSupplier) {
       this.jarName = jarName;
       this.pomProperties = pomProperties;
       this.manifest = manifest;
       this.isDirectory = isDirectory;
-      this.inputStreamSupplier = inputStreamSupplier;
+      this.hashSupplier = hashSupplier;
     }
 
-    public interface InputStreamSupplier {
-      InputStream get() throws IOException;
+    public interface HashSupplier {
+      String get() throws IOException;
     }
   }
 
@@ -68,7 +67,7 @@ class JarReader {
           pomProperties,
           attributes,
           false,
-          () -> Files.newInputStream(Paths.get(jarPath)));
+          () -> Dependency.sha1(Paths.get(jarPath)));
     }
   }
 
@@ -102,7 +101,12 @@ class JarReader {
             pomProperties,
             attributes,
             false,
-            () -> new NestedJarInputStream(outerJarPath, innerJarPath));
+            () -> {
+              try (final InputStream nested =
+                  new NestedJarInputStream(outerJarPath, innerJarPath)) {
+                return Dependency.sha1(nested);
+              }
+            });
       }
     }
   }
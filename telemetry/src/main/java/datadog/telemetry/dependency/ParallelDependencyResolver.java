@@ -0,0 +1,88 @@
+package datadog.telemetry.dependency;
+
+import static datadog.trace.util.AgentThreadFactory.AgentThread.TELEMETRY_DEPENDENCY_RESOLVER;
+
+import datadog.trace.util.AgentThreadFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Resolves batches of dependency locations concurrently. Hashing uses thread-confined digests (see
+ * {@link Dependency#sha1}) so the workers do not contend on a shared lock. Worker threads are
+ * created on demand and exit once idle, so the pool costs nothing after startup class loading has
+ * settled.
+ */
+final class ParallelDependencyResolver {
+
+  static final int PARALLELISM =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+  private static final long KEEP_ALIVE_SECONDS = 30;
+
+  @Nullable private final DependencyCache cache;
+  private final int parallelism;
+  private volatile ThreadPoolExecutor executor;
+
+  ParallelDependencyResolver(@Nullable DependencyCache cache) {
+    this(cache, PARALLELISM);
+  }
+
+  ParallelDependencyResolver(@Nullable DependencyCache cache, int parallelism) {
+    this.cache = cache;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  List<Dependency> resolveAll(List<URI> uris) {
+    if (uris.isEmpty()) {
+      return Collections.emptyList();
+    }
+    if (uris.size() == 1 || parallelism == 1) {
+      List<Dependency> dependencies = new ArrayList<>();
+      for (URI uri : uris) {
+        dependencies.addAll(DependencyResolver.resolve(uri, cache));
+      }
+      return dependencies;
+    }
+    ThreadPoolExecutor executor = executor();
+    List<CompletableFuture<List<Dependency>>> futures = new ArrayList<>(uris.size());
+    for (URI uri : uris) {
+      futures.add(
+          CompletableFuture.supplyAsync(() -> DependencyResolver.resolve(uri, cache), executor));
+    }
+    List<Dependency> dependencies = new ArrayList<>();
+    for (CompletableFuture<List<Dependency>> future : futures) {
+      // resolve() never throws, failures are reported as an empty list
+      dependencies.addAll(future.join());
+    }
+    return dependencies;
+  }
+
+  private ThreadPoolExecutor executor() {
+    ThreadPoolExecutor executor = this.executor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = this.executor;
+        if (executor == null) {
+          executor =
+              new ThreadPoolExecutor(
+                  parallelism,
+                  parallelism,
+                  KEEP_ALIVE_SECONDS,
+                  TimeUnit.SECONDS,
+                  new LinkedBlockingQueue<>(),
+                  new AgentThreadFactory(TELEMETRY_DEPENDENCY_RESOLVER));
+          executor.allowCoreThreadTimeOut(true);
+          this.executor = executor;
+        }
+      }
+    }
+    return executor;
+  }
+}
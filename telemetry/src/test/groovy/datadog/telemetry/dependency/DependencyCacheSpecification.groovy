@@ -0,0 +1,80 @@
+package datadog.telemetry.dependency
+
+import spock.lang.TempDir
+
+import java.nio.file.Files
+
+class DependencyCacheSpecification extends DepSpecification {
+
+  @TempDir
+  File testDir
+
+  void 'resolved dependencies are reused across cache instances'() {
+    given:
+    File jar = new File(testDir, 'bson-4.2.0.jar')
+    Files.copy(getJar('bson-4.2.0.jar').toPath(), jar.toPath())
+    File cacheDir = new File(testDir, 'cache')
+    def resolved = DependencyResolver.resolve(jar.toURI(), DependencyCache.create(cacheDir.path))
+
+    when: 'a new cache is loaded from the same directory'
+    def cache = DependencyCache.create(cacheDir.path)
+    def cached = cache.get(DependencyCache.key(jar.toURI()))
+
+    then:
+    cached != null
+    cached.size() == resolved.size()
+    cached[0].name == resolved[0].name
+    cached[0].version == resolved[0].version
+    cached[0].source == resolved[0].source
+    cached[0].hash == resolved[0].hash
+  }
+
+  void 'locations appended by several processes are loaded once'() {
+    given:
+    File jar = new File(testDir, 'bson-4.2.0.jar')
+    Files.copy(getJar('bson-4.2.0.jar').toPath(), jar.toPath())
+    File cacheDir = new File(testDir, 'cache')
+    def key = DependencyCache.key(jar.toURI())
+    def dependencies = [new Dependency('org.mongodb:bson', '4.2.0', 'bson-4.2.0.jar', null)]
+
+    when: 'two processes resolve the same jar before either loads the other\'s entry'
+    def first = DependencyCache.create(cacheDir.path)
+    def second = DependencyCache.create(cacheDir.path)
+    first.put(key, dependencies)
+    second.put(key, dependencies)
+    def cached = DependencyCache.create(cacheDir.path).get(key)
+
+    then:
+    cached.size() == 1
+    cached[0].name == 'org.mongodb:bson'
+    cached[0].version == '4.2.0'
+  }
+
+  void 'cache key changes when the jar is modified'() {
+    given:
+    File jar = new File(testDir, 'bson-4.2.0.jar')
+    Files.copy(getJar('bson-4.2.0.jar').toPath(), jar.toPath())
+    def key = DependencyCache.key(jar.toURI())
+
+    when:
+    jar.setLastModified(jar.lastModified() - 10_000)
+
+    then:
+    DependencyCache.key(jar.toURI()) != key
+  }
+
+  void 'nested jars are keyed by their outer jar'() {
+    given:
+    File outer = getJar('spring-boot-app.jar')
+    URI uri = new URI("jar:file:${outer.path}!/BOOT-INF/lib/opentracing-util-0.33.0.jar!/")
+
+    expect:
+    DependencyCache.key(uri) == "${uri}|${outer.lastModified()}|${outer.length()}".toString()
+  }
+
+  void 'no cache without a directory'() {
+    expect:
+    DependencyCache.create(null) == null
+    DependencyCache.create('') == null
+  }
+}
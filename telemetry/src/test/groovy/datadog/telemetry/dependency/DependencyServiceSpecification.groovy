@@ -1,8 +1,11 @@
 package datadog.telemetry.dependency
 
+import spock.lang.TempDir
+
 import java.lang.instrument.ClassFileTransformer
 import java.lang.instrument.IllegalClassFormatException
 import java.lang.instrument.Instrumentation
+import java.nio.file.Files
 import java.security.CodeSigner
 import java.security.CodeSource
 import java.security.ProtectionDomain
@@ -10,6 +13,9 @@ import java.security.ProtectionDomain
 class DependencyServiceSpecification extends DepSpecification {
   DependencyService depService = new DependencyService()
 
+  @TempDir
+  File testDir
+
   void 'no uris pushed should result in empty list'() {
     when:
     depService.resolveOneDependency()
@@ -178,4 +184,55 @@ class DependencyServiceSpecification extends DepSpecification {
     then:
     depService.drainDeterminedDependencies().isEmpty()
   }
+
+  void 'batched resolution keeps the queue order'() {
+    given:
+    def service = new DependencyService(new DependencyResolverQueue(null, 4))
+    ['junit-4.12.jar', 'asm-util-9.2.jar', 'bson-4.2.0.jar'].each {
+      service.addURL(getJar(it).toURI().toURL())
+    }
+
+    when:
+    service.run()
+
+    then:
+    def dependencies = service.drainDeterminedDependencies() as List<Dependency>
+    dependencies*.name == ['junit', 'asm-util', 'org.mongodb:bson']
+    dependencies*.version == ['4.12', '9.2', '4.2.0']
+
+    when: 'nothing else is queued'
+    service.run()
+
+    then:
+    service.drainDeterminedDependencies().isEmpty()
+  }
+
+  void 'batched resolution reuses cached locations and resolves the others'() {
+    given:
+    File junit = new File(testDir, 'junit-4.12.jar')
+    File bson = new File(testDir, 'bson-4.2.0.jar')
+    Files.copy(getJar('junit-4.12.jar').toPath(), junit.toPath())
+    Files.copy(getJar('bson-4.2.0.jar').toPath(), bson.toPath())
+    File cacheDir = new File(testDir, 'cache')
+    DependencyCache.create(cacheDir.path).put(
+      DependencyCache.key(junit.toURI()),
+      [new Dependency('junit', 'cached', 'junit-4.12.jar', null)])
+
+    and: 'a cache loaded from disk, as after a restart'
+    def cache = DependencyCache.create(cacheDir.path)
+    def service = new DependencyService(new DependencyResolverQueue(cache, 4))
+    service.addURL(junit.toURI().toURL())
+    service.addURL(bson.toURI().toURL())
+
+    when:
+    service.run()
+
+    then: 'the cached location is not read again and the other one is resolved from the jar'
+    def dependencies = service.drainDeterminedDependencies() as List<Dependency>
+    dependencies*.name == ['junit', 'org.mongodb:bson']
+    dependencies*.version == ['cached', '4.2.0']
+
+    and: 'the resolved location is cached'
+    cache.get(DependencyCache.key(bson.toURI()))*.version == ['4.2.0']
+  }
 }